@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      AsyncExecutionBenchmark.java
+ * Date:    26-10-18 下午10:30
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.mapping.handler.DomainMappingHandlerAdapter;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 高并发下包含阻塞调用的 handler 的吞吐量，在嵌入式 Tomcat 上比较容器线程同步执行（pooled）与异步执行（async）。
+ * <p>
+ * handler 每次请求阻塞 latency 毫秒以模拟 JDBC 调用，Tomcat 的工作线程数为 containerThreads，256 个客户端线程并发请求。
+ * 同步执行时吞吐量受限于 containerThreads / latency；异步执行时容器线程在解析参数后即被释放，
+ * handler 在 DomainMappingHandler 的默认 executor 上执行（JDK 21 及以上为虚拟线程，否则为每个请求一个线程），
+ * 吞吐量受限于客户端线程数 / latency。latency 较小时请求本身的开销占主导，两者的差距会被处理器数量掩盖。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+@Warmup (iterations = 2, time = 5)
+@Measurement (iterations = 3, time = 5)
+@Fork (1)
+public class AsyncExecutionBenchmark {
+
+	/**
+	 * WebConfig 与 DemoBlockingController 由 Spring 实例化，通过静态字段传递参数
+	 */
+	private static volatile int blockingMillis;
+
+	private static volatile boolean asyncExecution;
+
+	@Param ({ "pooled", "async" })
+	public String execution;
+
+	@Param ({ "32" })
+	public int containerThreads;
+
+	@Param ({ "200" })
+	public int latency;
+
+	private Tomcat tomcat;
+
+	private URL url;
+
+	@Setup
+	public void setup () throws IOException, LifecycleException {
+		blockingMillis = latency;
+		asyncExecution = "async".equals(execution);
+
+		AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+		context.register(WebConfig.class, DemoBlockingController.class);
+
+		tomcat = new Tomcat();
+		tomcat.setBaseDir(Files.createTempDirectory("tomcat").toString());
+		tomcat.setPort(0);
+		tomcat.getConnector().setProperty("maxThreads", String.valueOf(containerThreads));
+		tomcat.getConnector().setProperty("acceptCount", "1024");
+
+		StandardContext servletContext = (StandardContext) tomcat.addContext("", null);
+		/* 清理时需要反射访问 java.io，在 JDK 9 及以上会失败 */
+		servletContext.setClearReferencesObjectStreamClassCaches(false);
+		Wrapper dispatcher = Tomcat.addServlet(servletContext, "dispatcher", new DispatcherServlet(context));
+		dispatcher.setAsyncSupported(true);
+		dispatcher.setLoadOnStartup(1);
+		servletContext.addServletMappingDecoded("/", "dispatcher");
+		tomcat.start();
+
+		url = new URL("http://localhost:" + tomcat.getConnector().getLocalPort() + "/demo-blocking/query");
+		if (! "OK".equals(request())) {
+			throw new IllegalStateException("Unexpected response from " + url);
+		}
+	}
+
+	@TearDown
+	public void tearDown () throws LifecycleException {
+		tomcat.stop();
+		tomcat.destroy();
+	}
+
+	@Benchmark
+	@Threads (256)
+	public String request () throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try (InputStream in = connection.getInputStream()) {
+			byte[] buffer = new byte[64];
+			int length = 0;
+			for (int read; (read = in.read(buffer, length, buffer.length - length)) > 0; ) {
+				length += read;
+			}
+			return new String(buffer, 0, length, "UTF-8");
+		}
+	}
+
+	/**
+	 * 以 Component 代替 Configuration 注解，避免在 JDK 9 及以上需要为 CGLIB 开放 java.lang
+	 */
+	@Component
+	public static class WebConfig extends WebMvcConfigurationSupport {
+
+		@Override
+		protected RequestMappingHandlerMapping createRequestMappingHandlerMapping () {
+			DomainMappingHandler handler = new DomainMappingHandler(new SyntheticControllers.NameResolver());
+			handler.setAsyncExecution(asyncExecution);
+			return handler;
+		}
+
+		@Override
+		protected RequestMappingHandlerAdapter createRequestMappingHandlerAdapter () {
+			return new DomainMappingHandlerAdapter();
+		}
+
+		@Override
+		protected void configureAsyncSupport (AsyncSupportConfigurer configurer) {
+			configurer.setDefaultTimeout(TimeUnit.MINUTES.toMillis(1));
+		}
+	}
+
+	@RestDomainMapping
+	public static class DemoBlockingController {
+
+		public String query () throws InterruptedException {
+			Thread.sleep(blockingMillis);
+			return "OK";
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      BenchmarkRunner.java
+ * Date:    26-10-18 下午5:12
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行基准测试并将结果以 JSON 格式写入文件，便于比较不同版本的结果。
+ * <p>
+ * 用法：<code>java -jar benchmarks/target/benchmarks.jar [结果文件] [基准测试名称的正则...]</code>，
+ * 结果文件默认为 <code>jmh-result.json</code>。需要 JMH 的其他参数时可以直接使用 <code>org.openjdk.jmh.Main</code>。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class BenchmarkRunner {
+
+	public static final String DEFAULT_RESULT = "jmh-result.json";
+
+	public static void main (String[] args) throws RunnerException {
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.resultFormat(ResultFormatType.JSON)
+				.result(args.length > 0 ? args[0] : DEFAULT_RESULT);
+
+		if (args.length > 1) {
+			for (int i = 1; i < args.length; i++) {
+				options.include(args[i]);
+			}
+		} else {
+			options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+		}
+
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      BinaryRoutesBenchmark.java
+ * Date:    26-10-18 下午7:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.route.BinaryRoutes;
+import com.krun.spring.extend.route.Handler;
+import com.krun.spring.extend.route.Route;
+import com.krun.spring.extend.route.generator.AbstractRoutesGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取方每次刷新路由树后查找一个 Handler 的耗时。
+ * parseJson 为以 fastjson 将 getRoutes 的结果解析为 Route 后逐级查找，
+ * mapBinary 为映射 writeBinaryRoutes 写出的文件后以 BinaryRoutes 直接查找。
+ * 可以加上 <code>-prof gc</code> 比较每次刷新分配的内存。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class BinaryRoutesBenchmark {
+
+	@Param ({ "1000", "5000" })
+	public int controllers;
+
+	@Param ({ "4" })
+	public int depth;
+
+	private byte[] json;
+
+	private File file;
+
+	/**
+	 * 最后一个叶路由的路径，按段拆分
+	 */
+	private String[] segments;
+
+	private String path;
+
+	private String handlerName;
+
+	@Setup
+	public void setup () throws IOException {
+		SyntheticControllers synthetic = SyntheticControllers.generate(controllers, depth, 5);
+		StaticApplicationContext context = synthetic.createContext();
+		DomainMappingHandler handler = SyntheticControllers.createHandler(context, false);
+
+		Generator generator = new Generator();
+		ReflectionTestUtils.setField(generator, "handlerMapping", handler);
+		json = generator.getRoutes().getBytes(StandardCharsets.UTF_8);
+		file = File.createTempFile("routes", ".bin");
+		try (OutputStream out = new FileOutputStream(file)) {
+			generator.writeBinaryRoutes(new Class[0], out);
+		}
+		generator.destroy();
+		context.close();
+
+		BinaryRoutes routes = BinaryRoutes.map(file);
+		int route = routes.getRoot();
+		StringBuilder builder = new StringBuilder();
+		while (routes.getChildCount(route) > 0) {
+			route = routes.getChild(route, routes.getChildCount(route) - 1);
+			builder.append('/').append(routes.getName(route));
+		}
+		path = builder.toString();
+		segments = path.substring(1).split("/");
+		handlerName = routes.getHandlerName(routes.getHandler(route, routes.getHandlerCount(route) - 1));
+	}
+
+	@TearDown
+	public void tearDown () {
+		file.delete();
+	}
+
+	@Benchmark
+	public String parseJson () {
+		Route route = JSON.parseObject(json, Route.class);
+		for (String segment : segments) {
+			Route next = null;
+			for (Route child : route.getRoutes()) {
+				if (segment.equals(child.getName())) {
+					next = child;
+					break;
+				}
+			}
+			route = next;
+		}
+		for (Handler handler : route.getHandlers()) {
+			if (handlerName.equals(handler.getName())) {
+				return handler.getUrl();
+			}
+		}
+		return null;
+	}
+
+	@Benchmark
+	public int mapBinary () throws IOException {
+		BinaryRoutes routes = BinaryRoutes.map(file);
+		return routes.findHandler(routes.find(path), handlerName);
+	}
+
+	private static class Generator extends AbstractRoutesGenerator {
+
+		@Override
+		protected String getPrefix () {
+			return SyntheticControllers.PREFIX;
+		}
+
+		@Override
+		protected String getSuffix () {
+			return SyntheticControllers.SUFFIX;
+		}
+
+		@Override
+		protected boolean isExcludeType (Class<?> beanType) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      LookupBenchmark.java
+ * Date:    26-10-18 下午4:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求时查找 handler 方法的耗时，请求路径从已注册的映射中随机选取。
+ * lookup 为 dispatch 时只使用分发表，为 trie 时只使用分段前缀树，为 all 时两者都使用，为 none 时完全由父类查找（默认配置）；
+ * 使用前缀树时 lookupMiss 的耗时不应随 controllers 增长。cacheSize 为查找结果缓存的容量，lookupHit 的请求路径有 1024 个。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class LookupBenchmark {
+
+	private static final int REQUESTS = 1024;
+
+	@Param ({ "100", "1000", "5000" })
+	public int controllers;
+
+	@Param ({ "1", "4" })
+	public int depth;
+
+	@Param ({ "all", "dispatch", "trie", "none" })
+	public String lookup;
+
+	@Param ({ "0", "4096" })
+	public int cacheSize;
+
+	private StaticApplicationContext context;
+
+	private DomainMappingHandler handler;
+
+	private MockHttpServletRequest[] hits;
+
+	private MockHttpServletRequest miss;
+
+	@Setup
+	public void setup () {
+		context = SyntheticControllers.generate(controllers, depth, 5).createContext();
+		handler = SyntheticControllers.newHandler();
+		handler.setSegmentTrieLookup("all".equals(lookup) || "trie".equals(lookup));
+		handler.setDispatchTableLookup("all".equals(lookup) || "dispatch".equals(lookup));
+		handler.setLookupCacheSize(cacheSize);
+		SyntheticControllers.initialize(handler, context);
+
+		List<String> patterns = new ArrayList<>();
+		for (RequestMappingInfo info : handler.getHandlerMethods().keySet()) {
+			patterns.addAll(info.getPatternsCondition().getPatterns());
+		}
+		Collections.shuffle(patterns, new Random(42));
+
+		hits = new MockHttpServletRequest[REQUESTS];
+		for (int i = 0; i < REQUESTS; i++) {
+			hits[i] = new MockHttpServletRequest("GET", patterns.get(i % patterns.size()));
+		}
+		miss = new MockHttpServletRequest("GET", "/c99999-l00/find-item-by-id0");
+	}
+
+	@TearDown
+	public void tearDown () {
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation (REQUESTS)
+	public void lookupHit (Blackhole blackhole) throws Exception {
+		for (MockHttpServletRequest request : hits) {
+			blackhole.consume(handler.getHandler(request));
+		}
+	}
+
+	@Benchmark
+	public HandlerExecutionChain lookupMiss () throws Exception {
+		return handler.getHandler(miss);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      NameTranslatorBenchmark.java
+ * Date:    26-10-18 下午5:03
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.naming.NameTranslator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link NameTranslator} 与其取代的逐字符 StringBuilder 实现
+ * （domain-mapping 的 Utils.translateName 与 routes-generator 的 translateNameToPath）的对比。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class NameTranslatorBenchmark {
+
+	private static final String[] NAMES = {
+			"UserService", "findUserById", "list", "OrderItemDetail", "getHTTPHeaders", "v2Api",
+			"updatePasswordWithToken", "Report", "exportCsvFile", "AdminAuditLog", "query", "SessionManager"
+	};
+
+	private final NameTranslator uncached = new NameTranslator('-', false, false, 0);
+
+	@Benchmark
+	@OperationsPerInvocation (12)
+	public void hyphenCached (Blackhole blackhole) {
+		for (String name : NAMES) {
+			blackhole.consume(NameTranslator.HYPHEN.translate(name));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation (12)
+	public void hyphenUncached (Blackhole blackhole) {
+		for (String name : NAMES) {
+			blackhole.consume(uncached.translate(name));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation (12)
+	public void hyphenLegacy (Blackhole blackhole) {
+		for (String name : NAMES) {
+			blackhole.consume(legacyHyphen(name));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation (12)
+	public void slashCached (Blackhole blackhole) {
+		for (String name : NAMES) {
+			blackhole.consume(NameTranslator.SLASH.translate(name));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation (12)
+	public void slashLegacy (Blackhole blackhole) {
+		for (String name : NAMES) {
+			blackhole.consume(legacySlash(name));
+		}
+	}
+
+	private static String legacyHyphen (String name) {
+		StringBuilder builder = new StringBuilder();
+		char[] array = name.toCharArray();
+		for (int i = 0; i < array.length; i++) {
+			char c = array[i];
+			if ('a' <= c && c <= 'z') {
+				builder.append(c);
+			} else if ('A' <= c && c <= 'Z') {
+				if (i != 0) {
+					builder.append('-');
+				}
+				builder.append((char) (c + 32));
+			} else {
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+
+	private static String legacySlash (String name) {
+		char[] chars = name.toCharArray();
+		StringBuilder builder = new StringBuilder();
+		for (char c : chars) {
+			if ('A' <= c && c <= 'Z') {
+				builder.append('/').append((char) (c + 32));
+			} else {
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+}
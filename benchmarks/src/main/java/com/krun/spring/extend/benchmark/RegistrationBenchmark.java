@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RegistrationBenchmark.java
+ * Date:    26-10-18 下午4:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DomainMappingHandler 注册所有 Controller 的耗时，每次调用都使用新的 handler 与 MappingNameResolver。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class RegistrationBenchmark {
+
+	@Param ({ "1000", "5000" })
+	public int controllers;
+
+	@Param ({ "1", "4" })
+	public int depth;
+
+	@Param ({ "5" })
+	public int methods;
+
+	@Param ({ "false", "true" })
+	public boolean parallel;
+
+	private StaticApplicationContext context;
+
+	@Setup
+	public void setup () {
+		context = SyntheticControllers.generate(controllers, depth, methods).createContext();
+	}
+
+	@TearDown
+	public void tearDown () {
+		context.close();
+	}
+
+	@Benchmark
+	public DomainMappingHandler register () {
+		return SyntheticControllers.createHandler(context, parallel);
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RequestMetricsBenchmark.java
+ * Date:    26-10-18 下午11:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.mapping.metrics.RouteMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求统计在请求时的开销。
+ * interceptor 为统计拦截器的 preHandle 与 afterCompletion（包括路由查找、计时与请求属性的读写），
+ * record 与 recordContended 只记录到直方图，后者由 4 个线程同时记录同一个路由。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class RequestMetricsBenchmark {
+
+	private StaticApplicationContext context;
+
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	private Object handler;
+
+	private HandlerInterceptor interceptor;
+
+	private RouteMetrics route;
+
+	@Setup
+	public void setup () throws Exception {
+		context = SyntheticControllers.generate(100, 1, 5).createContext();
+		DomainMappingHandler mapping = SyntheticControllers.newHandler();
+		mapping.setRequestMetricsEnabled(true);
+		SyntheticControllers.initialize(mapping, context);
+
+		String path = mapping.getHandlerMethods().keySet().iterator().next()
+		                     .getPatternsCondition().getPatterns().iterator().next();
+		request = new MockHttpServletRequest("GET", path);
+		response = new MockHttpServletResponse();
+		HandlerExecutionChain chain = mapping.getHandler(request);
+		handler = chain.getHandler();
+		interceptor = chain.getInterceptors()[0];
+		route = mapping.getRequestMetrics().route(((HandlerMethod) handler).getResolvedFromHandlerMethod());
+	}
+
+	@TearDown
+	public void tearDown () {
+		context.close();
+	}
+
+	@Benchmark
+	public void interceptor () throws Exception {
+		interceptor.preHandle(request, response, handler);
+		interceptor.afterCompletion(request, response, handler, null);
+	}
+
+	@Benchmark
+	public void record () {
+		route.record(1500, false);
+	}
+
+	@Benchmark
+	@Threads (4)
+	public void recordContended () {
+		route.record(1500, false);
+	}
+}
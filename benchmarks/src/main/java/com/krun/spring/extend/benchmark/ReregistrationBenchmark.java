@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ReregistrationBenchmark.java
+ * Date:    26-10-18 下午9:02
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DomainMappingHandler.reregisterHandlers 的耗时，与 {@link RegistrationBenchmark} 的完整注册相比较。
+ * reregisterLeaf 重新注册继承链末端的一个 Controller，reregisterRoot 重新注册整条继承链。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class ReregistrationBenchmark {
+
+	@Param ({ "1000", "5000" })
+	public int controllers;
+
+	@Param ({ "4" })
+	public int depth;
+
+	private StaticApplicationContext context;
+
+	private DomainMappingHandler handler;
+
+	private List<Class<?>> classes;
+
+	private int next;
+
+	@Setup
+	public void setup () {
+		SyntheticControllers synthetic = SyntheticControllers.generate(controllers, depth, 5);
+		context = synthetic.createContext();
+		handler = SyntheticControllers.createHandler(context, false);
+		classes = synthetic.getControllers();
+	}
+
+	@TearDown
+	public void tearDown () {
+		context.close();
+	}
+
+	@Benchmark
+	public int reregisterLeaf () {
+		return handler.reregisterHandlers(nextChain(depth - 1));
+	}
+
+	@Benchmark
+	public int reregisterRoot () {
+		return handler.reregisterHandlers(nextChain(0));
+	}
+
+	private Class<?> nextChain (int level) {
+		int chains = classes.size() / depth;
+		int chain = next++ % chains;
+		return classes.get(chain * depth + level);
+	}
+}
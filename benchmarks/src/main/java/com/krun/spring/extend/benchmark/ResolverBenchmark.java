@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ResolverBenchmark.java
+ * Date:    26-10-18 下午4:31
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AbstractMappingNameResolver.resolve 的吞吐量，每次调用轮流解析下一个类或方法。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class ResolverBenchmark {
+
+	@Param ({ "1000" })
+	public int controllers;
+
+	@Param ({ "1", "4", "8" })
+	public int depth;
+
+	private SyntheticControllers.NameResolver resolver;
+
+	private Class<?>[] classes;
+
+	private Method[] methods;
+
+	private int next;
+
+	@Setup
+	public void setup () {
+		List<Class<?>> controllers = SyntheticControllers.generate(this.controllers, depth, 5).getControllers();
+		classes = controllers.toArray(new Class<?>[0]);
+
+		List<Method> methods = new ArrayList<>();
+		for (Class<?> controller : controllers) {
+			for (Method method : controller.getDeclaredMethods()) {
+				methods.add(method);
+			}
+		}
+		this.methods = methods.toArray(new Method[0]);
+
+		resolver = new SyntheticControllers.NameResolver();
+		for (Class<?> clazz : classes) {
+			resolver.resolve(clazz, null, null);
+		}
+	}
+
+	/**
+	 * 类路径已被缓存
+	 */
+	@Benchmark
+	public String[] resolveClass () {
+		Class<?> clazz = classes[next++ % classes.length];
+		return resolver.resolve(clazz, null, null);
+	}
+
+	/**
+	 * 每次都清空缓存，即沿继承链完整解析一次
+	 */
+	@Benchmark
+	public String[] resolveClassUncached () {
+		Class<?> clazz = classes[next++ % classes.length];
+		resolver.clearCache();
+		return resolver.resolve(clazz, null, null);
+	}
+
+	@Benchmark
+	public String[] resolveMethod () {
+		Method method = methods[next++ % methods.length];
+		return resolver.resolve(method.getDeclaringClass(), method, null);
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RouteTreeBenchmark.java
+ * Date:    26-10-18 下午4:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.naming.NameTranslator;
+import com.krun.spring.extend.route.Handler;
+import com.krun.spring.extend.route.Route;
+import com.krun.spring.extend.route.RouteTree;
+import com.krun.spring.extend.route.RoutesSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 只测量由已转换好的 Handler 构造路由树的耗时，不包括 Handler 的转换与序列化。
+ * pushAsChild 为原先逐个类调用 Route.pushAsChild、按字符串前缀与兄弟节点逐个比较的构造方式，
+ * routeTree 为 RouteTree 按路径分段索引子节点的构造方式。depth 为 1 时所有类都是根节点的子路由。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class RouteTreeBenchmark {
+
+	@Param ({ "1000", "5000" })
+	public int controllers;
+
+	@Param ({ "1", "4" })
+	public int depth;
+
+	/**
+	 * 按类名排序的类及其映射
+	 */
+	private List<TypeMappings> types;
+
+	@Setup
+	public void setup () {
+		SyntheticControllers synthetic = SyntheticControllers.generate(controllers, depth, 5);
+		StaticApplicationContext context = synthetic.createContext();
+		DomainMappingHandler handler = SyntheticControllers.createHandler(context, false);
+
+		Map<Class<?>, TypeMappings> byType = new LinkedHashMap<>();
+		for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handler.getHandlerMethods().entrySet()) {
+			Class<?> beanType = entry.getValue().getBeanType();
+			TypeMappings mappings = byType.get(beanType);
+			if (mappings == null) {
+				mappings = new TypeMappings(beanType);
+				byType.put(beanType, mappings);
+			}
+			List<Handler> handlers = new ArrayList<>();
+			for (String pattern : entry.getKey().getPatternsCondition().getPatterns()) {
+				handlers.add(Handler.builder().url(pattern).name(entry.getValue().getMethod().getName()).build());
+			}
+			mappings.mappings.add(entry.getKey());
+			mappings.handlers.add(handlers);
+		}
+		context.close();
+
+		types = new ArrayList<>(byType.values());
+		Collections.sort(types, new Comparator<TypeMappings>() {
+
+			@Override
+			public int compare (TypeMappings o1, TypeMappings o2) {
+				int result = o1.type.getSimpleName().compareTo(o2.type.getSimpleName());
+				return result != 0 ? result : o1.type.getName().compareTo(o2.type.getName());
+			}
+		});
+	}
+
+	@Benchmark
+	public Route pushAsChild () {
+		Route root = Route.builder().name("@").build();
+		for (TypeMappings mappings : types) {
+			List<Handler> handlers = new LinkedList<>();
+			for (List<Handler> list : mappings.handlers) {
+				handlers.addAll(list);
+			}
+			List<Class<?>> beanTypes = new LinkedList<>();
+			beanTypes.add(mappings.type);
+			root.pushAsChild(Route.builder().path(mappings.path).beanTypes(beanTypes).handlers(handlers).build());
+		}
+		root.clean();
+		return root;
+	}
+
+	@Benchmark
+	public RoutesSnapshot routeTree () {
+		RouteTree tree = new RouteTree(0);
+		for (TypeMappings mappings : types) {
+			for (int i = 0; i < mappings.mappings.size(); i++) {
+				tree.register(mappings.mappings.get(i), mappings.type, mappings.path, mappings.handlers.get(i));
+			}
+		}
+		return tree.snapshot();
+	}
+
+	private static class TypeMappings {
+
+		final Class<?> type;
+
+		final String path;
+
+		final List<RequestMappingInfo> mappings = new ArrayList<>();
+
+		final List<List<Handler>> handlers = new ArrayList<>();
+
+		TypeMappings (Class<?> type) {
+			this.type = type;
+			String name = type.getSimpleName();
+			if (name.startsWith(SyntheticControllers.PREFIX)) {
+				name = name.substring(SyntheticControllers.PREFIX.length());
+			}
+			if (name.endsWith(SyntheticControllers.SUFFIX)) {
+				name = name.substring(0, name.lastIndexOf(SyntheticControllers.SUFFIX));
+			}
+			this.path = NameTranslator.SLASH.translate(name);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesBenchmark.java
+ * Date:    26-10-18 下午4:52
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.route.generator.AbstractRoutesGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AbstractRoutesGenerator.getRoutes 的耗时，分别测量首次生成路由树、生成后获取完整路由树与按 includeClasses 筛选。
+ * generateRoutesParallel 为开启 setParallelExtraction、按处理器数量并行提取 Handler 信息后首次生成路由树的耗时。
+ * 生成后的结果按 includeClasses 缓存，filterRoutes 关闭缓存以测量每次筛选并序列化的耗时，
+ * getRoutesNotModified 为 If-None-Match 相符、响应 304 的情况；
+ * updateRoutes 为移除并重新注册一个映射、路由树随之更新两次后获取完整路由树的耗时。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class RoutesBenchmark {
+
+	@Param ({ "1000", "5000" })
+	public int controllers;
+
+	@Param ({ "1", "4" })
+	public int depth;
+
+	/**
+	 * includeClasses 所包含的 Controller 比例（百分比）
+	 */
+	@Param ({ "10" })
+	public int includePercent;
+
+	private StaticApplicationContext context;
+
+	private DomainMappingHandler handler;
+
+	private Generator generator;
+
+	private Generator uncachedGenerator;
+
+	private Class[] includeClasses;
+
+	private String etag;
+
+	private RequestMappingInfo mapping;
+
+	private HandlerMethod handlerMethod;
+
+	@Setup
+	public void setup () {
+		SyntheticControllers synthetic = SyntheticControllers.generate(controllers, depth, 5);
+		context = synthetic.createContext();
+		handler = SyntheticControllers.createHandler(context, false);
+
+		generator = createGenerator();
+		generator.getRoutes();
+
+		List<Class<?>> classes = synthetic.getControllers();
+		int step = Math.max(1, 100 / includePercent);
+		includeClasses = new Class[(classes.size() + step - 1) / step];
+		for (int i = 0; i < includeClasses.length; i++) {
+			includeClasses[i] = classes.get(i * step);
+		}
+
+		etag = generator.getSerializedRoutes(includeClasses).getEtag();
+		uncachedGenerator = createGenerator();
+		uncachedGenerator.setRoutesCacheSize(0);
+		uncachedGenerator.getRoutes();
+
+		Map.Entry<RequestMappingInfo, HandlerMethod> entry = handler.getHandlerMethods().entrySet().iterator().next();
+		mapping = entry.getKey();
+		handlerMethod = entry.getValue();
+	}
+
+	@TearDown
+	public void tearDown () {
+		generator.destroy();
+		uncachedGenerator.destroy();
+		context.close();
+	}
+
+	@Benchmark
+	public String generateRoutes () {
+		Generator generator = createGenerator();
+		try {
+			return generator.getRoutes();
+		} finally {
+			generator.destroy();
+		}
+	}
+
+	@Benchmark
+	public String generateRoutesParallel () {
+		Generator generator = createGenerator();
+		generator.setParallelExtraction(true);
+		try {
+			return generator.getRoutes();
+		} finally {
+			generator.destroy();
+		}
+	}
+
+	@Benchmark
+	public String getRoutes () {
+		return generator.getRoutes();
+	}
+
+	@Benchmark
+	public String getRoutesWithIncludeClasses () {
+		return generator.getRoutes(includeClasses);
+	}
+
+	@Benchmark
+	public String filterRoutes () {
+		return uncachedGenerator.getRoutes(includeClasses);
+	}
+
+	@Benchmark
+	public ResponseEntity<byte[]> getRoutesNotModified () {
+		return generator.getRoutes(includeClasses, etag);
+	}
+
+	@Benchmark
+	public String updateRoutes () {
+		handler.unregisterMapping(mapping);
+		handler.registerMapping(mapping, handlerMethod.getBean(), handlerMethod.getMethod());
+		return generator.getRoutes();
+	}
+
+	private Generator createGenerator () {
+		Generator generator = new Generator();
+		ReflectionTestUtils.setField(generator, "handlerMapping", handler);
+		return generator;
+	}
+
+	private static class Generator extends AbstractRoutesGenerator {
+
+		@Override
+		protected String getPrefix () {
+			return SyntheticControllers.PREFIX;
+		}
+
+		@Override
+		protected String getSuffix () {
+			return SyntheticControllers.SUFFIX;
+		}
+
+		@Override
+		protected boolean isExcludeType (Class<?> beanType) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesDeltaBenchmark.java
+ * Date:    26-10-18 下午8:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.route.generator.AbstractRoutesGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由树变化后客户端轮询一次的服务端耗时。
+ * 每次调用先移除或恢复一个映射，pollFull 再获取完整的路由树，pollDelta 获取相对于上一个版本的增量。
+ * 返回值为响应的长度，可以加上 <code>-prof gc</code> 比较每次轮询分配的内存。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class RoutesDeltaBenchmark {
+
+	@Param ({ "1000", "5000" })
+	public int controllers;
+
+	@Param ({ "4" })
+	public int depth;
+
+	private StaticApplicationContext context;
+
+	private DomainMappingHandler handler;
+
+	private Generator generator;
+
+	private RequestMappingInfo mapping;
+
+	private HandlerMethod method;
+
+	private boolean registered = true;
+
+	@Setup
+	public void setup () {
+		SyntheticControllers synthetic = SyntheticControllers.generate(controllers, depth, 5);
+		context = synthetic.createContext();
+		handler = SyntheticControllers.createHandler(context, false);
+		generator = new Generator();
+		ReflectionTestUtils.setField(generator, "handlerMapping", handler);
+		generator.getRoutes();
+		Map.Entry<RequestMappingInfo, HandlerMethod> entry = handler.getHandlerMethods().entrySet().iterator().next();
+		mapping = entry.getKey();
+		method = entry.getValue();
+	}
+
+	@TearDown
+	public void tearDown () {
+		generator.destroy();
+		context.close();
+	}
+
+	@Benchmark
+	public int pollFull () {
+		toggle();
+		return generator.getRoutes().length();
+	}
+
+	@Benchmark
+	public int pollDelta () {
+		long version = generator.getRoutesVersion();
+		toggle();
+		return generator.getRoutesDelta(version).length();
+	}
+
+	private void toggle () {
+		if (registered) {
+			handler.unregisterMapping(mapping);
+		} else {
+			handler.registerMapping(mapping, method.getBean(), method.getMethod());
+		}
+		registered = ! registered;
+	}
+
+	private static class Generator extends AbstractRoutesGenerator {
+
+		@Override
+		protected String getPrefix () {
+			return SyntheticControllers.PREFIX;
+		}
+
+		@Override
+		protected String getSuffix () {
+			return SyntheticControllers.SUFFIX;
+		}
+
+		@Override
+		protected boolean isExcludeType (Class<?> beanType) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesWriterBenchmark.java
+ * Date:    26-10-18 下午2:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.route.Route;
+import com.krun.spring.extend.route.RoutesSnapshot;
+import com.krun.spring.extend.route.generator.AbstractRoutesGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 将完整的路由树写入响应的耗时，每次都重新序列化。
+ * string 为以 Route.toString 序列化为字符串、再编码并写出，stream 为 writeRoutes 直接写出；gzip 为是否压缩写出。
+ * 可以加上 <code>-prof gc</code> 比较每次写出分配的内存。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class RoutesWriterBenchmark {
+
+	@Param ({ "1000", "5000" })
+	public int controllers;
+
+	@Param ({ "4" })
+	public int depth;
+
+	@Param ({ "string", "stream" })
+	public String output;
+
+	@Param ({ "false", "true" })
+	public boolean gzip;
+
+	private StaticApplicationContext context;
+
+	private Generator generator;
+
+	private Route root;
+
+	@Setup
+	public void setup () {
+		SyntheticControllers synthetic = SyntheticControllers.generate(controllers, depth, 5);
+		context = synthetic.createContext();
+		DomainMappingHandler handler = SyntheticControllers.createHandler(context, false);
+
+		generator = new Generator();
+		ReflectionTestUtils.setField(generator, "handlerMapping", handler);
+		root = (Route) ReflectionTestUtils.getField(generator.getSnapshot(), "root");
+	}
+
+	@TearDown
+	public void tearDown () {
+		generator.destroy();
+		context.close();
+	}
+
+	@Benchmark
+	public long write () throws IOException {
+		CountingOutputStream out = new CountingOutputStream();
+		if ("stream".equals(output)) {
+			generator.writeRoutes(new Class[0], out, gzip);
+		} else if (gzip) {
+			GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+			compressed.write(serialize().getBytes(StandardCharsets.UTF_8));
+			compressed.finish();
+		} else {
+			out.write(serialize().getBytes(StandardCharsets.UTF_8));
+		}
+		return out.count;
+	}
+
+	private String serialize () {
+		return Route.builder().name("@").routes(root.getRoutes()).build().toString();
+	}
+
+	/**
+	 * 只统计写出的字节数，代替响应的输出流
+	 */
+	private static class CountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write (int b) {
+			count++;
+		}
+
+		@Override
+		public void write (byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+
+	private static class Generator extends AbstractRoutesGenerator {
+
+		@Override
+		protected String getPrefix () {
+			return SyntheticControllers.PREFIX;
+		}
+
+		@Override
+		protected String getSuffix () {
+			return SyntheticControllers.SUFFIX;
+		}
+
+		@Override
+		protected boolean isExcludeType (Class<?> beanType) {
+			return false;
+		}
+
+		@Override
+		protected RoutesSnapshot getSnapshot () {
+			return super.getSnapshot();
+		}
+	}
+}
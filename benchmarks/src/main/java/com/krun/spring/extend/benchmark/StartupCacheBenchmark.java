@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      StartupCacheBenchmark.java
+ * Date:    26-10-18 下午11:58
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 使用启动缓存时 DomainMappingHandler 注册所有 Controller 的耗时，每次调用都使用新的 handler 与 MappingNameResolver。
+ * none 为不使用缓存，cached 为缓存文件已在 setup 中写入、所有 Controller 都命中，
+ * 包括读取文件、计算每个类的字节码摘要与按缓存的条件构造 RequestMappingInfo 的开销。
+ * 同一个 JVM 内反复注册时反射的结果已被 JDK 缓存，冷启动时不使用缓存的耗时会更高。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3, time = 2)
+@Measurement (iterations = 5, time = 2)
+@Fork (1)
+public class StartupCacheBenchmark {
+
+	@Param ({ "1000", "5000" })
+	public int controllers;
+
+	@Param ({ "1", "4" })
+	public int depth;
+
+	@Param ({ "5" })
+	public int methods;
+
+	@Param ({ "none", "cached" })
+	public String startupCache;
+
+	private StaticApplicationContext context;
+
+	private File file;
+
+	@Setup
+	public void setup () throws IOException {
+		context = SyntheticControllers.generate(controllers, depth, methods).createContext();
+		file = File.createTempFile("domain-mapping", ".cache");
+		Files.delete(file.toPath());
+		if ("cached".equals(startupCache)) {
+			register();
+		}
+	}
+
+	@TearDown
+	public void tearDown () throws IOException {
+		context.close();
+		Files.deleteIfExists(file.toPath());
+	}
+
+	@Benchmark
+	public DomainMappingHandler register () {
+		DomainMappingHandler handler = SyntheticControllers.newHandler();
+		if ("cached".equals(startupCache)) {
+			handler.setStartupCache(file);
+		}
+		return SyntheticControllers.initialize(handler, context);
+	}
+}
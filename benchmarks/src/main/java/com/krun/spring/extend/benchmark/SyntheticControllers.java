@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      SyntheticControllers.java
+ * Date:    26-10-18 下午4:02
+ * Author: krun
+ */
+
+package com.krun.spring.extend.benchmark;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.context.support.StaticApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 生成用于基准测试的 Controller。
+ * <p>
+ * Controller 按继承链生成，每条链有 <code>depth</code> 层，链内每一层都继承上一层，且每一层都会注册为 bean；
+ * 偶数链使用 {@link RestDomainMapping}，奇数链使用 {@link DomainMapping}。
+ * 类名形如 <code>DemoC00012L03Controller</code>，编号定长以避免路径之间互为前缀。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class SyntheticControllers {
+
+	public static final String PACKAGE = "com.krun.spring.extend.benchmark.generated";
+	public static final String PREFIX = "Demo";
+	public static final String SUFFIX = "Controller";
+
+	private static final String DOMAIN_MAPPING = Type.getDescriptor(DomainMapping.class);
+	private static final String REST_DOMAIN_MAPPING = Type.getDescriptor(RestDomainMapping.class);
+
+	private final List<Class<?>> controllers;
+
+	private SyntheticControllers (List<Class<?>> controllers) {
+		this.controllers = Collections.unmodifiableList(controllers);
+	}
+
+	/**
+	 * @param count Controller 总数
+	 * @param depth 继承链的层数
+	 * @param methods 每个 Controller 声明的公开方法数
+	 */
+	public static SyntheticControllers generate (int count, int depth, int methods) {
+		GeneratedClassLoader classLoader = new GeneratedClassLoader(SyntheticControllers.class.getClassLoader());
+		List<Class<?>> controllers = new ArrayList<>(count);
+
+		for (int chain = 0; controllers.size() < count; chain++) {
+			String superName = Type.getInternalName(Object.class);
+			for (int level = 0; level < depth && controllers.size() < count; level++) {
+				String className = PACKAGE + "." + PREFIX + String.format("C%05dL%02d", chain, level) + SUFFIX;
+				byte[] bytes = generateClass(className.replace('.', '/'), superName, chain % 2 == 0, methods);
+				controllers.add(classLoader.define(className, bytes));
+				superName = className.replace('.', '/');
+			}
+		}
+		return new SyntheticControllers(controllers);
+	}
+
+	public List<Class<?>> getControllers () {
+		return controllers;
+	}
+
+	/**
+	 * @return 以类的简单名称作为 bean 名称注册了所有 Controller 的上下文
+	 */
+	public StaticApplicationContext createContext () {
+		StaticApplicationContext context = new StaticApplicationContext();
+		for (Class<?> controller : controllers) {
+			context.registerSingleton(controller.getSimpleName(), controller);
+		}
+		context.refresh();
+		return context;
+	}
+
+	public static DomainMappingHandler createHandler (StaticApplicationContext context, boolean parallel) {
+		DomainMappingHandler handler = newHandler();
+		handler.setParallelDetection(parallel);
+		return initialize(handler, context);
+	}
+
+	/**
+	 * @return 尚未初始化的 handler，设置完毕后调用 {@link #initialize(DomainMappingHandler, StaticApplicationContext)}
+	 */
+	public static DomainMappingHandler newHandler () {
+		return new DomainMappingHandler(new NameResolver());
+	}
+
+	public static DomainMappingHandler initialize (DomainMappingHandler handler, StaticApplicationContext context) {
+		handler.setApplicationContext(context);
+		handler.afterPropertiesSet();
+		return handler;
+	}
+
+	private static byte[] generateClass (String internalName, String superName, boolean rest, int methods) {
+		ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null, superName, null);
+
+		AnnotationVisitor annotation = writer.visitAnnotation(rest ? REST_DOMAIN_MAPPING : DOMAIN_MAPPING, true);
+		annotation.visitEnd();
+
+		MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		constructor.visitCode();
+		constructor.visitVarInsn(Opcodes.ALOAD, 0);
+		constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+		constructor.visitInsn(Opcodes.RETURN);
+		constructor.visitMaxs(1, 1);
+		constructor.visitEnd();
+
+		for (int i = 0; i < methods; i++) {
+			String name = "findItemById" + i;
+			MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, name, "()Ljava/lang/String;", null, null);
+			method.visitCode();
+			method.visitLdcInsn(name);
+			method.visitInsn(Opcodes.ARETURN);
+			method.visitMaxs(1, 1);
+			method.visitEnd();
+		}
+
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	public static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return SUFFIX;
+		}
+
+		@Override
+		protected String getPrefix () {
+			return PREFIX;
+		}
+	}
+
+	/**
+	 * 生成的类的 class 文件也可以作为资源读取，与从 jar 中加载的类一致
+	 */
+	private static class GeneratedClassLoader extends ClassLoader {
+
+		private final Map<String, byte[]> classFiles = new HashMap<>();
+
+		private GeneratedClassLoader (ClassLoader parent) {
+			super(parent);
+		}
+
+		private Class<?> define (String name, byte[] bytes) {
+			classFiles.put(name.replace('.', '/') + ".class", bytes);
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+
+		@Override
+		public InputStream getResourceAsStream (String name) {
+			byte[] bytes = classFiles.get(name);
+			return bytes != null ? new ByteArrayInputStream(bytes) : super.getResourceAsStream(name);
+		}
+	}
+}
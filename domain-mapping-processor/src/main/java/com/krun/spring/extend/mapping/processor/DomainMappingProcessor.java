@@ -0,0 +1,529 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      DomainMappingProcessor.java
+ * Date:    26-10-18 上午10:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.processor;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.index.DomainMappingIndex;
+import com.krun.spring.extend.mapping.utils.Utils;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.condition.PatternsRequestCondition;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 在编译期收集 {@link DomainMapping} 和 {@link RestDomainMapping} 修饰的类，并将其路径信息写入
+ * {@link DomainMappingIndex#INDEX_LOCATION}。
+ * <p>
+ * 类路径的生成规则与 {@link com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver} 一致，
+ * 但前后缀需要通过处理器参数 <code>-AdomainMapping.prefix=...</code> 与 <code>-AdomainMapping.suffix=...</code>
+ * 提供，未提供时索引内只有类与方法的信息，运行时仍会通过反射解析类路径。
+ * <p>
+ * 只为本次编译的类写入索引项，类路径上的父类只用于计算子类的路径。
+ * 索引在 javac 写出这些类的 class 文件之后才写入，以便记录 class 文件的摘要，运行时以此判断索引项是否过期；
+ * 不是 javac 时无法得到 class 文件，索引项在运行时会被忽略。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@SupportedAnnotationTypes ({
+		"com.krun.spring.extend.mapping.DomainMapping",
+		"com.krun.spring.extend.mapping.RestDomainMapping"
+})
+@SupportedOptions ({ DomainMappingProcessor.PREFIX_OPTION, DomainMappingProcessor.SUFFIX_OPTION })
+public class DomainMappingProcessor extends AbstractProcessor {
+
+	public static final String PREFIX_OPTION = "domainMapping.prefix";
+	public static final String SUFFIX_OPTION = "domainMapping.suffix";
+
+	private static final String OBJECT = Object.class.getName();
+
+	private static final String REQUEST_MAPPING = "org.springframework.web.bind.annotation.RequestMapping";
+
+	/**
+	 * 解析过的类，包括类路径上的父类，键为类的二进制名
+	 */
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	/**
+	 * 本次编译的类，只有这些类会写入索引
+	 */
+	private final Set<String> ownedTypes = new HashSet<>();
+
+	/**
+	 * 是否能在 class 文件写出之后得到通知
+	 */
+	private boolean listening;
+
+	/**
+	 * 尚未写出 class 文件的索引项，为空时写入索引
+	 */
+	private Set<String> pendingTypes;
+
+	@Override
+	public synchronized void init (ProcessingEnvironment processingEnv) {
+		super.init(processingEnv);
+		try {
+			GenerateListener.register(processingEnv, this);
+			listening = true;
+		} catch (IllegalArgumentException | LinkageError e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Class files are not available to "
+			                                         + getClass().getSimpleName() + ", the index will be ignored");
+		}
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion () {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process (Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			pendingTypes = new HashSet<>();
+			for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+				if (entry.getValue().owned) {
+					pendingTypes.add(entry.getKey());
+				}
+			}
+			/* 无法得到 class 文件时直接写入，以便更新增量编译后过期的索引项 */
+			if (pendingTypes.isEmpty() || ! listening) {
+				writeIndex();
+			}
+			return false;
+		}
+
+		for (Element root : roundEnv.getRootElements()) {
+			if (root instanceof TypeElement) {
+				ownedTypes.add(binaryName((TypeElement) root));
+			}
+		}
+
+		Set<Element> elements = new HashSet<>();
+		elements.addAll(roundEnv.getElementsAnnotatedWith(DomainMapping.class));
+		elements.addAll(roundEnv.getElementsAnnotatedWith(RestDomainMapping.class));
+
+		for (Element element : elements) {
+			if (element.getKind() == ElementKind.CLASS) {
+				resolve((TypeElement) element);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 按 AbstractMappingNameResolver 的规则解析类路径，父类会被一并解析，但只有本次编译的类才会写入索引
+	 * @return 类没有注解时返回 NULL
+	 */
+	private Entry resolve (TypeElement type) {
+		String className = binaryName(type);
+		Entry entry = entries.get(className);
+		if (entry != null) {
+			return entry;
+		}
+
+		DomainMapping domainMapping = type.getAnnotation(DomainMapping.class);
+		RestDomainMapping restDomainMapping = type.getAnnotation(RestDomainMapping.class);
+		if (domainMapping == null && restDomainMapping == null) {
+			return null;
+		}
+
+		String   root  = domainMapping != null ? domainMapping.root() : restDomainMapping.root();
+		String[] value = domainMapping != null ? domainMapping.value() : restDomainMapping.value();
+
+		TypeElement superType = superclass(type);
+		entry = new Entry();
+		entry.owned = ownedTypes.contains(binaryName(outermost(type)));
+		entry.superclass = superType == null ? OBJECT : binaryName(superType);
+
+		Entry parent = null;
+		String[] segments;
+		if (! root.isEmpty()) {
+			entry.root = DomainMappingIndex.ROOT_EXPLICIT;
+			segments = new String[] { root.startsWith("/") ? root.substring(1) : root };
+		} else {
+			segments = value.length > 0 ? value : new String[] { type.getSimpleName().toString() };
+			parent = superType == null || OBJECT.equals(entry.superclass) ? null : resolve(superType);
+			entry.root = parent == null ? DomainMappingIndex.ROOT_IMPLICIT : DomainMappingIndex.ROOT_NONE;
+		}
+
+		entry.parentStamp = parent == null ? null : parent.stamp;
+		entry.stamp = DomainMappingIndex.stamp(className, entry.superclass, entry.root, segments, entry.parentStamp);
+		entry.paths = generatePaths(segments, entry.root, parent);
+		entry.methods = generateMethods(type);
+		entry.complete = ! hasRequestMappingDefaultMethods(type, new HashSet<String>());
+
+		entries.put(className, entry);
+		return entry;
+	}
+
+	private String[] generatePaths (String[] segments, String root, Entry parent) {
+		String prefix = processingEnv.getOptions().get(PREFIX_OPTION);
+		String suffix = processingEnv.getOptions().get(SUFFIX_OPTION);
+		if (prefix == null && suffix == null) {
+			return null;
+		}
+		prefix = prefix == null ? "" : prefix;
+		suffix = suffix == null ? "" : suffix;
+
+		String[] paths = new String[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			paths[i] = Utils.translateSegment(segments[i], prefix, suffix, ! DomainMappingIndex.ROOT_NONE.equals(root));
+		}
+
+		PatternsRequestCondition condition = new PatternsRequestCondition(paths);
+		if (parent != null) {
+			if (parent.paths == null) {
+				return null;
+			}
+			condition = new PatternsRequestCondition(parent.paths).combine(condition);
+		}
+
+		paths = new String[condition.getPatterns().size()];
+		condition.getPatterns().toArray(paths);
+		return paths;
+	}
+
+	/**
+	 * 与 DomainMappingHandler 一致，公开、非静态、非抽象的方法以及带有 RequestMapping 的方法都可能成为 handler 方法
+	 */
+	private String generateMethods (TypeElement type) {
+		List<String> methods = new ArrayList<>();
+		for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+			Set<Modifier> modifiers = method.getModifiers();
+			if ((! modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)
+			     || modifiers.contains(Modifier.ABSTRACT)) && ! hasRequestMapping(method)) {
+				continue;
+			}
+			String name = method.getSimpleName().toString();
+			List<String> parameterTypes = new ArrayList<>();
+			for (VariableElement parameter : method.getParameters()) {
+				parameterTypes.add(typeName(processingEnv.getTypeUtils().erasure(parameter.asType())));
+			}
+			methods.add(DomainMappingIndex.signature(name, parameterTypes) + ":" + Utils.translateName(name));
+		}
+		return StringUtils.collectionToCommaDelimitedString(methods);
+	}
+
+	/**
+	 * 与运行时的 DomainMappingIndex 一致：擦除后的二进制名，数组以 [] 结尾
+	 */
+	private String typeName (TypeMirror type) {
+		if (type.getKind() == TypeKind.ARRAY) {
+			return typeName(((ArrayType) type).getComponentType()) + "[]";
+		}
+		if (type.getKind() == TypeKind.DECLARED) {
+			return binaryName((TypeElement) ((DeclaredType) type).asElement());
+		}
+		return type.toString();
+	}
+
+	/**
+	 * 接口中带有 RequestMapping 的默认方法与静态方法不在实现类的方法中，运行时需要遍历全部方法
+	 */
+	private boolean hasRequestMappingDefaultMethods (TypeElement type, Set<String> visited) {
+		for (TypeMirror ifc : type.getInterfaces()) {
+			if (ifc.getKind() != TypeKind.DECLARED) {
+				continue;
+			}
+			TypeElement element = (TypeElement) ((DeclaredType) ifc).asElement();
+			if (! visited.add(binaryName(element))) {
+				continue;
+			}
+			for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+				if (! method.getModifiers().contains(Modifier.ABSTRACT) && hasRequestMapping(method)) {
+					return true;
+				}
+			}
+			if (hasRequestMappingDefaultMethods(element, visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasRequestMapping (Element element) {
+		return hasRequestMapping(element, new HashSet<String>());
+	}
+
+	/**
+	 * 直接或作为元注解带有 RequestMapping，例如 GetMapping
+	 */
+	private static boolean hasRequestMapping (Element element, Set<String> visited) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+			String name = annotationType.getQualifiedName().toString();
+			if (REQUEST_MAPPING.equals(name)) {
+				return true;
+			}
+			if (! name.startsWith("java.lang.annotation.") && visited.add(name)
+			    && hasRequestMapping(annotationType, visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * class 文件写出之后记录其摘要，所有索引项的 class 文件都已写出时写入索引
+	 */
+	private void generated (TypeElement type) {
+		String className = binaryName(type);
+		Entry entry = entries.get(className);
+		if (pendingTypes == null || entry == null || ! pendingTypes.remove(className)) {
+			return;
+		}
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String relativeName = (packageName.isEmpty() ? className : className.substring(packageName.length() + 1))
+		                      + ".class";
+		try {
+			FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, packageName,
+			                                                       relativeName);
+			InputStream in = file.openInputStream();
+			try {
+				entry.classStamp = Long.toHexString(DomainMappingIndex.classStamp(in));
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+			                                         "Failed to read class file of " + className + ": " + e);
+		}
+		if (pendingTypes.isEmpty()) {
+			writeIndex();
+		}
+	}
+
+	private void writeIndex () {
+		Properties properties = readPreviousIndex();
+
+		int count = 0;
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			String p = e.getKey() + ".";
+			Entry entry = e.getValue();
+			if (! entry.owned) {
+				continue;
+			}
+			count++;
+			properties.setProperty(p + DomainMappingIndex.SUPERCLASS, entry.superclass);
+			properties.setProperty(p + DomainMappingIndex.ROOT, entry.root);
+			properties.setProperty(p + DomainMappingIndex.STAMP, entry.stamp);
+			properties.setProperty(p + DomainMappingIndex.METHODS, entry.methods);
+			properties.setProperty(p + DomainMappingIndex.COMPLETE, String.valueOf(entry.complete));
+			if (entry.classStamp != null) {
+				properties.setProperty(p + DomainMappingIndex.CLASS_STAMP, entry.classStamp);
+			}
+			if (entry.parentStamp != null) {
+				properties.setProperty(p + DomainMappingIndex.PARENT_STAMP, entry.parentStamp);
+			}
+			/* 含有逗号的路径无法写入索引，运行时回退到反射解析 */
+			if (entry.paths != null && ! containsComma(entry.paths)) {
+				properties.setProperty(p + DomainMappingIndex.PREFIX, option(PREFIX_OPTION));
+				properties.setProperty(p + DomainMappingIndex.SUFFIX, option(SUFFIX_OPTION));
+				properties.setProperty(p + DomainMappingIndex.PATHS,
+				                       StringUtils.arrayToCommaDelimitedString(entry.paths));
+			}
+		}
+
+		if (properties.isEmpty()) {
+			return;
+		}
+
+		try {
+			StringWriter buffer = new StringWriter();
+			properties.store(buffer, null);
+
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+			                                                          DomainMappingIndex.INDEX_LOCATION);
+			Writer writer = file.openWriter();
+			try {
+				/* 去掉 Properties 写入的时间注释，保证相同的输入得到相同的索引 */
+				BufferedReader reader = new BufferedReader(new StringReader(buffer.toString()));
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (! line.startsWith("#")) {
+						writer.write(line);
+						writer.write('\n');
+					}
+				}
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+			                                         "Failed to write " + DomainMappingIndex.INDEX_LOCATION + ": " + e);
+			return;
+		}
+
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, String.format(
+				"Write %s { %d classes }", DomainMappingIndex.INDEX_LOCATION, count));
+	}
+
+	/**
+	 * 读取上一次编译的索引，保留本次未被编译但仍然存在的类，以支持增量编译。
+	 * 父类变更而子类未被重新编译时，运行时会通过 stamp 发现并回退到反射解析。
+	 */
+	private Properties readPreviousIndex () {
+		Properties previous = new Properties();
+		try {
+			FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+			                                                       DomainMappingIndex.INDEX_LOCATION);
+			InputStream in = file.openInputStream();
+			try {
+				previous.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			/* 首次编译时没有索引 */
+			return previous;
+		}
+
+		Properties properties = new Properties();
+		String stamp = "." + DomainMappingIndex.STAMP;
+		for (String key : previous.stringPropertyNames()) {
+			if (! key.endsWith(stamp)) {
+				continue;
+			}
+			String className = key.substring(0, key.length() - stamp.length());
+			Entry entry = entries.get(className);
+			if ((entry != null && entry.owned) || ! isAnnotatedType(className)) {
+				continue;
+			}
+			for (String k : previous.stringPropertyNames()) {
+				if (k.startsWith(className + ".") && k.indexOf('.', className.length() + 1) == - 1) {
+					properties.setProperty(k, previous.getProperty(k));
+				}
+			}
+		}
+		return properties;
+	}
+
+	private boolean isAnnotatedType (String className) {
+		TypeElement type = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+		return type != null && (type.getAnnotation(DomainMapping.class) != null
+		                        || type.getAnnotation(RestDomainMapping.class) != null);
+	}
+
+	private String option (String name) {
+		String value = processingEnv.getOptions().get(name);
+		return value == null ? "" : value;
+	}
+
+	private String binaryName (TypeElement type) {
+		return processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+
+	private static TypeElement outermost (TypeElement type) {
+		Element current = type;
+		while (current.getEnclosingElement() instanceof TypeElement) {
+			current = current.getEnclosingElement();
+		}
+		return (TypeElement) current;
+	}
+
+	private static TypeElement superclass (TypeElement type) {
+		TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		return (TypeElement) ((DeclaredType) superclass).asElement();
+	}
+
+	private static boolean containsComma (String[] paths) {
+		for (String path : paths) {
+			if (path.indexOf(',') != - 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class Entry {
+
+		/**
+		 * 是否为本次编译的类
+		 */
+		private boolean owned;
+		private String superclass;
+		private String root;
+		private String stamp;
+		private String parentStamp;
+		private String[] paths;
+		private String methods;
+		private boolean complete;
+		private String classStamp;
+	}
+
+	/**
+	 * 通过 javac 的 TaskListener 得到 class 文件写出的通知，单独成类以免其他编译器加载处理器时找不到 com.sun.source
+	 */
+	private static class GenerateListener implements TaskListener {
+
+		private final DomainMappingProcessor processor;
+
+		private GenerateListener (DomainMappingProcessor processor) {
+			this.processor = processor;
+		}
+
+		/**
+		 * @throws IllegalArgumentException 不是 javac 时
+		 */
+		static void register (ProcessingEnvironment processingEnv, DomainMappingProcessor processor) {
+			JavacTask.instance(processingEnv).addTaskListener(new GenerateListener(processor));
+		}
+
+		@Override
+		public void started (TaskEvent e) {
+		}
+
+		@Override
+		public void finished (TaskEvent e) {
+			if (e.getKind() == TaskEvent.Kind.GENERATE && e.getTypeElement() != null) {
+				processor.generated(e.getTypeElement());
+			}
+		}
+	}
+}
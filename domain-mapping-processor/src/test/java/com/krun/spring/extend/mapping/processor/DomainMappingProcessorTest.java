@@ -0,0 +1,320 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      DomainMappingProcessorTest.java
+ * Date:    26-10-18 下午3:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.processor;
+
+import com.krun.spring.extend.mapping.index.DomainMappingIndex;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 通过 {@link JavaCompiler} 编译源码并运行 {@link DomainMappingProcessor}，检查生成的索引，
+ * 以及运行时 {@link DomainMappingIndex} 读取索引的结果
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class DomainMappingProcessorTest {
+
+	private static final String ORDER = "package demo;\n"
+	                                    + "@com.krun.spring.extend.mapping.DomainMapping (\"order\")\n"
+	                                    + "public class DemoOrderController {\n"
+	                                    + "	public void listAll () {}\n"
+	                                    + "}\n";
+
+	private static final String ITEM = "package demo;\n"
+	                                   + "@com.krun.spring.extend.mapping.DomainMapping\n"
+	                                   + "public class DemoItemController extends DemoOrderController {\n"
+	                                   + "	public void find (String id) {}\n"
+	                                   + "}\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File output;
+
+	@Before
+	public void setUp () throws IOException {
+		output = folder.newFolder("classes");
+	}
+
+	@Test
+	public void generatesPathsWithOptions () throws Exception {
+		compile(output, options("Demo", "Controller"), source("demo.DemoOrderController", ORDER),
+		        source("demo.DemoItemController", ITEM));
+
+		Properties index = readIndex(output);
+		assertEquals("/order", index.getProperty("demo.DemoOrderController.paths"));
+		assertEquals("/order/item", index.getProperty("demo.DemoItemController.paths"));
+		assertEquals("Demo", index.getProperty("demo.DemoItemController.prefix"));
+		assertEquals("Controller", index.getProperty("demo.DemoItemController.suffix"));
+		assertEquals("listAll():list-all", index.getProperty("demo.DemoOrderController.methods"));
+		assertEquals("find(java.lang.String):find", index.getProperty("demo.DemoItemController.methods"));
+		assertEquals(index.getProperty("demo.DemoOrderController.stamp"),
+		             index.getProperty("demo.DemoItemController.parent-stamp"));
+
+		Compiled compiled = load(output);
+		Class<?> item = compiled.loadClass("demo.DemoItemController");
+		assertArrayEquals(new String[] { "/order/item" }, compiled.index.getPaths(item, "Demo", "Controller"));
+		assertNull(compiled.index.getPaths(item, "", "Controller"));
+	}
+
+	/**
+	 * 未提供前后缀时只有类与方法的信息
+	 */
+	@Test
+	public void omitsPathsWithoutOptions () throws Exception {
+		compile(output, options(null, null), source("demo.DemoOrderController", ORDER));
+
+		Properties index = readIndex(output);
+		assertNull(index.getProperty("demo.DemoOrderController.paths"));
+		assertNull(index.getProperty("demo.DemoOrderController.prefix"));
+		assertEquals("listAll():list-all", index.getProperty("demo.DemoOrderController.methods"));
+		assertNotNull(index.getProperty("demo.DemoOrderController.class-stamp"));
+	}
+
+	/**
+	 * 只重新编译部分类时保留其他类的索引项，并移除不再带有注解的类
+	 */
+	@Test
+	public void mergesIncrementalCompilation () throws Exception {
+		String user = "package demo;\n"
+		              + "@com.krun.spring.extend.mapping.RestDomainMapping\n"
+		              + "public class DemoUserController {}\n";
+		compile(output, options("Demo", "Controller"), source("demo.DemoOrderController", ORDER),
+		        source("demo.DemoItemController", ITEM), source("demo.DemoUserController", user));
+		Properties first = readIndex(output);
+
+		String item = ITEM.replace("find (String id)", "find (String id, int page)");
+		String plain = "package demo;\n"
+		               + "public class DemoUserController {}\n";
+		compile(output, options("Demo", "Controller"), source("demo.DemoItemController", item),
+		        source("demo.DemoUserController", plain));
+		Properties second = readIndex(output);
+
+		for (String key : first.stringPropertyNames()) {
+			if (key.startsWith("demo.DemoOrderController.")) {
+				assertEquals(key, first.getProperty(key), second.getProperty(key));
+			}
+		}
+		assertEquals("find(java.lang.String;int):find", second.getProperty("demo.DemoItemController.methods"));
+		assertEquals("/order/item", second.getProperty("demo.DemoItemController.paths"));
+		assertNull(second.getProperty("demo.DemoUserController.stamp"));
+
+		Compiled compiled = load(output);
+		assertEquals(2, compiled.index.size());
+		assertTrue(compiled.index.isIndexed(compiled.loadClass("demo.DemoOrderController")));
+		assertTrue(compiled.index.isIndexed(compiled.loadClass("demo.DemoItemController")));
+	}
+
+	/**
+	 * 类路径上的父类只用于计算路径，不写入索引
+	 */
+	@Test
+	public void skipsLibrarySuperclasses () throws Exception {
+		File library = folder.newFolder("library");
+		compile(library, Arrays.asList("-proc:none"), source("demo.DemoOrderController", ORDER));
+
+		compile(output, options("Demo", "Controller", library), source("demo.DemoItemController", ITEM));
+		Properties index = readIndex(output);
+		assertNull(index.getProperty("demo.DemoOrderController.stamp"));
+		assertEquals("/order/item", index.getProperty("demo.DemoItemController.paths"));
+		assertNotNull(index.getProperty("demo.DemoItemController.parent-stamp"));
+	}
+
+	/**
+	 * 不运行处理器而重新编译的类，其 class 文件与索引项中的摘要不一致
+	 */
+	@Test
+	public void ignoresClassesRecompiledWithoutProcessor () throws Exception {
+		compile(output, options("Demo", "Controller"), source("demo.DemoOrderController", ORDER));
+		compile(output, Arrays.asList("-proc:none"),
+		        source("demo.DemoOrderController", ORDER.replace("\"order\"", "\"orders\"")));
+
+		Compiled compiled = load(output);
+		Class<?> order = compiled.loadClass("demo.DemoOrderController");
+		assertEquals(1, compiled.index.size());
+		assertFalse(compiled.index.isIndexed(order));
+		assertNull(compiled.index.getPaths(order, "Demo", "Controller"));
+		assertNull(compiled.index.getCandidateMethods(order));
+	}
+
+	/**
+	 * 重载方法以签名区分；非公开的方法只有带 RequestMapping 时才是候选方法
+	 */
+	@Test
+	public void distinguishesOverloads () throws Exception {
+		String query = "package demo;\n"
+		               + "import org.springframework.web.bind.annotation.GetMapping;\n"
+		               + "@com.krun.spring.extend.mapping.DomainMapping\n"
+		               + "public class DemoQueryController {\n"
+		               + "	public void search () {}\n"
+		               + "	public void search (String keyword) {}\n"
+		               + "	public void search (int[] ids, java.util.List<String> names) {}\n"
+		               + "	@GetMapping (\"/recent\") void recentSearch () {}\n"
+		               + "	void ignored () {}\n"
+		               + "	public static void ignoredStatic () {}\n"
+		               + "}\n";
+		compile(output, options("Demo", "Controller"), source("demo.DemoQueryController", query));
+		assertEquals("search():search,search(java.lang.String):search,search(int[];java.util.List):search,"
+		             + "recentSearch():recent-search",
+		             readIndex(output).getProperty("demo.DemoQueryController.methods"));
+
+		Compiled compiled = load(output);
+		Class<?> type = compiled.loadClass("demo.DemoQueryController");
+		List<Method> expected = Arrays.asList(type.getMethod("search"), type.getMethod("search", String.class),
+		                                      type.getMethod("search", int[].class, List.class),
+		                                      type.getDeclaredMethod("recentSearch"));
+		assertEquals(expected, compiled.index.getCandidateMethods(type));
+		assertEquals("recent-search", compiled.index.getMethodPath(type.getDeclaredMethod("recentSearch")));
+		assertNull(compiled.index.getMethodPath(type.getDeclaredMethod("ignored")));
+	}
+
+	/**
+	 * 接口的默认方法带有映射时，索引中的方法不完整，运行时需要遍历全部方法
+	 */
+	@Test
+	public void marksIncompleteWithMappedDefaultMethods () throws Exception {
+		String api = "package demo;\n"
+		             + "public interface DemoApi {\n"
+		             + "	@org.springframework.web.bind.annotation.RequestMapping (\"/ping\")\n"
+		             + "	default void ping () {}\n"
+		             + "}\n";
+		String ext = "package demo;\n"
+		             + "public interface DemoExtApi extends DemoApi {}\n";
+		String impl = "package demo;\n"
+		              + "@com.krun.spring.extend.mapping.DomainMapping\n"
+		              + "public class DemoPingController implements DemoExtApi {}\n";
+		compile(output, options(null, null), source("demo.DemoApi", api), source("demo.DemoExtApi", ext),
+		        source("demo.DemoPingController", impl));
+		assertEquals("false", readIndex(output).getProperty("demo.DemoPingController.complete"));
+
+		Compiled compiled = load(output);
+		Class<?> type = compiled.loadClass("demo.DemoPingController");
+		assertTrue(compiled.index.isIndexed(type));
+		assertNull(compiled.index.getCandidateMethods(type));
+	}
+
+	private static List<String> options (String prefix, String suffix, File... classpath) {
+		List<String> options = new ArrayList<>();
+		if (prefix != null) {
+			options.add("-A" + DomainMappingProcessor.PREFIX_OPTION + "=" + prefix);
+		}
+		if (suffix != null) {
+			options.add("-A" + DomainMappingProcessor.SUFFIX_OPTION + "=" + suffix);
+		}
+		StringBuilder path = new StringBuilder(testClassPath());
+		for (File file : classpath) {
+			path.append(File.pathSeparator).append(file.getPath());
+		}
+		options.add("-classpath");
+		options.add(path.toString());
+		return options;
+	}
+
+	/**
+	 * 编译到 directory，directory 同时位于类路径上，以模拟增量编译
+	 */
+	private static void compile (File directory, List<String> options, JavaFileObject... sources) {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertNotNull("Requires a JDK", compiler);
+		List<String> arguments = new ArrayList<>(options);
+		int classpath = arguments.indexOf("-classpath");
+		if (classpath == - 1) {
+			arguments.add("-classpath");
+			arguments.add(testClassPath() + File.pathSeparator + directory.getPath());
+		} else {
+			arguments.set(classpath + 1, arguments.get(classpath + 1) + File.pathSeparator + directory.getPath());
+		}
+		arguments.addAll(Arrays.asList("-d", directory.getPath(), "-source", "8", "-target", "8"));
+		JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, arguments, null,
+		                                                     Arrays.asList(sources));
+		task.setProcessors(Collections.singletonList(new DomainMappingProcessor()));
+		assertTrue("Compilation failed", task.call());
+	}
+
+	/**
+	 * surefire 默认通过 manifest 传递类路径，此时 java.class.path 中只有 surefire 自身
+	 */
+	private static String testClassPath () {
+		String path = System.getProperty("surefire.test.class.path");
+		return path != null ? path : System.getProperty("java.class.path");
+	}
+
+	private static JavaFileObject source (String className, final String content) {
+		return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+		                                JavaFileObject.Kind.SOURCE) {
+
+			@Override
+			public CharSequence getCharContent (boolean ignoreEncodingErrors) {
+				return content;
+			}
+		};
+	}
+
+	private static Properties readIndex (File directory) throws IOException {
+		Properties properties = new Properties();
+		InputStream in = new FileInputStream(new File(directory, DomainMappingIndex.INDEX_LOCATION));
+		try {
+			properties.load(in);
+		} finally {
+			in.close();
+		}
+		return properties;
+	}
+
+	private static Compiled load (File directory) throws IOException {
+		return new Compiled(directory);
+	}
+
+	/**
+	 * 在独立的类加载器中加载编译结果，父加载器提供 domain-mapping 与 Spring
+	 */
+	private static class Compiled {
+
+		private final URLClassLoader classLoader;
+		private final DomainMappingIndex index;
+
+		private Compiled (File directory) throws IOException {
+			classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() },
+			                                 DomainMappingProcessorTest.class.getClassLoader());
+			index = DomainMappingIndex.load(classLoader);
+		}
+
+		private Class<?> loadClass (String className) throws ClassNotFoundException {
+			return classLoader.loadClass(className);
+		}
+	}
+}
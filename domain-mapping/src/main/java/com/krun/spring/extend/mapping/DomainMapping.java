@@ -43,5 +43,10 @@ public @interface DomainMapping {
 	String[] headers() default {};
 	String[] consumes() default {};
 	String[] produces() default {};
+	/**
+	 * 是否通过异步请求处理在 DomainMappingHandler 的执行器（默认为虚拟线程）上执行该类的 handler 方法，
+	 * 需要配合 DomainMappingHandlerAdapter 使用
+	 */
+	boolean async() default false;
 
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      AsyncHandlerMethod.java
+ * Date:    26-10-18 下午10:05
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * 需要异步执行的 handler 方法，由 {@link DomainMappingHandler} 注册，由 {@link DomainMappingHandlerAdapter} 提交到 executor 上执行。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class AsyncHandlerMethod extends HandlerMethod {
+
+	private final AsyncTaskExecutor executor;
+
+	AsyncHandlerMethod (HandlerMethod handlerMethod, AsyncTaskExecutor executor) {
+		super(handlerMethod);
+		this.executor = executor;
+	}
+
+	AsyncTaskExecutor getExecutor () {
+		return executor;
+	}
+
+	@Override
+	public HandlerMethod createWithResolvedBean () {
+		/* 父类会以 HandlerMethod 重新构造，需要保留异步标记 */
+		HandlerMethod resolved = super.createWithResolvedBean();
+		return resolved == this ? this : new AsyncHandlerMethod(resolved, executor);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      DispatchTable.java
+ * Date:    26-10-18 下午7:45
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按请求方法划分、以完整路径为键的映射表，一次哈希查找即可得到与请求方法相符的映射。
+ * <p>
+ * 只收录不含通配符的路径，与父类按路径直接查找的映射一致：没有限定请求方法的映射出现在所有表中，
+ * 限定了 GET 的映射同时出现在 HEAD 表中。表中的映射仍需检查完整的请求条件。
+ * 构造完成后不再修改，注册表变化时由调用方重新构造并整体替换，查找不加锁。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class DispatchTable {
+
+	private static final RequestMethod[] METHODS = RequestMethod.values();
+
+	private static final Map<String, RequestMethod> METHOD_NAMES = new HashMap<>();
+
+	static {
+		for (RequestMethod method : METHODS) {
+			METHOD_NAMES.put(method.name(), method);
+		}
+	}
+
+	private final Map<RequestMethod, ConcurrentMap<String, List<MappingEntry>>> tables =
+			new EnumMap<>(RequestMethod.class);
+
+	private final PathMatcher pathMatcher;
+
+	private DispatchTable (PathMatcher pathMatcher) {
+		this.pathMatcher = pathMatcher;
+		for (RequestMethod method : METHODS) {
+			tables.put(method, new ConcurrentHashMap<String, List<MappingEntry>>());
+		}
+	}
+
+	/**
+	 * @param entries 按注册顺序排列的映射
+	 */
+	static DispatchTable build (List<MappingEntry> entries, PathMatcher pathMatcher) {
+		DispatchTable table = new DispatchTable(pathMatcher);
+		for (MappingEntry entry : entries) {
+			table.add(entry);
+		}
+		return table;
+	}
+
+	/**
+	 * 添加一个映射，排在同一路径下已有的映射之后
+	 */
+	private void add (MappingEntry entry) {
+		Set<RequestMethod> methods = entry.info.getMethodsCondition().getMethods();
+		for (String pattern : entry.patterns) {
+			if (pathMatcher.isPattern(pattern)) {
+				continue;
+			}
+			if (methods.isEmpty()) {
+				for (RequestMethod method : METHODS) {
+					add(method, pattern, entry);
+				}
+				continue;
+			}
+			for (RequestMethod method : methods) {
+				add(method, pattern, entry);
+				if (method == RequestMethod.GET) {
+					add(RequestMethod.HEAD, pattern, entry);
+				}
+			}
+		}
+	}
+
+	private void add (RequestMethod method, String path, MappingEntry entry) {
+		Map<String, List<MappingEntry>> paths = tables.get(method);
+		List<MappingEntry> list = paths.get(path);
+		if (list == null) {
+			paths.put(path, Collections.singletonList(entry));
+			return;
+		}
+		/* 同时限定了 GET 与 HEAD 的映射会被加入两次 */
+		if (list.get(list.size() - 1) == entry) {
+			return;
+		}
+		List<MappingEntry> updated = new ArrayList<>(list.size() + 1);
+		updated.addAll(list);
+		updated.add(entry);
+		paths.put(path, Collections.unmodifiableList(updated));
+	}
+
+	/**
+	 * @return 路径完全相同且请求方法相符的映射，按注册顺序排列；没有时返回 NULL
+	 */
+	@Nullable
+	List<MappingEntry> find (String method, String lookupPath) {
+		RequestMethod requestMethod = METHOD_NAMES.get(method);
+		return requestMethod == null ? null : tables.get(requestMethod).get(lookupPath);
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      DomainConditions.java
+ * Date:    26-10-18 下午2:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * 由 {@link DomainMapping} / {@link RestDomainMapping} 的属性构造的、不含路径的 RequestMappingInfo。
+ * <p>
+ * 同一个类及其所有方法共用一份，每个方法只需构造路径条件再与之合并，不必重新解析注解的属性。
+ * {@link StartupCache} 也以此还原缓存的请求条件。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class DomainConditions {
+
+	private final RequestMappingInfo.BuilderConfiguration config;
+
+	/**
+	 * 注解所声明的请求方法、params、headers、consumes、produces 与映射名称
+	 */
+	private final RequestMappingInfo info;
+
+	DomainConditions (String name, RequestMethod[] methods, String[] params, String[] headers,
+	                  String[] consumes, String[] produces, RequestMappingInfo.BuilderConfiguration config) {
+		this.config = config;
+		this.info = RequestMappingInfo.paths()
+		                              .methods(methods)
+		                              .params(params)
+		                              .headers(headers)
+		                              .consumes(consumes)
+		                              .produces(produces)
+		                              .mappingName(name)
+		                              .options(config)
+		                              .build();
+	}
+
+	/**
+	 * @param annotation DomainMapping 或 RestDomainMapping
+	 */
+	static DomainConditions of (Annotation annotation, RequestMappingInfo.BuilderConfiguration config) {
+		if (annotation instanceof DomainMapping) {
+			DomainMapping mapping = (DomainMapping) annotation;
+			return new DomainConditions(mapping.name(), mapping.method(), mapping.params(), mapping.headers(),
+			                            mapping.consumes(), mapping.produces(), config);
+		}
+		RestDomainMapping mapping = (RestDomainMapping) annotation;
+		return new DomainConditions(mapping.name(), mapping.method(), mapping.params(), mapping.headers(),
+		                            mapping.consumes(), mapping.produces(), config);
+	}
+
+	/**
+	 * 使用给定的路径构造 RequestMappingInfo
+	 */
+	RequestMappingInfo build (String[] paths, @Nullable RequestCondition<?> customCondition) {
+		return info.combine(RequestMappingInfo.paths(paths)
+		                                      .customCondition(customCondition)
+		                                      .options(config)
+		                                      .build());
+	}
+}
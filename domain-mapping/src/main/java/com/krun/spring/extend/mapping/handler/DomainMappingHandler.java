@@ -10,32 +10,543 @@ package com.krun.spring.extend.mapping.handler;
 
 import com.krun.spring.extend.mapping.DomainMapping;
 import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.index.DomainMappingIndex;
+import com.krun.spring.extend.mapping.metrics.HandlerMetrics;
+import com.krun.spring.extend.mapping.metrics.HandlerSnapshot;
+import com.krun.spring.extend.mapping.metrics.RegistrationMetrics;
+import com.krun.spring.extend.mapping.metrics.RegistrationSnapshot;
+import com.krun.spring.extend.mapping.metrics.RequestMetrics;
 import com.krun.spring.extend.mapping.resolver.MappingNameResolver;
+import com.krun.spring.extend.mapping.resolver.NotThreadSafe;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import com.krun.spring.extend.mapping.utils.CacheStatistics;
 import com.krun.spring.extend.mapping.utils.Utils;
+import org.springframework.aop.scope.ScopedProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.SpringVersion;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.accept.ContentNegotiationStrategy;
+import org.springframework.web.accept.FixedContentNegotiationStrategy;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.mvc.condition.RequestCondition;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-
-import static com.krun.spring.extend.mapping.utils.Utils.findAnnotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author krun
  * @date 2018/05/01
  */
-public class DomainMappingHandler extends RequestMappingHandlerMapping {
+public class DomainMappingHandler extends RequestMappingHandlerMapping implements BeanNameAware, DisposableBean {
+
+	public static final String METRICS_OBJECT_NAME = "com.krun.spring.extend.mapping:type=RegistrationMetrics,name=";
+
+	public static final String REQUEST_METRICS_OBJECT_NAME = "com.krun.spring.extend.mapping:type=RequestMetrics,name=";
+
+	/**
+	 * 已经由 Spring MVC 异步处理的返回值类型，这些方法不再异步执行
+	 */
+	private static final List<Class<?>> ASYNC_RETURN_TYPES = new ArrayList<>();
+
+	static {
+		ClassLoader classLoader = DomainMappingHandler.class.getClassLoader();
+		for (String name : new String[] {
+				"java.util.concurrent.Callable",
+				"java.util.concurrent.CompletionStage",
+				"org.springframework.util.concurrent.ListenableFuture",
+				"org.springframework.web.context.request.async.WebAsyncTask",
+				"org.springframework.web.context.request.async.DeferredResult",
+				"org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter",
+				"org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody"}) {
+			if (ClassUtils.isPresent(name, classLoader)) {
+				ASYNC_RETURN_TYPES.add(ClassUtils.resolveClassName(name, classLoader));
+			}
+		}
+	}
 
 	private MappingNameResolver nameResolver;
 
+	/**
+	 * 与 WebFlux 版本共用的索引读取、注解识别与类级别 RequestMappingInfo 缓存
+	 */
+	private final DomainMappingSupport<RequestMappingInfo> support;
+
+	/**
+	 * 类上 DomainMapping / RestDomainMapping 的请求条件缓存，该类及其子类的所有方法共用一份
+	 */
+	private final ConcurrentMap<Class<?>, DomainConditions> conditionsCache = new ConcurrentHashMap<>();
+
+	private RequestMappingInfo.BuilderConfiguration config;
+
+	/**
+	 * 是否读取编译期索引
+	 */
+	private boolean useIndex = true;
+
+	/**
+	 * 启动缓存文件，为空时不使用
+	 */
+	private File startupCacheFile;
+
+	/**
+	 * 初始化完成后置空；延迟注册时保留，之后注册的延迟 handler 仍会用到
+	 */
+	private volatile StartupCache startupCache;
+
+	/**
+	 * 当前线程正在检测的 handler 类，用于标记映射中含有占位符、不能缓存的类
+	 */
+	private final ThreadLocal<Class<?>> detectingType = new ThreadLocal<>();
+
+	/**
+	 * 是否并行检测 handler 方法
+	 */
+	private boolean parallelDetection = false;
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private boolean detectInAncestorContexts = false;
+
+	/**
+	 * 是否延迟注册 DomainMapping / RestDomainMapping 修饰的 handler
+	 */
+	private boolean lazyRegistration = false;
+
+	private volatile LazyHandlerRegistry lazyRegistry;
+
+	private final LazyHandlerRegistry.Registrar lazyRegistrar = new LazyHandlerRegistry.Registrar() {
+
+		@Override
+		public void register (String beanName) {
+			if (metrics != null) {
+				log("Register lazy handler '%s'", beanName);
+			}
+			beginLookupTablesBatch();
+			try {
+				detectHandlerMethods(beanName);
+			} finally {
+				endLookupTablesBatch();
+			}
+		}
+	};
+
+	/**
+	 * 是否使用分段前缀树查找 handler 方法
+	 */
+	private boolean segmentTrieLookup = false;
+
+	/**
+	 * 是否使用按请求方法划分的分发表查找 handler 方法
+	 */
+	private boolean dispatchTableLookup = false;
+
+	/**
+	 * 查找结果缓存的容量，为 0 时不缓存
+	 */
+	private int lookupCacheSize = 0;
+
+	private final CacheStatistics lookupCacheStatistics = new CacheStatistics();
+
+	/**
+	 * 内容协商是否只取决于请求头
+	 */
+	private boolean negotiationCacheable;
+
+	/**
+	 * 首次查找或初始化完成时构造，注册表变化时构造新的查找表并整体替换，查找只读取一次
+	 */
+	private volatile LookupTables lookupTables;
+
+	private final Object lookupTablesLock = new Object();
+
+	/**
+	 * 所有查找表共用的查找结果缓存，替换查找表之后淘汰受影响的结果
+	 */
+	private LookupCache lookupCache;
+
+	/**
+	 * 当前线程尚未应用到查找表的变化，批量注册结束时只构造一次查找表
+	 */
+	private final ThreadLocal<LookupTablesBatch> lookupTablesBatch = new ThreadLocal<>();
+
+	/**
+	 * 映射的注册顺序，父类的注册表不保留顺序，构造查找表时按此排列，与父类按路径直接查找时的顺序一致
+	 */
+	private final ConcurrentMap<RequestMappingInfo, Long> registrationOrder = new ConcurrentHashMap<>();
+
+	private final AtomicLong registrationSequence = new AtomicLong();
+
+	/**
+	 * 注册期间记录注册表创建的 HandlerMethod，注册完成后交给查找表、请求统计与监听器。
+	 * 父类初始化 CORS 配置时还会再创建一次，只保留第一次创建的
+	 */
+	private final ThreadLocal<HandlerMethod[]> registeringHandlerMethod = new ThreadLocal<>();
+
+	private final Object reregistrationLock = new Object();
+
+	/**
+	 * 是否异步执行所有 DomainMapping / RestDomainMapping 修饰的 handler 的方法
+	 */
+	private boolean asyncExecution = false;
+
+	private AsyncTaskExecutor asyncExecutor;
+
+	/**
+	 * 未设置 executor 时创建的默认 executor，销毁时关闭
+	 */
+	private ExecutorService defaultAsyncExecutor;
+
+	/**
+	 * 注册统计，为空时不统计
+	 */
+	private RegistrationMetrics metrics;
+
+	private long initStart;
+
+	private String beanName;
+
+	private ObjectName metricsObjectName;
+
+	/**
+	 * 请求统计，为空时不统计
+	 */
+	private RequestMetrics requestMetrics;
+
+	private ObjectName requestMetricsObjectName;
+
+	private final List<MappingChangeListener> mappingChangeListeners = new CopyOnWriteArrayList<>();
+
 	public DomainMappingHandler (MappingNameResolver nameResolver) {
 		this.nameResolver = nameResolver;
+		this.support = new Support(nameResolver);
+	}
+
+	/**
+	 * 设置是否读取由 domain-mapping-processor 生成的编译期索引，默认读取。
+	 * 类及其父类都在索引内时只检查索引给出的方法，不再遍历全部方法；没有索引文件或索引已过期时会回退到反射解析。
+	 */
+	public void setUseIndex (boolean useIndex) {
+		this.useIndex = useIndex;
+	}
+
+	/**
+	 * 设置启动缓存文件，默认不使用。
+	 * <p>
+	 * 设置后，初始化完成时会将每个 handler 的方法与其路径、请求方法及其他请求条件写入该文件，
+	 * 以 handler 类、父类与接口的 class 文件的摘要为键，并记录 DomainMappingHandler、{@link MappingNameResolver} 的配置；
+	 * 之后的启动通过内存映射读取该文件，字节码与配置都没有变化的 handler 直接使用文件中的映射注册，不再反射检测与解析路径。
+	 * 缓存项没有变化时不会重写文件，文件损坏或配置不一致时忽略并重新写入。
+	 * <p>
+	 * 路径中含有占位符、使用了自定义条件、或者无法读取 class 文件的 handler 不会被缓存。
+	 * 只修改了组合注解的定义而 handler 本身没有变化时无法察觉，此时需要删除缓存文件。
+	 */
+	public void setStartupCache (@Nullable File startupCacheFile) {
+		this.startupCacheFile = startupCacheFile;
+	}
+
+	/**
+	 * 设置是否使用 fork-join 并行构造各个方法的 RequestMappingInfo，默认关闭。
+	 * 注册仍按 bean 的顺序串行进行，重复映射的报错与串行检测一致。
+	 * 所使用的 {@link MappingNameResolver} 被 {@link NotThreadSafe} 修饰时会回退到串行检测。
+	 */
+	public void setParallelDetection (boolean parallelDetection) {
+		this.parallelDetection = parallelDetection;
+	}
+
+	/**
+	 * 设置并行检测的线程数，默认为处理器数量
+	 */
+	public void setParallelism (int parallelism) {
+		Assert.isTrue(parallelism > 0, "parallelism must be greater than 0");
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * 设置是否延迟注册，默认关闭。
+	 * <p>
+	 * 开启后，启动时只解析被 DomainMapping / RestDomainMapping 修饰（且类上没有 RequestMapping）的 handler 的类路径，
+	 * 其方法在第一个位于类路径之下的请求到来时才注册，注册结果与启动时注册一致；其他 handler 仍在启动时注册。
+	 * 重复映射等错误也会推迟到该请求时才抛出。
+	 * 需要完整的 {@link #getHandlerMethods()} 时（例如生成路由树前），先调用 {@link #registerLazyHandlers()}。
+	 */
+	public void setLazyRegistration (boolean lazyRegistration) {
+		this.lazyRegistration = lazyRegistration;
+	}
+
+	/**
+	 * 立即注册所有尚未注册的延迟 handler
+	 */
+	public void registerLazyHandlers () {
+		LazyHandlerRegistry registry = this.lazyRegistry;
+		if (registry != null) {
+			beginLookupTablesBatch();
+			try {
+				registry.registerAll(lazyRegistrar);
+			} finally {
+				endLookupTablesBatch();
+			}
+		}
+	}
+
+	/**
+	 * 重新注册 type 及其子类的 handler，用于类被修改或重新加载之后，不必刷新整个上下文。
+	 * <p>
+	 * 先移除这些 handler 已注册的映射，以及 type 与其子类的类路径缓存、类级别 RequestMappingInfo 缓存
+	 * 与 DomainMapping 条件缓存，再按上下文中当前的 bean 类型重新检测并注册；其他 handler 的映射与缓存保持不变。
+	 * 类按名称比较，因此可以传入重新加载后的类。通过 {@link #registerMapping} 手动注册的映射不受影响。
+	 * 重新注册期间这些 handler 的请求可能找不到映射，查找表在重新注册完成后才替换。
+	 *
+	 * @return 重新注册的 handler 数量
+	 */
+	public int reregisterHandlers (Class<?> type) {
+		String className = type.getName();
+		synchronized (reregistrationLock) {
+			beginLookupTablesBatch();
+			try {
+				long start = System.nanoTime();
+
+				/* 已注册的映射 */
+				Map<RequestMappingInfo, HandlerMethod> registered = new LinkedHashMap<>();
+				Set<String> beanNames = new LinkedHashSet<>();
+				for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : getHandlerMethods().entrySet()) {
+					HandlerMethod handlerMethod = entry.getValue();
+					if (handlerMethod.getBean() instanceof String
+					    && Utils.isDerivedFrom(ClassUtils.getUserClass(handlerMethod.getBeanType()), className)) {
+						registered.put(entry.getKey(), handlerMethod);
+						beanNames.add((String) handlerMethod.getBean());
+					}
+				}
+
+				/* 上下文中当前的 handler，包括尚未注册的延迟 handler 与新增的 handler */
+				ApplicationContext context = obtainApplicationContext();
+				for (String beanName : getDetectionCandidateBeanNames()) {
+					if (ScopedProxyUtils.isScopedTarget(beanName) || beanNames.contains(beanName)) {
+						continue;
+					}
+					Class<?> beanType = context.getType(beanName);
+					if (beanType != null && Utils.isDerivedFrom(ClassUtils.getUserClass(beanType), className)
+					    && isHandler(beanType)) {
+						beanNames.add(beanName);
+					}
+				}
+
+				evictCaches(type);
+				for (RequestMappingInfo mapping : registered.keySet()) {
+					unregisterMapping(mapping);
+				}
+
+				LazyHandlerRegistry registry = this.lazyRegistry;
+				for (String beanName : beanNames) {
+					if (registry != null) {
+						registry.discard(beanName);
+					}
+					/* bean 已被移除时只移除其映射 */
+					if (context.containsBean(beanName) && context.getType(beanName) != null) {
+						detectHandlerMethods(beanName);
+					}
+				}
+
+				if (metrics != null) {
+					log("Reregister %d handlers derived from %s in %dms, %d mappings removed", beanNames.size(), className,
+					    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), registered.size());
+				}
+				return beanNames.size();
+			} finally {
+				endLookupTablesBatch();
+			}
+		}
+	}
+
+	/**
+	 * 移除 type 及其子类的类路径、类级别 RequestMappingInfo 与 DomainMapping 条件缓存
+	 */
+	private void evictCaches (Class<?> type) {
+		String className = type.getName();
+		if (nameResolver instanceof AbstractMappingNameResolver) {
+			((AbstractMappingNameResolver) nameResolver).evict(type);
+		}
+		support.evictTypeMappingInfo(type);
+		for (Class<?> cached : conditionsCache.keySet()) {
+			if (Utils.isDerivedFrom(cached, className)) {
+				conditionsCache.remove(cached);
+			}
+		}
+		StartupCache cache = this.startupCache;
+		if (cache != null) {
+			cache.evict(type);
+		}
+	}
+
+	/**
+	 * @return 尚未注册的延迟 handler 数量
+	 */
+	public int getPendingLazyHandlerCount () {
+		LazyHandlerRegistry registry = this.lazyRegistry;
+		return registry == null ? 0 : registry.getPendingCount();
+	}
+
+	/**
+	 * 设置是否使用分段前缀树查找 handler 方法，默认关闭。
+	 * <p>
+	 * 不含通配符的路径按段在前缀树中查找，只需比较该路径下的映射，耗时不随映射的数量增长；
+	 * 路径上存在通配符或 URI 变量、带有扩展名、CORS 预检请求等前缀树无法确定的情况仍交由父类查找，结果与父类一致。
+	 * 开启后匹配与歧义的判断由 DomainMappingHandler 完成，与父类的实现保持一致，升级 Spring 后应重新验证。
+	 * 使用自定义的 PathMatcher 或 PathPatternParser 时不生效。
+	 */
+	public void setSegmentTrieLookup (boolean segmentTrieLookup) {
+		this.segmentTrieLookup = segmentTrieLookup;
+	}
+
+	/**
+	 * 设置是否使用按请求方法划分的分发表查找 handler 方法，默认关闭。
+	 * <p>
+	 * 注册表中不含通配符的路径按请求方法预先分组，路径完全相同的请求只需一次哈希查找，
+	 * 并且只检查请求方法相符的映射；没有匹配时再按前缀树或父类的方式查找，结果与父类一致。
+	 * 使用 PathPatternParser 时不生效。
+	 */
+	public void setDispatchTableLookup (boolean dispatchTableLookup) {
+		this.dispatchTableLookup = dispatchTableLookup;
+	}
+
+	/**
+	 * 设置查找结果缓存的容量，默认为 0，即不缓存。
+	 * <p>
+	 * 缓存以请求方法、lookupPath 与 Accept / Content-Type 请求头为键，保存最终匹配的 handler 方法及其 RequestMappingInfo，
+	 * 超出容量时淘汰最近最少使用的结果。只有分发表或前缀树能够确定、且参与匹配的映射都不含 URI 变量、通配符、
+	 * params / headers / 自定义条件的结果才会被缓存；注册或移除映射时只淘汰该映射的路径能够匹配的结果。
+	 * 需要开启分发表或前缀树查找。
+	 */
+	public void setLookupCacheSize (int lookupCacheSize) {
+		Assert.isTrue(lookupCacheSize >= 0, "lookupCacheSize must not be negative");
+		this.lookupCacheSize = lookupCacheSize;
+	}
+
+	/**
+	 * @return 查找结果缓存的命中统计，未命中包括不可缓存的请求
+	 */
+	public CacheStatistics getLookupCacheStatistics () {
+		return lookupCacheStatistics;
+	}
+
+	/**
+	 * 设置是否异步执行所有 DomainMapping / RestDomainMapping 修饰的 handler 的方法，默认关闭；
+	 * 关闭时仍可以通过注解的 async 属性为单个 handler 开启。
+	 * <p>
+	 * 异步执行的方法在容器线程上解析参数，再提交到 {@link #setAsyncExecutor(Executor)} 所设置的 executor 上调用，容器线程随即释放，
+	 * 适用于包含阻塞调用的 handler。需要同时使用 {@link DomainMappingHandlerAdapter}，并为 DispatcherServlet 开启异步支持。
+	 * 返回值本身就是异步类型（Callable、DeferredResult 等）的方法不受影响。
+	 */
+	public void setAsyncExecution (boolean asyncExecution) {
+		this.asyncExecution = asyncExecution;
+	}
+
+	/**
+	 * 设置异步执行 handler 方法的 executor。
+	 * 默认在支持虚拟线程的 JDK 上为每个请求创建一个虚拟线程，否则为每个请求创建一个线程，此时建议设置有界的线程池。
+	 */
+	public void setAsyncExecutor (Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor instanceof AsyncTaskExecutor ? (AsyncTaskExecutor) asyncExecutor
+		                                                                : new ConcurrentTaskExecutor(asyncExecutor);
+	}
+
+	/**
+	 * 设置是否统计注册期间的耗时，默认关闭。
+	 * 开启后可以通过 {@link #getRegistrationMetrics()} 或 JMX 获取统计，并输出路径的生成过程；
+	 * 关闭时不会产生计时与日志的开销。
+	 */
+	public void setMetricsEnabled (boolean metricsEnabled) {
+		this.metrics = metricsEnabled ? new RegistrationMetrics() : null;
+		if (nameResolver instanceof AbstractMappingNameResolver) {
+			((AbstractMappingNameResolver) nameResolver).setVerbose(metricsEnabled);
+		}
+	}
+
+	/**
+	 * @return 注册统计，未开启时为 NULL
+	 */
+	@Nullable
+	public RegistrationMetrics getRegistrationMetrics () {
+		return metrics;
+	}
+
+	/**
+	 * 设置是否统计请求耗时，默认关闭，需要在设置 ApplicationContext 之前调用。
+	 * <p>
+	 * 开启后会注册一个拦截器，按路由（请求方法与路径）记录 DomainMapping / RestDomainMapping 修饰的 handler 的请求耗时、错误数与 QPS，
+	 * 记录时不加锁。可以通过 {@link #getRequestMetrics()} 按路由或 handler 类获取 p50、p99 与 p999，也可以通过 JMX 查看。
+	 */
+	public void setRequestMetricsEnabled (boolean requestMetricsEnabled) {
+		this.requestMetrics = requestMetricsEnabled ? new RequestMetrics() : null;
+	}
+
+	/**
+	 * @return 请求统计，未开启时为 NULL
+	 */
+	@Nullable
+	public RequestMetrics getRequestMetrics () {
+		return requestMetrics;
+	}
+
+	@Override
+	public void setBeanName (String name) {
+		this.beanName = name;
+	}
+
+	@Override
+	public void setDetectHandlerMethodsInAncestorContexts (boolean detectHandlerMethodsInAncestorContexts) {
+		super.setDetectHandlerMethodsInAncestorContexts(detectHandlerMethodsInAncestorContexts);
+		this.detectInAncestorContexts = detectHandlerMethodsInAncestorContexts;
+	}
+
+	/**
+	 * @return 类级别 RequestMappingInfo 缓存的命中统计
+	 */
+	public CacheStatistics getTypeInfoCacheStatistics () {
+		return support.getTypeInfoStatistics();
 	}
 
 	private void log(String format, Object ...args) {
@@ -45,142 +556,959 @@ public class DomainMappingHandler extends RequestMappingHandlerMapping {
 	}
 
 	@Override
-	protected boolean isHandler (Class<?> beanType) {
-		/* 加入 DomainMapping 和 RestDomainMapping 的识别 */
-		return AnnotatedElementUtils.hasAnnotation(beanType, DomainMapping.class)
-		|| AnnotatedElementUtils.hasAnnotation(beanType, RestDomainMapping.class)
-		|| super.isHandler(beanType);
+	public void afterPropertiesSet () {
+		/* 父类的配置是私有的，只能按父类的方式重新构造一份，生成的映射与 RequestMapping 声明的映射保持一致 */
+		config = createBuilderConfiguration();
+
+		negotiationCacheable = isNegotiationCacheable(getContentNegotiationManager());
+		if ((segmentTrieLookup || dispatchTableLookup) && usesPathPatterns()) {
+			log("PathPatternParser is not supported by segment trie and dispatch table lookup");
+			segmentTrieLookup = false;
+			dispatchTableLookup = false;
+		}
+		if (segmentTrieLookup && ! SegmentTrie.supports(getPathMatcher())) {
+			log("%s is not supported by segment trie lookup", getPathMatcher().getClass().getName());
+			segmentTrieLookup = false;
+		}
+		lookupCache = (segmentTrieLookup || dispatchTableLookup) && lookupCacheSize > 0
+		              ? new LookupCache(lookupCacheSize, lookupCacheStatistics) : null;
+
+		if (useIndex) {
+			support.loadIndex(getApplicationContext());
+		}
+		if (startupCacheFile != null) {
+			loadStartupCache();
+		}
+		super.afterPropertiesSet();
+	}
+
+	@SuppressWarnings ("deprecation")
+	private RequestMappingInfo.BuilderConfiguration createBuilderConfiguration () {
+		RequestMappingInfo.BuilderConfiguration config = new RequestMappingInfo.BuilderConfiguration();
+		config.setTrailingSlashMatch(useTrailingSlashMatch());
+		config.setContentNegotiationManager(getContentNegotiationManager());
+		if (usesPathPatterns()) {
+			config.setPatternParser(getPatternParser());
+		} else {
+			config.setUrlPathHelper(getUrlPathHelper());
+			config.setPathMatcher(getPathMatcher());
+			config.setSuffixPatternMatch(useSuffixPatternMatch());
+			config.setRegisteredSuffixPatternMatch(useRegisteredSuffixPatternMatch());
+		}
+		return config;
+	}
+
+	/**
+	 * 按请求参数、路径扩展名等其他方式协商时，produces 条件的匹配结果不能只由请求头决定。
+	 * 路径扩展名的协商自 Spring 5.3 起已废弃，保守地视为不可缓存
+	 */
+	private static boolean isNegotiationCacheable (ContentNegotiationManager manager) {
+		for (ContentNegotiationStrategy strategy : manager.getStrategies()) {
+			if (! (strategy instanceof HeaderContentNegotiationStrategy)
+			    && ! (strategy instanceof FixedContentNegotiationStrategy)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void loadStartupCache () {
+		String resolverKey = nameResolver instanceof AbstractMappingNameResolver
+		                     ? ((AbstractMappingNameResolver) nameResolver).getConfigurationKey()
+		                     : nameResolver.getClass().getName();
+		StartupCache cache = new StartupCache(startupCacheFile, "Spring " + SpringVersion.getVersion() + "\n" +
+		                                      resolverKey, getClass(), nameResolver.getClass());
+		try {
+			log("Load startup cache { %d classes } from %s", cache.load(), startupCacheFile);
+		} catch (IOException e) {
+			this.logger.warn("Failed to load startup cache " + startupCacheFile + ", fall back to detection", e);
+		}
+		startupCache = cache;
 	}
 
 	@Override
-	protected RequestMappingInfo getMappingForMethod (Method method, Class<?> handlerType) {
-		RequestMappingInfo info = createRequestMappingInfo(method);
-		if (info != null) {
-			RequestMappingInfo typeInfo = createRequestMappingInfo(handlerType);
-			if (typeInfo != null) {
-				info = typeInfo.combine(info);
+	protected void initHandlerMethods () {
+		initStart = System.nanoTime();
+		if (lazyRegistration) {
+			initLazyHandlerMethods();
+			return;
+		}
+		if (! parallelDetection) {
+			super.initHandlerMethods();
+			return;
+		}
+		if (nameResolver.getClass().isAnnotationPresent(NotThreadSafe.class)) {
+			log("%s is not thread-safe, detect handler methods sequentially", nameResolver.getClass().getName());
+			super.initHandlerMethods();
+			return;
+		}
+
+		ApplicationContext context = obtainApplicationContext();
+		String[] beanNames = getDetectionCandidateBeanNames();
+
+		/* 解析 bean 类型可能会初始化 FactoryBean，因此在当前线程内完成 */
+		Class<?>[] beanTypes = new Class<?>[beanNames.length];
+		for (int i = 0; i < beanNames.length; i++) {
+			if (ScopedProxyUtils.isScopedTarget(beanNames[i])) {
+				continue;
+			}
+			try {
+				beanTypes[i] = context.getType(beanNames[i]);
+			} catch (Throwable ex) {
+				if (this.logger.isDebugEnabled()) {
+					this.logger.debug("Could not resolve target class for bean with name '" + beanNames[i] + "'", ex);
+				}
 			}
 		}
-		return info;
+
+		/* 命中启动缓存的 handler 不再检测 */
+		StartupCache cache = this.startupCache;
+		@SuppressWarnings ("unchecked")
+		Map<Method, RequestMappingInfo>[] cached = new Map[beanNames.length];
+		Class<?>[] detectTypes = beanTypes;
+		if (cache != null) {
+			detectTypes = beanTypes.clone();
+			for (int i = 0; i < beanNames.length; i++) {
+				if (beanTypes[i] != null) {
+					cached[i] = cache.get(ClassUtils.getUserClass(beanTypes[i]), config);
+					if (cached[i] != null) {
+						detectTypes[i] = null;
+					}
+				}
+			}
+		}
+
+		ParallelHandlerDetector.Detected<RequestMappingInfo>[] detected = new ParallelHandlerDetector<>(
+				new ParallelHandlerDetector.Inspector<RequestMappingInfo>() {
+
+					@Override
+					public boolean isHandler (Class<?> beanType) {
+						return DomainMappingHandler.this.isHandler(beanType);
+					}
+
+					@Override
+					public RequestMappingInfo getMappingForMethod (Method method, Class<?> userType) {
+						return DomainMappingHandler.this.getMappingForMethod(method, userType);
+					}
+
+					@Override
+					public List<Method> getCandidateMethods (Class<?> userType) {
+						return DomainMappingHandler.this.getCandidateMethods(userType);
+					}
+				}, parallelism).detect(beanNames, detectTypes);
+
+		/* 按 bean 的顺序注册 */
+		for (int i = 0; i < beanNames.length; i++) {
+			if (cached[i] != null) {
+				Class<?> userType = ClassUtils.getUserClass(beanTypes[i]);
+				if (metrics != null) {
+					metrics.handler(userType).recordBeanName(beanNames[i]);
+				}
+				registerHandlerMethods(beanNames[i], userType, cached[i]);
+				continue;
+			}
+			ParallelHandlerDetector.Detected<RequestMappingInfo> handler = detected[i];
+			if (handler == null) {
+				continue;
+			}
+			handler.rethrow();
+			if (metrics != null) {
+				metrics.handler(handler.userType).recordBeanName(handler.beanName);
+			}
+			if (cache != null) {
+				cache.put(handler.userType, handler.methods);
+			}
+			registerHandlerMethods(handler.beanName, handler.userType, handler.methods);
+		}
+		handlerMethodsInitialized(getHandlerMethods());
 	}
 
+	/**
+	 * 与父类的 getCandidateBeanNames 一致，该方法在 Spring 5.1 才加入，因此另取名字以兼容 5.0
+	 */
+	private String[] getDetectionCandidateBeanNames () {
+		ApplicationContext context = obtainApplicationContext();
+		return detectInAncestorContexts ? BeanFactoryUtils.beanNamesForTypeIncludingAncestors(context, Object.class)
+		                                : context.getBeanNamesForType(Object.class);
+	}
 
-	private RequestMappingInfo createRequestMappingInfo (AnnotatedElement element) {
-		RequestMapping requestMapping = AnnotatedElementUtils.findMergedAnnotation(element, RequestMapping.class);
-		RequestCondition<?> condition = (element instanceof Class ? getCustomTypeCondition((Class<?>) element)
-		                                                          : getCustomMethodCondition((Method) element));
+	/**
+	 * 启动时只记录延迟 handler 的类路径，其他 handler 照常注册
+	 */
+	private void initLazyHandlerMethods () {
+		ApplicationContext context = obtainApplicationContext();
+		LazyHandlerRegistry registry = new LazyHandlerRegistry(getPathMatcher());
 
-		/* 如果使用了 RequestMapping ，那么使用该注解的属性值 */
-		if (requestMapping != null) {
-			/* 如果没有设置 value 或 path, 则使用 MappingNameResolver 获取合适的路径 */
-			if (requestMapping.path().length == 0) {
-				String[] path = generatePath(element);
-				requestMapping = generateRequestMapping(requestMapping.name(), path, path, requestMapping.method(),
-				                                        requestMapping.params(), requestMapping.headers(),
-				                                        requestMapping.consumes(), requestMapping.produces());
-				log("Generate path for RequestMapping on { %s %s }", element instanceof Class ? "class" : "method",
-				    Utils.getElementDeclaration(element));
+		for (String beanName : getDetectionCandidateBeanNames()) {
+			if (ScopedProxyUtils.isScopedTarget(beanName)) {
+				continue;
 			}
-		} else {
-			/* 既没有 RequestMapping 也没有 DomainMapping 和 RestDomainMapping，则不处理*/
-			if (!hasAnnotation(element instanceof Class ? element : ((Method) element).getDeclaringClass())) {
-				return null;
+			Class<?> beanType = null;
+			try {
+				beanType = context.getType(beanName);
+			} catch (Throwable ex) {
+				if (this.logger.isDebugEnabled()) {
+					this.logger.debug("Could not resolve target class for bean with name '" + beanName + "'", ex);
+				}
+			}
+			if (beanType == null || ! isHandler(beanType)) {
+				continue;
+			}
+
+			Class<?> userType = ClassUtils.getUserClass(beanType);
+			if (! support.hasDomainAnnotation(userType)
+			    || AnnotatedElementUtils.findMergedAnnotation(userType, RequestMapping.class) != null) {
+				detectHandlerMethods(beanName);
+				continue;
 			}
-			if (element instanceof Method) {
-				Method method = (Method) element;
 
-				int modifiers = method.getModifiers();
+			/* 类路径与注册时所使用的类级别 RequestMappingInfo 一致 */
+			RequestMappingInfo typeInfo;
+			detectingType.set(userType);
+			try {
+				typeInfo = support.getTypeMappingInfo(userType, metrics != null ? metrics.handler(userType) : null);
+			} finally {
+				detectingType.remove();
+			}
+			if (typeInfo == null) {
+				detectHandlerMethods(beanName);
+				continue;
+			}
+			registry.add(beanName, typeInfo.getPatternsCondition().getPatterns());
+		}
+
+		lazyRegistry = registry;
+		log("Defer registration of %d domain handlers", registry.getPendingCount());
+		handlerMethodsInitialized(getHandlerMethods());
+	}
+
+	@Override
+	protected HandlerMethod getHandlerInternal (HttpServletRequest request) throws Exception {
+		/* 查找时会持有注册表的读锁，因此必须在此之前完成注册 */
+		LazyHandlerRegistry registry = this.lazyRegistry;
+		if (registry != null && registry.getPendingCount() > 0) {
+			registry.registerMatching(getUrlPathHelper().getLookupPathForRequest(request), lazyRegistrar);
+		}
+		return super.getHandlerInternal(request);
+	}
 
-				/* 检查方法是否合法: 公开、非静态、非抽象 */
-				if (! Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || Modifier.isAbstract(modifiers)) {
-					return null;
+	@Override
+	protected HandlerMethod lookupHandlerMethod (String lookupPath, HttpServletRequest request) throws Exception {
+		/* 预检请求按 Access-Control-Request-Method 匹配，且歧义匹配需要父类私有的 handler */
+		if (! (segmentTrieLookup || dispatchTableLookup) || CorsUtils.isPreFlightRequest(request)) {
+			return super.lookupHandlerMethod(lookupPath, request);
+		}
+		/* 转发、错误等请求的匹配规则有所不同，不使用缓存 */
+		if (lookupCache == null || request.getDispatcherType() != DispatcherType.REQUEST) {
+			return lookupHandlerMethod(getLookupTables(), null, lookupPath, request);
+		}
+
+		/* 先取得键再读取查找表，查找期间替换了查找表时该次结果不会被缓存 */
+		LookupCache.Key key = lookupCache.key(request, lookupPath);
+		LookupCache.Result cached = lookupCache.get(key);
+		if (cached != null) {
+			request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, cached.handlerMethod);
+			handleMatch(cached.mapping, lookupPath, request);
+			return cached.handlerMethod;
+		}
+		long start = System.nanoTime();
+		try {
+			return lookupHandlerMethod(getLookupTables(), key, lookupPath, request);
+		} finally {
+			lookupCache.recordMiss(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * @param key 为空时不缓存查找结果
+	 */
+	private HandlerMethod lookupHandlerMethod (LookupTables tables, @Nullable LookupCache.Key key, String lookupPath,
+	                                           HttpServletRequest request) throws Exception {
+		/* 与父类相同，优先考虑路径完全相同的映射，请求方法不符的映射本就不会匹配 */
+		List<Match> matches = new ArrayList<>();
+		if (tables.dispatch != null) {
+			List<MappingEntry> direct = tables.dispatch.find(request.getMethod(), lookupPath);
+			if (direct != null) {
+				for (MappingEntry candidate : direct) {
+					addMatch(candidate, matches, request);
+				}
+				if (! matches.isEmpty()) {
+					return handleBestMatch(key, direct, matches, lookupPath, request);
 				}
 			}
-			requestMapping = generateRequestMapping(element);
-			log("Generate RequestMapping on { %s %s }", element instanceof Class ? "class" : "method",
-			    Utils.getElementDeclaration(element));
 		}
 
-		return createRequestMappingInfo(requestMapping, condition);
+		List<MappingEntry> candidates = tables.trie != null ? tables.trie.find(lookupPath) : null;
+		if (candidates == null) {
+			return super.lookupHandlerMethod(lookupPath, request);
+		}
+		for (MappingEntry candidate : candidates) {
+			if (candidate.patterns.contains(lookupPath)) {
+				addMatch(candidate, matches, request);
+			}
+		}
+		if (matches.isEmpty()) {
+			for (MappingEntry candidate : candidates) {
+				addMatch(candidate, matches, request);
+			}
+		}
+		if (matches.isEmpty()) {
+			/* 其他映射的路径一定不匹配，不会影响 405 / 415 等错误的判断 */
+			Set<RequestMappingInfo> infos = new LinkedHashSet<>();
+			for (MappingEntry candidate : candidates) {
+				infos.add(candidate.info);
+			}
+			return handleNoMatch(infos, lookupPath, request);
+		}
+		return handleBestMatch(key, candidates, matches, lookupPath, request);
 	}
 
-	private String[] generatePath (AnnotatedElement element) {
-		if (element instanceof Class) {
-			return nameResolver.resolve((Class<?>) element, null, null);
-		} else {
-			return nameResolver.resolve(((Method) element).getDeclaringClass(), (Method) element, null);
+	/**
+	 * @param candidates 参与匹配的全部映射，都只由缓存的键决定能否匹配时才缓存结果
+	 */
+	private HandlerMethod handleBestMatch (@Nullable LookupCache.Key key, List<MappingEntry> candidates,
+	                                       List<Match> matches, String lookupPath, HttpServletRequest request) {
+		Match bestMatch = matches.get(0);
+		if (matches.size() > 1) {
+			final Comparator<RequestMappingInfo> comparator = getMappingComparator(request);
+			Comparator<Match> matchComparator = new Comparator<Match>() {
+
+				@Override
+				public int compare (Match match1, Match match2) {
+					return comparator.compare(match1.mapping, match2.mapping);
+				}
+			};
+			Collections.sort(matches, matchComparator);
+			bestMatch = matches.get(0);
+			Match secondBestMatch = matches.get(1);
+			if (matchComparator.compare(bestMatch, secondBestMatch) == 0) {
+				Method m1 = bestMatch.handlerMethod.getMethod();
+				Method m2 = secondBestMatch.handlerMethod.getMethod();
+				throw new IllegalStateException("Ambiguous handler methods mapped for '" + request.getRequestURI() +
+				                                "': {" + m1 + ", " + m2 + "}");
+			}
+		}
+		if (key != null && isCacheable(candidates)) {
+			lookupCache.put(key, bestMatch.mapping, bestMatch.handlerMethod);
+		}
+		request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, bestMatch.handlerMethod);
+		handleMatch(bestMatch.mapping, lookupPath, request);
+		return bestMatch.handlerMethod;
+	}
+
+	private static boolean isCacheable (List<MappingEntry> candidates) {
+		for (MappingEntry candidate : candidates) {
+			if (! candidate.cacheable) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void addMatch (MappingEntry candidate, List<Match> matches, HttpServletRequest request) {
+		RequestMappingInfo match = getMatchingMapping(candidate.info, request);
+		if (match != null) {
+			matches.add(new Match(match, candidate.handlerMethod));
 		}
 	}
 
 	/**
-	 * 伪造 RequestMapping
- 	 */
-	private RequestMapping generateRequestMapping (final String name, final String[] value, final String[] path,
-	                                               final RequestMethod[] method, final String[] params,
-	                                               final String[] headers, final String[] consumes,
-	                                               final String[] produces) {
-		return new RequestMapping() {
+	 * 首次调用时按注册表构造，与之并发的注册会在构造完成后再应用一次，重复的变化会被忽略
+	 */
+	private LookupTables getLookupTables () {
+		LookupTables tables = this.lookupTables;
+		if (tables == null) {
+			synchronized (lookupTablesLock) {
+				tables = this.lookupTables;
+				if (tables == null) {
+					List<MappingEntry> registered = MappingEntry.of(getHandlerMethods(), negotiationCacheable);
+					Collections.sort(registered, new Comparator<MappingEntry>() {
 
-			@Override
-			public Class<? extends Annotation> annotationType () {
-				return RequestMapping.class;
+						@Override
+						public int compare (MappingEntry entry1, MappingEntry entry2) {
+							return Long.compare(getRegistrationOrder(entry1.info), getRegistrationOrder(entry2.info));
+						}
+					});
+					Map<RequestMappingInfo, MappingEntry> entries = new LinkedHashMap<>();
+					for (MappingEntry entry : registered) {
+						entries.put(entry.info, entry);
+					}
+					tables = buildLookupTables(entries);
+					this.lookupTables = tables;
+				}
 			}
-			@Override
-			public String name () {
-				return name;
+		}
+		return tables;
+	}
+
+	/**
+	 * 与构造查找表并发注册的映射可能尚未记录顺序，排在最后
+	 */
+	private long getRegistrationOrder (RequestMappingInfo info) {
+		Long order = registrationOrder.get(info);
+		return order != null ? order : Long.MAX_VALUE;
+	}
+
+	private LookupTables buildLookupTables (Map<RequestMappingInfo, MappingEntry> entries) {
+		List<MappingEntry> list = new ArrayList<>(entries.values());
+		return new LookupTables(segmentTrieLookup ? SegmentTrie.build(list, isSuffixPatternMatch()) : null,
+		                        dispatchTableLookup ? DispatchTable.build(list, getPathMatcher()) : null, entries);
+	}
+
+	/**
+	 * 在当前线程开始批量更新查找表，可以嵌套，最外层结束时才应用期间的所有变化
+	 */
+	private void beginLookupTablesBatch () {
+		LookupTablesBatch batch = lookupTablesBatch.get();
+		if (batch == null) {
+			batch = new LookupTablesBatch();
+			lookupTablesBatch.set(batch);
+		}
+		batch.depth++;
+	}
+
+	private void endLookupTablesBatch () {
+		LookupTablesBatch batch = lookupTablesBatch.get();
+		if (--batch.depth > 0) {
+			return;
+		}
+		lookupTablesBatch.remove();
+		if (! batch.changes.isEmpty()) {
+			applyLookupTablesChanges(batch.changes);
+		}
+	}
+
+	/**
+	 * @param entry 为空时移除该映射
+	 */
+	private void updateLookupTables (RequestMappingInfo info, @Nullable MappingEntry entry) {
+		LookupTablesBatch batch = lookupTablesBatch.get();
+		if (batch != null) {
+			batch.changes.add(new LookupTablesChange(info, entry));
+			return;
+		}
+		applyLookupTablesChanges(Collections.singletonList(new LookupTablesChange(info, entry)));
+	}
+
+	/**
+	 * 按顺序应用变化后构造新的查找表并整体替换，替换之后再淘汰受影响的查找结果
+	 */
+	private void applyLookupTablesChanges (List<LookupTablesChange> changes) {
+		synchronized (lookupTablesLock) {
+			LookupTables tables = this.lookupTables;
+			/* 尚未构造时不必更新，构造时会读取注册表 */
+			if (tables == null) {
+				return;
 			}
-			@Override
-			public String[] value () {
-				return value;
+			Map<RequestMappingInfo, MappingEntry> entries = new LinkedHashMap<>(tables.entries);
+			Set<RequestMappingInfo> changed = new LinkedHashSet<>();
+			for (LookupTablesChange change : changes) {
+				if (change.entry == null) {
+					if (entries.remove(change.info) != null) {
+						changed.add(change.info);
+					}
+				} else if (! entries.containsKey(change.info)) {
+					entries.put(change.info, change.entry);
+					changed.add(change.info);
+				}
 			}
-			@Override
-			public String[] path () {
-				return path;
+			if (changed.isEmpty()) {
+				return;
 			}
-			@Override
-			public RequestMethod[] method () {
-				return method;
+			this.lookupTables = buildLookupTables(entries);
+			if (lookupCache != null) {
+				for (RequestMappingInfo info : changed) {
+					lookupCache.evict(info);
+				}
 			}
-			@Override
-			public String[] params () {
-				return params;
+		}
+	}
+
+	/**
+	 * 后缀匹配已经废弃，但父类注册的映射仍可能开启，前缀树需要与之一致
+	 */
+	@SuppressWarnings ("deprecation")
+	private boolean isSuffixPatternMatch () {
+		return useSuffixPatternMatch();
+	}
+
+	/**
+	 * 添加注册表变化的监听器，只会收到添加之后的变化
+	 */
+	public void addMappingChangeListener (MappingChangeListener listener) {
+		Assert.notNull(listener, "MappingChangeListener must not be null");
+		mappingChangeListeners.add(listener);
+	}
+
+	public void removeMappingChangeListener (MappingChangeListener listener) {
+		mappingChangeListeners.remove(listener);
+	}
+
+	@Override
+	protected void registerHandlerMethod (Object handler, Method method, RequestMappingInfo mapping) {
+		HandlerMethod[] created = new HandlerMethod[1];
+		registeringHandlerMethod.set(created);
+		try {
+			super.registerHandlerMethod(handler, method, mapping);
+		} finally {
+			registeringHandlerMethod.remove();
+		}
+		mappingRegistered(mapping, created[0] != null ? created[0] : super.createHandlerMethod(handler, method));
+	}
+
+	@Override
+	public void registerMapping (RequestMappingInfo mapping, Object handler, Method method) {
+		HandlerMethod[] created = new HandlerMethod[1];
+		registeringHandlerMethod.set(created);
+		try {
+			super.registerMapping(mapping, handler, method);
+		} finally {
+			registeringHandlerMethod.remove();
+		}
+		mappingRegistered(mapping, created[0] != null ? created[0] : super.createHandlerMethod(handler, method));
+	}
+
+	/**
+	 * 注册完成后才更新查找表，避免查找表中出现注册失败的映射
+	 */
+	private void mappingRegistered (RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+		if (segmentTrieLookup || dispatchTableLookup) {
+			registrationOrder.put(mapping, registrationSequence.incrementAndGet());
+		}
+		/* 查找表尚未构造时，构造时会读取已完成的注册 */
+		if (this.lookupTables != null) {
+			updateLookupTables(mapping, MappingEntry.of(mapping, handlerMethod, negotiationCacheable));
+		}
+		registerRoute(mapping, handlerMethod);
+		for (MappingChangeListener listener : mappingChangeListeners) {
+			listener.mappingRegistered(mapping, handlerMethod);
+		}
+	}
+
+	/**
+	 * 为 DomainMapping / RestDomainMapping 修饰的 handler 的方法登记请求统计，
+	 * 以注册的 HandlerMethod 为键，重新注册时保留原有的统计
+	 */
+	private void registerRoute (RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+		if (requestMetrics == null) {
+			return;
+		}
+		if (! support.hasDomainAnnotation(handlerMethod.getBeanType())) {
+			return;
+		}
+		requestMetrics.register(handlerMethod, getRouteName(mapping), handlerMethod.getBeanType(),
+		                        handlerMethod.toString());
+	}
+
+	private static String getRouteName (RequestMappingInfo mapping) {
+		String patterns = StringUtils.collectionToDelimitedString(mapping.getPatternsCondition().getPatterns(), " || ");
+		Set<RequestMethod> methods = mapping.getMethodsCondition().getMethods();
+		return methods.isEmpty() ? patterns : StringUtils.collectionToCommaDelimitedString(methods) + " " + patterns;
+	}
+
+	@Override
+	protected void extendInterceptors (List<Object> interceptors) {
+		super.extendInterceptors(interceptors);
+		if (requestMetrics != null) {
+			/* 放在最前面，其他拦截器的耗时也会计入 */
+			interceptors.add(0, new RequestMetricsInterceptor(requestMetrics));
+		}
+	}
+
+	@Override
+	public void unregisterMapping (RequestMappingInfo mapping) {
+		/* 先从查找表中移除，之后的查找不会再返回正在移除的映射 */
+		if (segmentTrieLookup || dispatchTableLookup) {
+			updateLookupTables(mapping, null);
+		}
+		super.unregisterMapping(mapping);
+		registrationOrder.remove(mapping);
+		for (MappingChangeListener listener : mappingChangeListeners) {
+			listener.mappingUnregistered(mapping);
+		}
+	}
+
+	@Override
+	protected HandlerMethod createHandlerMethod (Object handler, Method method) {
+		HandlerMethod handlerMethod = super.createHandlerMethod(handler, method);
+		if (isAsyncExecution(handlerMethod)) {
+			handlerMethod = new AsyncHandlerMethod(handlerMethod, obtainAsyncExecutor());
+		}
+		HandlerMethod[] created = registeringHandlerMethod.get();
+		if (created != null && created[0] == null) {
+			created[0] = handlerMethod;
+		}
+		return handlerMethod;
+	}
+
+	private boolean isAsyncExecution (HandlerMethod handlerMethod) {
+		Class<?> beanType = handlerMethod.getBeanType();
+		if (! AnnotatedElementUtils.hasAnnotation(beanType, DomainMapping.class)
+		    && ! AnnotatedElementUtils.hasAnnotation(beanType, RestDomainMapping.class)) {
+			return false;
+		}
+		if (! asyncExecution) {
+			Annotation annotation = DomainMappingSupport.getDomainAnnotation(beanType);
+			if (! (annotation instanceof DomainMapping ? ((DomainMapping) annotation).async()
+			                                           : ((RestDomainMapping) annotation).async())) {
+				return false;
 			}
-			@Override
-			public String[] headers () {
-				return headers;
+		}
+		Class<?> returnType = handlerMethod.getReturnType().getParameterType();
+		for (Class<?> asyncType : ASYNC_RETURN_TYPES) {
+			if (asyncType.isAssignableFrom(returnType)) {
+				return false;
 			}
-			@Override
-			public String[] consumes () {
-				return consumes;
+		}
+		return true;
+	}
+
+	private synchronized AsyncTaskExecutor obtainAsyncExecutor () {
+		if (asyncExecutor != null) {
+			return asyncExecutor;
+		}
+		/* 虚拟线程需要 JDK 21，通过反射获取以兼容更早的 JDK */
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			defaultAsyncExecutor = (ExecutorService) factory.invoke(null);
+			asyncExecutor = new ConcurrentTaskExecutor(defaultAsyncExecutor);
+			log("Execute async handler methods on virtual threads");
+		} catch (ReflectiveOperationException e) {
+			asyncExecutor = new SimpleAsyncTaskExecutor("domain-mapping-async-");
+			log("Virtual threads are not available, execute async handler methods on new threads");
+		}
+		return asyncExecutor;
+	}
+
+	@Override
+	protected void detectHandlerMethods (Object handler) {
+		if (metrics != null && handler instanceof String) {
+			Class<?> handlerType = obtainApplicationContext().getType((String) handler);
+			if (handlerType != null) {
+				metrics.handler(ClassUtils.getUserClass(handlerType)).recordBeanName((String) handler);
 			}
-			@Override
-			public String[] produces () {
-				return produces;
+		}
+		/* 与父类一致，只是先查找启动缓存，再按编译期索引给出的候选方法检测，并保存检测的结果 */
+		Class<?> handlerType = handler instanceof String ? obtainApplicationContext().getType((String) handler)
+		                                                 : handler.getClass();
+		if (handlerType == null) {
+			return;
+		}
+		final Class<?> userType = ClassUtils.getUserClass(handlerType);
+		StartupCache cache = this.startupCache;
+		Map<Method, RequestMappingInfo> methods = cache != null ? cache.get(userType, config) : null;
+		if (methods == null) {
+			MethodIntrospector.MetadataLookup<RequestMappingInfo> lookup =
+					new MethodIntrospector.MetadataLookup<RequestMappingInfo>() {
+
+						@Override
+						public RequestMappingInfo inspect (Method method) {
+							try {
+								return getMappingForMethod(method, userType);
+							} catch (Throwable ex) {
+								throw new IllegalStateException("Invalid mapping on handler class [" +
+								                                userType.getName() + "]: " + method, ex);
+							}
+						}
+					};
+			methods = HandlerMethodSelector.selectMethods(userType, getCandidateMethods(userType), lookup);
+			if (cache != null) {
+				cache.put(userType, methods);
 			}
-		};
+		}
+		registerHandlerMethods(handler, userType, methods);
 	}
 
-	private RequestMapping generateRequestMapping (AnnotatedElement element) {
-		String[] path = generatePath(element);
-		Annotation annotation = findAnnotation(element instanceof Method ? ((Method) element).getDeclaringClass() : element);
-		if (annotation instanceof DomainMapping) {
-			return generateRequestMapping(((DomainMapping) annotation).name(), path, path,
-			                              ((DomainMapping) annotation).method(), ((DomainMapping) annotation).params(),
-			                              ((DomainMapping) annotation).headers(),
-			                              ((DomainMapping) annotation).consumes(),
-			                              ((DomainMapping) annotation).produces());
-		} else {
-				return generateRequestMapping(((RestDomainMapping) annotation).name(), path, path,
-				                              ((RestDomainMapping) annotation).method(),
-				                              ((RestDomainMapping) annotation).params(),
-				                              ((RestDomainMapping) annotation).headers(),
-				                              ((RestDomainMapping) annotation).consumes(),
-				                              ((RestDomainMapping) annotation).produces());
+	/**
+	 * @return 编译期索引给出的候选方法，类或其父类不在索引内时为 NULL
+	 */
+	@Nullable
+	private List<Method> getCandidateMethods (Class<?> userType) {
+		DomainMappingIndex index = support.getIndex();
+		return index != null ? index.getCandidateMethods(userType) : null;
+	}
+
+	private void registerHandlerMethods (Object handler, Class<?> userType, Map<Method, RequestMappingInfo> methods) {
+		if (this.logger.isDebugEnabled()) {
+			this.logger.debug(methods.size() + " request handler methods found on " + userType + ": " + methods);
+		}
+		for (Map.Entry<Method, RequestMappingInfo> entry : methods.entrySet()) {
+			Method invocableMethod = AopUtils.selectInvocableMethod(entry.getKey(), userType);
+			registerHandlerMethod(handler, invocableMethod, entry.getValue());
+		}
+	}
+
+	@Override
+	protected boolean isHandler (Class<?> beanType) {
+		if (metrics == null) {
+			return isDomainHandler(beanType);
+		}
+		long start = System.nanoTime();
+		boolean handler = isDomainHandler(beanType);
+		metrics.recordIsHandler(ClassUtils.getUserClass(beanType), System.nanoTime() - start, handler);
+		return handler;
+	}
+
+	private boolean isDomainHandler (Class<?> beanType) {
+		/* 加入 DomainMapping 和 RestDomainMapping 的识别 */
+		return support.hasDomainAnnotation(beanType) || super.isHandler(beanType);
+	}
+
+	@Override
+	protected RequestMappingInfo getMappingForMethod (Method method, Class<?> handlerType) {
+		if (startupCache == null) {
+			return getMeasuredMappingForMethod(method, handlerType);
+		}
+		detectingType.set(handlerType);
+		try {
+			return getMeasuredMappingForMethod(method, handlerType);
+		} finally {
+			detectingType.remove();
+		}
+	}
+
+	private RequestMappingInfo getMeasuredMappingForMethod (Method method, Class<?> handlerType) {
+		if (metrics == null) {
+			return support.getMappingForMethod(method, handlerType, null);
+		}
+		HandlerMetrics handlerMetrics = metrics.handler(handlerType);
+		long start = System.nanoTime();
+		RequestMappingInfo info = support.getMappingForMethod(method, handlerType, handlerMetrics);
+		handlerMetrics.recordMapping(System.nanoTime() - start, info != null);
+		return info;
+	}
+
+	@Override
+	protected void handlerMethodsInitialized (Map<RequestMappingInfo, HandlerMethod> handlerMethods) {
+		super.handlerMethodsInitialized(handlerMethods);
+		if (segmentTrieLookup || dispatchTableLookup) {
+			getLookupTables();
+		}
+		if (startupCache != null) {
+			storeStartupCache();
+		}
+		if (requestMetrics != null && requestMetricsObjectName == null) {
+			requestMetricsObjectName = registerMBean(requestMetrics, REQUEST_METRICS_OBJECT_NAME);
+		}
+		if (metrics == null) {
+			return;
+		}
+		metrics.recordInit(System.nanoTime() - initStart);
+
+		RegistrationSnapshot snapshot = metrics.snapshot();
+		log("Registration metrics: { %s }", snapshot);
+		for (HandlerSnapshot handler : snapshot.getSlowest(RegistrationMetrics.SLOWEST_HANDLERS)) {
+			log("    %s", handler);
+		}
+		log("Type mapping cache: { %s }", support.getTypeInfoStatistics());
+		if (nameResolver instanceof AbstractMappingNameResolver) {
+			log("Name resolver cache: { %s }", ((AbstractMappingNameResolver) nameResolver).getCacheStatistics());
+		}
+		if (metricsObjectName == null) {
+			metricsObjectName = registerMBean(metrics, METRICS_OBJECT_NAME);
 		}
 	}
 
-	private boolean hasAnnotation(AnnotatedElement element) {
-		return AnnotatedElementUtils.hasAnnotation(element, DomainMapping.class)
-				|| AnnotatedElementUtils.hasAnnotation(element, RestDomainMapping.class);
+	private void storeStartupCache () {
+		StartupCache cache = this.startupCache;
+		log("Startup cache: { %s }", cache);
+		try {
+			if (cache.store(lazyRegistration)) {
+				log("Write startup cache { %d classes } to %s", cache.size(), cache.getFile());
+			}
+		} catch (IOException e) {
+			this.logger.warn("Failed to write startup cache " + cache.getFile(), e);
+		}
+		/* 延迟注册的 handler 之后仍会用到 */
+		if (! lazyRegistration) {
+			startupCache = null;
+		}
+	}
+
+	@Nullable
+	private ObjectName registerMBean (Object mbean, String objectName) {
+		try {
+			ObjectName name = new ObjectName(objectName + ObjectName.quote(
+					beanName != null ? beanName : getClass().getSimpleName()));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+			return name;
+		} catch (JMException | RuntimeException e) {
+			this.logger.warn("Failed to register " + mbean.getClass().getSimpleName() + " MBean", e);
+			return null;
+		}
+	}
+
+	private void unregisterMBean (@Nullable ObjectName name) {
+		if (name == null) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.unregisterMBean(name);
+		} catch (JMException e) {
+			this.logger.debug("Failed to unregister " + name, e);
+		}
+	}
+
+	@Override
+	public void destroy () {
+		synchronized (this) {
+			if (defaultAsyncExecutor != null) {
+				defaultAsyncExecutor.shutdown();
+				defaultAsyncExecutor = null;
+				asyncExecutor = null;
+			}
+		}
+		unregisterMBean(metricsObjectName);
+		metricsObjectName = null;
+		unregisterMBean(requestMetricsObjectName);
+		requestMetricsObjectName = null;
+	}
+
+	/**
+	 * 占位符的值可能在两次启动之间变化，含有占位符的 handler 不写入启动缓存
+	 */
+	@Override
+	protected String[] resolveEmbeddedValuesInPatterns (String[] patterns) {
+		StartupCache cache = this.startupCache;
+		Class<?> handlerType = detectingType.get();
+		if (cache != null && handlerType != null) {
+			for (String pattern : patterns) {
+				if (pattern.contains("${") || pattern.contains("#{")) {
+					cache.markUncacheable(handlerType);
+					break;
+				}
+			}
+		}
+		return super.resolveEmbeddedValuesInPatterns(patterns);
+	}
+
+	/**
+	 * 获取类上 DomainMapping / RestDomainMapping 所声明的请求条件，同一个类只解析一次
+	 */
+	private DomainConditions getDomainConditions (Class<?> annotatedType) {
+		DomainConditions conditions = conditionsCache.get(annotatedType);
+		if (conditions == null) {
+			conditions = DomainConditions.of(DomainMappingSupport.getDomainAnnotation(annotatedType), config);
+			DomainConditions previous = conditionsCache.putIfAbsent(annotatedType, conditions);
+			if (previous != null) {
+				conditions = previous;
+			}
+		}
+		return conditions;
+	}
+
+	/**
+	 * 由注册表构造的前缀树与分发表，构造完成后不再修改。
+	 * <p>
+	 * 注册表变化时在 lookupTablesLock 内构造新的查找表并整体替换，查找只读取一次，
+	 * 不会看到只更新了前缀树或分发表的中间状态。单个映射的注册在注册完成之后、移除在移除之前应用；
+	 * 批量注册期间的变化在批量结束时一起应用，在此之前查找仍使用原有的查找表。
+	 */
+	private static class LookupTables {
+
+		private final SegmentTrie trie;
+		private final DispatchTable dispatch;
+
+		/**
+		 * 按注册顺序排列的映射，用于构造下一份查找表
+		 */
+		private final Map<RequestMappingInfo, MappingEntry> entries;
+
+		private LookupTables (@Nullable SegmentTrie trie, @Nullable DispatchTable dispatch,
+		                      Map<RequestMappingInfo, MappingEntry> entries) {
+			this.trie = trie;
+			this.dispatch = dispatch;
+			this.entries = entries;
+		}
+	}
+
+	/**
+	 * 尚未应用到查找表的一个变化
+	 */
+	private static class LookupTablesChange {
+
+		private final RequestMappingInfo info;
+
+		/**
+		 * 为空时表示移除
+		 */
+		private final MappingEntry entry;
+
+		private LookupTablesChange (RequestMappingInfo info, @Nullable MappingEntry entry) {
+			this.info = info;
+			this.entry = entry;
+		}
+	}
+
+	/**
+	 * 当前线程批量更新查找表的状态
+	 */
+	private static class LookupTablesBatch {
+
+		private int depth;
+
+		private final List<LookupTablesChange> changes = new ArrayList<>();
+	}
+
+	/**
+	 * 查找时匹配到的映射
+	 */
+	private static class Match {
+
+		private final RequestMappingInfo mapping;
+		private final HandlerMethod handlerMethod;
+
+		private Match (RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+			this.mapping = mapping;
+			this.handlerMethod = handlerMethod;
+		}
+	}
+
+	/**
+	 * Servlet 版本的 RequestMappingInfo 构造，DomainMapping / RestDomainMapping 的属性按类缓存在 {@link DomainConditions} 中
+	 */
+	private class Support extends DomainMappingSupport<RequestMappingInfo> {
+
+		private Support (MappingNameResolver nameResolver) {
+			super(nameResolver, DomainMappingHandler.this.logger);
+		}
+
+		@Override
+		protected RequestMappingInfo createRequestMappingInfo (RequestMapping requestMapping, AnnotatedElement element) {
+			return DomainMappingHandler.this.createRequestMappingInfo(requestMapping, getCustomCondition(element));
+		}
+
+		@Override
+		protected RequestMappingInfo createRequestMappingInfo (String[] path, RequestMapping requestMapping,
+		                                                       AnnotatedElement element) {
+			return RequestMappingInfo.paths(resolveEmbeddedValuesInPatterns(path))
+			                         .methods(requestMapping.method())
+			                         .params(requestMapping.params())
+			                         .headers(requestMapping.headers())
+			                         .consumes(requestMapping.consumes())
+			                         .produces(requestMapping.produces())
+			                         .mappingName(requestMapping.name())
+			                         .customCondition(getCustomCondition(element))
+			                         .options(config)
+			                         .build();
+		}
+
+		@Override
+		protected RequestMappingInfo createRequestMappingInfo (String[] path, Class<?> annotatedType,
+		                                                       AnnotatedElement element) {
+			return getDomainConditions(annotatedType).build(resolveEmbeddedValuesInPatterns(path),
+			                                                getCustomCondition(element));
+		}
+
+		@Override
+		protected RequestMappingInfo combine (RequestMappingInfo typeInfo, RequestMappingInfo methodInfo) {
+			return typeInfo.combine(methodInfo);
+		}
+
+		private RequestCondition<?> getCustomCondition (AnnotatedElement element) {
+			return element instanceof Class ? getCustomTypeCondition((Class<?>) element)
+			                                : getCustomMethodCondition((Method) element);
+		}
 	}
-}
\ No newline at end of file
+}
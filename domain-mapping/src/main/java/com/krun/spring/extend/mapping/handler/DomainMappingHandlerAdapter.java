@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      DomainMappingHandlerAdapter.java
+ * Date:    26-10-18 下午10:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 与 {@link DomainMappingHandler} 配合使用的 RequestMappingHandlerAdapter。
+ * <p>
+ * 被标记为异步执行的 handler 方法在容器线程上解析参数，然后通过异步请求处理提交到 {@link DomainMappingHandler} 的 executor 上调用，
+ * 容器线程随即释放；返回值、异常与 Callable 的处理方式一致，方法签名不需要改变。
+ * 超时时间使用 {@link #setAsyncRequestTimeout(long)} 的设置。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class DomainMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+	@Override
+	protected ServletInvocableHandlerMethod createInvocableHandlerMethod (HandlerMethod handlerMethod) {
+		if (handlerMethod instanceof AsyncHandlerMethod) {
+			return new AsyncInvocableHandlerMethod(handlerMethod, ((AsyncHandlerMethod) handlerMethod).getExecutor());
+		}
+		return super.createInvocableHandlerMethod(handlerMethod);
+	}
+
+	private static class AsyncInvocableHandlerMethod extends ServletInvocableHandlerMethod {
+
+		private final AsyncTaskExecutor executor;
+
+		private AsyncInvocableHandlerMethod (HandlerMethod handlerMethod, AsyncTaskExecutor executor) {
+			super(handlerMethod);
+			this.executor = executor;
+		}
+
+		@Override
+		protected Object doInvoke (final Object... args) throws Exception {
+			/* 带有 reason 的 ResponseStatus 会忽略返回值，只能同步调用 */
+			if (StringUtils.hasText(getResponseStatusReason())) {
+				return super.doInvoke(args);
+			}
+			return new WebAsyncTask<Object>(null, executor, new Callable<Object>() {
+				@Override
+				public Object call () throws Exception {
+					return AsyncInvocableHandlerMethod.super.doInvoke(args);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      DomainMappingSupport.java
+ * Date:    26-10-18 下午4:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.index.DomainMappingIndex;
+import com.krun.spring.extend.mapping.metrics.HandlerMetrics;
+import com.krun.spring.extend.mapping.resolver.MappingNameResolver;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import com.krun.spring.extend.mapping.utils.CacheStatistics;
+import com.krun.spring.extend.mapping.utils.Utils;
+import org.apache.commons.logging.Log;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.krun.spring.extend.mapping.utils.Utils.findAnnotation;
+
+/**
+ * {@link DomainMappingHandler} 与 WebFlux 版本共用的映射解析，不依赖 Servlet 或 WebFlux。
+ * <p>
+ * 负责读取编译期索引、识别 {@link DomainMapping} / {@link RestDomainMapping} 修饰的类、决定元素的路径由谁生成，
+ * 并缓存类级别的映射；映射本身由子类按各自的 RequestMappingInfo 构造与合并。
+ *
+ * @param <T> Servlet 或 WebFlux 的 RequestMappingInfo
+ * @author krun
+ * @date 2026/10/18
+ */
+public abstract class DomainMappingSupport<T> {
+
+	private final MappingNameResolver nameResolver;
+
+	private final Log logger;
+
+	/**
+	 * 类级别的 RequestMappingInfo 缓存，同一个类的所有方法共用一份
+	 */
+	private final ConcurrentMap<Class<?>, TypeMappingInfo<T>> typeInfoCache = new ConcurrentHashMap<>();
+
+	private final CacheStatistics typeInfoStatistics = new CacheStatistics();
+
+	private DomainMappingIndex index;
+
+	protected DomainMappingSupport (MappingNameResolver nameResolver, Log logger) {
+		this.nameResolver = nameResolver;
+		this.logger = logger;
+	}
+
+	/**
+	 * 读取编译期索引，并交给 {@link AbstractMappingNameResolver} 使用
+	 */
+	public void loadIndex (@Nullable ApplicationContext applicationContext) {
+		ClassLoader classLoader = applicationContext != null ? applicationContext.getClassLoader()
+		                                                     : ClassUtils.getDefaultClassLoader();
+		try {
+			index = DomainMappingIndex.load(classLoader);
+		} catch (IOException e) {
+			logger.warn("Failed to load " + DomainMappingIndex.INDEX_LOCATION + ", fall back to reflection", e);
+			return;
+		}
+		if (index == null) {
+			return;
+		}
+		if (logger.isInfoEnabled()) {
+			logger.info(String.format("Load domain mapping index { %d classes }", index.size()));
+		}
+		if (nameResolver instanceof AbstractMappingNameResolver) {
+			((AbstractMappingNameResolver) nameResolver).setIndex(index);
+		}
+	}
+
+	/**
+	 * @return 没有读取索引或没有索引文件时返回 NULL
+	 */
+	@Nullable
+	public DomainMappingIndex getIndex () {
+		return index;
+	}
+
+	/**
+	 * @return 类级别 RequestMappingInfo 缓存的命中统计
+	 */
+	public CacheStatistics getTypeInfoStatistics () {
+		return typeInfoStatistics;
+	}
+
+	/**
+	 * 类是否在索引内，或带有 DomainMapping / RestDomainMapping
+	 */
+	public boolean hasDomainAnnotation (Class<?> type) {
+		return (index != null && index.isIndexed(type))
+		       || AnnotatedElementUtils.hasAnnotation(type, DomainMapping.class)
+		       || AnnotatedElementUtils.hasAnnotation(type, RestDomainMapping.class);
+	}
+
+	/**
+	 * 获取类上的 DomainMapping / RestDomainMapping，只有元注解时使用合并后的注解
+	 */
+	@Nullable
+	public static Annotation getDomainAnnotation (Class<?> annotatedType) {
+		Annotation annotation = findAnnotation(annotatedType);
+		if (annotation == null) {
+			annotation = AnnotatedElementUtils.findMergedAnnotation(annotatedType, DomainMapping.class);
+			if (annotation == null) {
+				annotation = AnnotatedElementUtils.findMergedAnnotation(annotatedType, RestDomainMapping.class);
+			}
+		}
+		return annotation;
+	}
+
+	/**
+	 * 构造方法的映射并与类级别的映射合并
+	 * @param handlerMetrics 为空时不记录统计
+	 */
+	@Nullable
+	public T getMappingForMethod (Method method, Class<?> handlerType, @Nullable HandlerMetrics handlerMetrics) {
+		T info = createMappingInfo(method, handlerMetrics);
+		if (info != null) {
+			T typeInfo = getTypeMappingInfo(handlerType, handlerMetrics);
+			if (typeInfo != null) {
+				info = combine(typeInfo, info);
+			}
+		}
+		return info;
+	}
+
+	@Nullable
+	public T getTypeMappingInfo (Class<?> handlerType, @Nullable HandlerMetrics handlerMetrics) {
+		TypeMappingInfo<T> typeInfo = typeInfoCache.get(handlerType);
+		if (typeInfo != null) {
+			typeInfoStatistics.recordHit();
+			return typeInfo.info;
+		}
+
+		long start = System.nanoTime();
+		typeInfo = new TypeMappingInfo<>(createMappingInfo(handlerType, handlerMetrics));
+		typeInfoStatistics.recordMiss(System.nanoTime() - start);
+
+		TypeMappingInfo<T> previous = typeInfoCache.putIfAbsent(handlerType, typeInfo);
+		return (previous == null ? typeInfo : previous).info;
+	}
+
+	/**
+	 * 移除 type 及其子类的类级别 RequestMappingInfo
+	 */
+	public void evictTypeMappingInfo (Class<?> type) {
+		String className = type.getName();
+		for (Class<?> cached : typeInfoCache.keySet()) {
+			if (Utils.isDerivedFrom(cached, className)) {
+				typeInfoCache.remove(cached);
+			}
+		}
+	}
+
+	@Nullable
+	private T createMappingInfo (AnnotatedElement element, @Nullable HandlerMetrics handlerMetrics) {
+		RequestMapping requestMapping = AnnotatedElementUtils.findMergedAnnotation(element, RequestMapping.class);
+
+		/* 如果使用了 RequestMapping ，那么使用该注解的属性值 */
+		if (requestMapping != null) {
+			/* 设置了 value 或 path 时交由 RequestMappingHandlerMapping 处理 */
+			if (requestMapping.path().length > 0) {
+				if (handlerMetrics != null) {
+					handlerMetrics.recordPath(false);
+				}
+				return createRequestMappingInfo(requestMapping, element);
+			}
+			/* 如果没有设置 value 或 path, 则使用 MappingNameResolver 获取合适的路径 */
+			String[] path = generatePath(element, handlerMetrics);
+			if (handlerMetrics != null && logger.isInfoEnabled()) {
+				logger.info(String.format("Generate path for RequestMapping on { %s %s }",
+				                          element instanceof Class ? "class" : "method",
+				                          Utils.getElementDeclaration(element)));
+			}
+			return createRequestMappingInfo(path, requestMapping, element);
+		}
+
+		/* 既没有 RequestMapping 也没有 DomainMapping 和 RestDomainMapping，则不处理*/
+		Class<?> annotatedType = element instanceof Class ? (Class<?>) element : ((Method) element).getDeclaringClass();
+		if (! hasDomainAnnotation(annotatedType)) {
+			return null;
+		}
+		if (element instanceof Method) {
+			int modifiers = ((Method) element).getModifiers();
+
+			/* 检查方法是否合法: 公开、非静态、非抽象 */
+			if (! Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || Modifier.isAbstract(modifiers)) {
+				return null;
+			}
+		}
+		String[] path = generatePath(element, handlerMetrics);
+		if (handlerMetrics != null && logger.isInfoEnabled()) {
+			logger.info(String.format("Generate RequestMapping on { %s %s }",
+			                          element instanceof Class ? "class" : "method",
+			                          Utils.getElementDeclaration(element)));
+		}
+		return createRequestMappingInfo(path, annotatedType, element);
+	}
+
+	private String[] generatePath (AnnotatedElement element, @Nullable HandlerMetrics handlerMetrics) {
+		long start = handlerMetrics != null ? System.nanoTime() : 0;
+		String[] path;
+		if (element instanceof Class) {
+			path = nameResolver.resolve((Class<?>) element, null, null);
+		} else {
+			path = nameResolver.resolve(((Method) element).getDeclaringClass(), (Method) element, null);
+		}
+		if (handlerMetrics != null) {
+			handlerMetrics.recordPath(true);
+			handlerMetrics.recordResolve(System.nanoTime() - start);
+		}
+		return path;
+	}
+
+	/**
+	 * RequestMapping 设置了路径，按 RequestMappingHandlerMapping 的方式构造
+	 * @param element 类或方法，用于获取自定义条件
+	 */
+	protected abstract T createRequestMappingInfo (RequestMapping requestMapping, AnnotatedElement element);
+
+	/**
+	 * RequestMapping 没有设置路径，使用生成的路径与 RequestMapping 的其他属性构造
+	 * @param path 生成的路径，尚未解析占位符
+	 */
+	protected abstract T createRequestMappingInfo (String[] path, RequestMapping requestMapping,
+	                                               AnnotatedElement element);
+
+	/**
+	 * 没有 RequestMapping，使用生成的路径与 annotatedType 上 DomainMapping / RestDomainMapping 的属性构造
+	 * @param path 生成的路径，尚未解析占位符
+	 */
+	protected abstract T createRequestMappingInfo (String[] path, Class<?> annotatedType, AnnotatedElement element);
+
+	protected abstract T combine (T typeInfo, T methodInfo);
+
+	/**
+	 * 类级别 RequestMappingInfo 的缓存项，info 可以为空
+	 */
+	private static class TypeMappingInfo<T> {
+
+		private final T info;
+
+		private TypeMappingInfo (T info) {
+			this.info = info;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      HandlerMethodSelector.java
+ * Date:    26-10-18 下午2:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.index.DomainMappingIndex;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 选出 handler 类中带有映射的方法。
+ * <p>
+ * {@link DomainMappingIndex} 给出了候选方法时只检查这些方法，覆盖与桥接方法的处理与 {@link MethodIntrospector} 一致；
+ * 否则由 MethodIntrospector 遍历类、父类与接口的全部方法。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+final class HandlerMethodSelector {
+
+	private HandlerMethodSelector () {
+	}
+
+	/**
+	 * @param candidates 由索引给出的候选方法，为空时遍历全部方法
+	 */
+	static <T> Map<Method, T> selectMethods (Class<?> userType, @Nullable List<Method> candidates,
+	                                         MethodIntrospector.MetadataLookup<T> lookup) {
+		if (candidates == null) {
+			return MethodIntrospector.selectMethods(userType, lookup);
+		}
+		Map<Method, T> methods = new LinkedHashMap<>();
+		for (Method method : candidates) {
+			Method specificMethod = ClassUtils.getMostSpecificMethod(method, userType);
+			T result = lookup.inspect(specificMethod);
+			if (result != null) {
+				Method bridgedMethod = BridgeMethodResolver.findBridgedMethod(specificMethod);
+				if (bridgedMethod == specificMethod || lookup.inspect(bridgedMethod) == null) {
+					methods.put(specificMethod, result);
+				}
+			}
+		}
+		return methods;
+	}
+}
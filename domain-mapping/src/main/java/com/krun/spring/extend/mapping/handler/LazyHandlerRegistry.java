@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      LazyHandlerRegistry.java
+ * Date:    26-10-18 下午6:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import org.springframework.util.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 延迟注册的 handler，在第一个位于其类路径之下的请求到来时才注册其方法。
+ * <p>
+ * handler 按类路径的第一段分组，请求只需检查与其第一段相同的分组，以及类路径第一段含有通配符的 handler。
+ * 分组在启动时构造完毕后不再改变；注册使用同一把锁串行进行，已注册的 handler 只需读取一个 volatile 变量。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class LazyHandlerRegistry {
+
+	private static final List<Pending> NONE = new ArrayList<>(0);
+
+	private final PathMatcher pathMatcher;
+
+	/**
+	 * 类路径第一段 -> handler
+	 */
+	private final Map<String, List<Pending>> segments = new HashMap<>();
+
+	/**
+	 * 类路径为空或第一段含有通配符的 handler，需要检查所有请求
+	 */
+	private final List<Pending> wildcards = new ArrayList<>();
+
+	private final List<Pending> all = new ArrayList<>();
+
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private final Object lock = new Object();
+
+	LazyHandlerRegistry (PathMatcher pathMatcher) {
+		this.pathMatcher = pathMatcher;
+	}
+
+	/**
+	 * 只能在启动时调用
+	 * @param prefixes handler 的类路径
+	 */
+	void add (String beanName, Collection<String> prefixes) {
+		Pending handler = new Pending(beanName, prefixes);
+		all.add(handler);
+		pending.incrementAndGet();
+
+		Set<String> keys = new LinkedHashSet<>();
+		for (String prefix : handler.prefixes) {
+			String segment = firstSegment(prefix);
+			if (segment.isEmpty() || pathMatcher.isPattern(segment)) {
+				keys.clear();
+				wildcards.add(handler);
+				break;
+			}
+			keys.add(segment);
+		}
+		for (String key : keys) {
+			List<Pending> list = segments.get(key);
+			if (list == null) {
+				list = new ArrayList<>();
+				segments.put(key, list);
+			}
+			list.add(handler);
+		}
+	}
+
+	/**
+	 * @return 尚未注册的 handler 数量
+	 */
+	int getPendingCount () {
+		return pending.get();
+	}
+
+	/**
+	 * 注册所有类路径与 lookupPath 匹配且尚未注册的 handler
+	 */
+	void registerMatching (String lookupPath, Registrar registrar) {
+		if (pending.get() == 0) {
+			return;
+		}
+		List<Pending> bucket = segments.get(firstSegment(lookupPath));
+		registerMatching(bucket == null ? NONE : bucket, lookupPath, registrar);
+		registerMatching(wildcards, lookupPath, registrar);
+	}
+
+	void registerAll (Registrar registrar) {
+		for (Pending handler : all) {
+			register(handler, registrar);
+		}
+	}
+
+	/**
+	 * 不再延迟注册 beanName 对应的 handler，由调用方自行注册
+	 * @return 该 handler 此前是否尚未注册
+	 */
+	boolean discard (String beanName) {
+		synchronized (lock) {
+			for (Pending handler : all) {
+				if (handler.beanName.equals(beanName) && ! handler.registered) {
+					handler.registered = true;
+					pending.decrementAndGet();
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void registerMatching (List<Pending> handlers, String lookupPath, Registrar registrar) {
+		for (Pending handler : handlers) {
+			if (! handler.registered && handler.matches(lookupPath)) {
+				register(handler, registrar);
+			}
+		}
+	}
+
+	private void register (Pending handler, Registrar registrar) {
+		if (handler.registered) {
+			return;
+		}
+		synchronized (lock) {
+			if (handler.error != null) {
+				throw handler.error;
+			}
+			if (handler.registered) {
+				return;
+			}
+			try {
+				registrar.register(handler.beanName);
+			} catch (RuntimeException e) {
+				/* 部分方法可能已经注册，不再重试，之后的请求都会得到同样的错误 */
+				handler.error = e;
+				throw e;
+			}
+			handler.registered = true;
+			pending.decrementAndGet();
+		}
+	}
+
+	private static String firstSegment (String path) {
+		int start = path.startsWith("/") ? 1 : 0;
+		int end = path.indexOf('/', start);
+		return end == - 1 ? path.substring(start) : path.substring(start, end);
+	}
+
+	/**
+	 * 注册 handler 的回调
+	 */
+	interface Registrar {
+
+		void register (String beanName);
+	}
+
+	private class Pending {
+
+		private final String beanName;
+		private final String[] prefixes;
+		private volatile boolean registered;
+		private RuntimeException error;
+
+		private Pending (String beanName, Collection<String> prefixes) {
+			this.beanName = beanName;
+			/* 没有类路径时方法路径不会带有前缀 */
+			this.prefixes = prefixes.isEmpty() ? new String[] { "" } : prefixes.toArray(new String[0]);
+		}
+
+		private boolean matches (String lookupPath) {
+			for (String prefix : prefixes) {
+				if (prefix.isEmpty() || pathMatcher.match(prefix + "/**", lookupPath)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
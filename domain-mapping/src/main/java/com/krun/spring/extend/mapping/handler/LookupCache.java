@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      LookupCache.java
+ * Date:    26-10-18 下午8:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.utils.CacheStatistics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 查找结果的缓存，以请求方法、lookupPath 与 Accept / Content-Type 请求头为键，容量有限，按最近最少使用淘汰。
+ * <p>
+ * 缓存分为若干段，每段是一个按访问顺序排列的 LinkedHashMap，各自加锁、各自淘汰，以减少并发请求之间的竞争。
+ * 只应缓存仅由键决定的结果，由调用方判断。注册或移除映射时只淘汰该映射的路径能够匹配的结果，
+ * 其他路径的查找结果不会因此改变；查找期间发生的变化会使该次查找的结果不被缓存。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class LookupCache {
+
+	private static final int MAX_SEGMENTS = 16;
+
+	private final Segment[] segments;
+
+	private final CacheStatistics statistics;
+
+	/**
+	 * 每次淘汰前递增，在此之前开始的查找的结果不再缓存
+	 */
+	private volatile long generation;
+
+	LookupCache (int maximumSize, CacheStatistics statistics) {
+		int count = 1;
+		while (count < MAX_SEGMENTS && count * 2 * MAX_SEGMENTS <= maximumSize) {
+			count *= 2;
+		}
+		this.segments = new Segment[count];
+		for (int i = 0; i < count; i++) {
+			segments[i] = new Segment((maximumSize + count - 1) / count);
+		}
+		this.statistics = statistics;
+	}
+
+	/**
+	 * 在查找之前调用，键会记录当前的版本
+	 */
+	Key key (HttpServletRequest request, String lookupPath) {
+		return new Key(request.getMethod(), lookupPath, getHeader(request, HttpHeaders.ACCEPT),
+		               request.getHeader(HttpHeaders.CONTENT_TYPE), generation);
+	}
+
+	/**
+	 * 与 HeaderContentNegotiationStrategy 一致，Accept 的多个值都会参与协商
+	 */
+	@Nullable
+	private static String getHeader (HttpServletRequest request, String name) {
+		Enumeration<String> values = request.getHeaders(name);
+		if (values == null || ! values.hasMoreElements()) {
+			return null;
+		}
+		String value = values.nextElement();
+		if (! values.hasMoreElements()) {
+			return value;
+		}
+		StringBuilder builder = new StringBuilder(value);
+		while (values.hasMoreElements()) {
+			builder.append(", ").append(values.nextElement());
+		}
+		return builder.toString();
+	}
+
+	@Nullable
+	Result get (Key key) {
+		Segment segment = segmentFor(key);
+		Result result;
+		synchronized (segment) {
+			result = segment.get(key);
+		}
+		if (result != null) {
+			statistics.recordHit();
+		}
+		return result;
+	}
+
+	void put (Key key, RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			if (key.generation == generation) {
+				segment.put(key, new Result(mapping, handlerMethod));
+			}
+		}
+	}
+
+	/**
+	 * 淘汰可能受到该映射注册或移除影响的结果，即 lookupPath 与其路径匹配的结果；没有路径的映射与所有路径匹配。
+	 * 由调用方串行调用
+	 */
+	void evict (RequestMappingInfo info) {
+		generation++;
+		Set<String> patterns = info.getPatternsCondition().getPatterns();
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				if (patterns.isEmpty()) {
+					segment.clear();
+					continue;
+				}
+				Iterator<Key> keys = segment.keySet().iterator();
+				while (keys.hasNext()) {
+					if (! info.getPatternsCondition().getMatchingPatterns(keys.next().lookupPath).isEmpty()) {
+						keys.remove();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param nanos 未命中时实际查找所花费的时间（纳秒）
+	 */
+	void recordMiss (long nanos) {
+		statistics.recordMiss(nanos);
+	}
+
+	private Segment segmentFor (Key key) {
+		int hash = key.hash;
+		return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+	}
+
+	static class Key {
+
+		private final String method;
+		private final String lookupPath;
+		private final String accept;
+		private final String contentType;
+		private final int hash;
+
+		/**
+		 * 创建时缓存的版本，不参与比较
+		 */
+		private final long generation;
+
+		private Key (String method, String lookupPath, @Nullable String accept, @Nullable String contentType,
+		             long generation) {
+			this.method = method;
+			this.lookupPath = lookupPath;
+			this.accept = accept;
+			this.contentType = contentType;
+			this.generation = generation;
+			int hash = method.hashCode();
+			hash = 31 * hash + lookupPath.hashCode();
+			hash = 31 * hash + (accept == null ? 0 : accept.hashCode());
+			hash = 31 * hash + (contentType == null ? 0 : contentType.hashCode());
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals (Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (! (o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return hash == key.hash && method.equals(key.method) && lookupPath.equals(key.lookupPath)
+			       && (accept == null ? key.accept == null : accept.equals(key.accept))
+			       && (contentType == null ? key.contentType == null : contentType.equals(key.contentType));
+		}
+
+		@Override
+		public int hashCode () {
+			return hash;
+		}
+	}
+
+	/**
+	 * 缓存的查找结果，mapping 为与请求匹配后的 RequestMappingInfo
+	 */
+	static class Result {
+
+		final RequestMappingInfo mapping;
+		final HandlerMethod handlerMethod;
+
+		private Result (RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+			this.mapping = mapping;
+			this.handlerMethod = handlerMethod;
+		}
+	}
+
+	private static class Segment extends LinkedHashMap<Key, Result> {
+
+		private final int capacity;
+
+		private Segment (int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry (Map.Entry<Key, Result> eldest) {
+			return size() > capacity;
+		}
+	}
+}
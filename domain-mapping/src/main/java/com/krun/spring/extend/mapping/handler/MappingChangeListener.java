@@ -0,0 +1,31 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      MappingChangeListener.java
+ * Date:    26-10-18 上午10:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * DomainMappingHandler 注册表变化的监听器，包括初始化、延迟注册、重新注册以及
+ * 手动调用 registerMapping / unregisterMapping 引起的变化。
+ * <p>
+ * 在注册或移除映射的线程上、变化完成之后同步调用，不应执行耗时的操作；监听器抛出的异常会传递给注册方。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public interface MappingChangeListener {
+
+	/**
+	 * @param handlerMethod 未解析 bean 的 HandlerMethod，bean 可能仍是 bean 名称
+	 */
+	void mappingRegistered (RequestMappingInfo mapping, HandlerMethod handlerMethod);
+
+	void mappingUnregistered (RequestMappingInfo mapping);
+}
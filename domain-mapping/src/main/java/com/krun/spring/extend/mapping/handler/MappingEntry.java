@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      MappingEntry.java
+ * Date:    26-10-18 下午7:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 注册表中的一个映射，供查找用的前缀树与分发表共用
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class MappingEntry {
+
+	final RequestMappingInfo info;
+	final HandlerMethod handlerMethod;
+	final Set<String> patterns;
+
+	/**
+	 * 是否只由请求方法、路径与 Accept / Content-Type 请求头决定能否匹配，
+	 * 即没有 URI 变量与通配符、没有 params / headers / 自定义条件
+	 */
+	final boolean cacheable;
+
+	private MappingEntry (RequestMappingInfo info, HandlerMethod handlerMethod, boolean negotiationCacheable) {
+		this.info = info;
+		this.handlerMethod = handlerMethod;
+		this.patterns = info.getPatternsCondition().getPatterns();
+		this.cacheable = isLiteral(patterns) && info.getParamsCondition().isEmpty()
+		                 && info.getHeadersCondition().isEmpty() && info.getCustomCondition() == null
+		                 && (negotiationCacheable || info.getProducesCondition().isEmpty());
+	}
+
+	/**
+	 * @param negotiationCacheable 内容协商是否只取决于请求头
+	 */
+	static MappingEntry of (RequestMappingInfo info, HandlerMethod handlerMethod, boolean negotiationCacheable) {
+		return new MappingEntry(info, handlerMethod, negotiationCacheable);
+	}
+
+	/**
+	 * @param handlerMethods       按注册顺序排列的映射
+	 * @param negotiationCacheable 内容协商是否只取决于请求头
+	 */
+	static List<MappingEntry> of (Map<RequestMappingInfo, HandlerMethod> handlerMethods,
+	                              boolean negotiationCacheable) {
+		List<MappingEntry> entries = new ArrayList<>(handlerMethods.size());
+		for (Map.Entry<RequestMappingInfo, HandlerMethod> mapping : handlerMethods.entrySet()) {
+			entries.add(new MappingEntry(mapping.getKey(), mapping.getValue(), negotiationCacheable));
+		}
+		return entries;
+	}
+
+	private static boolean isLiteral (Set<String> patterns) {
+		if (patterns.isEmpty()) {
+			return false;
+		}
+		for (String pattern : patterns) {
+			if (pattern.indexOf('{') != - 1 || pattern.indexOf('*') != - 1 || pattern.indexOf('?') != - 1) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ParallelHandlerDetector.java
+ * Date:    26-10-18 上午11:42
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import org.springframework.core.MethodIntrospector;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 使用 fork-join 并行检测 handler 方法。
+ * <p>
+ * 检测结果按 beanName 的原有顺序保存，由调用方按顺序注册，因此注册顺序与重复映射的报错都与串行检测一致。
+ * 工作线程的上下文类加载器与调用方线程相同，解析器与条件中通过上下文类加载器加载的类与串行检测一致。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class ParallelHandlerDetector<T> {
+
+	/**
+	 * 单个任务最多处理的 bean 数量，超过则继续拆分
+	 */
+	private static final int THRESHOLD = 4;
+
+	private final Inspector<T> inspector;
+
+	private final int parallelism;
+
+	ParallelHandlerDetector (Inspector<T> inspector, int parallelism) {
+		this.inspector = inspector;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @param beanNames bean 名称
+	 * @param beanTypes 与 beanNames 一一对应的 bean 类型，无法解析类型的为空
+	 * @return 与 beanNames 一一对应的检测结果，不是 handler 的为空
+	 */
+	@SuppressWarnings ("unchecked")
+	Detected<T>[] detect (String[] beanNames, Class<?>[] beanTypes) {
+		Detected<T>[] results = new Detected[beanNames.length];
+		ForkJoinPool pool = new ForkJoinPool(parallelism,
+		                                     new WorkerThreadFactory(Thread.currentThread().getContextClassLoader()),
+		                                     null, false);
+		try {
+			pool.invoke(new DetectTask(beanNames, beanTypes, results, 0, beanNames.length));
+		} finally {
+			pool.shutdown();
+		}
+		return results;
+	}
+
+	private Detected<T> detect (String beanName, Class<?> beanType) {
+		if (beanType == null || ! inspector.isHandler(beanType)) {
+			return null;
+		}
+
+		final Class<?> userType = ClassUtils.getUserClass(beanType);
+		Detected<T> detected = new Detected<>(beanName, userType);
+		MethodIntrospector.MetadataLookup<T> lookup = new MethodIntrospector.MetadataLookup<T>() {
+
+			@Override
+			public T inspect (Method method) {
+				try {
+					return inspector.getMappingForMethod(method, userType);
+				} catch (Throwable ex) {
+					throw new IllegalStateException("Invalid mapping on handler class [" +
+					                                userType.getName() + "]: " + method, ex);
+				}
+			}
+		};
+		try {
+			detected.methods = HandlerMethodSelector.selectMethods(userType, inspector.getCandidateMethods(userType),
+			                                                       lookup);
+		} catch (RuntimeException | Error ex) {
+			/* 留到注册阶段按顺序抛出，保证报错的确定性 */
+			detected.error = ex;
+		}
+		return detected;
+	}
+
+	/**
+	 * 检测 handler 方法所需的回调，实现必须是线程安全的
+	 */
+	interface Inspector<T> {
+
+		boolean isHandler (Class<?> beanType);
+
+		T getMappingForMethod (Method method, Class<?> userType);
+
+		/**
+		 * @return 编译期索引给出的候选方法，为空时遍历全部方法
+		 */
+		@Nullable
+		List<Method> getCandidateMethods (Class<?> userType);
+	}
+
+	static class Detected<T> {
+
+		final String beanName;
+		final Class<?> userType;
+		Map<Method, T> methods;
+		Throwable error;
+
+		private Detected (String beanName, Class<?> userType) {
+			this.beanName = beanName;
+			this.userType = userType;
+		}
+
+		void rethrow () {
+			if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			}
+			if (error instanceof Error) {
+				throw (Error) error;
+			}
+		}
+	}
+
+	/**
+	 * 为工作线程设置调用方线程的上下文类加载器，默认的工作线程从创建它的线程继承，不一定是调用方线程
+	 */
+	private static class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+		private final ClassLoader contextClassLoader;
+
+		private WorkerThreadFactory (ClassLoader contextClassLoader) {
+			this.contextClassLoader = contextClassLoader;
+		}
+
+		@Override
+		public ForkJoinWorkerThread newThread (ForkJoinPool pool) {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		}
+	}
+
+	private class DetectTask extends RecursiveAction {
+
+		private final String[] beanNames;
+		private final Class<?>[] beanTypes;
+		private final Detected<T>[] results;
+		private final int from;
+		private final int to;
+
+		private DetectTask (String[] beanNames, Class<?>[] beanTypes, Detected<T>[] results, int from, int to) {
+			this.beanNames = beanNames;
+			this.beanTypes = beanTypes;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute () {
+			if (to - from <= THRESHOLD) {
+				for (int i = from; i < to; i++) {
+					results[i] = detect(beanNames[i], beanTypes[i]);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new DetectTask(beanNames, beanTypes, results, from, middle),
+			          new DetectTask(beanNames, beanTypes, results, middle, to));
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RequestMetricsInterceptor.java
+ * Date:    26-10-18 下午11:08
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.metrics.RequestMetrics;
+import com.krun.spring.extend.mapping.metrics.RouteMetrics;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 由 {@link DomainMappingHandler} 注册的拦截器，记录已登记路由的请求耗时。
+ * <p>
+ * 从 preHandle 开始计时，到 afterCompletion 结束；异步请求在首次分派时不会调用 afterCompletion，
+ * 因此耗时包括异步执行的时间。其他拦截器的耗时也会计入。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+	private static final String TIMING_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".TIMING";
+
+	private final RequestMetrics metrics;
+
+	RequestMetricsInterceptor (RequestMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public boolean preHandle (HttpServletRequest request, HttpServletResponse response, Object handler) {
+		/* 异步请求再次分派时保留首次分派的开始时间 */
+		if (! (handler instanceof HandlerMethod) || request.getAttribute(TIMING_ATTRIBUTE) != null) {
+			return true;
+		}
+		HandlerMethod handlerMethod = (HandlerMethod) handler;
+		HandlerMethod registered = handlerMethod.getResolvedFromHandlerMethod();
+		RouteMetrics route = metrics.route(registered != null ? registered : handlerMethod);
+		if (route != null) {
+			request.setAttribute(TIMING_ATTRIBUTE, new Timing(route, System.nanoTime()));
+		}
+		return true;
+	}
+
+	@Override
+	public void postHandle (HttpServletRequest request, HttpServletResponse response, Object handler,
+	                        ModelAndView modelAndView) {
+	}
+
+	@Override
+	public void afterCompletion (HttpServletRequest request, HttpServletResponse response, Object handler,
+	                             Exception ex) {
+		Object timing = request.getAttribute(TIMING_ATTRIBUTE);
+		if (timing instanceof Timing) {
+			request.removeAttribute(TIMING_ATTRIBUTE);
+			((Timing) timing).route.record(System.nanoTime() - ((Timing) timing).start,
+			                               ex != null || response.getStatus() >= 500);
+		}
+	}
+
+	/**
+	 * 异步请求的首次分派结束，等待再次分派后的 afterCompletion
+	 */
+	@Override
+	public void afterConcurrentHandlingStarted (HttpServletRequest request, HttpServletResponse response,
+	                                            Object handler) {
+	}
+
+	private static class Timing {
+
+		private final RouteMetrics route;
+		private final long start;
+
+		private Timing (RouteMetrics route, long start) {
+			this.route = route;
+			this.start = start;
+		}
+	}
+}
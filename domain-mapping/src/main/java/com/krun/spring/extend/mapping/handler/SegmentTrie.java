@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      SegmentTrie.java
+ * Date:    26-10-18 下午7:05
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按路径段组织的映射前缀树，用于不含通配符的路径的查找，耗时只与路径的段数有关。
+ * <p>
+ * 查找时逐段向下，途经的节点下只要存在含有通配符或 URI 变量的段就无法确定结果，返回 NULL 交由父类处理；
+ * 否则返回的映射包含了所有可能与该路径匹配的映射，不在其中的映射一定不匹配。
+ * 构造完成后不再修改，注册表变化时由调用方重新构造并整体替换，查找不加锁。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class SegmentTrie {
+
+	private static final List<MappingEntry> NONE = Collections.emptyList();
+
+	private final Node root = new Node();
+
+	/**
+	 * 没有路径的映射数量，这类映射与所有请求匹配，存在时所有查找都交由父类处理
+	 */
+	private volatile int unsupported;
+
+	private final boolean suffixPatternMatch;
+
+	private SegmentTrie (boolean suffixPatternMatch) {
+		this.suffixPatternMatch = suffixPatternMatch;
+	}
+
+	/**
+	 * 前缀树按 AntPathMatcher 的默认行为拆分路径：区分大小写、不去除空白、忽略空的段
+	 */
+	static boolean supports (PathMatcher pathMatcher) {
+		return pathMatcher.getClass() == AntPathMatcher.class
+		       && ! pathMatcher.match("/a", "/A")
+		       && ! pathMatcher.match("/a", "/ a")
+		       && pathMatcher.match("/a/b", "/a//b");
+	}
+
+	/**
+	 * @param entries 按注册顺序排列的映射
+	 */
+	static SegmentTrie build (List<MappingEntry> entries, boolean suffixPatternMatch) {
+		SegmentTrie trie = new SegmentTrie(suffixPatternMatch);
+		for (MappingEntry entry : entries) {
+			trie.add(entry);
+		}
+		return trie;
+	}
+
+	/**
+	 * 添加一个映射，排在同一路径下已有的映射之后
+	 */
+	private void add (MappingEntry entry) {
+		if (entry.patterns.isEmpty()) {
+			unsupported++;
+			return;
+		}
+		for (String pattern : entry.patterns) {
+			Node node = root;
+			for (String segment : pattern.split("/")) {
+				if (segment.isEmpty()) {
+					continue;
+				}
+				if (isPattern(segment)) {
+					node.patterns++;
+					node = null;
+					break;
+				}
+				Node child = node.children.get(segment);
+				if (child == null) {
+					child = new Node();
+					node.children.put(segment, child);
+				}
+				node = child;
+			}
+			if (node != null) {
+				node.add(entry);
+			}
+		}
+	}
+
+	/**
+	 * @return 可能与 lookupPath 匹配的映射，按注册顺序排列；无法确定时返回 NULL
+	 */
+	@Nullable
+	List<MappingEntry> find (String lookupPath) {
+		if (unsupported > 0 || (! lookupPath.isEmpty() && lookupPath.charAt(0) != '/')) {
+			return null;
+		}
+		int length = lookupPath.length();
+		Node node = root;
+		int start = 0;
+		while (true) {
+			if (node.patterns > 0) {
+				return null;
+			}
+			while (start < length && lookupPath.charAt(start) == '/') {
+				start++;
+			}
+			if (start == length) {
+				return node.entries;
+			}
+			int end = lookupPath.indexOf('/', start);
+			if (end == - 1) {
+				end = length;
+				/* 带有扩展名时还可能与不带扩展名的映射匹配 */
+				if (suffixPatternMatch && lookupPath.indexOf('.', start) != - 1) {
+					return null;
+				}
+			}
+			node = node.children.get(lookupPath.substring(start, end));
+			if (node == null) {
+				return NONE;
+			}
+			start = end;
+		}
+	}
+
+	private static boolean isPattern (String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '*' || c == '?' || c == '{') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class Node {
+
+		private final ConcurrentMap<String, Node> children = new ConcurrentHashMap<>();
+
+		/**
+		 * 子节点中含通配符的段的数量
+		 */
+		private volatile int patterns;
+
+		private volatile List<MappingEntry> entries = NONE;
+
+		private void add (MappingEntry entry) {
+			/* 同一个映射的多个路径可能拆分到同一个节点 */
+			for (MappingEntry existing : entries) {
+				if (existing == entry) {
+					return;
+				}
+			}
+			List<MappingEntry> updated = new ArrayList<>(entries.size() + 1);
+			updated.addAll(entries);
+			updated.add(entry);
+			entries = Collections.unmodifiableList(updated);
+		}
+	}
+}
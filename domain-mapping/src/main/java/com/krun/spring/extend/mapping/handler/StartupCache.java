@@ -0,0 +1,517 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      StartupCache.java
+ * Date:    26-10-18 下午11:50
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.index.DomainMappingIndex;
+import com.krun.spring.extend.mapping.utils.Utils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * 持久化的启动缓存，保存每个 handler 类检测得到的映射，之后的启动中字节码未变化的类直接使用缓存的映射注册。
+ * <p>
+ * 文件由文件头与若干缓存项组成，通过内存映射读取，启动时只读取各个缓存项的类名，用到时才解析：
+ * <ul>
+ *     <li>文件头：MAGIC、VERSION 与配置的摘要，任意一项不一致时整个文件失效</li>
+ *     <li>缓存项：长度、类名、字节码摘要，以及每个方法的声明类、方法名、参数类型与 RequestMappingInfo 的各个条件</li>
+ * </ul>
+ * 字节码摘要由类自身、父类与接口的 class 文件的长度与 CRC32 计算，与编译期索引一致，不包括由启动类加载器加载的类。
+ * 映射中含有占位符或自定义条件、方法不在类的继承链上、无法读取 class 文件的类不会被缓存。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class StartupCache {
+
+	private static final int MAGIC = 0x444d5343;
+
+	private static final int VERSION = 1;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final File file;
+
+	/**
+	 * 配置的摘要
+	 */
+	private final long key;
+
+	/**
+	 * 上次启动写入的文件，写入新文件后置空
+	 */
+	private ByteBuffer buffer;
+
+	/**
+	 * 文件中尚未用到的缓存项，类名 -> 缓存项在文件中的位置
+	 */
+	private final Map<String, Integer> offsets = new HashMap<>();
+
+	/**
+	 * 本次启动中命中或新检测的缓存项，类名 -> 序列化后的缓存项
+	 */
+	private final Map<String, byte[]> entries = new LinkedHashMap<>();
+
+	/**
+	 * 各个类的 class 文件的摘要，无法读取时为 NULL
+	 */
+	private final Map<Class<?>, Long> classStamps = new HashMap<>();
+
+	/**
+	 * 读取时构造的请求条件，除路径以外的条件都相同的映射共用一份
+	 */
+	private final Map<List<Object>, DomainConditions> conditions = new HashMap<>();
+
+	private final Set<Class<?>> uncacheable = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+	private int hits;
+
+	private int misses;
+
+	private int skipped;
+
+	/**
+	 * 缓存项是否有变化，没有变化时不重写文件
+	 */
+	private boolean modified;
+
+	/**
+	 * @param configuration 决定检测结果的配置
+	 * @param configurationTypes 决定检测结果的类，其字节码也作为配置的一部分
+	 */
+	StartupCache (File file, String configuration, Class<?>... configurationTypes) {
+		this.file = file;
+		StringBuilder builder = new StringBuilder(configuration);
+		for (Class<?> type : configurationTypes) {
+			builder.append('\n').append(type.getName()).append(':').append(getStamp(type));
+		}
+		byte[] bytes = builder.toString().getBytes(UTF_8);
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		this.key = (long) bytes.length << 32 | crc.getValue();
+	}
+
+	File getFile () {
+		return file;
+	}
+
+	/**
+	 * 读取缓存文件，文件不存在或配置不一致时忽略
+	 * @return 文件中的缓存项数量
+	 */
+	synchronized int load () throws IOException {
+		if (! file.isFile()) {
+			modified = true;
+			return 0;
+		}
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			channel.close();
+		}
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != key) {
+				buffer = null;
+				modified = true;
+				return 0;
+			}
+			int count = buffer.getInt();
+			for (int i = 0; i < count; i++) {
+				int offset = buffer.position();
+				int length = buffer.getInt();
+				offsets.put(readString(buffer), offset);
+				buffer.position(offset + 4 + length);
+			}
+		} catch (RuntimeException e) {
+			buffer = null;
+			offsets.clear();
+			modified = true;
+			throw new IOException("Corrupted startup cache " + file, e);
+		}
+		return offsets.size();
+	}
+
+	/**
+	 * 获取缓存的映射，类的字节码与缓存时不一致、或者方法已不存在时视为未命中
+	 * @return 方法与其映射，按检测时的顺序排列；未命中时返回 NULL
+	 */
+	@Nullable
+	synchronized Map<Method, RequestMappingInfo> get (Class<?> userType, RequestMappingInfo.BuilderConfiguration config) {
+		String className = userType.getName();
+		byte[] raw = entries.get(className);
+		Integer offset = raw == null ? offsets.get(className) : null;
+		if (raw == null && offset == null) {
+			return null;
+		}
+
+		Map<Method, RequestMappingInfo> methods;
+		try {
+			if (raw == null) {
+				raw = copyEntry(offset);
+			}
+			methods = read(ByteBuffer.wrap(raw), userType, config);
+		} catch (RuntimeException | ReflectiveOperationException | LinkageError e) {
+			methods = null;
+		}
+		offsets.remove(className);
+		if (methods == null) {
+			entries.remove(className);
+			modified = true;
+			return null;
+		}
+		entries.put(className, raw);
+		hits++;
+		return methods;
+	}
+
+	/**
+	 * 标记映射中含有占位符的类，占位符的值可能在两次启动之间变化
+	 */
+	void markUncacheable (Class<?> userType) {
+		uncacheable.add(userType);
+	}
+
+	/**
+	 * 保存未命中的类检测得到的映射，无法缓存的类会被跳过
+	 */
+	synchronized void put (Class<?> userType, Map<Method, RequestMappingInfo> methods) {
+		misses++;
+		byte[] raw = uncacheable.contains(userType) ? null : write(userType, methods);
+		if (raw == null) {
+			skipped++;
+			return;
+		}
+		entries.put(userType.getName(), raw);
+		modified = true;
+	}
+
+	/**
+	 * 移除 type 及其子类的字节码摘要，在类被修改或重新加载后调用
+	 */
+	synchronized void evict (Class<?> type) {
+		String className = type.getName();
+		for (Iterator<Class<?>> iterator = classStamps.keySet().iterator(); iterator.hasNext(); ) {
+			if (Utils.isDerivedFrom(iterator.next(), className)) {
+				iterator.remove();
+			}
+		}
+		for (Iterator<Class<?>> iterator = uncacheable.iterator(); iterator.hasNext(); ) {
+			if (Utils.isDerivedFrom(iterator.next(), className)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * 缓存项有变化时重写缓存文件，之后不再读取内存映射的文件
+	 * @param retainUnused 是否保留本次启动中没有用到的缓存项，延迟注册的 handler 之后仍可能用到
+	 * @return 是否写入了文件
+	 */
+	synchronized boolean store (boolean retainUnused) throws IOException {
+		if (! offsets.isEmpty()) {
+			if (retainUnused) {
+				for (Map.Entry<String, Integer> entry : offsets.entrySet()) {
+					entries.put(entry.getKey(), copyEntry(entry.getValue()));
+				}
+			} else {
+				modified = true;
+			}
+			offsets.clear();
+		}
+		buffer = null;
+		if (! modified) {
+			return false;
+		}
+
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (! directory.isDirectory() && ! directory.mkdirs()) {
+			throw new IOException("Failed to create directory " + directory);
+		}
+		/* 先写入临时文件再替换，其他进程不会读到写了一半的文件 */
+		File temp = File.createTempFile(file.getName(), ".tmp", directory);
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(key);
+				out.writeInt(entries.size());
+				for (byte[] raw : entries.values()) {
+					out.write(raw);
+				}
+			} finally {
+				out.close();
+			}
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				           StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+		}
+		modified = false;
+		return true;
+	}
+
+	synchronized int size () {
+		return entries.size() + offsets.size();
+	}
+
+	@Override
+	public synchronized String toString () {
+		return String.format("hits=%d, misses=%d, skipped=%d", hits, misses, skipped);
+	}
+
+	/**
+	 * 从内存映射的文件中复制缓存项，包括其长度
+	 */
+	private byte[] copyEntry (int offset) {
+		ByteBuffer in = buffer.duplicate();
+		in.position(offset);
+		byte[] raw = new byte[4 + in.getInt()];
+		in.position(offset);
+		in.get(raw);
+		return raw;
+	}
+
+	@Nullable
+	private Map<Method, RequestMappingInfo> read (ByteBuffer in, Class<?> userType,
+	                                              RequestMappingInfo.BuilderConfiguration config)
+			throws ReflectiveOperationException {
+		in.getInt();
+		readString(in);
+		Long stamp = getStamp(userType);
+		if (stamp == null || in.getLong() != stamp) {
+			return null;
+		}
+
+		int count = in.getInt();
+		Map<Method, RequestMappingInfo> methods = new LinkedHashMap<>(count * 2);
+		for (int i = 0; i < count; i++) {
+			Class<?> declaringClass = findDeclaringClass(userType, readString(in));
+			String name = readString(in);
+			Class<?>[] parameterTypes = new Class<?>[in.getInt()];
+			for (int j = 0; j < parameterTypes.length; j++) {
+				parameterTypes[j] = ClassUtils.forName(readString(in), userType.getClassLoader());
+			}
+			if (declaringClass == null) {
+				return null;
+			}
+			Method method = declaringClass.getDeclaredMethod(name, parameterTypes);
+
+			String mappingName = readString(in);
+			String[] patterns = readStrings(in);
+			List<Object> key = Arrays.<Object>asList(mappingName, Arrays.asList(readStrings(in)),
+			                                         Arrays.asList(readStrings(in)), Arrays.asList(readStrings(in)),
+			                                         Arrays.asList(readStrings(in)), Arrays.asList(readStrings(in)));
+			methods.put(method, getConditions(key, config).build(patterns, null));
+		}
+		return methods;
+	}
+
+	/**
+	 * @param key 映射名称，以及请求方法、params、headers、consumes 与 produces 条件的字符串形式
+	 */
+	@SuppressWarnings ("unchecked")
+	private DomainConditions getConditions (List<Object> key, RequestMappingInfo.BuilderConfiguration config) {
+		DomainConditions domainConditions = conditions.get(key);
+		if (domainConditions == null) {
+			List<String> requestMethods = (List<String>) key.get(1);
+			RequestMethod[] methods = new RequestMethod[requestMethods.size()];
+			for (int i = 0; i < methods.length; i++) {
+				methods[i] = RequestMethod.valueOf(requestMethods.get(i));
+			}
+			domainConditions = new DomainConditions((String) key.get(0), methods, toArray(key.get(2)),
+			                                        toArray(key.get(3)), toArray(key.get(4)), toArray(key.get(5)),
+			                                        config);
+			conditions.put(key, domainConditions);
+		}
+		return domainConditions;
+	}
+
+	@SuppressWarnings ("unchecked")
+	private static String[] toArray (Object values) {
+		List<String> list = (List<String>) values;
+		return list.toArray(new String[list.size()]);
+	}
+
+	/**
+	 * @return 序列化后的缓存项，无法缓存时返回 NULL
+	 */
+	@Nullable
+	private byte[] write (Class<?> userType, Map<Method, RequestMappingInfo> methods) {
+		Long stamp = getStamp(userType);
+		if (stamp == null) {
+			return null;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			/* 长度在写完后回填 */
+			out.writeInt(0);
+			writeString(out, userType.getName());
+			out.writeLong(stamp);
+			out.writeInt(methods.size());
+			for (Map.Entry<Method, RequestMappingInfo> entry : methods.entrySet()) {
+				Method method = entry.getKey();
+				RequestMappingInfo info = entry.getValue();
+				if (info.getCustomCondition() != null
+				    || findDeclaringClass(userType, method.getDeclaringClass().getName()) == null) {
+					return null;
+				}
+				writeString(out, method.getDeclaringClass().getName());
+				writeString(out, method.getName());
+				Class<?>[] parameterTypes = method.getParameterTypes();
+				out.writeInt(parameterTypes.length);
+				for (Class<?> parameterType : parameterTypes) {
+					writeString(out, parameterType.getName());
+				}
+
+				writeString(out, info.getName());
+				writeStrings(out, info.getPatternsCondition().getPatterns());
+				writeStrings(out, info.getMethodsCondition().getMethods());
+				writeStrings(out, info.getParamsCondition().getExpressions());
+				writeStrings(out, info.getHeadersCondition().getExpressions());
+				writeStrings(out, info.getConsumesCondition().getExpressions());
+				writeStrings(out, info.getProducesCondition().getExpressions());
+			}
+			out.flush();
+		} catch (IOException e) {
+			/* ByteArrayOutputStream 不会抛出 IOException */
+			throw new IllegalStateException(e);
+		}
+		byte[] raw = bytes.toByteArray();
+		ByteBuffer.wrap(raw).putInt(raw.length - 4);
+		return raw;
+	}
+
+	/**
+	 * @return userType 的继承链上名为 className 的类，没有时返回 NULL
+	 */
+	@Nullable
+	private static Class<?> findDeclaringClass (Class<?> userType, String className) {
+		for (Class<?> current = userType; current != null; current = current.getSuperclass()) {
+			if (current.getName().equals(className)) {
+				return current;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 由类自身、父类与接口的 class 文件计算摘要
+	 * @return 任意一个 class 文件无法读取时返回 NULL
+	 */
+	@Nullable
+	private Long getStamp (Class<?> type) {
+		StringBuilder builder = new StringBuilder();
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			if (! append(builder, current)) {
+				return null;
+			}
+		}
+		for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+			if (! append(builder, ifc)) {
+				return null;
+			}
+		}
+		byte[] bytes = builder.toString().getBytes(UTF_8);
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		return (long) bytes.length << 32 | crc.getValue();
+	}
+
+	private boolean append (StringBuilder builder, Class<?> type) {
+		/* 由启动类加载器加载的类随 JDK 一同变化，不必计算 */
+		if (type.getClassLoader() == null) {
+			return true;
+		}
+		Long stamp;
+		if (classStamps.containsKey(type)) {
+			stamp = classStamps.get(type);
+		} else {
+			stamp = DomainMappingIndex.classStamp(type);
+			classStamps.put(type, stamp);
+		}
+		if (stamp == null) {
+			return false;
+		}
+		builder.append(type.getName()).append(':').append(Long.toHexString(stamp)).append('\n');
+		return true;
+	}
+
+	private static void writeString (DataOutputStream out, @Nullable String value) throws IOException {
+		if (value == null) {
+			out.writeInt(- 1);
+			return;
+		}
+		byte[] bytes = value.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * 枚举写入名称，请求条件的表达式写入其字符串形式，与注解上的写法一致
+	 */
+	private static void writeStrings (DataOutputStream out, Collection<?> values) throws IOException {
+		out.writeInt(values.size());
+		for (Object value : values) {
+			writeString(out, value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+		}
+	}
+
+	@Nullable
+	private static String readString (ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	private static String[] readStrings (ByteBuffer in) {
+		String[] values = new String[in.getInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = readString(in);
+		}
+		return values;
+	}
+}
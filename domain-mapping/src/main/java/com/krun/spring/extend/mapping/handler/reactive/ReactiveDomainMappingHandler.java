@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ReactiveDomainMappingHandler.java
+ * Date:    26-10-18 下午9:30
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler.reactive;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.mapping.handler.DomainMappingSupport;
+import com.krun.spring.extend.mapping.resolver.MappingNameResolver;
+import com.krun.spring.extend.mapping.utils.CacheStatistics;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.reactive.result.condition.RequestCondition;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+
+/**
+ * {@link DomainMappingHandler} 的 WebFlux 版本，基于 reactive 的 RequestMappingHandlerMapping，
+ * 使用相同的 {@link MappingNameResolver} 生成路径，因此同一份 Controller 可以同时运行在 Servlet 与 WebFlux 上。
+ * <p>
+ * 路径的生成规则、RequestMapping 的混合使用方式与 {@link DomainMappingHandler} 一致，两者共用 {@link DomainMappingSupport}；
+ * 并行检测、延迟注册、注册统计与查找优化只在 {@link DomainMappingHandler} 中提供。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class ReactiveDomainMappingHandler extends RequestMappingHandlerMapping {
+
+	/**
+	 * 与 Servlet 版本共用的索引读取、注解识别与类级别 RequestMappingInfo 缓存
+	 */
+	private final DomainMappingSupport<RequestMappingInfo> support;
+
+	private RequestMappingInfo.BuilderConfiguration config;
+
+	/**
+	 * 是否读取编译期索引
+	 */
+	private boolean useIndex = true;
+
+	public ReactiveDomainMappingHandler (MappingNameResolver nameResolver) {
+		this.support = new Support(nameResolver);
+	}
+
+	/**
+	 * 设置是否读取由 domain-mapping-processor 生成的编译期索引，默认读取。
+	 * 没有索引文件或索引已过期时会回退到反射解析。
+	 */
+	public void setUseIndex (boolean useIndex) {
+		this.useIndex = useIndex;
+	}
+
+	/**
+	 * @return 类级别 RequestMappingInfo 缓存的命中统计
+	 */
+	public CacheStatistics getTypeInfoCacheStatistics () {
+		return support.getTypeInfoStatistics();
+	}
+
+	@Override
+	public void afterPropertiesSet () {
+		/* 与 RequestMappingHandlerMapping 内部的配置一致，父类的配置是私有的，只能重新构造一份 */
+		config = new RequestMappingInfo.BuilderConfiguration();
+		config.setPatternParser(getPathPatternParser());
+		config.setContentTypeResolver(getContentTypeResolver());
+
+		if (useIndex) {
+			support.loadIndex(getApplicationContext());
+		}
+		super.afterPropertiesSet();
+	}
+
+	@Override
+	protected boolean isHandler (Class<?> beanType) {
+		/* 加入 DomainMapping 和 RestDomainMapping 的识别 */
+		return support.hasDomainAnnotation(beanType) || super.isHandler(beanType);
+	}
+
+	@Override
+	protected RequestMappingInfo getMappingForMethod (Method method, Class<?> handlerType) {
+		return support.getMappingForMethod(method, handlerType, null);
+	}
+
+	private RequestMappingInfo build (String[] path, String name, RequestMethod[] methods, String[] params,
+	                                  String[] headers, String[] consumes, String[] produces,
+	                                  @Nullable RequestCondition<?> condition) {
+		return RequestMappingInfo.paths(resolveEmbeddedValuesInPatterns(path))
+		                         .methods(methods)
+		                         .params(params)
+		                         .headers(headers)
+		                         .consumes(consumes)
+		                         .produces(produces)
+		                         .mappingName(name)
+		                         .customCondition(condition)
+		                         .options(config)
+		                         .build();
+	}
+
+	/**
+	 * WebFlux 版本的 RequestMappingInfo 构造
+	 */
+	private class Support extends DomainMappingSupport<RequestMappingInfo> {
+
+		private Support (MappingNameResolver nameResolver) {
+			super(nameResolver, ReactiveDomainMappingHandler.this.logger);
+		}
+
+		@Override
+		protected RequestMappingInfo createRequestMappingInfo (RequestMapping requestMapping, AnnotatedElement element) {
+			return ReactiveDomainMappingHandler.this.createRequestMappingInfo(requestMapping,
+			                                                                  getCustomCondition(element));
+		}
+
+		@Override
+		protected RequestMappingInfo createRequestMappingInfo (String[] path, RequestMapping requestMapping,
+		                                                       AnnotatedElement element) {
+			return build(path, requestMapping.name(), requestMapping.method(), requestMapping.params(),
+			             requestMapping.headers(), requestMapping.consumes(), requestMapping.produces(),
+			             getCustomCondition(element));
+		}
+
+		@Override
+		protected RequestMappingInfo createRequestMappingInfo (String[] path, Class<?> annotatedType,
+		                                                       AnnotatedElement element) {
+			Annotation annotation = getDomainAnnotation(annotatedType);
+			if (annotation instanceof DomainMapping) {
+				DomainMapping mapping = (DomainMapping) annotation;
+				return build(path, mapping.name(), mapping.method(), mapping.params(), mapping.headers(),
+				             mapping.consumes(), mapping.produces(), getCustomCondition(element));
+			}
+			RestDomainMapping mapping = (RestDomainMapping) annotation;
+			return build(path, mapping.name(), mapping.method(), mapping.params(), mapping.headers(),
+			             mapping.consumes(), mapping.produces(), getCustomCondition(element));
+		}
+
+		@Override
+		protected RequestMappingInfo combine (RequestMappingInfo typeInfo, RequestMappingInfo methodInfo) {
+			return typeInfo.combine(methodInfo);
+		}
+
+		private RequestCondition<?> getCustomCondition (AnnotatedElement element) {
+			return element instanceof Class ? getCustomTypeCondition((Class<?>) element)
+			                                : getCustomMethodCondition((Method) element);
+		}
+	}
+}
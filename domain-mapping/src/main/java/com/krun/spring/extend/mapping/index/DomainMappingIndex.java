@@ -0,0 +1,380 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      DomainMappingIndex.java
+ * Date:    26-10-18 上午10:05
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.index;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * 编译期生成的 {@link DomainMapping} / {@link RestDomainMapping} 类索引。
+ * <p>
+ * 索引由 domain-mapping-processor 在编译期写入 {@link #INDEX_LOCATION}，以 {@link Properties} 格式保存，
+ * 每个类对应以下几项（键为 <code>类名.属性名</code>）：
+ * <ul>
+ *     <li><code>superclass</code> 编译时的父类</li>
+ *     <li><code>root</code> 根元素类型：{@link #ROOT_EXPLICIT}、{@link #ROOT_IMPLICIT} 或 {@link #ROOT_NONE}</li>
+ *     <li><code>stamp</code> 由类自身的路径信息与父类的 stamp 计算得到</li>
+ *     <li><code>parent-stamp</code> 编译时父类的 stamp，非根元素才有，与父类当前的 stamp 不一致则视为过期</li>
+ *     <li><code>class-stamp</code> 编译生成的 class 文件的长度与 CRC32，由 {@link #classStamp(InputStream)} 计算</li>
+ *     <li><code>prefix</code>、<code>suffix</code>、<code>paths</code> 按处理器参数所配置的前后缀生成的完整类路径，未配置时没有这几项</li>
+ *     <li><code>methods</code> 公开、非静态、非抽象的方法与带有 RequestMapping 的方法，以方法签名为键，值为生成的路径</li>
+ *     <li><code>complete</code> 类实现的接口中没有带 RequestMapping 的方法，此时 <code>methods</code> 包含了类自身所有的映射方法</li>
+ * </ul>
+ * 处理器只为本次编译的类写入索引项。读取类的索引项时只比较运行时 class 文件的摘要与 <code>class-stamp</code>，
+ * 不再读取注解；不一致（例如注解被修改后只重新编译了这个类，而注解处理器没有运行）时视为过期。
+ * 索引中找不到或已过期的类，调用方应回退到反射解析。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class DomainMappingIndex {
+
+	public static final String INDEX_LOCATION = "META-INF/domain-mapping.index";
+
+	public static final String SUPERCLASS = "superclass";
+	public static final String ROOT = "root";
+	public static final String STAMP = "stamp";
+	public static final String PARENT_STAMP = "parent-stamp";
+	public static final String CLASS_STAMP = "class-stamp";
+	public static final String PREFIX = "prefix";
+	public static final String SUFFIX = "suffix";
+	public static final String PATHS = "paths";
+	public static final String METHODS = "methods";
+	public static final String COMPLETE = "complete";
+
+	/**
+	 * 由 root 属性指定的根元素
+	 */
+	public static final String ROOT_EXPLICIT = "explicit";
+	/**
+	 * 父类为 Object 或父类没有注解的根元素
+	 */
+	public static final String ROOT_IMPLICIT = "implicit";
+	public static final String ROOT_NONE = "none";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final Map<String, Entry> entries;
+
+	/**
+	 * 已按 class 文件检查过的类及其结果
+	 */
+	private final ConcurrentMap<Class<?>, Boolean> verified = new ConcurrentHashMap<>();
+
+	private DomainMappingIndex (Map<String, Entry> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * 读取类路径下所有的索引文件
+	 * @return 没有任何索引文件时返回 NULL
+	 */
+	@Nullable
+	public static DomainMappingIndex load (ClassLoader classLoader) throws IOException {
+		Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+		if (! urls.hasMoreElements()) {
+			return null;
+		}
+		Properties properties = new Properties();
+		while (urls.hasMoreElements()) {
+			InputStream in = urls.nextElement().openStream();
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
+			}
+		}
+		return new DomainMappingIndex(parse(properties));
+	}
+
+	/**
+	 * 计算索引项的 stamp，处理器与 {@link DomainMappingIndex} 必须使用同一算法
+	 */
+	public static String stamp (String className, String superclass, String root, String[] paths,
+	                            @Nullable String parentStamp) {
+		CRC32 crc = new CRC32();
+		StringBuilder builder = new StringBuilder(className).append('\n')
+		                                                    .append(superclass).append('\n')
+		                                                    .append(root).append('\n')
+		                                                    .append(StringUtils.arrayToCommaDelimitedString(paths))
+		                                                    .append('\n')
+		                                                    .append(parentStamp);
+		crc.update(builder.toString().getBytes(UTF_8));
+		return Long.toHexString(crc.getValue());
+	}
+
+	/**
+	 * 计算 class 文件的摘要（长度与 CRC32），处理器与 {@link DomainMappingIndex} 必须使用同一算法
+	 */
+	public static long classStamp (InputStream in) throws IOException {
+		CRC32 crc = new CRC32();
+		long length = 0;
+		byte[] buffer = new byte[4096];
+		for (int read; (read = in.read(buffer)) > 0; ) {
+			crc.update(buffer, 0, read);
+			length += read;
+		}
+		return length << 32 | crc.getValue();
+	}
+
+	/**
+	 * 读取运行时 class 文件的摘要
+	 * @return 无法读取 class 文件时返回 NULL
+	 */
+	@Nullable
+	public static Long classStamp (Class<?> clazz) {
+		ClassLoader classLoader = clazz.getClassLoader();
+		if (classLoader == null) {
+			return null;
+		}
+		InputStream in = classLoader.getResourceAsStream(clazz.getName().replace('.', '/') + ".class");
+		if (in == null) {
+			return null;
+		}
+		try {
+			try {
+				return classStamp(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 方法在索引中的键：<code>name(参数类型;参数类型)</code>，参数类型为擦除后的二进制名，数组以 <code>[]</code> 结尾
+	 */
+	public static String signature (String name, List<String> parameterTypes) {
+		StringBuilder builder = new StringBuilder(name).append('(');
+		for (int i = 0; i < parameterTypes.size(); i++) {
+			if (i > 0) {
+				builder.append(';');
+			}
+			builder.append(parameterTypes.get(i));
+		}
+		return builder.append(')').toString();
+	}
+
+	private static String signature (Method method) {
+		List<String> parameterTypes = new ArrayList<>();
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			parameterTypes.add(typeName(parameterType));
+		}
+		return signature(method.getName(), parameterTypes);
+	}
+
+	private static String typeName (Class<?> type) {
+		return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+	}
+
+	public int size () {
+		return entries.size();
+	}
+
+	/**
+	 * 类是否在索引内，且 class 文件与编译时一致
+	 */
+	public boolean isIndexed (Class<?> clazz) {
+		return getEntry(clazz) != null;
+	}
+
+	/**
+	 * 获取编译期生成的完整类路径
+	 * @return 类不在索引内、索引已过期或前后缀配置不一致时返回 NULL
+	 */
+	@Nullable
+	public String[] getPaths (Class<?> clazz, String prefix, String suffix) {
+		Entry entry = getEntry(clazz);
+		if (entry == null || entry.paths == null || ! prefix.equals(entry.prefix) || ! suffix.equals(entry.suffix)) {
+			return null;
+		}
+		if (! isParentValid(clazz, entry)) {
+			return null;
+		}
+		return entry.paths.clone();
+	}
+
+	/**
+	 * 获取编译期生成的方法路径
+	 * @return 方法所在的类不在索引内时返回 NULL
+	 */
+	@Nullable
+	public String getMethodPath (Method method) {
+		Entry entry = getEntry(method.getDeclaringClass());
+		return entry == null ? null : entry.methods.get(signature(method));
+	}
+
+	/**
+	 * 获取类及其父类中可能带有映射的方法，用于代替遍历所有方法。
+	 * 方法是否带有映射、是否被子类覆盖仍由调用方按 MethodIntrospector 的规则判断
+	 * @return 类或任意一个父类不在索引内、索引已过期或不完整时返回 NULL
+	 */
+	@Nullable
+	public List<Method> getCandidateMethods (Class<?> clazz) {
+		List<Method> methods = new ArrayList<>();
+		for (Class<?> current = clazz; current != Object.class; current = current.getSuperclass()) {
+			Entry entry = getEntry(current);
+			if (entry == null || ! entry.complete) {
+				return null;
+			}
+			try {
+				for (String[] signature : entry.signatures) {
+					Class<?>[] parameterTypes = new Class<?>[signature.length - 1];
+					for (int i = 0; i < parameterTypes.length; i++) {
+						parameterTypes[i] = ClassUtils.forName(signature[i + 1], current.getClassLoader());
+					}
+					methods.add(current.getDeclaredMethod(signature[0], parameterTypes));
+				}
+			} catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+				return null;
+			}
+		}
+		return methods;
+	}
+
+	@Nullable
+	private Entry getEntry (Class<?> clazz) {
+		Entry entry = entries.get(clazz.getName());
+		if (entry == null) {
+			return null;
+		}
+		return isCurrent(clazz, entry) ? entry : null;
+	}
+
+	/**
+	 * class 文件与处理器所记录的摘要一致时，索引项的其他内容都可以信任，结果按类缓存
+	 */
+	private boolean isCurrent (Class<?> clazz, Entry entry) {
+		Boolean current = verified.get(clazz);
+		if (current == null) {
+			Long stamp = entry.classStamp == null ? null : classStamp(clazz);
+			current = stamp != null && entry.classStamp.equals(Long.toHexString(stamp));
+			verified.put(clazz, current);
+		}
+		return current;
+	}
+
+	/**
+	 * 沿父类向上检查 stamp 是否一致，以发现增量编译后遗留的过期项
+	 */
+	private boolean isParentValid (Class<?> clazz, Entry entry) {
+		/* 父类在编译后才加上注解 */
+		if (ROOT_IMPLICIT.equals(entry.root) && getEntry(clazz.getSuperclass()) != null) {
+			return false;
+		}
+		while (ROOT_NONE.equals(entry.root)) {
+			clazz = clazz.getSuperclass();
+			Entry parent = getEntry(clazz);
+			if (parent == null || ! parent.stamp.equals(entry.parentStamp)) {
+				return false;
+			}
+			entry = parent;
+		}
+		return true;
+	}
+
+	private static Map<String, Entry> parse (Properties properties) {
+		Map<String, Entry> entries = new HashMap<>();
+		String suffix = "." + STAMP;
+		for (String key : properties.stringPropertyNames()) {
+			if (! key.endsWith(suffix)) {
+				continue;
+			}
+			String className = key.substring(0, key.length() - suffix.length());
+			entries.put(className, new Entry(className, properties));
+		}
+		return entries;
+	}
+
+	private static class Entry {
+
+		private final String root;
+		private final String stamp;
+		private final String parentStamp;
+		private final String classStamp;
+		private final String prefix;
+		private final String suffix;
+		private final String[] paths;
+		private final boolean complete;
+
+		/**
+		 * 方法签名 -> 方法路径
+		 */
+		private final Map<String, String> methods;
+
+		/**
+		 * 方法名与参数类型
+		 */
+		private final List<String[]> signatures;
+
+		private Entry (String className, Properties properties) {
+			String p = className + ".";
+			this.root = properties.getProperty(p + ROOT, ROOT_NONE);
+			this.stamp = properties.getProperty(p + STAMP);
+			this.parentStamp = properties.getProperty(p + PARENT_STAMP);
+			this.classStamp = properties.getProperty(p + CLASS_STAMP);
+			this.complete = Boolean.parseBoolean(properties.getProperty(p + COMPLETE));
+			this.prefix = properties.getProperty(p + PREFIX);
+			this.suffix = properties.getProperty(p + SUFFIX);
+
+			String paths = properties.getProperty(p + PATHS);
+			if (paths == null) {
+				this.paths = null;
+			} else {
+				/* 根元素为 "/" 时路径为空字符串 */
+				this.paths = paths.isEmpty() ? new String[] { "" } : StringUtils.commaDelimitedListToStringArray(paths);
+			}
+
+			String methods = properties.getProperty(p + METHODS);
+			if (methods == null || methods.isEmpty()) {
+				this.methods = Collections.emptyMap();
+				this.signatures = Collections.emptyList();
+			} else {
+				this.methods = new LinkedHashMap<>();
+				this.signatures = new ArrayList<>();
+				for (String method : StringUtils.commaDelimitedListToStringArray(methods)) {
+					/* 路径中不会出现 ':'，签名中的嵌套类以 '$' 分隔 */
+					int i = method.lastIndexOf(':');
+					String signature = method.substring(0, i);
+					this.methods.put(signature, method.substring(i + 1));
+
+					int open = signature.indexOf('(');
+					String parameters = signature.substring(open + 1, signature.length() - 1);
+					List<String> parts = new ArrayList<>();
+					parts.add(signature.substring(0, open));
+					if (! parameters.isEmpty()) {
+						Collections.addAll(parts, StringUtils.delimitedListToStringArray(parameters, ";"));
+					}
+					this.signatures.add(parts.toArray(new String[parts.size()]));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      HandlerMetrics.java
+ * Date:    26-10-18 下午3:05
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个 handler 类在注册期间的耗时与路径统计，线程安全。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class HandlerMetrics {
+
+	private final Class<?> handlerType;
+
+	private volatile String beanName;
+
+	private final AtomicLong isHandlerNanos = new AtomicLong();
+	private final AtomicLong resolveNanos = new AtomicLong();
+	private final AtomicLong mappingNanos = new AtomicLong();
+	private final AtomicLong mappingCount = new AtomicLong();
+	private final AtomicLong generatedPaths = new AtomicLong();
+	private final AtomicLong explicitPaths = new AtomicLong();
+
+	HandlerMetrics (Class<?> handlerType) {
+		this.handlerType = handlerType;
+	}
+
+	public void recordBeanName (String beanName) {
+		this.beanName = beanName;
+	}
+
+	public void recordIsHandler (long nanos) {
+		isHandlerNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * @param nanos MappingNameResolver.resolve 所花费的时间，同时也会计入 getMappingForMethod 的耗时
+	 */
+	public void recordResolve (long nanos) {
+		resolveNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * @param nanos getMappingForMethod 所花费的时间
+	 * @param mapped 方法是否得到了映射
+	 */
+	public void recordMapping (long nanos, boolean mapped) {
+		mappingNanos.addAndGet(nanos);
+		if (mapped) {
+			mappingCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @param generated 路径是由 MappingNameResolver 生成的，还是由 RequestMapping 显式指定的
+	 */
+	public void recordPath (boolean generated) {
+		(generated ? generatedPaths : explicitPaths).incrementAndGet();
+	}
+
+	HandlerSnapshot snapshot () {
+		return new HandlerSnapshot(beanName, handlerType.getName(), isHandlerNanos.get(), resolveNanos.get(),
+		                           mappingNanos.get(), mappingCount.get(), generatedPaths.get(), explicitPaths.get());
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      HandlerSnapshot.java
+ * Date:    26-10-18 下午3:08
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个 handler 类的注册统计快照，不可变。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class HandlerSnapshot {
+
+	private final String beanName;
+	private final String handlerType;
+	private final long isHandlerNanos;
+	private final long resolveNanos;
+	private final long mappingNanos;
+	private final long mappingCount;
+	private final long generatedPaths;
+	private final long explicitPaths;
+
+	HandlerSnapshot (String beanName, String handlerType, long isHandlerNanos, long resolveNanos, long mappingNanos,
+	                 long mappingCount, long generatedPaths, long explicitPaths) {
+		this.beanName = beanName;
+		this.handlerType = handlerType;
+		this.isHandlerNanos = isHandlerNanos;
+		this.resolveNanos = resolveNanos;
+		this.mappingNanos = mappingNanos;
+		this.mappingCount = mappingCount;
+		this.generatedPaths = generatedPaths;
+		this.explicitPaths = explicitPaths;
+	}
+
+	/**
+	 * @return bean 名称，handler 类型被多个 bean 使用时为最后注册的那个，未知时为 NULL
+	 */
+	@Nullable
+	public String getBeanName () {
+		return beanName;
+	}
+
+	public String getHandlerType () {
+		return handlerType;
+	}
+
+	public long getIsHandlerNanos () {
+		return isHandlerNanos;
+	}
+
+	public long getResolveNanos () {
+		return resolveNanos;
+	}
+
+	/**
+	 * @return getMappingForMethod 所花费的时间，已包含 {@link #getResolveNanos()}
+	 */
+	public long getMappingNanos () {
+		return mappingNanos;
+	}
+
+	/**
+	 * @return isHandler 与 getMappingForMethod 所花费的总时间
+	 */
+	public long getTotalNanos () {
+		return isHandlerNanos + mappingNanos;
+	}
+
+	public long getMappingCount () {
+		return mappingCount;
+	}
+
+	public long getGeneratedPaths () {
+		return generatedPaths;
+	}
+
+	public long getExplicitPaths () {
+		return explicitPaths;
+	}
+
+	@Override
+	public String toString () {
+		return String.format("%s (%s): total=%dus, isHandler=%dus, resolve=%dus, mapping=%dus, mappings=%d, " +
+		                     "generated=%d, explicit=%d", handlerType, beanName, micros(getTotalNanos()),
+		                     micros(isHandlerNanos), micros(resolveNanos), micros(mappingNanos), mappingCount,
+		                     generatedPaths, explicitPaths);
+	}
+
+	private static long micros (long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
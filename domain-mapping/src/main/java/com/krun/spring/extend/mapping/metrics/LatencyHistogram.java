@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      LatencyHistogram.java
+ * Date:    26-10-18 下午10:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的耗时直方图，线程安全。
+ * <p>
+ * 按 2 的幂划分区间，每个区间再等分为 16 个桶，相对误差不超过 1/16；超过 2^37 纳秒（约 137 秒）的耗时计入最后一个桶。
+ * 计数分布在若干分段上，初始只有一个分段，记录时发生竞争才增加分段（与 LongAdder 相同），最多为处理器数量，且不超过 16 个。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int MAX_EXPONENT = 36;
+
+	static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) << SUB_BUCKET_BITS;
+
+	/**
+	 * 每个分段的末尾保存耗时总和
+	 */
+	private static final int SUM = BUCKETS;
+
+	private static final int MAX_STRIPES = Integer.highestOneBit(
+			Math.min(16, Math.max(1, Runtime.getRuntime().availableProcessors())));
+
+	private volatile AtomicLongArray[] stripes = { new AtomicLongArray(BUCKETS + 1) };
+
+	void record (long nanos) {
+		int bucket = bucket(nanos);
+		AtomicLongArray[] stripes = this.stripes;
+		AtomicLongArray stripe = stripes[probe() & (stripes.length - 1)];
+		long count = stripe.get(bucket);
+		if (! stripe.compareAndSet(bucket, count, count + 1)) {
+			stripe.incrementAndGet(bucket);
+			grow(stripes);
+		}
+		stripe.addAndGet(SUM, nanos);
+	}
+
+	private void grow (AtomicLongArray[] current) {
+		if (current.length >= MAX_STRIPES) {
+			return;
+		}
+		synchronized (this) {
+			if (stripes != current) {
+				return;
+			}
+			/* 已有的分段保持原位，扩展期间的记录不会丢失 */
+			AtomicLongArray[] grown = Arrays.copyOf(current, current.length << 1);
+			for (int i = current.length; i < grown.length; i++) {
+				grown[i] = new AtomicLongArray(BUCKETS + 1);
+			}
+			stripes = grown;
+		}
+	}
+
+	private static int probe () {
+		long id = Thread.currentThread().getId();
+		return (int) (id ^ (id >>> 32));
+	}
+
+	/**
+	 * 各个桶的计数与总和分别读取，与并发的记录之间只是近似一致
+	 */
+	LatencySnapshot snapshot (long errors, long elapsedNanos) {
+		long[] counts = new long[BUCKETS];
+		long totalNanos = 0;
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < BUCKETS; i++) {
+				counts[i] += stripe.get(i);
+			}
+			totalNanos += stripe.get(SUM);
+		}
+		return new LatencySnapshot(counts, totalNanos, errors, elapsedNanos);
+	}
+
+	void reset () {
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i <= SUM; i++) {
+				stripe.set(i, 0);
+			}
+		}
+	}
+
+	static int bucket (long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return nanos < 0 ? 0 : (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKETS - 1;
+		}
+		return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS)
+		       | (int) ((nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * @return 桶所表示区间的下界（纳秒）
+	 */
+	static long lowerBound (int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+		return (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	/**
+	 * @return 桶所表示区间的中点（纳秒）
+	 */
+	static long valueOf (int bucket) {
+		long lower = lowerBound(bucket);
+		if (bucket == BUCKETS - 1) {
+			return lower;
+		}
+		return lower + (lowerBound(bucket + 1) - 1 - lower) / 2;
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      LatencySnapshot.java
+ * Date:    26-10-18 下午10:46
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求数、错误数与耗时分布的快照，不可变。
+ * 百分位数取所在桶的中点，相对误差不超过 1/32；QPS 为自开始统计（或上一次重置）以来的平均值。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class LatencySnapshot {
+
+	private final long[] counts;
+	private final long count;
+	private final long totalNanos;
+	private final long errors;
+	private final long elapsedNanos;
+
+	LatencySnapshot (long[] counts, long totalNanos, long errors, long elapsedNanos) {
+		long count = 0;
+		for (long c : counts) {
+			count += c;
+		}
+		this.counts = counts;
+		this.count = count;
+		this.totalNanos = totalNanos;
+		this.errors = errors;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	static LatencySnapshot merge (List<LatencySnapshot> snapshots, long elapsedNanos) {
+		long[] counts = new long[LatencyHistogram.BUCKETS];
+		long totalNanos = 0, errors = 0;
+		for (LatencySnapshot snapshot : snapshots) {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += snapshot.counts[i];
+			}
+			totalNanos += snapshot.totalNanos;
+			errors += snapshot.errors;
+		}
+		return new LatencySnapshot(counts, totalNanos, errors, elapsedNanos);
+	}
+
+	public long getCount () {
+		return count;
+	}
+
+	/**
+	 * @return 抛出异常或响应状态码不低于 500 的请求数
+	 */
+	public long getErrors () {
+		return errors;
+	}
+
+	public double getQps () {
+		return elapsedNanos <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	public long getTotalNanos () {
+		return totalNanos;
+	}
+
+	public long getMeanNanos () {
+		return count == 0 ? 0 : totalNanos / count;
+	}
+
+	/**
+	 * @param percentile 0 到 100 之间的百分位
+	 * @return 耗时的百分位数（纳秒），没有请求时为 0
+	 */
+	public long getPercentileNanos (double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return LatencyHistogram.valueOf(i);
+			}
+		}
+		return LatencyHistogram.valueOf(counts.length - 1);
+	}
+
+	public long getP50Nanos () {
+		return getPercentileNanos(50);
+	}
+
+	public long getP99Nanos () {
+		return getPercentileNanos(99);
+	}
+
+	public long getP999Nanos () {
+		return getPercentileNanos(99.9);
+	}
+
+	@Override
+	public String toString () {
+		return String.format("count=%d, errors=%d, qps=%.1f, mean=%.1fus, p50=%.1fus, p99=%.1fus, p999=%.1fus",
+		                     count, errors, getQps(), micros(getMeanNanos()), micros(getP50Nanos()),
+		                     micros(getP99Nanos()), micros(getP999Nanos()));
+	}
+
+	private static double micros (long nanos) {
+		return nanos / 1000.0;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RegistrationMetrics.java
+ * Date:    26-10-18 下午3:18
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * handler 方法注册期间的统计，线程安全，可以在并行检测时使用。
+ * <p>
+ * 通过 {@link #snapshot()} 获取统计快照，或者作为标准 MBean 注册到 MBeanServer。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class RegistrationMetrics implements RegistrationMetricsMBean {
+
+	public static final int SLOWEST_HANDLERS = 10;
+
+	private final ConcurrentMap<Class<?>, HandlerMetrics> handlers = new ConcurrentHashMap<>();
+
+	private final AtomicLong initNanos = new AtomicLong();
+	private final AtomicLong inspectedBeans = new AtomicLong();
+	private final AtomicLong isHandlerNanos = new AtomicLong();
+
+	/**
+	 * 获取 handler 类的统计，没有则创建
+	 */
+	public HandlerMetrics handler (Class<?> handlerType) {
+		HandlerMetrics metrics = handlers.get(handlerType);
+		if (metrics == null) {
+			metrics = new HandlerMetrics(handlerType);
+			HandlerMetrics previous = handlers.putIfAbsent(handlerType, metrics);
+			if (previous != null) {
+				metrics = previous;
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * 记录一次 isHandler 调用，bean 是 handler 时其耗时同时计入该 handler 类
+	 */
+	public void recordIsHandler (Class<?> beanType, long nanos, boolean isHandler) {
+		inspectedBeans.incrementAndGet();
+		isHandlerNanos.addAndGet(nanos);
+		if (isHandler) {
+			handler(beanType).recordIsHandler(nanos);
+		}
+	}
+
+	public void recordInit (long nanos) {
+		initNanos.addAndGet(nanos);
+	}
+
+	public RegistrationSnapshot snapshot () {
+		List<HandlerSnapshot> snapshots = new ArrayList<>(handlers.size());
+		for (HandlerMetrics metrics : handlers.values()) {
+			snapshots.add(metrics.snapshot());
+		}
+		return new RegistrationSnapshot(initNanos.get(), inspectedBeans.get(), isHandlerNanos.get(), snapshots);
+	}
+
+	@Override
+	public long getInitMillis () {
+		return millis(initNanos.get());
+	}
+
+	@Override
+	public long getInspectedBeans () {
+		return inspectedBeans.get();
+	}
+
+	@Override
+	public int getHandlerCount () {
+		return handlers.size();
+	}
+
+	@Override
+	public long getIsHandlerMillis () {
+		return millis(isHandlerNanos.get());
+	}
+
+	@Override
+	public long getResolveMillis () {
+		return millis(snapshot().getResolveNanos());
+	}
+
+	@Override
+	public long getMappingMillis () {
+		return millis(snapshot().getMappingNanos());
+	}
+
+	@Override
+	public long getGeneratedPaths () {
+		return snapshot().getGeneratedPaths();
+	}
+
+	@Override
+	public long getExplicitPaths () {
+		return snapshot().getExplicitPaths();
+	}
+
+	@Override
+	public String[] getSlowestHandlers () {
+		List<HandlerSnapshot> slowest = snapshot().getSlowest(SLOWEST_HANDLERS);
+		String[] result = new String[slowest.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = slowest.get(i).toString();
+		}
+		return result;
+	}
+
+	@Override
+	public void reset () {
+		handlers.clear();
+		initNanos.set(0);
+		inspectedBeans.set(0);
+		isHandlerNanos.set(0);
+	}
+
+	@Override
+	public String toString () {
+		return snapshot().toString();
+	}
+
+	private static long millis (long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
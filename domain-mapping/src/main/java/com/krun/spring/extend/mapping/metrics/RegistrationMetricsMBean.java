@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RegistrationMetricsMBean.java
+ * Date:    26-10-18 下午3:15
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+/**
+ * {@link RegistrationMetrics} 的 JMX 接口，时间单位均为毫秒。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public interface RegistrationMetricsMBean {
+
+	long getInitMillis ();
+
+	long getInspectedBeans ();
+
+	int getHandlerCount ();
+
+	long getIsHandlerMillis ();
+
+	long getResolveMillis ();
+
+	long getMappingMillis ();
+
+	long getGeneratedPaths ();
+
+	long getExplicitPaths ();
+
+	/**
+	 * @return 总耗时最高的 10 个 handler 类
+	 */
+	String[] getSlowestHandlers ();
+
+	void reset ();
+}
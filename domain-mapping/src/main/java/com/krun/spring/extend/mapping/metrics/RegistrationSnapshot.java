@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RegistrationSnapshot.java
+ * Date:    26-10-18 下午3:12
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 注册统计快照，不可变。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class RegistrationSnapshot {
+
+	private static final Comparator<HandlerSnapshot> SLOWEST_FIRST = new Comparator<HandlerSnapshot>() {
+
+		@Override
+		public int compare (HandlerSnapshot a, HandlerSnapshot b) {
+			return Long.compare(b.getTotalNanos(), a.getTotalNanos());
+		}
+	};
+
+	private final long initNanos;
+	private final long inspectedBeans;
+	private final long isHandlerNanos;
+	private final long resolveNanos;
+	private final long mappingNanos;
+	private final long generatedPaths;
+	private final long explicitPaths;
+
+	/**
+	 * 按总耗时从高到低排序
+	 */
+	private final List<HandlerSnapshot> handlers;
+
+	RegistrationSnapshot (long initNanos, long inspectedBeans, long isHandlerNanos, List<HandlerSnapshot> handlers) {
+		List<HandlerSnapshot> sorted = new ArrayList<>(handlers);
+		Collections.sort(sorted, SLOWEST_FIRST);
+
+		long resolve = 0, mapping = 0, generated = 0, explicit = 0;
+		for (HandlerSnapshot handler : sorted) {
+			resolve += handler.getResolveNanos();
+			mapping += handler.getMappingNanos();
+			generated += handler.getGeneratedPaths();
+			explicit += handler.getExplicitPaths();
+		}
+
+		this.initNanos = initNanos;
+		this.inspectedBeans = inspectedBeans;
+		this.isHandlerNanos = isHandlerNanos;
+		this.resolveNanos = resolve;
+		this.mappingNanos = mapping;
+		this.generatedPaths = generated;
+		this.explicitPaths = explicit;
+		this.handlers = Collections.unmodifiableList(sorted);
+	}
+
+	/**
+	 * @return initHandlerMethods 所花费的时间，包括 bean 的类型解析与注册
+	 */
+	public long getInitNanos () {
+		return initNanos;
+	}
+
+	/**
+	 * @return 调用过 isHandler 的 bean 数量
+	 */
+	public long getInspectedBeans () {
+		return inspectedBeans;
+	}
+
+	/**
+	 * @return 所有 bean（包括不是 handler 的）在 isHandler 中所花费的时间
+	 */
+	public long getIsHandlerNanos () {
+		return isHandlerNanos;
+	}
+
+	public long getResolveNanos () {
+		return resolveNanos;
+	}
+
+	public long getMappingNanos () {
+		return mappingNanos;
+	}
+
+	public long getGeneratedPaths () {
+		return generatedPaths;
+	}
+
+	public long getExplicitPaths () {
+		return explicitPaths;
+	}
+
+	/**
+	 * @return 所有 handler 类的统计，按总耗时从高到低排序
+	 */
+	public List<HandlerSnapshot> getHandlers () {
+		return handlers;
+	}
+
+	/**
+	 * @return 总耗时最高的 limit 个 handler 类
+	 */
+	public List<HandlerSnapshot> getSlowest (int limit) {
+		return handlers.subList(0, Math.min(limit, handlers.size()));
+	}
+
+	@Override
+	public String toString () {
+		return String.format("init=%dms, beans=%d, handlers=%d, isHandler=%dms, resolve=%dms, mapping=%dms, " +
+		                     "generated=%d, explicit=%d", millis(initNanos), inspectedBeans, handlers.size(),
+		                     millis(isHandlerNanos), millis(resolveNanos), millis(mappingNanos), generatedPaths,
+		                     explicitPaths);
+	}
+
+	private static long millis (long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RequestMetrics.java
+ * Date:    26-10-18 下午10:58
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 请求时按路由统计的耗时与吞吐量，线程安全。
+ * <p>
+ * 路由在注册 handler 方法时登记，请求时通过 {@link #route(Object)} 取得对应的 {@link RouteMetrics} 记录耗时，记录过程不加锁。
+ * 通过 {@link #snapshot()} 获取统计快照，或者作为标准 MBean 注册到 MBeanServer。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class RequestMetrics implements RequestMetricsMBean {
+
+	public static final int TOP_ROUTES = 10;
+
+	private final ConcurrentMap<Object, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+	private volatile long startNanos = System.nanoTime();
+
+	/**
+	 * 登记一个路由，key 已经登记过时保留原有的统计
+	 *
+	 * @param key 请求时用于查找路由的键，例如注册的 HandlerMethod
+	 * @param route 路由名称，由请求方法与路径组成
+	 */
+	public RouteMetrics register (Object key, String route, Class<?> handlerType, String handlerMethod) {
+		RouteMetrics metrics = routes.get(key);
+		if (metrics == null) {
+			metrics = new RouteMetrics(route, handlerType, handlerMethod);
+			RouteMetrics previous = routes.putIfAbsent(key, metrics);
+			if (previous != null) {
+				metrics = previous;
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * @return key 对应的路由，没有登记时为 NULL
+	 */
+	@Nullable
+	public RouteMetrics route (Object key) {
+		return routes.get(key);
+	}
+
+	public RequestSnapshot snapshot () {
+		long elapsedNanos = System.nanoTime() - startNanos;
+		List<RouteSnapshot> snapshots = new ArrayList<>(routes.size());
+		for (RouteMetrics metrics : routes.values()) {
+			snapshots.add(metrics.snapshot(elapsedNanos));
+		}
+		return new RequestSnapshot(snapshots, elapsedNanos);
+	}
+
+	@Override
+	public int getRouteCount () {
+		return routes.size();
+	}
+
+	@Override
+	public long getRequestCount () {
+		return snapshot().getTotal().getCount();
+	}
+
+	@Override
+	public long getErrorCount () {
+		return snapshot().getTotal().getErrors();
+	}
+
+	@Override
+	public double getQps () {
+		return snapshot().getTotal().getQps();
+	}
+
+	@Override
+	public double getP50Micros () {
+		return micros(snapshot().getTotal().getP50Nanos());
+	}
+
+	@Override
+	public double getP99Micros () {
+		return micros(snapshot().getTotal().getP99Nanos());
+	}
+
+	@Override
+	public double getP999Micros () {
+		return micros(snapshot().getTotal().getP999Nanos());
+	}
+
+	@Override
+	public String[] getBusiestRoutes () {
+		return toStrings(snapshot().getBusiest(TOP_ROUTES));
+	}
+
+	@Override
+	public String[] getSlowestRoutes () {
+		return toStrings(snapshot().getSlowest(TOP_ROUTES));
+	}
+
+	@Override
+	public String[] getHandlers () {
+		Map<String, LatencySnapshot> handlers = snapshot().getHandlers();
+		String[] result = new String[handlers.size()];
+		int i = 0;
+		for (Map.Entry<String, LatencySnapshot> handler : handlers.entrySet()) {
+			result[i++] = handler.getKey() + ": " + handler.getValue();
+		}
+		return result;
+	}
+
+	/**
+	 * 清空所有路由的统计，QPS 从重置时开始计算；已登记的路由保持不变
+	 */
+	@Override
+	public void reset () {
+		for (RouteMetrics metrics : routes.values()) {
+			metrics.reset();
+		}
+		startNanos = System.nanoTime();
+	}
+
+	@Override
+	public String toString () {
+		return snapshot().toString();
+	}
+
+	private static String[] toStrings (List<RouteSnapshot> routes) {
+		String[] result = new String[routes.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = routes.get(i).toString();
+		}
+		return result;
+	}
+
+	private static double micros (long nanos) {
+		return nanos / 1000.0;
+	}
+}
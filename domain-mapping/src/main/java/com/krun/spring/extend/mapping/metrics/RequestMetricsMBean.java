@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RequestMetricsMBean.java
+ * Date:    26-10-18 下午10:55
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+/**
+ * {@link RequestMetrics} 的 JMX 接口，时间单位均为微秒。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public interface RequestMetricsMBean {
+
+	int getRouteCount ();
+
+	long getRequestCount ();
+
+	long getErrorCount ();
+
+	double getQps ();
+
+	double getP50Micros ();
+
+	double getP99Micros ();
+
+	double getP999Micros ();
+
+	/**
+	 * @return 请求数最多的 10 个路由
+	 */
+	String[] getBusiestRoutes ();
+
+	/**
+	 * @return p99 耗时最高的 10 个路由
+	 */
+	String[] getSlowestRoutes ();
+
+	/**
+	 * @return 按 handler 类汇总的统计
+	 */
+	String[] getHandlers ();
+
+	void reset ();
+}
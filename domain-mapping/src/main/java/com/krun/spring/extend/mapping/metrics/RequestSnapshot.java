@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RequestSnapshot.java
+ * Date:    26-10-18 下午11:02
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+import org.springframework.lang.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 请求统计快照，不可变，可以按路由或按 handler 类查看。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class RequestSnapshot {
+
+	private static final Comparator<RouteSnapshot> BUSIEST_FIRST = new Comparator<RouteSnapshot>() {
+
+		@Override
+		public int compare (RouteSnapshot a, RouteSnapshot b) {
+			return Long.compare(b.getLatency().getCount(), a.getLatency().getCount());
+		}
+	};
+
+	private static final Comparator<RouteSnapshot> SLOWEST_FIRST = new Comparator<RouteSnapshot>() {
+
+		@Override
+		public int compare (RouteSnapshot a, RouteSnapshot b) {
+			return Long.compare(b.getLatency().getP99Nanos(), a.getLatency().getP99Nanos());
+		}
+	};
+
+	/**
+	 * 按请求数从高到低排序
+	 */
+	private final List<RouteSnapshot> routes;
+
+	private final Map<String, RouteSnapshot> routesByName;
+
+	/**
+	 * 以 handler 类名为键，按请求数从高到低排序
+	 */
+	private final Map<String, LatencySnapshot> handlers;
+
+	private final LatencySnapshot total;
+
+	RequestSnapshot (List<RouteSnapshot> routes, long elapsedNanos) {
+		List<RouteSnapshot> sorted = new ArrayList<>(routes);
+		Collections.sort(sorted, BUSIEST_FIRST);
+
+		Map<String, RouteSnapshot> routesByName = new LinkedHashMap<>();
+		Map<String, List<LatencySnapshot>> grouped = new LinkedHashMap<>();
+		List<LatencySnapshot> all = new ArrayList<>(sorted.size());
+		for (RouteSnapshot route : sorted) {
+			routesByName.put(route.getRoute(), route);
+			List<LatencySnapshot> group = grouped.get(route.getHandlerType());
+			if (group == null) {
+				group = new ArrayList<>();
+				grouped.put(route.getHandlerType(), group);
+			}
+			group.add(route.getLatency());
+			all.add(route.getLatency());
+		}
+
+		List<Map.Entry<String, LatencySnapshot>> merged = new ArrayList<>(grouped.size());
+		for (Map.Entry<String, List<LatencySnapshot>> group : grouped.entrySet()) {
+			merged.add(new AbstractMap.SimpleImmutableEntry<>(
+					group.getKey(), LatencySnapshot.merge(group.getValue(), elapsedNanos)));
+		}
+		Collections.sort(merged, new Comparator<Map.Entry<String, LatencySnapshot>>() {
+
+			@Override
+			public int compare (Map.Entry<String, LatencySnapshot> a, Map.Entry<String, LatencySnapshot> b) {
+				return Long.compare(b.getValue().getCount(), a.getValue().getCount());
+			}
+		});
+		Map<String, LatencySnapshot> handlers = new LinkedHashMap<>();
+		for (Map.Entry<String, LatencySnapshot> handler : merged) {
+			handlers.put(handler.getKey(), handler.getValue());
+		}
+
+		this.routes = Collections.unmodifiableList(sorted);
+		this.routesByName = Collections.unmodifiableMap(routesByName);
+		this.handlers = Collections.unmodifiableMap(handlers);
+		this.total = LatencySnapshot.merge(all, elapsedNanos);
+	}
+
+	/**
+	 * @return 所有路由的汇总
+	 */
+	public LatencySnapshot getTotal () {
+		return total;
+	}
+
+	/**
+	 * @return 所有路由的统计，按请求数从高到低排序
+	 */
+	public List<RouteSnapshot> getRoutes () {
+		return routes;
+	}
+
+	/**
+	 * @param route 路由名称，例如 <code>GET /demo/user-service/demo</code>
+	 */
+	@Nullable
+	public RouteSnapshot getRoute (String route) {
+		return routesByName.get(route);
+	}
+
+	/**
+	 * @return 按 handler 类汇总的统计，以类名为键，按请求数从高到低排序
+	 */
+	public Map<String, LatencySnapshot> getHandlers () {
+		return handlers;
+	}
+
+	@Nullable
+	public LatencySnapshot getHandler (Class<?> handlerType) {
+		return handlers.get(handlerType.getName());
+	}
+
+	/**
+	 * @return 请求数最多的 limit 个路由
+	 */
+	public List<RouteSnapshot> getBusiest (int limit) {
+		return routes.subList(0, Math.min(limit, routes.size()));
+	}
+
+	/**
+	 * @return p99 耗时最高的 limit 个路由，不包括没有请求的路由
+	 */
+	public List<RouteSnapshot> getSlowest (int limit) {
+		List<RouteSnapshot> slowest = new ArrayList<>(routes.size());
+		for (RouteSnapshot route : routes) {
+			if (route.getLatency().getCount() > 0) {
+				slowest.add(route);
+			}
+		}
+		Collections.sort(slowest, SLOWEST_FIRST);
+		return Collections.unmodifiableList(slowest.subList(0, Math.min(limit, slowest.size())));
+	}
+
+	@Override
+	public String toString () {
+		return String.format("routes=%d, handlers=%d, %s", routes.size(), handlers.size(), total);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RouteMetrics.java
+ * Date:    26-10-18 下午10:50
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个路由（一个 handler 方法的映射）的请求统计，线程安全，记录时不加锁。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class RouteMetrics {
+
+	private final String route;
+
+	private final Class<?> handlerType;
+
+	private final String handlerMethod;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	private final AtomicLong errors = new AtomicLong();
+
+	RouteMetrics (String route, Class<?> handlerType, String handlerMethod) {
+		this.route = route;
+		this.handlerType = handlerType;
+		this.handlerMethod = handlerMethod;
+	}
+
+	public String getRoute () {
+		return route;
+	}
+
+	public Class<?> getHandlerType () {
+		return handlerType;
+	}
+
+	/**
+	 * @param nanos 请求的处理耗时，异步请求包括异步执行的时间
+	 * @param error 是否抛出了异常或者响应状态码不低于 500
+	 */
+	public void record (long nanos, boolean error) {
+		latency.record(nanos);
+		if (error) {
+			errors.incrementAndGet();
+		}
+	}
+
+	RouteSnapshot snapshot (long elapsedNanos) {
+		return new RouteSnapshot(route, handlerType.getName(), handlerMethod,
+		                         latency.snapshot(errors.get(), elapsedNanos));
+	}
+
+	void reset () {
+		latency.reset();
+		errors.set(0);
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RouteSnapshot.java
+ * Date:    26-10-18 下午10:52
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.metrics;
+
+/**
+ * 单个路由的请求统计快照，不可变。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class RouteSnapshot {
+
+	private final String route;
+	private final String handlerType;
+	private final String handlerMethod;
+	private final LatencySnapshot latency;
+
+	RouteSnapshot (String route, String handlerType, String handlerMethod, LatencySnapshot latency) {
+		this.route = route;
+		this.handlerType = handlerType;
+		this.handlerMethod = handlerMethod;
+		this.latency = latency;
+	}
+
+	/**
+	 * @return 路由名称，由请求方法与路径组成，例如 <code>GET /demo/user-service/demo</code>
+	 */
+	public String getRoute () {
+		return route;
+	}
+
+	public String getHandlerType () {
+		return handlerType;
+	}
+
+	public String getHandlerMethod () {
+		return handlerMethod;
+	}
+
+	public LatencySnapshot getLatency () {
+		return latency;
+	}
+
+	@Override
+	public String toString () {
+		return String.format("%s (%s): %s", route, handlerType, latency);
+	}
+}
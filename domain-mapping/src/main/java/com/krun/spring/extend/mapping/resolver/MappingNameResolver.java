@@ -18,6 +18,10 @@ import java.lang.reflect.Method;
 /**
  *
  * 此接口用于提供从类或方法的信息中提取一个可用的路径的映射实现。
+ * <p>
+ * 实现应当是线程安全的：{@link com.krun.spring.extend.mapping.handler.DomainMappingHandler} 开启并行检测后，
+ * {@link #resolve} 会在多个线程中被同时调用。无法保证线程安全的实现需要使用 {@link NotThreadSafe} 修饰，
+ * 此时会回退到串行检测。
  *
  * @author krun
  * @date 2018/05/01
@@ -0,0 +1,30 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      NotThreadSafe.java
+ * Date:    26-10-18 上午11:30
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.resolver;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记一个 {@link MappingNameResolver} 实现不是线程安全的。
+ * <p>
+ * 开启并行检测时，如果所使用的 {@link MappingNameResolver} 被此注解修饰，
+ * {@link com.krun.spring.extend.mapping.handler.DomainMappingHandler} 会回退到串行检测。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@Documented
+@Target (ElementType.TYPE)
+@Retention (RetentionPolicy.RUNTIME)
+public @interface NotThreadSafe {
+}
@@ -10,24 +10,53 @@ package com.krun.spring.extend.mapping.resolver.impl;
 
 import com.krun.spring.extend.mapping.DomainMapping;
 import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.index.DomainMappingIndex;
 import com.krun.spring.extend.mapping.resolver.MappingNameResolver;
+import com.krun.spring.extend.mapping.utils.CacheStatistics;
 import com.krun.spring.extend.mapping.utils.Utils;
-import org.springframework.web.servlet.mvc.condition.PatternsRequestCondition;
+import com.krun.spring.extend.naming.NameTranslator;
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * MappingNameResolver 抽象基类实现，要求实现 getSuffix() 和 getPrefix() 方法，
  * 以裁剪（可能）存在的前缀后缀，但是根元素的前缀不会被删除。
+ * <p>
+ * 此实现是线程安全的，前提是 getSuffix() 和 getPrefix() 的返回值不会改变。
  *
  * @author krun
  * @date 2018/05/01
  */
 public abstract class AbstractMappingNameResolver implements MappingNameResolver {
 
+	private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+	/**
+	 * 已解析的类路径缓存，子类会直接复用祖先类的解析结果而不必再遍历至 Object
+	 */
+	private final ConcurrentMap<Class<?>, String[]> pathCache = new ConcurrentHashMap<>();
+
+	private final CacheStatistics statistics = new CacheStatistics();
+
+	/**
+	 * 编译期索引，为空时通过反射解析
+	 */
+	private volatile DomainMappingIndex index;
+
+	/**
+	 * 是否在控制台输出解析过程
+	 */
+	private volatile boolean verbose = false;
+
 	/**
 	 * 获取需要裁剪的后缀
 	 * @return 需要裁剪的后缀
@@ -39,57 +68,202 @@ public abstract class AbstractMappingNameResolver implements MappingNameResolver
 	 */
 	protected abstract String getPrefix();
 
+	/**
+	 * 获取类名与方法名的转换器，默认为 {@link NameTranslator#HYPHEN}。
+	 * 编译期索引只按默认转换器生成，使用其他转换器时不会读取索引内的路径。
+	 * @return 类名与方法名的转换器
+	 */
+	protected NameTranslator getNameTranslator() {
+		return NameTranslator.HYPHEN;
+	}
+
 	@Override
 	public String[] resolve (Class<?> clazz, Method method, String[] path) {
-		return method == null ? generatePathFromClass(clazz)
+		return method == null ? generatePathFromClass(clazz).clone()
 		                      : generatePathFromMethod(method);
 	}
+
+	/**
+	 * @return 类路径缓存的命中统计
+	 */
+	public CacheStatistics getCacheStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * 清空类路径缓存，在类被重新加载或前后缀配置变更后调用
+	 */
+	public void clearCache() {
+		pathCache.clear();
+	}
+
+	/**
+	 * 移除 clazz 及以其为祖先的类的类路径缓存，其他类的缓存保持不变，在 clazz 被修改或重新加载后调用
+	 * @return 被移除缓存的类
+	 */
+	public Set<Class<?>> evict(Class<?> clazz) {
+		String className = clazz.getName();
+		Set<Class<?>> evicted = new LinkedHashSet<>();
+		for (Class<?> cached : pathCache.keySet()) {
+			if (Utils.isDerivedFrom(cached, className) && pathCache.remove(cached) != null) {
+				evicted.add(cached);
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * 设置编译期索引，索引内未过期且前后缀配置一致的类将直接使用索引内的路径
+	 */
+	public void setIndex(@Nullable DomainMappingIndex index) {
+		this.index = index;
+		clearCache();
+	}
+
+	/**
+	 * @return 决定解析结果的配置：实现类、前后缀与名称转换器，DomainMappingHandler 的启动缓存以此判断缓存是否仍然有效
+	 */
+	public String getConfigurationKey() {
+		return getClass().getName() + ", prefix=" + getPrefix() + ", suffix=" + getSuffix() + ", translator="
+		       + getNameTranslator();
+	}
+
+	/**
+	 * 设置是否在控制台输出解析过程，默认关闭；开启 DomainMappingHandler 的注册统计时会一并开启
+	 */
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
 	private String[] generatePathFromMethod (Method method) {
-		return new String[] { Utils.translateName(method.getName())};
+		DomainMappingIndex index = getUsableIndex();
+		String path = index == null ? null : index.getMethodPath(method);
+		return new String[] { path != null ? path : getNameTranslator().translate(method.getName())};
 	}
+
+	private DomainMappingIndex getUsableIndex() {
+		return getNameTranslator() == NameTranslator.HYPHEN ? index : null;
+	}
+
 	private String[] generatePathFromClass (Class<?> clazz) {
-		List<String[]> allPaths = getPaths(clazz);
+		String[] paths = pathCache.get(clazz);
+		if (paths != null) {
+			statistics.recordHit();
+			return paths;
+		}
 
-		String                   path;
-		String[]                 paths;
-		PatternsRequestCondition condition = null;
+		long start = System.nanoTime();
+		paths = computePathFromClass(clazz);
+		statistics.recordMiss(System.nanoTime() - start);
 
-		final String prefix = getPrefix();
-		final String suffix = getSuffix();
+		String[] previous = pathCache.putIfAbsent(clazz, paths);
+		return previous == null ? paths : previous;
+	}
 
-		/* 倒序遍历以拼装路径 */
-		for (int i = allPaths.size() - 1; i > - 1; i--) {
-			paths = allPaths.get(i);
-			if ((i != allPaths.size() - 1)) {
-				for (int j = 0; j < paths.length; j++) {
-					path = paths[j];
-					if (path.startsWith(prefix)) {
-						paths[j] = path.substring(prefix.length(), path.length());
-					}
-				}
+	private String[] computePathFromClass (Class<?> clazz) {
+		DomainMappingIndex index = getUsableIndex();
+		if (index != null) {
+			String[] paths = index.getPaths(clazz, getPrefix(), getSuffix());
+			if (paths != null) {
+				return paths;
 			}
-			for (int j = 0; j < paths.length; j++) {
-				path = paths[j];
-				if (path.endsWith(suffix)) {
-					paths[j] = path.substring(0, path.indexOf(suffix));
-				}
-				paths[j] = Utils.translateName(paths[j]);
+		}
+
+		Annotation annotation = Utils.findAnnotation(clazz);
+
+		if (annotation == null) {
+			if (verbose) {
+				System.out.println(Utils.getClassDeclaration(clazz) + " 没有注解");
 			}
-			if (condition == null) {
-				condition = new PatternsRequestCondition(paths);
-			} else {
-				condition = condition.combine(new PatternsRequestCondition(paths));
+			return new String[0];
+		}
+
+		String[] paths;
+		boolean  isRoot;
+		String   root = getRoot(annotation);
+
+		if (! root.isEmpty()) {
+			if (verbose) {
+				System.out.println(Utils.getClassDeclaration(clazz) + " root 属性非空");
 			}
+			root = root.startsWith("/") ? root.substring(1) : root;
+			paths = new String[] { root };
+			isRoot = true;
+		} else {
+			String[] value = getValue(annotation);
+			paths = value.length > 0 ? value : new String[] { clazz.getSimpleName() };
+			isRoot = isRootClass(clazz);
+		}
+
+		trimPaths(paths, isRoot);
 
+		Set<String> patterns = prependLeadingSlash(paths);
+		if (! isRoot) {
+			/* 以祖先类已解析的路径作为前缀进行拼装 */
+			patterns = combine(prependLeadingSlash(generatePathFromClass(clazz.getSuperclass())), patterns);
 		}
+		return patterns.toArray(new String[0]);
+	}
 
-		if (condition == null) {
-			return new String[0];
+	/**
+	 * 与 PatternsRequestCondition 一致，不依赖 spring-webmvc，以便在 WebFlux 中使用
+	 */
+	private static Set<String> prependLeadingSlash (String[] paths) {
+		Set<String> result = new LinkedHashSet<>(paths.length);
+		for (String path : paths) {
+			result.add(StringUtils.hasLength(path) && ! path.startsWith("/") ? "/" + path : path);
+		}
+		return result;
+	}
+
+	/**
+	 * 与 PatternsRequestCondition.combine 一致
+	 */
+	private static Set<String> combine (Set<String> parents, Set<String> children) {
+		if (parents.isEmpty() || children.isEmpty()) {
+			Set<String> result = new LinkedHashSet<>(parents.isEmpty() ? children : parents);
+			if (result.isEmpty()) {
+				result.add("");
+			}
+			return result;
+		}
+		Set<String> result = new LinkedHashSet<>();
+		for (String parent : parents) {
+			for (String child : children) {
+				result.add(PATH_MATCHER.combine(parent, child));
+			}
+		}
+		return prependLeadingSlash(result.toArray(new String[0]));
+	}
+
+	/**
+	 * 父类为 Object 或父类没有注解时，当前类即为根元素
+	 */
+	private boolean isRootClass (Class<?> clazz) {
+		Class<?> superclass = clazz.getSuperclass();
+		if (superclass == null || superclass == Object.class) {
+			return true;
+		}
+		if (Utils.findAnnotation(superclass) == null) {
+			if (verbose) {
+				System.out.println(Utils.getClassDeclaration(superclass) + " 没有注解");
+			}
+			return true;
 		}
+		return false;
+	}
 
-		paths = new String[condition.getPatterns().size()];
-		condition.getPatterns().toArray(paths);
-		return paths;
+	/**
+	 * 裁剪前后缀并转换为连字符命名，根元素的前缀不会被裁剪
+	 */
+	private void trimPaths (String[] paths, boolean isRoot) {
+		final String prefix = getPrefix();
+		final String suffix = getSuffix();
+		final NameTranslator translator = getNameTranslator();
+
+		for (int j = 0; j < paths.length; j++) {
+			paths[j] = Utils.translateSegment(paths[j], prefix, suffix, isRoot, translator);
+		}
 	}
 
 	private String getRoot(Annotation annotation) {
@@ -107,41 +281,4 @@ public abstract class AbstractMappingNameResolver implements MappingNameResolver
 			return ((RestDomainMapping) annotation).value();
 		}
 	}
-
-	private List<String[]> getPaths(Class<?> clazz) {
-		List<String[]> allPaths = new ArrayList<>();
-		String[]            value;
-		String              root;
-		/* 遍历并获取类信息直至根元素 */
-		while (clazz != Object.class) {
-
-			Annotation annotation = Utils.findAnnotation(clazz);
-
-			if (annotation == null) {
-				System.out.println(Utils.getClassDeclaration(clazz) + " 没有注解");
-				clazz = Object.class;
-				continue;
-			}
-
-			if (! getRoot(annotation).isEmpty()) {
-				System.out.println(Utils.getClassDeclaration(clazz) + " root 属性非空");
-				root = getRoot(annotation);
-				root = root.startsWith("/") ? root.substring(1) : root;
-				allPaths.add(new String[] { root });
-				clazz = Object.class;
-				continue;
-			}
-
-			value = getValue(annotation);
-
-			if (value.length > 0) {
-				allPaths.add(value);
-			} else {
-				allPaths.add(new String[] { clazz.getSimpleName() });
-			}
-
-			clazz = clazz.getSuperclass();
-		}
-		return allPaths;
-	}
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      CacheStatistics.java
+ * Date:    26-10-18 上午9:12
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存命中统计，线程安全。
+ * <p>
+ * 未命中时记录实际计算所花费的时间，据此以平均计算耗时估算命中所节省的时间。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class CacheStatistics {
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong missNanos = new AtomicLong();
+
+	public void recordHit() {
+		hits.incrementAndGet();
+	}
+
+	/**
+	 * @param nanos 本次未命中时计算所花费的时间（纳秒）
+	 */
+	public void recordMiss(long nanos) {
+		misses.incrementAndGet();
+		missNanos.addAndGet(nanos);
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return 未命中时计算所花费的总时间（纳秒）
+	 */
+	public long getMissNanos() {
+		return missNanos.get();
+	}
+
+	/**
+	 * @return 按未命中的平均计算耗时估算出的、因命中而节省的时间（纳秒）
+	 */
+	public long getSavedNanos() {
+		long m = misses.get();
+		return m == 0 ? 0 : missNanos.get() / m * hits.get();
+	}
+
+	public double getHitRate() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	public void reset() {
+		hits.set(0);
+		misses.set(0);
+		missNanos.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("hits=%d, misses=%d, hitRate=%.2f%%, saved=%dms", getHitCount(), getMissCount(),
+		                     getHitRate() * 100, TimeUnit.NANOSECONDS.toMillis(getSavedNanos()));
+	}
+}
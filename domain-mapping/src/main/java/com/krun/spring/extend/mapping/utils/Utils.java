@@ -10,6 +10,7 @@ package com.krun.spring.extend.mapping.utils;
 
 import com.krun.spring.extend.mapping.DomainMapping;
 import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.naming.NameTranslator;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
@@ -76,23 +77,31 @@ public class Utils {
 		return builder.toString();
 	}
 
+	/**
+	 * 驼峰命名转换为连字符命名，见 {@link NameTranslator#HYPHEN}
+	 */
 	public static String translateName(String name) {
-		StringBuilder builder = new StringBuilder();
-		char[] array = name.toCharArray();
-		for (int i = 0; i < array.length; i++) {
-			char c = array[i];
-			if ('a' <= c && c <= 'z') {
-				builder.append(c);
-			} else if ('A' <= c && c <= 'Z') {
-				if (i != 0) {
-					builder.append('-');
-				}
-				builder.append((char)(c + 32));
-			} else {
-				builder.append(c);
-			}
+		return NameTranslator.HYPHEN.translate(name);
+	}
+
+	/**
+	 * 裁剪前后缀并转换为连字符命名，根元素的前缀不会被裁剪。
+	 * 这是 {@link com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver} 的类路径生成规则，
+	 * 编译期索引也使用同一规则。
+	 */
+	public static String translateSegment(String name, String prefix, String suffix, boolean isRoot) {
+		return translateSegment(name, prefix, suffix, isRoot, NameTranslator.HYPHEN);
+	}
+
+	public static String translateSegment(String name, String prefix, String suffix, boolean isRoot,
+	                                      NameTranslator translator) {
+		if (! isRoot && name.startsWith(prefix)) {
+			name = name.substring(prefix.length(), name.length());
 		}
-		return builder.toString();
+		if (name.endsWith(suffix)) {
+			name = name.substring(0, name.indexOf(suffix));
+		}
+		return translator.translate(name);
 	}
 
 	public static Annotation findAnnotation (AnnotatedElement element) {
@@ -106,4 +115,17 @@ public class Utils {
 		return annotation;
 	}
 
+	/**
+	 * 判断 type 或其祖先类是否为 className 所指的类。
+	 * 按名称比较，因此被重新加载的类（由新的 ClassLoader 加载）与旧的类视为同一个类。
+	 */
+	public static boolean isDerivedFrom (Class<?> type, String className) {
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			if (current.getName().equals(className)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      AsyncExecutionTest.java
+ * Date:    26-10-18 下午6:30
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 通过 {@link DomainMappingHandlerAdapter} 异步执行 handler 方法
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class AsyncExecutionTest {
+
+	private static final String THREAD_PREFIX = "async-execution-test-";
+
+	private StaticWebApplicationContext context;
+
+	private MockMvc mvc;
+
+	@Before
+	public void setUp () {
+		context = new StaticWebApplicationContext();
+		context.setServletContext(new MockServletContext());
+		MutablePropertyValues properties = new MutablePropertyValues();
+		properties.add("asyncExecutor", new SimpleAsyncTaskExecutor(THREAD_PREFIX));
+		context.registerSingleton("handlerMapping", AsyncDomainMappingHandler.class, properties);
+		context.registerSingleton("handlerAdapter", DomainMappingHandlerAdapter.class);
+		context.registerSingleton("demoTaskController", DemoTaskController.class);
+		context.registerSingleton("demoReportController", DemoReportController.class);
+		context.refresh();
+		mvc = MockMvcBuilders.webAppContextSetup(context).build();
+	}
+
+	@After
+	public void tearDown () {
+		context.close();
+	}
+
+	@Test
+	public void invokesOnExecutor () throws Exception {
+		MvcResult result = mvc.perform(get("/demo-task/current").param("name", "job")
+		                                                       .requestAttr("trace", "t-1")
+		                                                       .locale(Locale.FRENCH))
+		                      .andExpect(request().asyncStarted())
+		                      .andReturn();
+		/* 参数在容器线程上解析，请求属性与 Locale 在 executor 线程上仍然可用 */
+		mvc.perform(asyncDispatch(result))
+		   .andExpect(status().isOk())
+		   .andExpect(content().string("job async t-1 fr"));
+	}
+
+	@Test
+	public void handlesExceptions () throws Exception {
+		MvcResult result = mvc.perform(get("/demo-task/fail"))
+		                      .andExpect(request().asyncStarted())
+		                      .andReturn();
+		mvc.perform(asyncDispatch(result))
+		   .andExpect(status().isConflict())
+		   .andExpect(content().string("handled: failed"));
+	}
+
+	@Test
+	public void keepsAsyncReturnTypes () throws Exception {
+		MvcResult result = mvc.perform(get("/demo-task/callable"))
+		                      .andExpect(request().asyncStarted())
+		                      .andReturn();
+		/* 返回 Callable 的方法不会再次提交到 executor 上 */
+		mvc.perform(asyncDispatch(result))
+		   .andExpect(status().isOk())
+		   .andExpect(content().string("sync"));
+	}
+
+	@Test
+	public void invokesResponseStatusReasonSynchronously () throws Exception {
+		mvc.perform(get("/demo-task/accepted"))
+		   .andExpect(request().asyncNotStarted())
+		   .andExpect(status().isAccepted());
+	}
+
+	@Test
+	public void invokesOtherHandlersSynchronously () throws Exception {
+		mvc.perform(get("/demo-report/current"))
+		   .andExpect(request().asyncNotStarted())
+		   .andExpect(status().isOk())
+		   .andExpect(content().string("sync"));
+	}
+
+	private static String currentThread () {
+		return Thread.currentThread().getName().startsWith(THREAD_PREFIX) ? "async" : "sync";
+	}
+
+	public static class AsyncDomainMappingHandler extends DomainMappingHandler {
+
+		public AsyncDomainMappingHandler () {
+			super(new NameResolver());
+		}
+	}
+
+	static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+	}
+
+	@RestDomainMapping (async = true)
+	public static class DemoTaskController {
+
+		public String current (@RequestParam String name) {
+			RequestAttributes attributes = RequestContextHolder.currentRequestAttributes();
+			return name + " " + currentThread() + " "
+			       + attributes.getAttribute("trace", RequestAttributes.SCOPE_REQUEST) + " "
+			       + LocaleContextHolder.getLocale();
+		}
+
+		public String fail () {
+			throw new IllegalStateException("failed");
+		}
+
+		public Callable<String> callable () {
+			final String thread = currentThread();
+			return new Callable<String>() {
+
+				@Override
+				public String call () {
+					return thread;
+				}
+			};
+		}
+
+		@ResponseStatus (code = HttpStatus.ACCEPTED, reason = "accepted")
+		public String accepted () {
+			return currentThread();
+		}
+
+		@ExceptionHandler
+		@ResponseStatus (HttpStatus.CONFLICT)
+		public String handle (IllegalStateException e) {
+			return "handled: " + e.getMessage();
+		}
+	}
+
+	@RestDomainMapping
+	public static class DemoReportController {
+
+		public String current () {
+			return currentThread();
+		}
+	}
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      DomainMappingHandlerLookupTest.java
+ * Date:    26-10-18 下午9:30
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import com.krun.spring.extend.mapping.utils.CacheStatistics;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 开启前缀树或分发表查找后，查找结果与请求属性应与父类的查找完全一致；
+ * 开启查找结果缓存时，每个请求都查找两次，第二次可能命中缓存
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@RunWith (Parameterized.class)
+public class DomainMappingHandlerLookupTest {
+
+	private static final String[] ATTRIBUTES = {
+			HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+			HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+			HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE,
+			HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+			HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE };
+
+	@Parameterized.Parameters (name = "trie={0}, dispatch={1}, cache={2}")
+	public static Collection<Object[]> parameters () {
+		return Arrays.asList(new Object[][] {
+				{ true, false, 0 }, { false, true, 0 }, { true, true, 0 },
+				{ true, false, 16 }, { false, true, 16 }, { true, true, 16 } });
+	}
+
+	private final boolean segmentTrieLookup;
+
+	private final boolean dispatchTableLookup;
+
+	private final int lookupCacheSize;
+
+	private StaticApplicationContext context;
+
+	private DomainMappingHandler stock;
+
+	private DomainMappingHandler handler;
+
+	public DomainMappingHandlerLookupTest (boolean segmentTrieLookup, boolean dispatchTableLookup,
+	                                       int lookupCacheSize) {
+		this.segmentTrieLookup = segmentTrieLookup;
+		this.dispatchTableLookup = dispatchTableLookup;
+		this.lookupCacheSize = lookupCacheSize;
+	}
+
+	@Before
+	public void setUp () {
+		context = createContext();
+		stock = initialize(new DomainMappingHandler(new NameResolver()), context);
+		handler = new DomainMappingHandler(new NameResolver());
+		handler.setSegmentTrieLookup(segmentTrieLookup);
+		handler.setDispatchTableLookup(dispatchTableLookup);
+		handler.setLookupCacheSize(lookupCacheSize);
+		initialize(handler, context);
+	}
+
+	@After
+	public void tearDown () {
+		context.close();
+	}
+
+	@Test
+	public void lookupIsDisabledByDefault () {
+		DomainMappingHandler defaults = new DomainMappingHandler(new NameResolver());
+		assertEquals(false, getField(defaults, "segmentTrieLookup"));
+		assertEquals(false, getField(defaults, "dispatchTableLookup"));
+	}
+
+	@Test
+	public void exactPaths () throws Exception {
+		assertSameMatch(request("GET", "/demo-order/list"));
+		assertSameMatch(request("POST", "/demo-order/detail"));
+		assertSameMatch(request("GET", "/items"));
+		assertSameMatch(request("HEAD", "/items"));
+		assertSameMatch(request("GET", "/items/"));
+		assertSameMatch(request("GET", "/demo-order//list"));
+		assertSameLookup(request("GET", "/missing"));
+		assertSameLookup(request("GET", "/demo-order/missing"));
+	}
+
+	@Test
+	public void bestMatchingHandlerIsExposed () throws Exception {
+		MockHttpServletRequest request = request("GET", "/demo-order/list");
+		HandlerExecutionChain chain = handler.getHandler(request);
+		assertNotNull(chain);
+		/* 与父类一致，请求属性中是注册时的 handler 方法，而不是解析了 bean 的 handler 方法 */
+		assertSame(((HandlerMethod) chain.getHandler()).getResolvedFromHandlerMethod(),
+		           request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+	}
+
+	@Test
+	public void patterns () throws Exception {
+		assertSameMatch(request("GET", "/items/42"));
+		assertSameMatch(request("GET", "/files/a/b.txt"));
+		assertSameLookup(request("GET", "/files"));
+	}
+
+	@Test
+	public void producesAndConsumes () throws Exception {
+		MockHttpServletRequest json = request("GET", "/report");
+		json.addHeader("Accept", "application/json");
+		assertSameMatch(json);
+
+		MockHttpServletRequest csv = request("GET", "/report");
+		csv.addHeader("Accept", "text/csv");
+		assertSameMatch(csv);
+
+		MockHttpServletRequest create = request("POST", "/items");
+		create.setContentType("application/json");
+		assertSameMatch(create);
+	}
+
+	@Test
+	public void noMatch () throws Exception {
+		/* 405 */
+		assertSameLookup(request("DELETE", "/items"));
+		assertSameLookup(request("PUT", "/demo-order/list"));
+
+		/* 415 */
+		MockHttpServletRequest unsupported = request("POST", "/items");
+		unsupported.setContentType("text/plain");
+		assertSameLookup(unsupported);
+
+		/* 406 */
+		MockHttpServletRequest unacceptable = request("GET", "/report");
+		unacceptable.addHeader("Accept", "image/png");
+		assertSameLookup(unacceptable);
+
+		/* 400 */
+		assertSameLookup(request("GET", "/dup"));
+
+		/* OPTIONS 由父类生成的 handler 处理 */
+		assertSameLookup(request("OPTIONS", "/items"));
+	}
+
+	@Test
+	public void ambiguous () throws Exception {
+		MockHttpServletRequest request = request("GET", "/dup");
+		request.setParameter("a", "1");
+		request.setParameter("b", "1");
+		assertTrue(lookup(stock, request) instanceof IllegalStateException);
+		assertSameLookup(request);
+	}
+
+	/**
+	 * 父类能够找到 handler 方法，且结果一致
+	 */
+	@Test
+	public void registerAndUnregisterMapping () throws Exception {
+		Object tables = getField(handler, "lookupTables");
+		RequestMappingInfo info = RequestMappingInfo.paths("/items/extra", "/demo-order/list")
+		                                            .methods(RequestMethod.GET)
+		                                            .params("extra")
+		                                            .build();
+		Method method = ItemController.class.getMethod("extra");
+		stock.registerMapping(info, "itemController", method);
+		handler.registerMapping(info, "itemController", method);
+		assertLookupTables(handler);
+
+		MockHttpServletRequest extra = request("GET", "/items/extra");
+		extra.setParameter("extra", "1");
+		assertSameMatch(extra);
+		MockHttpServletRequest list = request("GET", "/demo-order/list");
+		list.setParameter("extra", "1");
+		assertSameMatch(list);
+		assertSameMatch(request("GET", "/demo-order/list"));
+
+		stock.unregisterMapping(info);
+		handler.unregisterMapping(info);
+		assertLookupTables(handler);
+		assertSameLookup(extra);
+		assertSameMatch(list);
+
+		/* 查找表整体替换，原有的查找表不受影响 */
+		if (tables != null) {
+			assertNotSame(tables, getField(handler, "lookupTables"));
+			assertFalse(((Map<?, ?>) getField(tables, "entries")).containsKey(info));
+		}
+	}
+
+	@Test
+	public void lazyRegistration () throws Exception {
+		DomainMappingHandler lazy = new DomainMappingHandler(new NameResolver());
+		lazy.setSegmentTrieLookup(segmentTrieLookup);
+		lazy.setDispatchTableLookup(dispatchTableLookup);
+		lazy.setLookupCacheSize(lookupCacheSize);
+		lazy.setLazyRegistration(true);
+		initialize(lazy, context);
+		assertEquals(1, lazy.getPendingLazyHandlerCount());
+
+		handler = lazy;
+		assertSameLookup(request("GET", "/demo-order/missing"));
+		assertEquals(0, lazy.getPendingLazyHandlerCount());
+		assertSameMatch(request("GET", "/demo-order/list"));
+		assertSameMatch(request("POST", "/demo-order/detail"));
+		assertSameLookup(request("PUT", "/demo-order/list"));
+		assertLookupTables(lazy);
+	}
+
+	@Test
+	public void reregisterHandlers () throws Exception {
+		assertEquals(1, handler.reregisterHandlers(DemoOrderController.class));
+		assertLookupTables(handler);
+		assertSameMatch(request("GET", "/demo-order/list"));
+		assertSameMatch(request("POST", "/demo-order/detail"));
+		assertSameLookup(request("PUT", "/demo-order/list"));
+	}
+
+	@Test
+	public void listenerReceivesRegisteredHandlerMethod () throws Exception {
+		final Map<RequestMappingInfo, HandlerMethod> registered = new LinkedHashMap<>();
+		handler.addMappingChangeListener(new MappingChangeListener() {
+
+			@Override
+			public void mappingRegistered (RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+				registered.put(mapping, handlerMethod);
+			}
+
+			@Override
+			public void mappingUnregistered (RequestMappingInfo mapping) {
+			}
+		});
+		handler.reregisterHandlers(DemoOrderController.class);
+		assertEquals(2, registered.size());
+		for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : registered.entrySet()) {
+			assertSame(handler.getHandlerMethods().get(entry.getKey()), entry.getValue());
+		}
+	}
+
+	@Test
+	public void cachedResults () throws Exception {
+		Assume.assumeTrue(lookupCacheSize > 0);
+		CacheStatistics statistics = handler.getLookupCacheStatistics();
+
+		MockHttpServletRequest json = request("GET", "/report");
+		json.addHeader("Accept", "application/json");
+		assertSameMatch(json);
+		assertSameMatch(request("GET", "/demo-order/list"));
+		assertEquals(2, statistics.getHitCount());
+
+		/* Accept 不同时是不同的键 */
+		MockHttpServletRequest csv = request("GET", "/report");
+		csv.addHeader("Accept", "text/csv");
+		assertSameMatch(csv);
+		assertEquals(3, statistics.getHitCount());
+
+		/* 带有 params 条件的映射参与匹配时不缓存 */
+		MockHttpServletRequest dup = request("GET", "/dup");
+		dup.setParameter("a", "1");
+		assertSameMatch(dup);
+		assertEquals(3, statistics.getHitCount());
+	}
+
+	@Test
+	public void registrationEvictsOnlyMatchingResults () throws Exception {
+		Assume.assumeTrue(lookupCacheSize > 0);
+		CacheStatistics statistics = handler.getLookupCacheStatistics();
+		assertSameMatch(request("GET", "/demo-order/list"));
+		assertSameMatch(request("POST", "/demo-order/detail"));
+		long hits = statistics.getHitCount();
+
+		RequestMappingInfo info = RequestMappingInfo.paths("/demo-order/list").methods(RequestMethod.GET).build();
+		stock.registerMapping(info, "itemController", ItemController.class.getMethod("extra"));
+		handler.registerMapping(info, "itemController", ItemController.class.getMethod("extra"));
+
+		/* 限定了 GET 的新映射更具体，原有的结果被淘汰，否则会与父类的结果不同；其他路径的结果仍然命中 */
+		assertSameMatch(request("GET", "/demo-order/list"));
+		assertSameMatch(request("POST", "/demo-order/detail"));
+		assertEquals(hits + 3, statistics.getHitCount());
+
+		stock.unregisterMapping(info);
+		handler.unregisterMapping(info);
+		assertSameMatch(request("GET", "/demo-order/list"));
+	}
+
+	private void assertSameMatch (MockHttpServletRequest request) throws Exception {
+		assertTrue(request.getMethod() + " " + request.getRequestURI(),
+		           lookup(stock, copy(request)) instanceof HandlerMethod);
+		assertSameLookup(request);
+	}
+
+	private void assertSameLookup (MockHttpServletRequest request) throws Exception {
+		if (lookupCacheSize > 0) {
+			assertSameLookup(copy(request), copy(request));
+		}
+		assertSameLookup(copy(request), request);
+	}
+
+	private void assertSameLookup (MockHttpServletRequest expectedRequest, MockHttpServletRequest request) {
+		Object expected = lookup(stock, expectedRequest);
+		Object actual = lookup(handler, request);
+		String path = request.getMethod() + " " + request.getRequestURI();
+		assertEquals(path, describe(expected), describe(actual));
+		for (String attribute : ATTRIBUTES) {
+			assertEquals(path + " " + attribute, describe(expectedRequest.getAttribute(attribute)),
+			             describe(request.getAttribute(attribute)));
+		}
+	}
+
+	/**
+	 * @return 找到的 handler，或查找时抛出的异常
+	 */
+	private static Object lookup (DomainMappingHandler handler, MockHttpServletRequest request) {
+		try {
+			HandlerExecutionChain chain = handler.getHandler(request);
+			return chain == null ? null : chain.getHandler();
+		} catch (Exception e) {
+			return e;
+		}
+	}
+
+	/**
+	 * OPTIONS 请求的 handler 每次都会重新创建，按类型与方法比较
+	 */
+	private static String describe (Object value) {
+		if (value instanceof HandlerMethod) {
+			HandlerMethod handlerMethod = (HandlerMethod) value;
+			return handlerMethod.getBeanType().getName() + "#" + handlerMethod.getMethod().toGenericString();
+		}
+		if (value instanceof Exception) {
+			return value.getClass().getName() + ": " + ((Exception) value).getMessage();
+		}
+		return String.valueOf(value);
+	}
+
+	private static MockHttpServletRequest request (String method, String path) {
+		return new MockHttpServletRequest(method, path);
+	}
+
+	private static MockHttpServletRequest copy (MockHttpServletRequest request) {
+		MockHttpServletRequest copy = new MockHttpServletRequest(request.getMethod(), request.getRequestURI());
+		copy.setContentType(request.getContentType());
+		copy.setParameters(request.getParameterMap());
+		for (String name : Collections.list(request.getHeaderNames())) {
+			for (String value : Collections.list(request.getHeaders(name))) {
+				copy.addHeader(name, value);
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * 已构造的查找表与注册表一致
+	 */
+	private static void assertLookupTables (DomainMappingHandler handler) {
+		Object tables = getField(handler, "lookupTables");
+		if (tables != null) {
+			assertEquals(handler.getHandlerMethods().keySet(), ((Map<?, ?>) getField(tables, "entries")).keySet());
+		}
+	}
+
+	private static Object getField (Object target, String name) {
+		return ReflectionTestUtils.getField(target, name);
+	}
+
+	static StaticApplicationContext createContext () {
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerSingleton("demoOrderController", DemoOrderController.class);
+		context.registerSingleton("itemController", ItemController.class);
+		context.refresh();
+		return context;
+	}
+
+	static DomainMappingHandler initialize (DomainMappingHandler handler, StaticApplicationContext context) {
+		handler.setApplicationContext(context);
+		handler.afterPropertiesSet();
+		return handler;
+	}
+
+	static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+	}
+
+	@RestDomainMapping
+	public static class DemoOrderController {
+
+		public String list () {
+			return "list";
+		}
+
+		@RequestMapping (method = RequestMethod.POST)
+		public String detail () {
+			return "detail";
+		}
+	}
+
+	@Controller
+	public static class ItemController {
+
+		@RequestMapping (value = "/items", method = RequestMethod.GET)
+		public String list () {
+			return "list";
+		}
+
+		@RequestMapping (value = "/items", method = RequestMethod.POST, consumes = "application/json")
+		public String create () {
+			return "create";
+		}
+
+		@RequestMapping ("/items/{id}")
+		public String get () {
+			return "get";
+		}
+
+		@RequestMapping ("/files/**")
+		public String files () {
+			return "files";
+		}
+
+		@RequestMapping (value = "/report", produces = "application/json")
+		public String jsonReport () {
+			return "json";
+		}
+
+		@RequestMapping (value = "/report", produces = "text/csv")
+		public String csvReport () {
+			return "csv";
+		}
+
+		@RequestMapping (value = "/dup", params = "a")
+		public String dupA () {
+			return "a";
+		}
+
+		@RequestMapping (value = "/dup", params = "b")
+		public String dupB () {
+			return "b";
+		}
+
+		/**
+		 * 由测试手动注册
+		 */
+		public String extra () {
+			return "extra";
+		}
+	}
+}
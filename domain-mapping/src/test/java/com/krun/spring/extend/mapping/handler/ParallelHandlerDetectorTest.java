@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ParallelHandlerDetectorTest.java
+ * Date:    26-10-18 下午5:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 并行检测注册的映射应与串行检测一致，且解析在调用方线程的上下文类加载器下进行
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class ParallelHandlerDetectorTest {
+
+	private StaticApplicationContext context;
+
+	@Before
+	public void setUp () {
+		context = new StaticApplicationContext();
+		context.registerSingleton("demoOrderController", DemoOrderController.class);
+		context.registerSingleton("demoUserController", DemoUserController.class);
+		context.registerSingleton("demoCartController", DemoCartController.class);
+		context.registerSingleton("demoPaymentController", DemoPaymentController.class);
+		context.registerSingleton("demoInvoiceController", DemoInvoiceController.class);
+		context.registerSingleton("demoShipmentController", DemoShipmentController.class);
+		context.registerSingleton("itemController", ItemController.class);
+		context.refresh();
+	}
+
+	@After
+	public void tearDown () {
+		context.close();
+	}
+
+	@Test
+	public void sameMappingsAsSequential () {
+		DomainMappingHandler sequential = initialize(new DomainMappingHandler(new NameResolver()), false);
+		DomainMappingHandler parallel = initialize(new DomainMappingHandler(new NameResolver()), true);
+
+		Map<RequestMappingInfo, HandlerMethod> expected = sequential.getHandlerMethods();
+		Map<RequestMappingInfo, HandlerMethod> actual = parallel.getHandlerMethods();
+		assertEquals(14, expected.size());
+		assertEquals(expected, actual);
+		/* 注册顺序也一致 */
+		assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+	}
+
+	@Test
+	public void workersUseCallerContextClassLoader () {
+		ClassLoader original = Thread.currentThread().getContextClassLoader();
+		ClassLoader caller = new URLClassLoader(new URL[0], original);
+		RecordingNameResolver resolver = new RecordingNameResolver();
+		Thread.currentThread().setContextClassLoader(caller);
+		try {
+			initialize(new DomainMappingHandler(resolver), true);
+		} finally {
+			Thread.currentThread().setContextClassLoader(original);
+		}
+
+		assertFalse(resolver.contextClassLoaders.isEmpty());
+		for (ClassLoader classLoader : resolver.contextClassLoaders) {
+			assertSame(caller, classLoader);
+		}
+	}
+
+	private DomainMappingHandler initialize (DomainMappingHandler handler, boolean parallelDetection) {
+		handler.setParallelDetection(parallelDetection);
+		handler.setParallelism(4);
+		handler.setApplicationContext(context);
+		handler.afterPropertiesSet();
+		return handler;
+	}
+
+	static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+	}
+
+	/**
+	 * 记录解析时线程的上下文类加载器
+	 */
+	static class RecordingNameResolver extends NameResolver {
+
+		private final List<ClassLoader> contextClassLoaders =
+				Collections.synchronizedList(new ArrayList<ClassLoader>());
+
+		@Override
+		public String[] resolve (Class<?> clazz, Method method, String[] path) {
+			contextClassLoaders.add(Thread.currentThread().getContextClassLoader());
+			return super.resolve(clazz, method, path);
+		}
+	}
+
+	@DomainMapping (method = RequestMethod.GET)
+	public static class DemoOrderController {
+
+		public String list () {
+			return "list";
+		}
+
+		@RequestMapping (method = RequestMethod.POST)
+		public String detail () {
+			return "detail";
+		}
+	}
+
+	@RestDomainMapping
+	public static class DemoUserController {
+
+		public String profile () {
+			return "profile";
+		}
+
+		public String settings () {
+			return "settings";
+		}
+	}
+
+	@DomainMapping
+	public static class DemoCartController {
+
+		public String items () {
+			return "items";
+		}
+
+		public String checkout () {
+			return "checkout";
+		}
+	}
+
+	@DomainMapping
+	public static class DemoPaymentController {
+
+		public String pay () {
+			return "pay";
+		}
+
+		public String refund () {
+			return "refund";
+		}
+	}
+
+	@DomainMapping
+	public static class DemoInvoiceController {
+
+		public String issue () {
+			return "issue";
+		}
+
+		public String download () {
+			return "download";
+		}
+	}
+
+	@DomainMapping
+	public static class DemoShipmentController {
+
+		public String track () {
+			return "track";
+		}
+
+		public String cancel () {
+			return "cancel";
+		}
+	}
+
+	@Controller
+	@RequestMapping ("/items")
+	public static class ItemController {
+
+		@RequestMapping (method = RequestMethod.GET)
+		public String list () {
+			return "list";
+		}
+
+		@RequestMapping (method = RequestMethod.POST)
+		public String create () {
+			return "create";
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RegistrationMetricsTest.java
+ * Date:    26-10-18 下午5:50
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.metrics.HandlerSnapshot;
+import com.krun.spring.extend.mapping.metrics.RegistrationSnapshot;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 注册统计与其 MBean
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class RegistrationMetricsTest {
+
+	private static final String BEAN_NAME = "registrationMetricsTestHandler";
+
+	private StaticApplicationContext context;
+
+	private DomainMappingHandler handler;
+
+	@Before
+	public void setUp () {
+		context = new StaticApplicationContext();
+		context.registerSingleton("demoOrderController", DemoOrderController.class);
+		context.registerSingleton("itemController", ItemController.class);
+		context.registerSingleton("plainBean", Object.class);
+		context.refresh();
+	}
+
+	@After
+	public void tearDown () throws Exception {
+		if (handler != null) {
+			handler.destroy();
+		}
+		context.close();
+	}
+
+	@Test
+	public void disabledByDefault () throws Exception {
+		handler = initialize(new DomainMappingHandler(new NameResolver()));
+		assertNull(handler.getRegistrationMetrics());
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName()));
+	}
+
+	@Test
+	public void recordsHandlers () {
+		DomainMappingHandler handler = new DomainMappingHandler(new NameResolver());
+		handler.setMetricsEnabled(true);
+		this.handler = initialize(handler);
+
+		RegistrationSnapshot snapshot = handler.getRegistrationMetrics().snapshot();
+		assertTrue(snapshot.getInitNanos() > 0);
+		assertTrue(snapshot.getInspectedBeans() >= 3);
+		assertEquals(2, snapshot.getHandlers().size());
+
+		Map<String, HandlerSnapshot> handlers = new HashMap<>();
+		for (HandlerSnapshot handlerSnapshot : snapshot.getHandlers()) {
+			handlers.put(handlerSnapshot.getHandlerType(), handlerSnapshot);
+		}
+		HandlerSnapshot order = handlers.get(DemoOrderController.class.getName());
+		assertNotNull(order);
+		assertEquals("demoOrderController", order.getBeanName());
+		assertEquals(2, order.getMappingCount());
+		assertEquals(3, order.getGeneratedPaths());
+		assertEquals(0, order.getExplicitPaths());
+		assertTrue(order.getResolveNanos() > 0);
+		assertTrue(order.getMappingNanos() >= order.getResolveNanos());
+
+		HandlerSnapshot item = handlers.get(ItemController.class.getName());
+		assertNotNull(item);
+		assertEquals("itemController", item.getBeanName());
+		assertEquals(1, item.getMappingCount());
+		assertEquals(2, item.getExplicitPaths());
+		assertEquals(0, item.getGeneratedPaths());
+
+		/* 按总耗时降序排列 */
+		assertTrue(snapshot.getHandlers().get(0).getTotalNanos() >= snapshot.getHandlers().get(1).getTotalNanos());
+		assertEquals(1, snapshot.getSlowest(1).size());
+		assertEquals(snapshot.getGeneratedPaths(), order.getGeneratedPaths() + item.getGeneratedPaths());
+		assertEquals(snapshot.getExplicitPaths(), order.getExplicitPaths() + item.getExplicitPaths());
+	}
+
+	@Test
+	public void registersMBean () throws Exception {
+		DomainMappingHandler handler = new DomainMappingHandler(new NameResolver());
+		handler.setMetricsEnabled(true);
+		this.handler = initialize(handler);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = objectName();
+		assertTrue(server.isRegistered(name));
+		assertEquals(2, server.getAttribute(name, "HandlerCount"));
+		assertEquals(3L, server.getAttribute(name, "GeneratedPaths"));
+		assertEquals(2, ((String[]) server.getAttribute(name, "SlowestHandlers")).length);
+
+		server.invoke(name, "reset", null, null);
+		assertEquals(0, server.getAttribute(name, "HandlerCount"));
+
+		handler.destroy();
+		this.handler = null;
+		assertFalse(server.isRegistered(name));
+	}
+
+	private DomainMappingHandler initialize (DomainMappingHandler handler) {
+		handler.setBeanName(BEAN_NAME);
+		handler.setApplicationContext(context);
+		handler.afterPropertiesSet();
+		return handler;
+	}
+
+	private static ObjectName objectName () throws Exception {
+		return new ObjectName(DomainMappingHandler.METRICS_OBJECT_NAME + ObjectName.quote(BEAN_NAME));
+	}
+
+	static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+	}
+
+	@DomainMapping (method = RequestMethod.GET)
+	public static class DemoOrderController {
+
+		public String list () {
+			return "list";
+		}
+
+		@RequestMapping (method = RequestMethod.POST)
+		public String detail () {
+			return "detail";
+		}
+	}
+
+	@Controller
+	@RequestMapping ("/items")
+	public static class ItemController {
+
+		@GetMapping ("/all")
+		public String list () {
+			return "list";
+		}
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ReregisterHandlersTest.java
+ * Date:    26-10-18 下午6:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 重新注册 handler 时只影响该类及其子类
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class ReregisterHandlersTest {
+
+	private StaticApplicationContext context;
+
+	private DomainMappingHandler handler;
+
+	@Before
+	public void setUp () {
+		context = new StaticApplicationContext();
+		context.registerSingleton("demoOrderController", DemoOrderController.class);
+		context.registerSingleton("demoOrderItemController", DemoOrderItemController.class);
+		context.registerSingleton("demoUserController", DemoUserController.class);
+		context.refresh();
+
+		handler = new DomainMappingHandler(new NameResolver());
+		handler.setApplicationContext(context);
+		handler.afterPropertiesSet();
+	}
+
+	@After
+	public void tearDown () {
+		context.close();
+	}
+
+	@Test
+	public void reregistersTypeAndSubclasses () {
+		Map<RequestMappingInfo, HandlerMethod> before = handler.getHandlerMethods();
+		assertEquals(5, before.size());
+
+		assertEquals(2, handler.reregisterHandlers(DemoOrderController.class));
+
+		Map<RequestMappingInfo, HandlerMethod> after = handler.getHandlerMethods();
+		assertEquals(paths(before), paths(after));
+		for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : after.entrySet()) {
+			HandlerMethod previous = before.get(entry.getKey());
+			if (entry.getValue().getBeanType() == DemoUserController.class) {
+				/* 其他 handler 的映射保持不变 */
+				assertSame(previous, entry.getValue());
+			} else {
+				assertNotSame(previous, entry.getValue());
+				assertEquals(previous.getMethod(), entry.getValue().getMethod());
+			}
+		}
+	}
+
+	@Test
+	public void reregistersSubclassOnly () {
+		Map<RequestMappingInfo, HandlerMethod> before = handler.getHandlerMethods();
+		assertEquals(1, handler.reregisterHandlers(DemoOrderItemController.class));
+
+		for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handler.getHandlerMethods().entrySet()) {
+			if (entry.getValue().getBeanType() != DemoOrderItemController.class) {
+				assertSame(before.get(entry.getKey()), entry.getValue());
+			}
+		}
+	}
+
+	@Test
+	public void followsBeanDefinitions () {
+		/* 新增的子类 handler 会被注册，已移除的 handler 只移除其映射 */
+		context.registerSingleton("demoOrderArchiveController", DemoOrderArchiveController.class);
+		context.removeBeanDefinition("demoOrderItemController");
+
+		assertEquals(3, handler.reregisterHandlers(DemoOrderController.class));
+
+		TreeSet<String> paths = paths(handler.getHandlerMethods());
+		assertTrue(paths.contains("/demo-order/order-archive/restore"));
+		assertTrue(paths.contains("/demo-order/order-archive/list"));
+		assertFalse(paths.contains("/demo-order/order-item/list"));
+		assertEquals(6, handler.getHandlerMethods().size());
+	}
+
+	@Test
+	public void keepsManualMappings () throws Exception {
+		RequestMappingInfo manual = RequestMappingInfo.paths("/manual").methods(RequestMethod.GET).build();
+		DemoOrderController instance = new DemoOrderController();
+		handler.registerMapping(manual, instance, DemoOrderController.class.getMethod("list"));
+
+		handler.reregisterHandlers(DemoOrderController.class);
+
+		HandlerMethod handlerMethod = handler.getHandlerMethods().get(manual);
+		assertSame(instance, handlerMethod.getBean());
+	}
+
+	@Test
+	public void notifiesListeners () {
+		final List<String> events = new ArrayList<>();
+		handler.addMappingChangeListener(new MappingChangeListener() {
+
+			@Override
+			public void mappingRegistered (RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+				events.add("+" + mapping.getPatternsCondition().getPatterns());
+			}
+
+			@Override
+			public void mappingUnregistered (RequestMappingInfo mapping) {
+				events.add("-" + mapping.getPatternsCondition().getPatterns());
+			}
+		});
+
+		handler.reregisterHandlers(DemoOrderItemController.class);
+
+		/* 先移除原有的映射，再注册新的映射 */
+		assertEquals(4, events.size());
+		assertEquals(new TreeSet<>(Arrays.asList("-[/demo-order/order-item/detail]", "-[/demo-order/order-item/list]")),
+		             new TreeSet<>(events.subList(0, 2)));
+		assertEquals(new TreeSet<>(Arrays.asList("+[/demo-order/order-item/detail]", "+[/demo-order/order-item/list]")),
+		             new TreeSet<>(events.subList(2, 4)));
+	}
+
+	private static TreeSet<String> paths (Map<RequestMappingInfo, HandlerMethod> handlerMethods) {
+		TreeSet<String> paths = new TreeSet<>();
+		for (RequestMappingInfo info : handlerMethods.keySet()) {
+			paths.addAll(info.getPatternsCondition().getPatterns());
+		}
+		return paths;
+	}
+
+	static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+	}
+
+	@DomainMapping (method = RequestMethod.GET)
+	public static class DemoOrderController {
+
+		public String list () {
+			return "list";
+		}
+
+		public String detail () {
+			return "detail";
+		}
+	}
+
+	@DomainMapping
+	public static class DemoOrderItemController extends DemoOrderController {
+	}
+
+	@DomainMapping
+	public static class DemoOrderArchiveController extends DemoOrderController {
+
+		public String restore () {
+			return "restore";
+		}
+	}
+
+	@RestDomainMapping
+	public static class DemoUserController {
+
+		public String profile () {
+			return "profile";
+		}
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      StartupCacheTest.java
+ * Date:    26-10-18 下午6:50
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler;
+
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 启动缓存只在类自身、父类的字节码与配置都未变化时命中
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class StartupCacheTest {
+
+	private static final String ORDER = "package demo;\n" +
+	                                    "@com.krun.spring.extend.mapping.RestDomainMapping\n" +
+	                                    "public class DemoOrderController {\n" +
+	                                    "    public String list () { return \"list\"; }\n" +
+	                                    "%s" +
+	                                    "}\n";
+
+	private static final String ORDER_ITEM = "package demo;\n" +
+	                                         "@com.krun.spring.extend.mapping.RestDomainMapping\n" +
+	                                         "public class DemoOrderItemController extends DemoOrderController {\n" +
+	                                         "    public String find () { return \"find\"; }\n" +
+	                                         "}\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File cacheFile;
+
+	private File original;
+
+	private File changed;
+
+	@Before
+	public void setUp () throws Exception {
+		cacheFile = new File(folder.getRoot(), "cache/domain-mapping.cache");
+		original = folder.newFolder("original");
+		compile(original, source("demo.DemoOrderController", String.format(ORDER, "")),
+		        source("demo.DemoOrderItemController", ORDER_ITEM));
+		/* 只修改父类，子类的源码不变 */
+		changed = folder.newFolder("changed");
+		compile(changed, source("demo.DemoOrderController", String.format(
+				ORDER, "    public String detail () { return \"detail\"; }\n")),
+		        source("demo.DemoOrderItemController", ORDER_ITEM));
+	}
+
+	@Test
+	public void hitsWhenBytecodeUnchanged () throws Exception {
+		Class<?> type = load(original, "demo.DemoOrderController");
+		DomainMappingHandler handler = initialize(type);
+		store(type, handler);
+
+		StartupCache cache = new StartupCache(cacheFile, "test");
+		assertEquals(1, cache.load());
+		/* 重新加载的类，字节码相同 */
+		Class<?> reloaded = load(original, "demo.DemoOrderController");
+		Map<Method, RequestMappingInfo> methods = cache.get(reloaded, getConfig(handler));
+		assertNotNull(methods);
+		assertEquals(1, methods.size());
+		Map.Entry<Method, RequestMappingInfo> entry = methods.entrySet().iterator().next();
+		assertEquals(reloaded.getMethod("list"), entry.getKey());
+		assertEquals(detect(handler).get(type.getMethod("list")).toString(), entry.getValue().toString());
+	}
+
+	@Test
+	public void missesWhenClassChanged () throws Exception {
+		Class<?> type = load(original, "demo.DemoOrderController");
+		DomainMappingHandler handler = initialize(type);
+		store(type, handler);
+
+		StartupCache cache = new StartupCache(cacheFile, "test");
+		assertEquals(1, cache.load());
+		assertNull(cache.get(load(changed, "demo.DemoOrderController"), getConfig(handler)));
+		/* 失效的缓存项不会再写入文件 */
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void missesWhenSuperclassChanged () throws Exception {
+		Class<?> type = load(original, "demo.DemoOrderItemController");
+		DomainMappingHandler handler = initialize(type);
+		store(type, handler);
+
+		StartupCache cache = new StartupCache(cacheFile, "test");
+		cache.load();
+		assertNotNull(cache.get(load(original, "demo.DemoOrderItemController"), getConfig(handler)));
+
+		cache = new StartupCache(cacheFile, "test");
+		cache.load();
+		assertNull(cache.get(load(changed, "demo.DemoOrderItemController"), getConfig(handler)));
+	}
+
+	@Test
+	public void missesWhenConfigurationChanged () throws Exception {
+		Class<?> type = load(original, "demo.DemoOrderController");
+		store(type, initialize(type));
+
+		assertEquals(0, new StartupCache(cacheFile, "other").load());
+	}
+
+	@Test
+	public void registersChangedClass () throws Exception {
+		DomainMappingHandler handler = initialize(load(original, "demo.DemoOrderItemController"));
+		assertEquals(new TreeSet<>(Arrays.asList("find", "list")), methodNames(handler));
+		assertTrue(cacheFile.isFile());
+
+		/* 父类增加了方法，子类的缓存项失效，重新检测 */
+		handler = initialize(load(changed, "demo.DemoOrderItemController"));
+		assertEquals(new TreeSet<>(Arrays.asList("detail", "find", "list")), methodNames(handler));
+	}
+
+	private DomainMappingHandler initialize (Class<?> type) {
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerSingleton("handler", type);
+		context.refresh();
+		DomainMappingHandler handler = new DomainMappingHandler(new NameResolver());
+		handler.setStartupCache(cacheFile);
+		handler.setApplicationContext(context);
+		handler.afterPropertiesSet();
+		context.close();
+		return handler;
+	}
+
+	/**
+	 * 以 handler 的检测结果覆盖缓存文件
+	 */
+	private void store (Class<?> type, DomainMappingHandler handler) throws Exception {
+		StartupCache cache = new StartupCache(cacheFile, "test");
+		cache.put(type, detect(handler));
+		assertTrue(cache.store(false));
+	}
+
+	private static Map<Method, RequestMappingInfo> detect (DomainMappingHandler handler) {
+		Map<Method, RequestMappingInfo> methods = new LinkedHashMap<>();
+		for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handler.getHandlerMethods().entrySet()) {
+			methods.put(entry.getValue().getMethod(), entry.getKey());
+		}
+		return methods;
+	}
+
+	private static TreeSet<String> methodNames (DomainMappingHandler handler) {
+		TreeSet<String> names = new TreeSet<>();
+		for (HandlerMethod handlerMethod : handler.getHandlerMethods().values()) {
+			names.add(handlerMethod.getMethod().getName());
+		}
+		return names;
+	}
+
+	private static RequestMappingInfo.BuilderConfiguration getConfig (DomainMappingHandler handler) {
+		return (RequestMappingInfo.BuilderConfiguration) ReflectionTestUtils.getField(handler, "config");
+	}
+
+	/**
+	 * 每次使用新的类加载器，模拟重新启动
+	 */
+	private static Class<?> load (File directory, String className) throws Exception {
+		URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toURI().toURL() },
+		                                                StartupCacheTest.class.getClassLoader());
+		return classLoader.loadClass(className);
+	}
+
+	private static void compile (File directory, JavaFileObject... sources) {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertNotNull("Requires a JDK", compiler);
+		List<String> arguments = new ArrayList<>(Arrays.asList("-classpath", testClassPath(),
+		                                                       "-d", directory.getPath(), "-proc:none"));
+		assertTrue("Compilation failed",
+		           compiler.getTask(null, null, null, arguments, null, Arrays.asList(sources)).call());
+	}
+
+	/**
+	 * surefire 默认通过 manifest 传递类路径，此时 java.class.path 中只有 surefire 自身
+	 */
+	private static String testClassPath () {
+		String path = System.getProperty("surefire.test.class.path");
+		return path != null ? path : System.getProperty("java.class.path");
+	}
+
+	private static JavaFileObject source (String className, final String content) {
+		return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+		                                JavaFileObject.Kind.SOURCE) {
+
+			@Override
+			public CharSequence getCharContent (boolean ignoreEncodingErrors) {
+				return content;
+			}
+		};
+	}
+
+	static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+	}
+}
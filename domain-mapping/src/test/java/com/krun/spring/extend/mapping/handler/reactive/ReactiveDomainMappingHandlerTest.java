@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ReactiveDomainMappingHandlerTest.java
+ * Date:    26-10-18 下午4:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.handler.reactive;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 对同一组 Controller，{@link ReactiveDomainMappingHandler} 与 {@link DomainMappingHandler} 生成的映射应一致
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class ReactiveDomainMappingHandlerTest {
+
+	private StaticApplicationContext context;
+
+	@Before
+	public void setUp () {
+		context = new StaticApplicationContext();
+		context.registerSingleton("demoOrderController", DemoOrderController.class);
+		context.registerSingleton("demoOrderItemController", DemoOrderItemController.class);
+		context.registerSingleton("demoUserController", DemoUserController.class);
+		context.registerSingleton("itemController", ItemController.class);
+		context.refresh();
+	}
+
+	@After
+	public void tearDown () {
+		context.close();
+	}
+
+	@Test
+	public void sameMappingsAsServlet () {
+		DomainMappingHandler servlet = new DomainMappingHandler(new NameResolver());
+		servlet.setApplicationContext(context);
+		servlet.afterPropertiesSet();
+
+		ReactiveDomainMappingHandler reactive = new ReactiveDomainMappingHandler(new NameResolver());
+		reactive.setApplicationContext(context);
+		reactive.afterPropertiesSet();
+
+		Map<String, String> expected = new TreeMap<>();
+		for (Map.Entry<org.springframework.web.servlet.mvc.method.RequestMappingInfo, HandlerMethod> entry
+				: servlet.getHandlerMethods().entrySet()) {
+			expected.put(describe(entry.getValue()), describe(entry.getKey()));
+		}
+		Map<String, String> actual = new TreeMap<>();
+		for (Map.Entry<org.springframework.web.reactive.result.method.RequestMappingInfo, HandlerMethod> entry
+				: reactive.getHandlerMethods().entrySet()) {
+			actual.put(describe(entry.getValue()), describe(entry.getKey()));
+		}
+		assertEquals(9, expected.size());
+		assertEquals(expected, actual);
+		assertTrue(reactive.getTypeInfoCacheStatistics().getHitCount() > 0);
+	}
+
+	/**
+	 * 子类继承的方法按子类区分
+	 */
+	private static String describe (HandlerMethod handlerMethod) {
+		return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+	}
+
+	private static String describe (org.springframework.web.servlet.mvc.method.RequestMappingInfo info) {
+		return describe(info.getPatternValues(), info.getMethodsCondition().getMethods(),
+		                info.getParamsCondition().getExpressions(), info.getHeadersCondition().getExpressions(),
+		                info.getConsumesCondition().getConsumableMediaTypes(),
+		                info.getProducesCondition().getProducibleMediaTypes(), info.getName());
+	}
+
+	private static String describe (org.springframework.web.reactive.result.method.RequestMappingInfo info) {
+		return describe(info.getPatternsCondition().getPatterns(), info.getMethodsCondition().getMethods(),
+		                info.getParamsCondition().getExpressions(), info.getHeadersCondition().getExpressions(),
+		                info.getConsumesCondition().getConsumableMediaTypes(),
+		                info.getProducesCondition().getProducibleMediaTypes(), info.getName());
+	}
+
+	private static String describe (Iterable<?>... conditions) {
+		StringBuilder builder = new StringBuilder();
+		for (Iterable<?> condition : conditions) {
+			TreeSet<String> values = new TreeSet<>();
+			for (Object value : condition) {
+				values.add(String.valueOf(value));
+			}
+			builder.append(values).append(' ');
+		}
+		return builder.toString();
+	}
+
+	private static String describe (Iterable<?> patterns, Iterable<?> methods, Iterable<?> params,
+	                                Iterable<?> headers, Iterable<?> consumes, Iterable<?> produces, String name) {
+		return describe(patterns, methods, params, headers, consumes, produces) + name;
+	}
+
+	static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+	}
+
+	@DomainMapping (value = "order", method = RequestMethod.GET, params = "v=1", produces = "application/json")
+	public static class DemoOrderController {
+
+		public String list () {
+			return "list";
+		}
+
+		@RequestMapping (method = RequestMethod.POST, headers = "X-Token")
+		public String detail () {
+			return "detail";
+		}
+
+		@GetMapping ("/summary")
+		public String summary () {
+			return "summary";
+		}
+
+		public static String ignoredStatic () {
+			return "static";
+		}
+	}
+
+	@DomainMapping (name = "item", consumes = "application/json")
+	public static class DemoOrderItemController extends DemoOrderController {
+
+		public String findById () {
+			return "find";
+		}
+	}
+
+	@RestDomainMapping (root = "/v2", headers = "X-Version=2")
+	public static class DemoUserController {
+
+		public String profile () {
+			return "profile";
+		}
+	}
+
+	@Controller
+	@RequestMapping ("/items")
+	public static class ItemController {
+
+		@RequestMapping (method = RequestMethod.GET)
+		public String list () {
+			return "list";
+		}
+	}
+}
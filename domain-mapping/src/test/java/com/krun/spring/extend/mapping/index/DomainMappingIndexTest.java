@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      DomainMappingIndexTest.java
+ * Date:    26-10-18 下午11:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.mapping.index;
+
+import com.krun.spring.extend.mapping.DomainMapping;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 索引项的 class-stamp 与运行时的 class 文件不一致，或父类的 stamp 不一致时，应视为过期并回退到反射解析
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class DomainMappingIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void usesCurrentEntries () throws Exception {
+		Properties properties = new Properties();
+		String parentStamp = put(properties, OrderController.class, DomainMappingIndex.ROOT_IMPLICIT,
+		                         new String[] { "order" }, null, "/order");
+		put(properties, DemoItemController.class, DomainMappingIndex.ROOT_NONE,
+		    new String[] { "DemoItemController" }, parentStamp, "/order/item");
+		DomainMappingIndex index = load(properties);
+
+		assertEquals(2, index.size());
+		assertTrue(index.isIndexed(OrderController.class));
+		assertArrayEquals(new String[] { "/order" }, index.getPaths(OrderController.class, "Demo", "Controller"));
+		assertArrayEquals(new String[] { "/order/item" },
+		                  index.getPaths(DemoItemController.class, "Demo", "Controller"));
+		assertEquals("list-all", index.getMethodPath(OrderController.class.getMethod("listAll")));
+		/* 前后缀配置不一致 */
+		assertNull(index.getPaths(OrderController.class, "", "Controller"));
+	}
+
+	/**
+	 * 类在生成索引后被重新编译，而注解处理器没有运行
+	 */
+	@Test
+	public void ignoresEntriesOfChangedClassFiles () throws Exception {
+		Properties properties = new Properties();
+		String parentStamp = put(properties, OrderController.class, DomainMappingIndex.ROOT_IMPLICIT,
+		                         new String[] { "order" }, null, "/order");
+		put(properties, DemoItemController.class, DomainMappingIndex.ROOT_NONE,
+		    new String[] { "DemoItemController" }, parentStamp, "/order/item");
+		put(properties, RootController.class, DomainMappingIndex.ROOT_EXPLICIT, new String[] { "api" }, null, "/api");
+		properties.setProperty(OrderController.class.getName() + "." + DomainMappingIndex.CLASS_STAMP, "0");
+		properties.remove(RootController.class.getName() + "." + DomainMappingIndex.CLASS_STAMP);
+		DomainMappingIndex index = load(properties);
+
+		assertFalse(index.isIndexed(OrderController.class));
+		assertNull(index.getPaths(OrderController.class, "Demo", "Controller"));
+		assertNull(index.getMethodPath(OrderController.class.getMethod("listAll")));
+		/* 子类的索引项本身未过期，但父类已过期 */
+		assertTrue(index.isIndexed(DemoItemController.class));
+		assertNull(index.getPaths(DemoItemController.class, "Demo", "Controller"));
+		assertNull(index.getCandidateMethods(DemoItemController.class));
+		/* 不是 javac 编译时没有 class-stamp */
+		assertFalse(index.isIndexed(RootController.class));
+	}
+
+	/**
+	 * 重载方法以签名区分，候选方法包括父类中的方法
+	 */
+	@Test
+	public void resolvesMethodsBySignature () throws Exception {
+		Properties properties = new Properties();
+		String parentStamp = put(properties, OrderController.class, DomainMappingIndex.ROOT_IMPLICIT,
+		                         new String[] { "order" }, null, "/order");
+		put(properties, DemoItemController.class, DomainMappingIndex.ROOT_NONE,
+		    new String[] { "DemoItemController" }, parentStamp, "/order/item");
+		properties.setProperty(DemoItemController.class.getName() + "." + DomainMappingIndex.METHODS,
+		                       "find(java.lang.String):find,find(long[];java.util.List):find-all");
+		DomainMappingIndex index = load(properties);
+
+		Method find = DemoItemController.class.getMethod("find", String.class);
+		Method findAll = DemoItemController.class.getMethod("find", long[].class, List.class);
+		assertEquals("find", index.getMethodPath(find));
+		assertEquals("find-all", index.getMethodPath(findAll));
+		assertEquals(Arrays.asList(find, findAll, OrderController.class.getMethod("listAll")),
+		             index.getCandidateMethods(DemoItemController.class));
+
+		/* 实现的接口中有带映射的默认方法 */
+		properties.setProperty(OrderController.class.getName() + "." + DomainMappingIndex.COMPLETE, "false");
+		assertNull(load(properties).getCandidateMethods(DemoItemController.class));
+	}
+
+	/**
+	 * 父类在生成索引后加上了注解并被重新编译，子类不再是根元素
+	 */
+	@Test
+	public void ignoresEntriesOfChangedRoots () throws Exception {
+		Properties properties = new Properties();
+		put(properties, OrderController.class, DomainMappingIndex.ROOT_IMPLICIT, new String[] { "order" }, null,
+		    "/order");
+		put(properties, DemoItemController.class, DomainMappingIndex.ROOT_IMPLICIT,
+		    new String[] { "DemoItemController" }, null, "/demo-item");
+		properties.setProperty(DemoItemController.class.getName() + "." + DomainMappingIndex.METHODS,
+		                       "find(java.lang.String):find");
+		DomainMappingIndex index = load(properties);
+
+		/* 子类的 class 文件没有变化，方法信息仍然可用，但类路径已过期 */
+		assertTrue(index.isIndexed(DemoItemController.class));
+		assertEquals("find", index.getMethodPath(DemoItemController.class.getMethod("find", String.class)));
+		assertNull(index.getPaths(DemoItemController.class, "Demo", "Controller"));
+	}
+
+	/**
+	 * 按处理器的格式写入索引项
+	 * @return 索引项的 stamp
+	 */
+	private static String put (Properties properties, Class<?> clazz, String root, String[] segments,
+	                           String parentStamp, String paths) {
+		String p = clazz.getName() + ".";
+		String superclass = clazz.getSuperclass().getName();
+		String stamp = DomainMappingIndex.stamp(clazz.getName(), superclass, root, segments, parentStamp);
+		properties.setProperty(p + DomainMappingIndex.SUPERCLASS, superclass);
+		properties.setProperty(p + DomainMappingIndex.ROOT, root);
+		properties.setProperty(p + DomainMappingIndex.STAMP, stamp);
+		if (parentStamp != null) {
+			properties.setProperty(p + DomainMappingIndex.PARENT_STAMP, parentStamp);
+		}
+		properties.setProperty(p + DomainMappingIndex.PREFIX, "Demo");
+		properties.setProperty(p + DomainMappingIndex.SUFFIX, "Controller");
+		properties.setProperty(p + DomainMappingIndex.PATHS, paths);
+		properties.setProperty(p + DomainMappingIndex.METHODS, "listAll():list-all");
+		properties.setProperty(p + DomainMappingIndex.COMPLETE, "true");
+		properties.setProperty(p + DomainMappingIndex.CLASS_STAMP,
+		                       Long.toHexString(DomainMappingIndex.classStamp(clazz)));
+		return stamp;
+	}
+
+	private DomainMappingIndex load (Properties properties) throws IOException {
+		File root = folder.newFolder();
+		File file = new File(root, DomainMappingIndex.INDEX_LOCATION);
+		assertTrue(file.getParentFile().mkdirs());
+		OutputStream out = new FileOutputStream(file);
+		try {
+			properties.store(out, null);
+		} finally {
+			out.close();
+		}
+		URLClassLoader classLoader = new URLClassLoader(new URL[] { root.toURI().toURL() }, null);
+		try {
+			return DomainMappingIndex.load(classLoader);
+		} finally {
+			classLoader.close();
+		}
+	}
+
+	@DomainMapping ("order")
+	public static class OrderController {
+
+		public void listAll () {
+		}
+	}
+
+	@DomainMapping
+	public static class DemoItemController extends OrderController {
+
+		public void find (String id) {
+		}
+
+		public void find (long[] ids, List<String> names) {
+		}
+	}
+
+	@DomainMapping (root = "/v2")
+	public static class RootController {
+	}
+}
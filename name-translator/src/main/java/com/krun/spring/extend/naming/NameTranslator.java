@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      NameTranslator.java
+ * Date:    26-10-18 下午1:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.naming;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 驼峰命名到分隔符命名的转换器，线程安全。
+ * <p>
+ * 转换规则：
+ * <ul>
+ *     <li>ASCII 大写字母转换为小写，并在其前面插入分隔符（是否在首字符前插入由 <code>separateFirst</code> 决定）；</li>
+ *     <li>数字和其他字符原样保留，数字不会开始一个新的单词：<code>v2Api -> v2-api</code>；</li>
+ *     <li>非 ASCII 字符原样保留；</li>
+ *     <li>不合并缩写时，每个大写字母都开始一个新的单词：<code>HTTPServer -> h-t-t-p-server</code>；</li>
+ *     <li>合并缩写时，连续的大写字母视为一个单词，其中最后一个大写字母后面紧跟小写字母时，
+ *         它开始一个新的单词：<code>HTTPServer -> http-server</code>，<code>API2Client -> api2-client</code>。</li>
+ * </ul>
+ * 没有大写字母的名称会直接返回原字符串；转换结果会被缓存，读取时不加锁，超出容量时清空缓存。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class NameTranslator {
+
+	/**
+	 * 连字符命名，domain-mapping 生成路径时使用：<code>UserService -> user-service</code>
+	 */
+	public static final NameTranslator HYPHEN = new NameTranslator('-', false, false, 4096);
+
+	/**
+	 * 连字符命名并合并缩写：<code>HTTPServer -> http-server</code>
+	 */
+	public static final NameTranslator HYPHEN_ACRONYM = new NameTranslator('-', false, true, 4096);
+
+	/**
+	 * 路径命名，每个单词都以 '/' 开头：<code>UserAuth -> /user/auth</code>
+	 */
+	public static final NameTranslator SLASH = new NameTranslator('/', true, false, 4096);
+
+	private static final byte OTHER = 0;
+	private static final byte UPPER = 1;
+	private static final byte LOWER = 2;
+
+	/**
+	 * ASCII 字符的分类表
+	 */
+	private static final byte[] TABLE = new byte[128];
+
+	static {
+		for (char c = 'A'; c <= 'Z'; c++) {
+			TABLE[c] = UPPER;
+		}
+		for (char c = 'a'; c <= 'z'; c++) {
+			TABLE[c] = LOWER;
+		}
+	}
+
+	private final char separator;
+	private final boolean separateFirst;
+	private final boolean groupAcronyms;
+	private final int cacheSize;
+	/**
+	 * 为 null 时不缓存
+	 */
+	private final ConcurrentMap<String, String> cache;
+
+	/**
+	 * @param separator 单词之间的分隔符
+	 * @param separateFirst 首字符为大写字母时是否也在其前面插入分隔符
+	 * @param groupAcronyms 是否将连续的大写字母视为一个单词
+	 * @param cacheSize 缓存的名称数量上限，为 0 时不缓存
+	 */
+	public NameTranslator (char separator, boolean separateFirst, boolean groupAcronyms, int cacheSize) {
+		if (cacheSize < 0) {
+			throw new IllegalArgumentException("cacheSize 不能为负数: " + cacheSize);
+		}
+		this.separator = separator;
+		this.separateFirst = separateFirst;
+		this.groupAcronyms = groupAcronyms;
+		this.cacheSize = cacheSize;
+		this.cache = cacheSize == 0 ? null : new ConcurrentHashMap<String, String>();
+	}
+
+	public String translate (String name) {
+		if (cache == null) {
+			return doTranslate(name);
+		}
+		String translated = cache.get(name);
+		if (translated == null) {
+			/* 并发时可能重复转换，结果相同 */
+			translated = doTranslate(name);
+			/* 类名与方法名的数量通常有限，只有名称不断变化时才会填满，此时清空后重新缓存常用的名称 */
+			if (cache.size() >= cacheSize) {
+				cache.clear();
+			}
+			cache.put(name, translated);
+		}
+		return translated;
+	}
+
+	@Override
+	public String toString () {
+		return String.format("NameTranslator(separator='%s', separateFirst=%s, groupAcronyms=%s)", separator,
+		                     separateFirst, groupAcronyms);
+	}
+
+	private String doTranslate (String name) {
+		int length = name.length();
+
+		/* 第一遍统计需要插入的分隔符数量，没有大写字母则直接返回原字符串 */
+		int separators = 0;
+		boolean hasUpper = false;
+		for (int i = 0; i < length; i++) {
+			if (classOf(name.charAt(i)) == UPPER) {
+				hasUpper = true;
+				if (startsWord(name, i)) {
+					separators++;
+				}
+			}
+		}
+		if (! hasUpper) {
+			return name;
+		}
+
+		/* 第二遍写入结果，只分配一次 */
+		char[] chars = new char[length + separators];
+		int j = 0;
+		for (int i = 0; i < length; i++) {
+			char c = name.charAt(i);
+			if (classOf(c) == UPPER) {
+				if (startsWord(name, i)) {
+					chars[j++] = separator;
+				}
+				chars[j++] = (char) (c + 32);
+			} else {
+				chars[j++] = c;
+			}
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * 位于 i 的大写字母是否开始一个新的单词（即是否需要在其前面插入分隔符）
+	 */
+	private boolean startsWord (String name, int i) {
+		if (i == 0) {
+			return separateFirst;
+		}
+		if (! groupAcronyms) {
+			return true;
+		}
+		if (classOf(name.charAt(i - 1)) != UPPER) {
+			return true;
+		}
+		/* 缩写的最后一个字母后面紧跟小写字母时，它属于下一个单词 */
+		return i + 1 < name.length() && classOf(name.charAt(i + 1)) == LOWER;
+	}
+
+	private static byte classOf (char c) {
+		return c < 128 ? TABLE[c] : OTHER;
+	}
+}
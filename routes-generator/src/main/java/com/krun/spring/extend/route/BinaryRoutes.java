@@ -0,0 +1,297 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      BinaryRoutes.java
+ * Date:    26-10-18 下午6:45
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 读取 {@link RoutesSnapshot#writeBinaryTo} 写出的二进制路由树，直接在缓冲区上遍历，不构造 Route 与 Handler 对象。
+ * <p>
+ * 路由与 Handler 以其在缓冲区中的位置表示，通过此类的方法读取其属性；
+ * 查找路由与 Handler、比较名称与请求方式时直接比较 UTF-8 字节，不分配内存，只有获取字符串的方法会创建对象。
+ * 只使用绝对位置读取缓冲区，可以被多个线程同时使用。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class BinaryRoutes {
+
+	/**
+	 * "RTB1"
+	 */
+	static final int MAGIC = 0x52544231;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * 每个 Handler 占用的字节数
+	 */
+	private static final int HANDLER_SIZE = 32;
+
+	private final ByteBuffer buffer;
+
+	private final int stringCount;
+
+	private final int root;
+
+	private BinaryRoutes (ByteBuffer buffer) {
+		if (buffer.limit() < 12 || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("不是二进制路由树");
+		}
+		this.buffer = buffer;
+		this.stringCount = buffer.getInt(4);
+		this.root = buffer.getInt(8);
+	}
+
+	/**
+	 * 以只读方式映射文件，映射在缓冲区被回收前一直有效
+	 */
+	public static BinaryRoutes map (File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			return new BinaryRoutes(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * 读取从缓冲区当前位置起的路由树，不复制缓冲区
+	 */
+	public static BinaryRoutes wrap (ByteBuffer buffer) {
+		return new BinaryRoutes(buffer.slice());
+	}
+
+	/**
+	 * @return 根路由 (name 为 "@") 的位置
+	 */
+	public int getRoot () {
+		return root;
+	}
+
+	/**
+	 * 按路径查找路由，如 <code>/user/auth</code>；路径为空或 <code>/</code> 时返回根路由
+	 * @return 路由的位置，不存在时返回 -1
+	 */
+	public int find (CharSequence path) {
+		int route = root;
+		int start = path.length() > 0 && path.charAt(0) == '/' ? 1 : 0;
+		if (start == path.length()) {
+			return route;
+		}
+		while (route >= 0 && start <= path.length()) {
+			int end = start;
+			while (end < path.length() && path.charAt(end) != '/') {
+				end++;
+			}
+			route = findChild(route, path, start, end);
+			start = end + 1;
+		}
+		return route;
+	}
+
+	public int findChild (int route, CharSequence name) {
+		return findChild(route, name, 0, name.length());
+	}
+
+	private int findChild (int route, CharSequence name, int from, int to) {
+		for (int i = 0, count = getChildCount(route); i < count; i++) {
+			int child = getChild(route, i);
+			if (stringEquals(buffer.getInt(child), name, from, to)) {
+				return child;
+			}
+		}
+		return -1;
+	}
+
+	public String getName (int route) {
+		return getString(buffer.getInt(route));
+	}
+
+	public int getHandlerCount (int route) {
+		return buffer.getInt(route + 4);
+	}
+
+	public int getHandler (int route, int index) {
+		return route + 8 + index * HANDLER_SIZE;
+	}
+
+	/**
+	 * @return 第一个名称为 name 的 Handler 的位置，不存在时返回 -1
+	 */
+	public int findHandler (int route, CharSequence name) {
+		for (int i = 0, count = getHandlerCount(route); i < count; i++) {
+			int handler = getHandler(route, i);
+			if (stringEquals(buffer.getInt(handler), name, 0, name.length())) {
+				return handler;
+			}
+		}
+		return -1;
+	}
+
+	public int getChildCount (int route) {
+		return buffer.getInt(childrenOffset(route));
+	}
+
+	public int getChild (int route, int index) {
+		return buffer.getInt(childrenOffset(route) + 4 + index * 4);
+	}
+
+	private int childrenOffset (int route) {
+		return route + 8 + getHandlerCount(route) * HANDLER_SIZE;
+	}
+
+	public String getHandlerName (int handler) {
+		return getString(buffer.getInt(handler));
+	}
+
+	public String getUrl (int handler) {
+		int directory = buffer.getInt(handler + 4);
+		return directory < 0 ? null : getString(directory) + getString(buffer.getInt(handler + 8));
+	}
+
+	/**
+	 * 不创建字符串，比较 Handler 的 url
+	 */
+	public boolean urlEquals (int handler, CharSequence url) {
+		int directory = buffer.getInt(handler + 4);
+		if (directory < 0) {
+			return false;
+		}
+		int split = stringLength(directory);
+		return split <= url.length() && stringEquals(directory, url, 0, split)
+		       && stringEquals(buffer.getInt(handler + 8), url, split, url.length());
+	}
+
+	/**
+	 * Handler 是否接受此请求方式，没有限定请求方式时接受所有请求方式
+	 */
+	public boolean allowsMethod (int handler, CharSequence method) {
+		int array = buffer.getInt(handler + 12);
+		if (array < 0) {
+			return true;
+		}
+		for (int i = 0, length = buffer.getInt(array); i < length; i++) {
+			if (stringEquals(buffer.getInt(array + 4 + i * 4), method, 0, method.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public String[] getMethods (int handler) {
+		return getStrings(buffer.getInt(handler + 12));
+	}
+
+	public String[] getParams (int handler) {
+		return getStrings(buffer.getInt(handler + 16));
+	}
+
+	public String[] getHeaders (int handler) {
+		return getStrings(buffer.getInt(handler + 20));
+	}
+
+	public String[] getConsumes (int handler) {
+		return getStrings(buffer.getInt(handler + 24));
+	}
+
+	public String[] getProduces (int handler) {
+		return getStrings(buffer.getInt(handler + 28));
+	}
+
+	/**
+	 * @return 字符串表中字符串的数量，名称、url、请求方式与媒体类型等共用同一个字符串表
+	 */
+	public int getStringCount () {
+		return stringCount;
+	}
+
+	private String[] getStrings (int array) {
+		if (array < 0) {
+			return null;
+		}
+		String[] values = new String[buffer.getInt(array)];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getString(buffer.getInt(array + 4 + i * 4));
+		}
+		return values;
+	}
+
+	private String getString (int id) {
+		if (id < 0) {
+			return null;
+		}
+		int start = buffer.getInt(12 + id * 4);
+		byte[] bytes = new byte[buffer.getInt(16 + id * 4) - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(start + i);
+		}
+		return new String(bytes, UTF_8);
+	}
+
+	/**
+	 * @return 字符串的 UTF-16 长度
+	 */
+	private int stringLength (int id) {
+		int length = 0;
+		for (int position = buffer.getInt(12 + id * 4), end = buffer.getInt(16 + id * 4); position < end; position++) {
+			int b = buffer.get(position) & 0xff;
+			/* 跳过后续字节，四字节的字符对应两个 char */
+			if ((b & 0xc0) != 0x80) {
+				length += b >= 0xf0 ? 2 : 1;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * 逐个解码 UTF-8 字节与 value 的 [from, to) 比较
+	 */
+	private boolean stringEquals (int id, CharSequence value, int from, int to) {
+		if (id < 0) {
+			return false;
+		}
+		int position = buffer.getInt(12 + id * 4);
+		int end = buffer.getInt(16 + id * 4);
+		int index = from;
+		while (position < end) {
+			int b = buffer.get(position) & 0xff;
+			int codePoint;
+			if (b < 0x80) {
+				codePoint = b;
+				position += 1;
+			} else if (b < 0xe0) {
+				codePoint = (b & 0x1f) << 6 | buffer.get(position + 1) & 0x3f;
+				position += 2;
+			} else if (b < 0xf0) {
+				codePoint = (b & 0x0f) << 12 | (buffer.get(position + 1) & 0x3f) << 6 | buffer.get(position + 2) & 0x3f;
+				position += 3;
+			} else {
+				codePoint = (b & 0x07) << 18 | (buffer.get(position + 1) & 0x3f) << 12
+				            | (buffer.get(position + 2) & 0x3f) << 6 | buffer.get(position + 3) & 0x3f;
+				position += 4;
+			}
+			if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				if (index >= to || value.charAt(index) != codePoint) {
+					return false;
+				}
+				index++;
+			} else {
+				if (index + 1 >= to || value.charAt(index) != Character.highSurrogate(codePoint)
+				    || value.charAt(index + 1) != Character.lowSurrogate(codePoint)) {
+					return false;
+				}
+				index += 2;
+			}
+		}
+		return index == to;
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      BinaryRoutesWriter.java
+ * Date:    26-10-18 下午6:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将路由树写为 {@link BinaryRoutes} 可以直接读取的二进制格式，筛选规则与 {@link RoutesWriter} 一致。
+ * <p>
+ * 所有数值均为大端序的 int，位置均为从文件开头起算的字节偏移，null 记为 -1。
+ * url 在最后一个 '/' 处拆分后分别登记，同一个 Controller 的 url 共用前一部分，同名方法的 url 共用后一部分：
+ * <pre>
+ * 文件头    magic, 字符串数量 n, 根路由的位置
+ * 字符串表  n + 1 个位置，第 i 个字符串为其中第 i 与第 i + 1 个位置之间的 UTF-8 字节，之后补齐到 4 字节
+ * 数组      长度, 各字符串的编号；内容相同的数组只写出一次
+ * 路由      名称的编号, Handler 数量, 各 Handler, 子路由数量, 各子路由的位置；子路由写在父路由之前
+ * Handler   name, url 最后一个 '/' 及之前部分, url 其余部分的编号, methods, params, headers, consumes, produces 数组的位置
+ * </pre>
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+final class BinaryRoutesWriter {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * 为 null 时不筛选
+	 */
+	private final TypeIdSet includeIds;
+
+	private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+	/**
+	 * 数组在数组区内的位置
+	 */
+	private final Map<List<String>, Integer> arrays = new HashMap<>();
+
+	private final ByteArrayOutputStream arrayBytes = new ByteArrayOutputStream();
+
+	private final DataOutputStream arrayOut = new DataOutputStream(arrayBytes);
+
+	private final ByteArrayOutputStream routeBytes = new ByteArrayOutputStream();
+
+	private final DataOutputStream routeOut = new DataOutputStream(routeBytes);
+
+	/**
+	 * 数组区与路由区的起始位置
+	 */
+	private int arraysBase;
+
+	private int routesBase;
+
+	private BinaryRoutesWriter (TypeIdSet includeIds) {
+		this.includeIds = includeIds;
+	}
+
+	/**
+	 * 写出筛选后的路由树，写完后刷新但不关闭 out
+	 * @param includeIds 只写出含有这些编号的 beanType 的子路由，为 null 时写出所有路由
+	 */
+	static void write (Route root, TypeIdSet includeIds, OutputStream out) throws IOException {
+		BinaryRoutesWriter writer = new BinaryRoutesWriter(includeIds);
+		Route top = Route.builder().name("@").routes(root.routes).build();
+		writer.collect(top);
+
+		byte[][] encoded = new byte[writer.strings.size()][];
+		int length = 0;
+		int i = 0;
+		for (String value : writer.strings.keySet()) {
+			encoded[i] = value.getBytes(UTF_8);
+			length += encoded[i++].length;
+		}
+		int stringsBase = 12 + 4 * (encoded.length + 1);
+		writer.arraysBase = stringsBase + pad(length);
+		writer.routesBase = writer.arraysBase + writer.arrayBytes.size();
+		int rootPosition = writer.writeRoute(top);
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(BinaryRoutes.MAGIC);
+		data.writeInt(encoded.length);
+		data.writeInt(rootPosition);
+		int position = stringsBase;
+		for (byte[] bytes : encoded) {
+			data.writeInt(position);
+			position += bytes.length;
+		}
+		data.writeInt(position);
+		for (byte[] bytes : encoded) {
+			data.write(bytes);
+		}
+		for (int p = length; p < pad(length); p++) {
+			data.write(0);
+		}
+		writer.arrayBytes.writeTo(data);
+		writer.routeBytes.writeTo(data);
+		data.flush();
+	}
+
+	private static int pad (int length) {
+		return (length + 3) & ~3;
+	}
+
+	/**
+	 * 登记路由树中的字符串，并写出数组区
+	 */
+	private void collect (Route route) throws IOException {
+		intern(route.name);
+		if (route.handlers != null) {
+			for (Handler handler : route.handlers) {
+				intern(handler.name);
+				intern(directory(handler.url));
+				intern(file(handler.url));
+				array(handler.methods);
+				array(handler.params);
+				array(handler.headers);
+				array(handler.consumes);
+				array(handler.produces);
+			}
+		}
+		for (Route child : children(route)) {
+			collect(child);
+		}
+	}
+
+	private int intern (String value) {
+		if (value == null) {
+			return -1;
+		}
+		Integer id = strings.get(value);
+		if (id == null) {
+			id = strings.size();
+			strings.put(value, id);
+		}
+		return id;
+	}
+
+	/**
+	 * @return 数组在数组区内的位置
+	 */
+	private int array (String[] values) throws IOException {
+		if (values == null) {
+			return -1;
+		}
+		List<String> key = Arrays.asList(values);
+		Integer position = arrays.get(key);
+		if (position == null) {
+			position = arrayOut.size();
+			arrays.put(key, position);
+			arrayOut.writeInt(values.length);
+			for (String value : values) {
+				arrayOut.writeInt(intern(value));
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * 先写出子路由再写出当前路由
+	 * @return 当前路由的位置
+	 */
+	private int writeRoute (Route route) throws IOException {
+		List<Route> children = children(route);
+		int[] positions = new int[children.size()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = writeRoute(children.get(i));
+		}
+
+		int position = routesBase + routeOut.size();
+		routeOut.writeInt(intern(route.name));
+		List<Handler> handlers = route.handlers;
+		routeOut.writeInt(handlers == null ? 0 : handlers.size());
+		if (handlers != null) {
+			for (Handler handler : handlers) {
+				routeOut.writeInt(intern(handler.name));
+				routeOut.writeInt(intern(directory(handler.url)));
+				routeOut.writeInt(intern(file(handler.url)));
+				writeArray(handler.methods);
+				writeArray(handler.params);
+				writeArray(handler.headers);
+				writeArray(handler.consumes);
+				writeArray(handler.produces);
+			}
+		}
+		routeOut.writeInt(positions.length);
+		for (int p : positions) {
+			routeOut.writeInt(p);
+		}
+		return position;
+	}
+
+	private static String directory (String url) {
+		return url == null ? null : url.substring(0, url.lastIndexOf('/') + 1);
+	}
+
+	private static String file (String url) {
+		return url == null ? null : url.substring(url.lastIndexOf('/') + 1);
+	}
+
+	private void writeArray (String[] values) throws IOException {
+		routeOut.writeInt(values == null ? -1 : arraysBase + array(values));
+	}
+
+	private List<Route> children (Route route) {
+		List<Route> children = new ArrayList<>();
+		if (route.routes != null) {
+			for (Route child : route.routes) {
+				if (includeIds == null || child.beanTypeIds.intersects(includeIds)) {
+					children.add(child);
+				}
+			}
+		}
+		return children;
+	}
+}
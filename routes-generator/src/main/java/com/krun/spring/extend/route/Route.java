@@ -15,9 +15,12 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 路由结构，用以保存路由信息
@@ -48,6 +51,12 @@ public class Route {
 	@JSONField(serialize = false)
 	List<Class<?>> beanTypes;
 
+	/**
+	 * 路由所包含的所有 beanType 的编号，由 {@link RouteTree} 构造时计算，用于筛选，不传递到外界
+	 */
+	@JSONField(serialize = false)
+	TypeIdSet beanTypeIds;
+
 	/**
 	 * 路由所包含的方法，如果当前路由不是叶结点，则此属性为空
 	 */
@@ -59,11 +68,15 @@ public class Route {
 	List<Route> routes;
 
 	/**
-	 * 获取筛选后的路由树
+	 * 获取筛选后的路由树，返回的是新的节点，不修改当前路由树
 	 * @param includeClasses 路由树内只允许含有此参数所配置的 beanTypes
 	 * @return
 	 */
 	public List<Route> getRoutes(Class[] includeClasses) {
+		return getRoutes(includeClasses.length == 0 ? null : new HashSet<Class<?>>(Arrays.<Class<?>>asList(includeClasses)));
+	}
+
+	private List<Route> getRoutes(Set<Class<?>> includeClasses) {
 
 		List<Route> list = new LinkedList<>();
 
@@ -76,8 +89,7 @@ public class Route {
 				continue;
 			}
 
-			r.setRoutes(r.getRoutes(includeClasses));
-			list.add(r);
+			list.add(new Route(r.name, r.path, r.beanTypes, r.beanTypeIds, r.handlers, r.getRoutes(includeClasses)));
 		}
 
 		return list;
@@ -109,7 +121,8 @@ public class Route {
 	}
 
 	/**
-	 * 构造路由树
+	 * 构造路由树，按字符串前缀逐个比较子路由。
+	 * AbstractRoutesGenerator 已改由 {@link RouteTree} 按路径分段构造，此方法仅为兼容保留
 	 * @param route
 	 */
 	public void pushAsChild(Route route) {
@@ -176,16 +189,17 @@ public class Route {
 
 	}
 
-	private static boolean isIncludeClass(Route route, Class[] classes) {
-		if (classes.length == 0) {
+	/**
+	 * 逐个检查 beanTypes，用于没有 beanTypeIds 的路由树；RoutesSnapshot 按 beanTypeIds 筛选
+	 * @param classes 为 null 时不筛选
+	 */
+	private static boolean isIncludeClass(Route route, Set<Class<?>> classes) {
+		if (classes == null) {
 			return true;
 		}
-		List<Class<?>> types = route.getBeanTypes();
-		for (Class<?> clazz : classes) {
-			for (Class<?> type : types) {
-				if (type.equals(clazz)) {
-					return true;
-				}
+		for (Class<?> type : route.getBeanTypes()) {
+			if (classes.contains(type)) {
+				return true;
 			}
 		}
 		return false;
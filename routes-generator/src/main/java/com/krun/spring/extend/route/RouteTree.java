@@ -0,0 +1,470 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RouteTree.java
+ * Date:    26-10-18 上午10:55
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按映射维护的路由树，每次变化后生成新的 {@link RoutesSnapshot}。
+ * <p>
+ * 路径按 '/' 分段，每个节点以段为键索引子节点、以集合记录子树内的 beanType，
+ * 构造的耗时与路径的段数成正比，不随兄弟节点的数量增长。
+ * 节点的顺序、名称与 Handler 的合并顺序与 {@link Route#pushAsChild} 逐个加入时一致，
+ * 只是路径按段匹配，<code>/user</code> 不会再被当作 <code>/username</code> 的前缀。
+ * <p>
+ * 路由树的一级子路由各自独立构造：只重新构造包含变化的 beanType 的一级子路由，
+ * 其余一级子路由与上一个快照共用同一组节点。结果与按当前所有映射重新生成的路由树一致。
+ * <p>
+ * 每个 beanType 分配一个尽量小的编号，节点以 {@link TypeIdSet} 记录子树内 beanType 的编号，
+ * 按 includeClasses 筛选时每个节点只需一次集合求交。被移除的 beanType 的编号在下一个快照之后才会重新分配，
+ * 因此与之前的快照共用的节点中的编号始终有效。
+ * <p>
+ * 每个快照带有递增的版本号与由内容计算的哈希值，并保留最近若干个版本的路由树，用于计算 {@link RoutesSnapshot#getDelta}。
+ * 版本号从构造时的毫秒时间开始，重新启动后通常大于之前的版本号；哈希值按一级子路由分别计算，只重新计算重新构造的一级子路由。
+ * <p>
+ * 此类不是线程安全的，由调用方保证同一时刻只有一个线程修改；生成的快照可以被任意线程读取。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class RouteTree {
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * 按类名排序，类名相同时按全限定名排序
+	 */
+	private static final Comparator<TypeRoutes> TYPE_ORDER = new Comparator<TypeRoutes>() {
+
+		@Override
+		public int compare (TypeRoutes o1, TypeRoutes o2) {
+			int result = o1.simpleName.compareTo(o2.simpleName);
+			return result != 0 ? result : o1.name.compareTo(o2.name);
+		}
+	};
+
+	private final int cacheSize;
+
+	private final int historySize;
+
+	private long nextVersion = System.currentTimeMillis();
+
+	/**
+	 * beanType 的路径与各映射生成的 Handler，按注册顺序排列
+	 */
+	private final Map<Class<?>, TypeRoutes> types = new HashMap<>();
+
+	private final Map<MappingKey, Class<?>> mappingTypes = new HashMap<>();
+
+	/**
+	 * 可以重新分配的编号
+	 */
+	private final BitSet freeIds = new BitSet();
+
+	/**
+	 * 自上一个快照以来被移除的 beanType 的编号，生成快照后才可以重新分配
+	 */
+	private final BitSet releasedIds = new BitSet();
+
+	private int nextId;
+
+	/**
+	 * 自上一个快照以来 Handler 有变化的 beanType 所在的一级子路由
+	 */
+	private final Set<String> changed = new HashSet<>();
+
+	/**
+	 * 自上一个快照以来是否增加或移除了 beanType
+	 */
+	private boolean typesChanged = true;
+
+	/**
+	 * 一级子路由及其包含的 beanType，均按路由树中的顺序排列
+	 */
+	private Map<String, List<TypeRoutes>> partitions = Collections.emptyMap();
+
+	/**
+	 * 当前所有 beanType 的编号，与快照共用，beanType 有增减时重新生成
+	 */
+	private Map<Class<?>, Integer> typeIds = Collections.emptyMap();
+
+	/**
+	 * 上一个快照的一级子路由
+	 */
+	private Map<String, Route> subtrees = Collections.emptyMap();
+
+	/**
+	 * 上一个快照的一级子路由的哈希值
+	 */
+	private Map<String, Long> subtreeHashes = Collections.emptyMap();
+
+	private RoutesSnapshot snapshot;
+
+	/**
+	 * @param cacheSize 每个快照最多缓存多少种 includeClasses 的序列化结果
+	 */
+	public RouteTree (int cacheSize) {
+		this(cacheSize, 16);
+	}
+
+	/**
+	 * @param cacheSize 每个快照最多缓存多少种 includeClasses 的序列化结果
+	 * @param historySize 每个快照最多保留多少个之前版本的路由树用于计算增量
+	 */
+	public RouteTree (int cacheSize, int historySize) {
+		if (cacheSize < 0) {
+			throw new IllegalArgumentException("cacheSize 不能为负数: " + cacheSize);
+		}
+		if (historySize < 0) {
+			throw new IllegalArgumentException("historySize 不能为负数: " + historySize);
+		}
+		this.cacheSize = cacheSize;
+		this.historySize = historySize;
+	}
+
+	/**
+	 * 登记映射所生成的 Handler，映射已登记时替换原有的 Handler 并保留其顺序
+	 * @param path beanType 对应的路由路径
+	 */
+	public void register (RequestMappingInfo mapping, Class<?> beanType, String path, List<Handler> handlers) {
+		MappingKey key = new MappingKey(mapping);
+		Class<?> previous = mappingTypes.put(key, beanType);
+		if (previous != null && previous != beanType) {
+			remove(key, previous);
+		}
+		TypeRoutes routes = types.get(beanType);
+		if (routes == null) {
+			routes = new TypeRoutes(beanType, allocateId(), segments(path));
+			types.put(beanType, routes);
+			typesChanged = true;
+		}
+		routes.handlers.put(key, handlers);
+		changed.add(routes.segments[0]);
+	}
+
+	/**
+	 * @return 映射是否已登记
+	 */
+	public boolean unregister (RequestMappingInfo mapping) {
+		MappingKey key = new MappingKey(mapping);
+		Class<?> beanType = mappingTypes.remove(key);
+		if (beanType == null) {
+			return false;
+		}
+		remove(key, beanType);
+		return true;
+	}
+
+	private void remove (MappingKey key, Class<?> beanType) {
+		TypeRoutes routes = types.get(beanType);
+		routes.handlers.remove(key);
+		if (routes.handlers.isEmpty()) {
+			types.remove(beanType);
+			releasedIds.set(routes.id);
+			typesChanged = true;
+		}
+		changed.add(routes.segments[0]);
+	}
+
+	private int allocateId () {
+		int id = freeIds.nextSetBit(0);
+		if (id < 0) {
+			return nextId++;
+		}
+		freeIds.clear(id);
+		return id;
+	}
+
+	/**
+	 * 获取当前路由树的快照，自上一个快照以来没有变化时返回同一个快照
+	 */
+	public RoutesSnapshot snapshot () {
+		if (snapshot != null && changed.isEmpty()) {
+			return snapshot;
+		}
+		if (typesChanged) {
+			partitions = partition();
+			Map<Class<?>, Integer> typeIds = new HashMap<>();
+			for (TypeRoutes routes : types.values()) {
+				typeIds.put(routes.type, routes.id);
+			}
+			this.typeIds = Collections.unmodifiableMap(typeIds);
+			typesChanged = false;
+		}
+
+		Map<String, Route> subtrees = new HashMap<>();
+		Map<String, Long> subtreeHashes = new HashMap<>();
+		List<Route> routes = new ArrayList<>(partitions.size());
+		long hash = hash(FNV_OFFSET, partitions.size());
+		for (Map.Entry<String, List<TypeRoutes>> entry : partitions.entrySet()) {
+			String segment = entry.getKey();
+			Route route = changed.contains(segment) ? null : this.subtrees.get(segment);
+			Long subtreeHash;
+			if (route == null) {
+				route = build(segment, entry.getValue());
+				subtreeHash = hash(route);
+			} else {
+				subtreeHash = this.subtreeHashes.get(segment);
+			}
+			subtrees.put(segment, route);
+			subtreeHashes.put(segment, subtreeHash);
+			routes.add(route);
+			hash = hash(hash, subtreeHash);
+		}
+		Route root = Route.builder().name("@").build();
+		root.routes = routes.isEmpty() ? null : Collections.unmodifiableList(routes);
+
+		Map<Long, Route> history = new LinkedHashMap<>();
+		if (snapshot != null && historySize > 0) {
+			history.putAll(snapshot.history);
+			history.put(snapshot.getVersion(), snapshot.root);
+			Iterator<Long> versions = history.keySet().iterator();
+			while (history.size() > historySize) {
+				versions.next();
+				versions.remove();
+			}
+		}
+
+		this.subtrees = subtrees;
+		this.subtreeHashes = subtreeHashes;
+		this.snapshot = new RoutesSnapshot(root, typeIds, cacheSize, nextVersion++,
+		                                   String.format("%016x", hash), Collections.unmodifiableMap(history));
+		changed.clear();
+		/* 被移除的 beanType 所在的一级子路由均已重新构造，新快照中不再含有其编号 */
+		freeIds.or(releasedIds);
+		releasedIds.clear();
+		return snapshot;
+	}
+
+	/**
+	 * 按第一段路径将 beanType 划分到各一级子路由，一级子路由按其中第一个 beanType 的顺序排列
+	 */
+	private Map<String, List<TypeRoutes>> partition () {
+		List<TypeRoutes> sorted = new ArrayList<>(types.values());
+		Collections.sort(sorted, TYPE_ORDER);
+		Map<String, List<TypeRoutes>> partitions = new LinkedHashMap<>();
+		for (TypeRoutes routes : sorted) {
+			List<TypeRoutes> members = partitions.get(routes.segments[0]);
+			if (members == null) {
+				members = new ArrayList<>();
+				partitions.put(routes.segments[0], members);
+			}
+			members.add(routes);
+		}
+		return partitions;
+	}
+
+	/**
+	 * 按顺序加入一级子路由内的 beanType，构造完毕后冻结
+	 */
+	private Route build (String segment, List<TypeRoutes> members) {
+		Node node = new Node(segment);
+		for (TypeRoutes routes : members) {
+			node.insert(routes, 1);
+		}
+		return node.toRoute();
+	}
+
+	/**
+	 * 以 64 位 FNV-1a 计算路由及其子路由序列化时可见的内容，与 beanType 无关
+	 */
+	private static long hash (Route route) {
+		long hash = hash(FNV_OFFSET, route.name);
+		hash = hash(hash, route.handlers == null ? -1 : route.handlers.size());
+		if (route.handlers != null) {
+			for (Handler handler : route.handlers) {
+				hash = hash(hash, handler.name);
+				hash = hash(hash, handler.url);
+				hash = hash(hash, handler.methods);
+				hash = hash(hash, handler.params);
+				hash = hash(hash, handler.headers);
+				hash = hash(hash, handler.consumes);
+				hash = hash(hash, handler.produces);
+			}
+		}
+		hash = hash(hash, route.routes == null ? -1 : route.routes.size());
+		if (route.routes != null) {
+			for (Route child : route.routes) {
+				hash = hash(hash, hash(child));
+			}
+		}
+		return hash;
+	}
+
+	private static long hash (long hash, String[] values) {
+		if (values == null) {
+			return hash(hash, -1);
+		}
+		hash = hash(hash, values.length);
+		for (String value : values) {
+			hash = hash(hash, value);
+		}
+		return hash;
+	}
+
+	/**
+	 * 先计入长度，区分 null 与不同的拆分方式
+	 */
+	private static long hash (long hash, String value) {
+		if (value == null) {
+			return hash(hash, -1);
+		}
+		hash = hash(hash, value.length());
+		for (int i = 0; i < value.length(); i++) {
+			hash = hash(hash, value.charAt(i));
+		}
+		return hash;
+	}
+
+	private static long hash (long hash, long value) {
+		return (hash ^ value) * FNV_PRIME;
+	}
+
+	/**
+	 * 去掉开头的 '/' 后按 '/' 分段，保留空段
+	 */
+	private static String[] segments (String path) {
+		List<String> segments = new ArrayList<>();
+		int start = path.startsWith("/") ? 1 : 0;
+		int end;
+		while ((end = path.indexOf('/', start)) >= 0) {
+			segments.add(path.substring(start, end));
+			start = end + 1;
+		}
+		segments.add(path.substring(start));
+		return segments.toArray(new String[segments.size()]);
+	}
+
+	private static class TypeRoutes {
+
+		final Class<?> type;
+
+		final int id;
+
+		final String simpleName;
+
+		final String name;
+
+		final String[] segments;
+
+		final Map<MappingKey, List<Handler>> handlers = new LinkedHashMap<>();
+
+		TypeRoutes (Class<?> type, int id, String[] segments) {
+			this.type = type;
+			this.id = id;
+			this.simpleName = type.getSimpleName();
+			this.name = type.getName();
+			this.segments = segments;
+		}
+	}
+
+	/**
+	 * RequestMappingInfo 每次都重新计算 hashCode，作为键时只计算一次
+	 */
+	private static final class MappingKey {
+
+		final RequestMappingInfo mapping;
+
+		final int hash;
+
+		MappingKey (RequestMappingInfo mapping) {
+			this.mapping = mapping;
+			this.hash = mapping.hashCode();
+		}
+
+		@Override
+		public boolean equals (Object o) {
+			return this == o || o instanceof MappingKey && hash == ((MappingKey) o).hash
+			                    && mapping.equals(((MappingKey) o).mapping);
+		}
+
+		@Override
+		public int hashCode () {
+			return hash;
+		}
+	}
+
+	/**
+	 * 构造中的节点，子节点按加入的顺序排列
+	 */
+	private static class Node {
+
+		final String segment;
+
+		final Set<Class<?>> types = new LinkedHashSet<>();
+
+		final BitSet ids = new BitSet();
+
+		List<Handler> handlers;
+
+		Map<String, Node> children;
+
+		Node (String segment) {
+			this.segment = segment;
+		}
+
+		void insert (TypeRoutes routes, int index) {
+			String[] segments = routes.segments;
+			Node node = this;
+			for (; ; index++) {
+				node.types.add(routes.type);
+				node.ids.set(routes.id);
+				if (index == segments.length) {
+					break;
+				}
+				if (node.children == null) {
+					node.children = new LinkedHashMap<>();
+				}
+				Node child = node.children.get(segments[index]);
+				if (child == null) {
+					child = new Node(segments[index]);
+					node.children.put(segments[index], child);
+				}
+				node = child;
+			}
+			/* 路径相同的 beanType 合并到同一个节点 */
+			if (node.handlers == null) {
+				node.handlers = new ArrayList<>();
+			}
+			for (List<Handler> list : routes.handlers.values()) {
+				node.handlers.addAll(list);
+			}
+		}
+
+		Route toRoute () {
+			List<Route> routes = null;
+			if (children != null) {
+				routes = new ArrayList<>(children.size());
+				for (Node child : children.values()) {
+					routes.add(child.toRoute());
+				}
+				routes = Collections.unmodifiableList(routes);
+			}
+			return new Route(segment, "/" + segment,
+			                 Collections.unmodifiableList(new ArrayList<>(types)), TypeIdSet.of(ids),
+			                 handlers == null ? null : Collections.unmodifiableList(handlers),
+			                 routes);
+		}
+	}
+}
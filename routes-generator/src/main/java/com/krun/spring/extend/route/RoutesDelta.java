@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesDelta.java
+ * Date:    26-10-18 下午8:05
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import com.alibaba.fastjson.JSON;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 比较两个版本的路由树，生成增量的 JSON：
+ * <pre>
+ * {"changes":[{"added":[Handler],"path":"/user/auth","removed":[Handler],"type":"added|removed|changed"}],
+ *  "from":旧版本,"full":false,"hash":新版本的哈希值,"version":新版本}
+ * </pre>
+ * 每个新增或移除的路由都单独列出，新增的路由以 added 列出其所有 Handler；
+ * 两个版本中都存在的路由只在 Handler 不同时列出，Handler 的属性有变化时视为移除旧的并新增新的。
+ * 两个版本共用的子路由直接跳过，耗时只与变化的一级子路由的大小有关。
+ * <p>
+ * 无法计算增量时以 <code>{"full":true,"hash":..,"root":完整的路由树,"version":..}</code> 代替。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+final class RoutesDelta {
+
+	private final List<String> changes = new ArrayList<>();
+
+	private RoutesDelta () {
+	}
+
+	static String diff (long from, Route old, long version, String hash, Route root) {
+		RoutesDelta delta = new RoutesDelta();
+		delta.diffChildren("", old, root);
+		StringBuilder json = new StringBuilder("{\"changes\":[");
+		for (int i = 0; i < delta.changes.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			json.append(delta.changes.get(i));
+		}
+		return json.append("],\"from\":").append(from)
+		           .append(",\"full\":false,\"hash\":\"").append(hash)
+		           .append("\",\"version\":").append(version).append('}').toString();
+	}
+
+	/**
+	 * @param json 完整的路由树
+	 */
+	static String full (long version, String hash, String json) {
+		return "{\"full\":true,\"hash\":\"" + hash + "\",\"root\":" + json + ",\"version\":" + version + '}';
+	}
+
+	private void diff (String path, Route old, Route route) {
+		if (old == route) {
+			return;
+		}
+		List<Handler> added = subtract(route.handlers, old.handlers);
+		List<Handler> removed = subtract(old.handlers, route.handlers);
+		if (! added.isEmpty() || ! removed.isEmpty()) {
+			change("changed", path, added, removed);
+		}
+		diffChildren(path, old, route);
+	}
+
+	private void diffChildren (String path, Route old, Route route) {
+		Map<String, Route> previous = new LinkedHashMap<>();
+		if (old.routes != null) {
+			for (Route child : old.routes) {
+				previous.put(child.name, child);
+			}
+		}
+		if (route.routes != null) {
+			for (Route child : route.routes) {
+				Route match = previous.remove(child.name);
+				if (match == null) {
+					added(path + "/" + child.name, child);
+				} else {
+					diff(path + "/" + child.name, match, child);
+				}
+			}
+		}
+		for (Route child : previous.values()) {
+			removed(path + "/" + child.name, child);
+		}
+	}
+
+	private void added (String path, Route route) {
+		change("added", path, route.handlers, null);
+		if (route.routes != null) {
+			for (Route child : route.routes) {
+				added(path + "/" + child.name, child);
+			}
+		}
+	}
+
+	private void removed (String path, Route route) {
+		change("removed", path, null, null);
+		if (route.routes != null) {
+			for (Route child : route.routes) {
+				removed(path + "/" + child.name, child);
+			}
+		}
+	}
+
+	/**
+	 * 按字段名排序，与 fastjson 的输出一致，空的 Handler 列表不写出
+	 */
+	private void change (String type, String path, List<Handler> added, List<Handler> removed) {
+		StringBuilder json = new StringBuilder("{");
+		if (added != null && ! added.isEmpty()) {
+			json.append("\"added\":").append(JSON.toJSONString(added)).append(',');
+		}
+		json.append("\"path\":").append(JSON.toJSONString(path));
+		if (removed != null && ! removed.isEmpty()) {
+			json.append(",\"removed\":").append(JSON.toJSONString(removed));
+		}
+		changes.add(json.append(",\"type\":\"").append(type).append("\"}").toString());
+	}
+
+	/**
+	 * @return handlers 中不在 others 中的 Handler，重复的 Handler 按数量计算
+	 */
+	private static List<Handler> subtract (List<Handler> handlers, List<Handler> others) {
+		List<Handler> result = new ArrayList<>();
+		if (handlers == null) {
+			return result;
+		}
+		Map<Handler, Integer> counts = new HashMap<>();
+		if (others != null) {
+			for (Handler handler : others) {
+				Integer count = counts.get(handler);
+				counts.put(handler, count == null ? 1 : count + 1);
+			}
+		}
+		for (Handler handler : handlers) {
+			Integer count = counts.get(handler);
+			if (count == null || count == 0) {
+				result.add(handler);
+			} else {
+				counts.put(handler, count - 1);
+			}
+		}
+		return result;
+	}
+}
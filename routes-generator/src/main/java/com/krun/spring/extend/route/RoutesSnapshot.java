@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesSnapshot.java
+ * Date:    26-10-18 上午9:25
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 路由树的不可变快照，构造完毕后不再修改，可以被多个线程同时读取；路由树变化时生成新的快照。
+ * <p>
+ * 按 includeClasses 筛选时先将其转换为 beanType 编号的集合，每个节点只需一次集合求交，不复制也不修改快照内的路由树；
+ * 序列化结果按编号的集合缓存，不考虑数组的顺序与重复，也忽略路由树中没有的类，超出容量时淘汰最久未使用的结果。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class RoutesSnapshot {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	final Route root;
+
+	private final Map<Class<?>, Integer> typeIds;
+
+	private final long version;
+
+	private final String hash;
+
+	/**
+	 * 之前若干个版本的路由树，按版本排列
+	 */
+	final Map<Long, Route> history;
+
+	/**
+	 * 相对于之前各版本的增量
+	 */
+	private final Map<Long, SerializedRoutes> deltas = new HashMap<>();
+
+	/**
+	 * 无法计算增量时返回的完整路由树
+	 */
+	private volatile SerializedRoutes fullDelta;
+
+	/**
+	 * 未筛选的路由树，首次读取时序列化
+	 */
+	private volatile SerializedRoutes all;
+
+	private final Map<TypeIdSet, SerializedRoutes> cache;
+
+	/**
+	 * @param root 已冻结的路由树，由 {@link RouteTree} 构造
+	 * @param typeIds 路由树中各 beanType 的编号
+	 * @param history 之前若干个版本的路由树
+	 */
+	RoutesSnapshot (Route root, Map<Class<?>, Integer> typeIds, final int cacheSize,
+	                long version, String hash, Map<Long, Route> history) {
+		this.root = root;
+		this.typeIds = typeIds;
+		this.version = version;
+		this.hash = hash;
+		this.history = history;
+		this.cache = new LinkedHashMap<TypeIdSet, SerializedRoutes>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry (Map.Entry<TypeIdSet, SerializedRoutes> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * @return 快照的版本号，路由树每次变化后递增
+	 */
+	public long getVersion () {
+		return version;
+	}
+
+	/**
+	 * @return 由完整路由树中序列化可见的内容计算的 16 位十六进制哈希值，内容相同的路由树哈希值相同
+	 */
+	public String getHash () {
+		return hash;
+	}
+
+	/**
+	 * 获取相对于客户端已知版本的增量，只包含新增、移除与 Handler 有变化的路由，格式见 {@link RoutesDelta}。
+	 * 已知版本与当前版本相同时返回空的增量；已知版本不在保留的历史中时返回完整的路由树，由 full 属性区分。
+	 * 结果按已知版本缓存。
+	 * @param since 客户端已知的版本号
+	 */
+	public SerializedRoutes getDelta (long since) {
+		Route old = since == version ? root : history.get(since);
+		if (old == null) {
+			SerializedRoutes full = fullDelta;
+			if (full == null) {
+				full = new SerializedRoutes(RoutesDelta.full(version, hash, getRoutes(new Class[0]).getJson()));
+				fullDelta = full;
+			}
+			return full;
+		}
+		SerializedRoutes delta;
+		synchronized (deltas) {
+			delta = deltas.get(since);
+		}
+		if (delta == null) {
+			/* 在锁外计算，并发时可能重复计算，结果相同；history 有上限，因此缓存不会无限增长 */
+			delta = new SerializedRoutes(RoutesDelta.diff(since, old, version, hash, root));
+			synchronized (deltas) {
+				deltas.put(since, delta);
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * 获取筛选后的路由树，如果参数数组长度为零，则获取所有路由
+	 * @param includeClasses 路由树内只允许含有此参数所配置的 beanTypes
+	 */
+	public SerializedRoutes getRoutes (Class[] includeClasses) {
+		if (includeClasses.length == 0) {
+			SerializedRoutes all = this.all;
+			if (all == null) {
+				/* 并发时可能重复计算，结果相同 */
+				all = serialize(null);
+				this.all = all;
+			}
+			return all;
+		}
+		TypeIdSet key = toIds(includeClasses);
+		SerializedRoutes routes;
+		synchronized (cache) {
+			routes = cache.get(key);
+		}
+		if (routes == null) {
+			/* 在锁外序列化，并发时可能重复计算，结果相同 */
+			routes = serialize(key);
+			synchronized (cache) {
+				cache.put(key, routes);
+			}
+		}
+		return routes;
+	}
+
+	/**
+	 * 将筛选后的路由树直接写出，内容与 {@link #getRoutes} 一致，不经过缓存，也不生成完整的字符串；写完后刷新但不关闭 writer
+	 * @param includeClasses 路由树内只允许含有此参数所配置的 beanTypes，长度为零时写出所有路由
+	 */
+	public void writeTo (Class[] includeClasses, Writer writer) throws IOException {
+		RoutesWriter.write(root, toIds(includeClasses), writer);
+	}
+
+	/**
+	 * 以 UTF-8 编码将筛选后的路由树直接写出，写完后刷新但不关闭 out
+	 * @param gzip 是否以 gzip 压缩写出
+	 */
+	public void writeTo (Class[] includeClasses, OutputStream out, boolean gzip) throws IOException {
+		if (gzip) {
+			GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+			RoutesWriter.write(root, toIds(includeClasses), new OutputStreamWriter(compressed, UTF_8));
+			compressed.finish();
+			out.flush();
+		} else {
+			RoutesWriter.write(root, toIds(includeClasses), new OutputStreamWriter(out, UTF_8));
+		}
+	}
+
+	/**
+	 * @return includeClasses 长度为零时返回 null，表示不筛选
+	 */
+	private TypeIdSet toIds (Class[] includeClasses) {
+		if (includeClasses.length == 0) {
+			return null;
+		}
+		BitSet ids = new BitSet();
+		for (Class<?> type : includeClasses) {
+			Integer id = typeIds.get(type);
+			if (id != null) {
+				ids.set(id);
+			}
+		}
+		return TypeIdSet.of(ids);
+	}
+
+	/**
+	 * 将筛选后的路由树以二进制格式写出，可以由 {@link BinaryRoutes} 直接映射读取；写完后刷新但不关闭 out
+	 * @param includeClasses 路由树内只允许含有此参数所配置的 beanTypes，长度为零时写出所有路由
+	 */
+	public void writeBinaryTo (Class[] includeClasses, OutputStream out) throws IOException {
+		BinaryRoutesWriter.write(root, toIds(includeClasses), out);
+	}
+
+	private SerializedRoutes serialize (TypeIdSet includeIds) {
+		StringWriter writer = new StringWriter();
+		try {
+			RoutesWriter.write(root, includeIds, writer);
+		} catch (IOException e) {
+			/* StringWriter 不会抛出 IOException */
+			throw new IllegalStateException(e);
+		}
+		return new SerializedRoutes(writer.toString());
+	}
+}
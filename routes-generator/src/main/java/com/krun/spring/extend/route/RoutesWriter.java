@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesWriter.java
+ * Date:    26-10-18 下午1:30
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * 将路由树以 JSON 逐个节点写出，不生成中间的字符串，也不复制筛选后的节点；
+ * 输出与 {@link Route#toString()} 完全一致，包括字段顺序与字符转义。
+ * <p>
+ * 只使用固定大小的缓冲区，占用的内存与路由树的大小无关。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+final class RoutesWriter {
+
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private final Writer out;
+
+	private final char[] buffer = new char[8192];
+
+	private int position;
+
+	/**
+	 * 为 null 时不筛选
+	 */
+	private final TypeIdSet includeIds;
+
+	private RoutesWriter (Writer out, TypeIdSet includeIds) {
+		this.out = out;
+		this.includeIds = includeIds;
+	}
+
+	/**
+	 * 写出筛选后的路由树，写完后刷新但不关闭 out
+	 * @param root 由 {@link RouteTree} 构造、各节点均带有 beanTypeIds 的路由树
+	 * @param includeIds 只写出含有这些编号的 beanType 的子路由，为 null 时写出所有路由
+	 */
+	static void write (Route root, TypeIdSet includeIds, Writer out) throws IOException {
+		RoutesWriter writer = new RoutesWriter(out, includeIds);
+		writer.write("{\"name\":\"@\"");
+		writer.writeRoutes(true, root.routes);
+		writer.write('}');
+		writer.flush();
+	}
+
+	private void writeRoute (Route route) throws IOException {
+		write('{');
+		boolean comma = false;
+		if (route.handlers != null) {
+			write("\"handlers\":[");
+			boolean first = true;
+			for (Handler handler : route.handlers) {
+				if (! first) {
+					write(',');
+				}
+				first = false;
+				writeHandler(handler);
+			}
+			write(']');
+			comma = true;
+		}
+		if (route.name != null) {
+			comma = writeField(comma, "name", route.name);
+		}
+		writeRoutes(comma, route.routes);
+		write('}');
+	}
+
+	/**
+	 * 写出包含 includeIds 的子路由，没有这样的子路由时不写出
+	 */
+	private void writeRoutes (boolean comma, List<Route> routes) throws IOException {
+		if (routes == null) {
+			return;
+		}
+		boolean first = true;
+		for (Route route : routes) {
+			if (! isIncluded(route)) {
+				continue;
+			}
+			if (first) {
+				writeName(comma, "routes");
+				write('[');
+				first = false;
+			} else {
+				write(',');
+			}
+			writeRoute(route);
+		}
+		if (! first) {
+			write(']');
+		}
+	}
+
+	private boolean isIncluded (Route route) {
+		return includeIds == null || route.beanTypeIds.intersects(includeIds);
+	}
+
+	private void writeHandler (Handler handler) throws IOException {
+		write('{');
+		boolean comma = writeField(false, "consumes", handler.consumes);
+		comma = writeField(comma, "headers", handler.headers);
+		comma = writeField(comma, "methods", handler.methods);
+		comma = writeField(comma, "name", handler.name);
+		comma = writeField(comma, "params", handler.params);
+		comma = writeField(comma, "produces", handler.produces);
+		writeField(comma, "url", handler.url);
+		write('}');
+	}
+
+	private boolean writeField (boolean comma, String name, String value) throws IOException {
+		if (value == null) {
+			return comma;
+		}
+		writeName(comma, name);
+		writeString(value);
+		return true;
+	}
+
+	private boolean writeField (boolean comma, String name, String[] values) throws IOException {
+		if (values == null) {
+			return comma;
+		}
+		writeName(comma, name);
+		write('[');
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				write(',');
+			}
+			if (values[i] == null) {
+				write("null");
+			} else {
+				writeString(values[i]);
+			}
+		}
+		write(']');
+		return true;
+	}
+
+	private void writeName (boolean comma, String name) throws IOException {
+		if (comma) {
+			write(',');
+		}
+		write('"');
+		write(name);
+		write("\":");
+	}
+
+	/**
+	 * 与 fastjson 的默认设置一致：转义 C0 / C1 控制字符、DEL、U+2028、U+2029、双引号与反斜杠，其余字符原样写出
+	 */
+	private void writeString (String value) throws IOException {
+		write('"');
+		for (int i = 0, length = value.length(); i < length; i++) {
+			char ch = value.charAt(i);
+			if (ch >= 0x20 && ch != '"' && ch != '\\' && (ch < 0x7f || ch > 0x9f) && ch != '\u2028' && ch != '\u2029') {
+				write(ch);
+				continue;
+			}
+			switch (ch) {
+				case '"':
+					write("\\\"");
+					break;
+				case '\\':
+					write("\\\\");
+					break;
+				case '\b':
+					write("\\b");
+					break;
+				case '\t':
+					write("\\t");
+					break;
+				case '\n':
+					write("\\n");
+					break;
+				case '\f':
+					write("\\f");
+					break;
+				case '\r':
+					write("\\r");
+					break;
+				default:
+					write("\\u");
+					write(HEX[ch >> 12]);
+					write(HEX[(ch >> 8) & 0xf]);
+					write(HEX[(ch >> 4) & 0xf]);
+					write(HEX[ch & 0xf]);
+			}
+		}
+		write('"');
+	}
+
+	private void write (char ch) throws IOException {
+		if (position == buffer.length) {
+			flushBuffer();
+		}
+		buffer[position++] = ch;
+	}
+
+	private void write (String value) throws IOException {
+		int length = value.length();
+		if (position + length > buffer.length) {
+			flushBuffer();
+			if (length > buffer.length) {
+				out.write(value);
+				return;
+			}
+		}
+		value.getChars(0, length, buffer, position);
+		position += length;
+	}
+
+	private void flushBuffer () throws IOException {
+		out.write(buffer, 0, position);
+		position = 0;
+	}
+
+	private void flush () throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      SerializedRoutes.java
+ * Date:    26-10-18 上午9:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.Charset;
+
+/**
+ * 序列化后的路由树及其 ETag，构造后不再改变。
+ * <p>
+ * ETag 由 JSON 的 MD5 计算，格式与 Spring 的 ShallowEtagHeaderFilter 一致。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class SerializedRoutes {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final String json;
+
+	private final byte[] bytes;
+
+	private final String etag;
+
+	SerializedRoutes (String json) {
+		this.json = json;
+		this.bytes = json.getBytes(UTF_8);
+		this.etag = "\"0" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+	}
+
+	public String getJson () {
+		return json;
+	}
+
+	/**
+	 * @return UTF-8 编码的 JSON，与其他调用方共用，不应修改
+	 */
+	public byte[] getBytes () {
+		return bytes;
+	}
+
+	public String getEtag () {
+		return etag;
+	}
+
+	/**
+	 * 判断 If-None-Match 请求头是否与 ETag 相符，相符时可以直接响应 304
+	 * @param ifNoneMatch If-None-Match 请求头，可以包含以逗号分隔的多个 ETag 或 <code>*</code>，弱 ETag 同样视为相符
+	 */
+	public boolean matches (@Nullable String ifNoneMatch) {
+		if (! StringUtils.hasLength(ifNoneMatch)) {
+			return false;
+		}
+		for (String tag : StringUtils.commaDelimitedListToStringArray(ifNoneMatch)) {
+			tag = tag.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      TypeIdSet.java
+ * Date:    26-10-18 下午5:05
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 不可变的 beanType 编号集合，编号由 {@link RouteTree} 分配。
+ * <p>
+ * 只保存第一个与最后一个非零字之间的位，同一子路由内的编号相近时占用的内存与子路由的大小有关，而与编号的总数无关。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public final class TypeIdSet {
+
+	static final TypeIdSet EMPTY = new TypeIdSet(0, new long[0]);
+
+	/**
+	 * words[0] 对应的字序号
+	 */
+	private final int offset;
+
+	private final long[] words;
+
+	private TypeIdSet (int offset, long[] words) {
+		this.offset = offset;
+		this.words = words;
+	}
+
+	static TypeIdSet of (BitSet bits) {
+		int from = bits.nextSetBit(0);
+		if (from < 0) {
+			return EMPTY;
+		}
+		int offset = from >>> 6;
+		return new TypeIdSet(offset, bits.get(offset << 6, bits.length()).toLongArray());
+	}
+
+	/**
+	 * 两个集合是否含有相同的编号
+	 */
+	public boolean intersects (TypeIdSet other) {
+		int from = Math.max(offset, other.offset);
+		int to = Math.min(offset + words.length, other.offset + other.words.length);
+		for (int i = from; i < to; i++) {
+			if ((words[i - offset] & other.words[i - other.offset]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equals (Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (! (o instanceof TypeIdSet)) {
+			return false;
+		}
+		TypeIdSet other = (TypeIdSet) o;
+		return offset == other.offset && Arrays.equals(words, other.words);
+	}
+
+	@Override
+	public int hashCode () {
+		return 31 * offset + Arrays.hashCode(words);
+	}
+}
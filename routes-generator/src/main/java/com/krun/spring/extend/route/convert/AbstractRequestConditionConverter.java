@@ -16,22 +16,27 @@ import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import java.util.Set;
 
 /**
+ * 将 RequestMappingInfo 中的一种条件转换为 Handler 的属性。
+ * 转换器不保存状态，同一个转换器可以被多个线程同时使用。
+ *
  * @author krun
  * @date 2018/05/03
  */
 public abstract class AbstractRequestConditionConverter <E extends RequestCondition> {
 
-	protected E condition;
+	/**
+	 * 从 info 中取出条件并设置到 handler，条件为空时设置为 null
+	 */
+	public void convert(RequestMappingInfo info, Handler handler) {
+		String[] values = values(getCondition(info));
+		setValues(handler, values.length == 0 ? null : values);
+	}
 
-	@SuppressWarnings("unchecked")
-	public abstract void setCondition(RequestMappingInfo info);
+	protected abstract E getCondition(RequestMappingInfo info);
 
-	public abstract void setValuesToHandler(Handler handler);
-	protected String[] getValues() {
-		String[] values = values();
-		return values.length == 0 ? null : values;
-	}
-	protected abstract String[] values ();
+	protected abstract void setValues(Handler handler, String[] values);
+
+	protected abstract String[] values (E condition);
 
 	public static AbstractRequestConditionConverter[] converters() {
 		return new AbstractRequestConditionConverter[] {
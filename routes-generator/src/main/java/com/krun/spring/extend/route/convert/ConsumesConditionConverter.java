@@ -22,15 +22,15 @@ import java.util.Set;
 public class ConsumesConditionConverter extends AbstractRequestConditionConverter<ConsumesRequestCondition> {
 
 	@Override
-	public void setCondition (RequestMappingInfo info) {
-		condition = info.getConsumesCondition();
+	protected ConsumesRequestCondition getCondition (RequestMappingInfo info) {
+		return info.getConsumesCondition();
 	}
 	@Override
-	public void setValuesToHandler (Handler handler) {
-		handler.setConsumes(getValues());
+	protected void setValues (Handler handler, String[] values) {
+		handler.setConsumes(values);
 	}
 	@Override
-	protected String[] values () {
+	protected String[] values (ConsumesRequestCondition condition) {
 		Set<MediaType> consumableMediaTypes = condition.getConsumableMediaTypes();
 		String[] values = new String[consumableMediaTypes.size()];
 		MediaType[] types = new MediaType[consumableMediaTypes.size()];
@@ -38,6 +38,6 @@ public class ConsumesConditionConverter extends AbstractRequestConditionConverte
 		for (int i = 0; i < types.length; i++) {
 			values[i] = types[i].toString();
 		}
-		return new String[0];
+		return values;
 	}
 }
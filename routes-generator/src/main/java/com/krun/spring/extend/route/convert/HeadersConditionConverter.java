@@ -19,15 +19,15 @@ import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 public class HeadersConditionConverter extends AbstractRequestConditionConverter<HeadersRequestCondition> {
 
 	@Override
-	public void setCondition (RequestMappingInfo info) {
-		condition = info.getHeadersCondition();
+	protected HeadersRequestCondition getCondition (RequestMappingInfo info) {
+		return info.getHeadersCondition();
 	}
 	@Override
-	public void setValuesToHandler (Handler handler) {
-		handler.setHeaders(getValues());
+	protected void setValues (Handler handler, String[] values) {
+		handler.setHeaders(values);
 	}
 	@Override
-	protected String[] values () {
+	protected String[] values (HeadersRequestCondition condition) {
 		return getStrings(condition.getExpressions());
 	}
 }
@@ -24,15 +24,15 @@ public class MethodsConditionConverter
 		AbstractRequestConditionConverter<RequestMethodsRequestCondition> {
 
 	@Override
-	public void setCondition (RequestMappingInfo info) {
-		condition = info.getMethodsCondition();
+	protected RequestMethodsRequestCondition getCondition (RequestMappingInfo info) {
+		return info.getMethodsCondition();
 	}
 	@Override
-	public void setValuesToHandler (Handler handler) {
-		handler.setMethods(getValues());
+	protected void setValues (Handler handler, String[] values) {
+		handler.setMethods(values);
 	}
 	@Override
-	protected String[] values () {
+	protected String[] values (RequestMethodsRequestCondition condition) {
 		Set<RequestMethod> methodSet = condition.getMethods();
 		String[] values = new String[methodSet.size()];
 		RequestMethod[] methods = new RequestMethod[methodSet.size()];
@@ -19,15 +19,15 @@ import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 public class ParamsConditionConverter extends AbstractRequestConditionConverter<ParamsRequestCondition> {
 
 	@Override
-	public void setCondition (RequestMappingInfo info) {
-		condition = info.getParamsCondition();
+	protected ParamsRequestCondition getCondition (RequestMappingInfo info) {
+		return info.getParamsCondition();
 	}
 	@Override
-	public void setValuesToHandler (Handler handler) {
-		handler.setParams(getValues());
+	protected void setValues (Handler handler, String[] values) {
+		handler.setParams(values);
 	}
 	@Override
-	protected String[] values () {
+	protected String[] values (ParamsRequestCondition condition) {
 		return getStrings(condition.getExpressions());
 	}
 }
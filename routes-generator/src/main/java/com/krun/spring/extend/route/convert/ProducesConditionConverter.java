@@ -22,15 +22,15 @@ import java.util.Set;
 public class ProducesConditionConverter extends AbstractRequestConditionConverter<ProducesRequestCondition> {
 
 	@Override
-	public void setCondition (RequestMappingInfo info) {
-		condition = info.getProducesCondition();
+	protected ProducesRequestCondition getCondition (RequestMappingInfo info) {
+		return info.getProducesCondition();
 	}
 	@Override
-	public void setValuesToHandler (Handler handler) {
-		handler.setProduces(getValues());
+	protected void setValues (Handler handler, String[] values) {
+		handler.setProduces(values);
 	}
 	@Override
-	protected String[] values () {
+	protected String[] values (ProducesRequestCondition condition) {
 		Set<MediaType> producibleMediaTypes = condition.getProducibleMediaTypes();
 		String[] values = new String[producibleMediaTypes.size()];
 		MediaType[] types = new MediaType[producibleMediaTypes.size()];
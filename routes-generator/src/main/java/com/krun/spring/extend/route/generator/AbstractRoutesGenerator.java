@@ -8,26 +8,75 @@
 
 package com.krun.spring.extend.route.generator;
 
-import com.krun.spring.extend.route.Handler;
-import com.krun.spring.extend.route.Route;
-import com.krun.spring.extend.route.convert.AbstractRequestConditionConverter;
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.mapping.handler.MappingChangeListener;
+import com.krun.spring.extend.naming.NameTranslator;
+import com.krun.spring.extend.route.RouteTree;
+import com.krun.spring.extend.route.RoutesSnapshot;
+import com.krun.spring.extend.route.SerializedRoutes;
+import com.krun.spring.extend.route.generator.HandlerExtractor.TypeMappings;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
-import java.util.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author krun
  * @date 2018/05/03
  */
-public abstract class AbstractRoutesGenerator {
+public abstract class AbstractRoutesGenerator implements DisposableBean {
+
+	/**
+	 * domain-mapping 是可选依赖，不存在时不监听注册表的变化
+	 */
+	private static final boolean domainMappingPresent = ClassUtils.isPresent(
+			"com.krun.spring.extend.mapping.handler.DomainMappingHandler", AbstractRoutesGenerator.class.getClassLoader());
 
 	@Autowired
 	private RequestMappingHandlerMapping handlerMapping;
 
-	private Route root = null;
+	private volatile RoutesSnapshot snapshot;
+
+	/**
+	 * 生成后由 this 保护
+	 */
+	private RouteTree tree;
+
+	private final HandlerExtractor extractor = new HandlerExtractor();
+
+	private int routesCacheSize = 64;
+
+	private int routesHistorySize = 16;
+
+	/**
+	 * 生成路由树时是否并行提取 Handler 信息
+	 */
+	private boolean parallelExtraction = false;
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * handlerMapping 为 DomainMappingHandler 时，将注册表的变化应用到路由树；
+	 * 不以 MappingChangeSubscription 声明，以免反射读取字段时加载 domain-mapping 的类
+	 */
+	private volatile Subscription subscription;
 
 	/**
 	 * 获取前缀以对类名进行裁剪
@@ -48,6 +97,41 @@ public abstract class AbstractRoutesGenerator {
 	 */
 	protected abstract boolean isExcludeType(Class<?> beanType);
 
+	/**
+	 * 设置最多缓存多少种 includeClasses 的序列化结果，超出时淘汰最久未使用的结果，默认为 64
+	 * @param routesCacheSize
+	 */
+	public void setRoutesCacheSize(int routesCacheSize) {
+		this.routesCacheSize = routesCacheSize;
+	}
+
+	/**
+	 * 设置最多保留多少个之前版本的路由树用于计算增量，默认为 16
+	 * @param routesHistorySize
+	 */
+	public void setRoutesHistorySize(int routesHistorySize) {
+		this.routesHistorySize = routesHistorySize;
+	}
+
+	/**
+	 * 设置生成路由树时是否使用 fork-join 按 beanType 并行提取 Handler 信息，默认关闭。
+	 * 提取结果仍按原有顺序登记到路由树，生成的路由树与串行提取一致；
+	 * 并行提取时 {@link #isExcludeType}、{@link #getPrefix} 与 {@link #getSuffix} 仍在当前线程内调用。
+	 * @param parallelExtraction
+	 */
+	public void setParallelExtraction(boolean parallelExtraction) {
+		this.parallelExtraction = parallelExtraction;
+	}
+
+	/**
+	 * 设置并行提取的线程数，默认为处理器数量
+	 * @param parallelism
+	 */
+	public void setParallelism(int parallelism) {
+		Assert.isTrue(parallelism > 0, "parallelism must be greater than 0");
+		this.parallelism = parallelism;
+	}
+
 	public String getRoutes() {
 		return getRoutes(new Class[0]);
 	}
@@ -58,81 +142,200 @@ public abstract class AbstractRoutesGenerator {
 	 * @return
 	 */
 	public String getRoutes(Class[] includeClasses) {
-		if (root == null) {
-			generateRoutes();
-			root.clean();
-		}
-
-		Route route = Route.builder().name("@").routes(root.getRoutes(includeClasses)).build();
-		route.clean();
-		return route.toString();
+		return getSerializedRoutes(includeClasses).getJson();
 	}
 
 	/**
-	 * 生成路由树
+	 * 获取路由树的序列化结果及其 ETag，同一组 includeClasses 的结果会被缓存
+	 * @param includeClasses
+	 * @return
 	 */
-	private void generateRoutes() {
-
-		Map<Class<?>, List<Map.Entry<RequestMappingInfo, HandlerMethod>>> classesMap = getClassesMap();
-		List<Class<?>> classes = getClassesBySort(classesMap.keySet());
-		List<Route> routes = new LinkedList<>();
-
-		String path;
-		Route route;
-		Handler handler;
-		List<Handler> handlers;
+	public SerializedRoutes getSerializedRoutes(Class[] includeClasses) {
+		return getSnapshot().getRoutes(includeClasses);
+	}
 
-		List<Map.Entry<RequestMappingInfo, HandlerMethod>> entries;
+	/**
+	 * 获取路由树当前的版本号，路由树每次变化后递增
+	 * @return
+	 */
+	public long getRoutesVersion() {
+		return getSnapshot().getVersion();
+	}
 
-		RequestMappingInfo info;
-		HandlerMethod method;
-		Set<String> patterns;
+	/**
+	 * 获取由路由树内容计算的哈希值，内容相同的路由树哈希值相同
+	 * @return
+	 */
+	public String getRoutesHash() {
+		return getSnapshot().getHash();
+	}
 
-		AbstractRequestConditionConverter[] converters = AbstractRequestConditionConverter.converters();
+	/**
+	 * 获取自 version 以来新增、移除与变化的路由，version 已不在保留的历史中时返回完整的路由树
+	 * @param version 客户端已知的版本号
+	 * @return
+	 */
+	public String getRoutesDelta(long version) {
+		return getSerializedRoutesDelta(version).getJson();
+	}
 
-		for (Class<?> clazz : classes) {
-			path = translateNameToPath(clazz.getSimpleName());
+	/**
+	 * 获取增量的序列化结果及其 ETag，同一个已知版本的结果会被缓存
+	 * @param version 客户端已知的版本号
+	 * @return
+	 */
+	public SerializedRoutes getSerializedRoutesDelta(long version) {
+		return getSnapshot().getDelta(version);
+	}
 
-			entries = classesMap.get(clazz);
+	/**
+	 * 以 ETag 响应路由树，If-None-Match 与 ETag 相符时响应 304 且不含响应体
+	 * @param includeClasses
+	 * @param ifNoneMatch If-None-Match 请求头，可以为空
+	 * @return
+	 */
+	public ResponseEntity<byte[]> getRoutes(Class[] includeClasses, @Nullable String ifNoneMatch) {
+		SerializedRoutes routes = getSerializedRoutes(includeClasses);
+		if (routes.matches(ifNoneMatch)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(routes.getEtag()).build();
+		}
+		return ResponseEntity.ok()
+		                     .eTag(routes.getEtag())
+		                     .contentType(MediaType.APPLICATION_JSON_UTF8)
+		                     .body(routes.getBytes());
+	}
 
-			handlers = new LinkedList<>();
+	/**
+	 * 将路由树（经 includeClasses 参数修建）直接写出，不生成完整的字符串，适合较大的路由树；写完后刷新但不关闭 writer
+	 * @param includeClasses
+	 * @param writer
+	 */
+	public void writeRoutes(Class[] includeClasses, Writer writer) throws IOException {
+		getSnapshot().writeTo(includeClasses, writer);
+	}
 
-			for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : entries) {
+	/**
+	 * 以 UTF-8 编码将路由树直接写出，gzip 为 true 时边写出边压缩；写完后刷新但不关闭 out
+	 * @param includeClasses
+	 * @param out
+	 * @param gzip
+	 */
+	public void writeRoutes(Class[] includeClasses, OutputStream out, boolean gzip) throws IOException {
+		getSnapshot().writeTo(includeClasses, out, gzip);
+	}
 
-				info = entry.getKey();
-				method = entry.getValue();
-				patterns = info.getPatternsCondition().getPatterns();
+	/**
+	 * 将路由树（经 includeClasses 参数修建）以二进制格式写出，字符串去重保存，可以由 BinaryRoutes 映射后直接读取；写完后刷新但不关闭 out
+	 * @param includeClasses
+	 * @param out
+	 */
+	public void writeBinaryRoutes(Class[] includeClasses, OutputStream out) throws IOException {
+		getSnapshot().writeBinaryTo(includeClasses, out);
+	}
 
-				for (String pattern : patterns) {
-					handler = Handler.builder()
-							.url(pattern)
-							.name(method.getMethod().getName())
-							.build();
+	/**
+	 * 获取路由树的快照，首次调用时生成。
+	 * <p>
+	 * handlerMapping 为 DomainMappingHandler 时，此后注册或移除的映射会同步更新路由树并发布新的快照，
+	 * 读取方始终得到某一时刻完整的快照，不会被更新阻塞。
+	 * @return
+	 */
+	protected RoutesSnapshot getSnapshot() {
+		RoutesSnapshot snapshot = this.snapshot;
+		if (snapshot == null) {
+			synchronized (this) {
+				snapshot = this.snapshot;
+				if (snapshot == null) {
+					snapshot = generateRoutes();
+				}
+			}
+		}
+		return snapshot;
+	}
 
-					for (AbstractRequestConditionConverter converter : converters) {
-						converter.setCondition(info);
-						converter.setValuesToHandler(handler);
-					}
+	/**
+	 * 生成路由树，先监听变化再读取已注册的映射，期间发生的变化会在生成后重复应用。
+	 * 映射按 beanType 分组后提取 Handler 信息，再按分组的顺序登记到路由树
+	 */
+	private RoutesSnapshot generateRoutes() {
+		if (domainMappingPresent) {
+			subscription = MappingChangeSubscription.subscribe(this, handlerMapping);
+		}
 
-					handlers.add(handler);
+		Map<Class<?>, TypeMappings> grouped = new LinkedHashMap<>();
+		Set<Class<?>> excluded = new HashSet<>();
+		for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+			Class<?> beanType = entry.getValue().getBeanType();
+			TypeMappings type = grouped.get(beanType);
+			if (type == null) {
+				if (excluded.contains(beanType)) {
+					continue;
+				}
+				if (! isRouteType(beanType)) {
+					excluded.add(beanType);
+					continue;
 				}
+				type = new TypeMappings(beanType, translateNameToPath(beanType.getSimpleName()));
+				grouped.put(beanType, type);
+			}
+			type.mappings.add(entry);
+		}
+
+		List<TypeMappings> types = new ArrayList<>(grouped.values());
+		extractor.extract(types, parallelExtraction ? parallelism : 1);
 
+		tree = new RouteTree(routesCacheSize, routesHistorySize);
+		for (TypeMappings type : types) {
+			for (int i = 0; i < type.mappings.size(); i++) {
+				tree.register(type.mappings.get(i).getKey(), type.beanType, type.path, type.handlers.get(i));
 			}
+		}
+		return publish();
+	}
+
+	/**
+	 * 停止监听 handlerMapping 的变化
+	 */
+	@Override
+	public void destroy() {
+		Subscription subscription = this.subscription;
+		if (subscription != null) {
+			subscription.cancel();
+		}
+	}
 
-			List<Class<?>> list = new LinkedList<>();
-			list.add(clazz);
-			route = Route.builder().path(path).beanTypes(list).handlers(handlers).build();
-			routes.add(route);
+	private RoutesSnapshot publish() {
+		RoutesSnapshot snapshot = tree.snapshot();
+		this.snapshot = snapshot;
+		return snapshot;
+	}
 
+	private synchronized void mappingRegistered(RequestMappingInfo info, HandlerMethod method) {
+		/* 尚未生成时忽略，生成时会读取到此映射 */
+		if (tree != null && register(info, method)) {
+			publish();
 		}
+	}
 
-		root = Route.builder().name("@").build();
+	private synchronized void mappingUnregistered(RequestMappingInfo info) {
+		if (tree != null && tree.unregister(info)) {
+			publish();
+		}
+	}
 
-		for (Route r : routes) {
-			root.pushAsChild(r);
+	private boolean register(RequestMappingInfo info, HandlerMethod method) {
+		Class<?> beanType = method.getBeanType();
+		if (! isRouteType(beanType)) {
+			return false;
 		}
+
+		tree.register(info, beanType, translateNameToPath(beanType.getSimpleName()), extractor.extract(info, method));
+		return true;
 	}
 
+	private boolean isRouteType(Class<?> beanType) {
+		return ! AbstractRoutesGenerator.class.isAssignableFrom(beanType) && ! isExcludeType(beanType);
+	}
 
 	private String translateNameToPath(String name) {
 		if (name.startsWith(getPrefix())) {
@@ -141,68 +344,61 @@ public abstract class AbstractRoutesGenerator {
 		if (name.endsWith(getSuffix())) {
 			name = name.substring(0, name.lastIndexOf(getSuffix()));
 		}
-		char[] chars = name.toCharArray();
-		StringBuilder builder = new StringBuilder();
-		for (char c : chars) {
-			if (isUp(c)) {
-				builder.append('/').append((char) (c + 32));
-			} else {
-				builder.append(c);
-			}
-		}
-		return builder.toString();
+		return NameTranslator.SLASH.translate(name);
 	}
 
-	private static boolean isLow(char c) {
-		return 'a' <= c && c <= 'z';
-	}
+	private interface Subscription {
 
-	private static boolean isUp(char c) {
-		return 'A' <= c && c <= 'Z';
+		/**
+		 * 停止监听
+		 */
+		void cancel();
 	}
 
 	/**
-	 * 根据已注册的路由信息表，构建与类对应的路由表
-	 * @return
+	 * 只在 domain-mapping 存在时加载，AbstractRoutesGenerator 自身不直接引用 DomainMappingHandler，
+	 * 因此 domain-mapping 不存在时也可以正常使用
 	 */
-	private Map<Class<?>, List<Map.Entry<RequestMappingInfo, HandlerMethod>>> getClassesMap() {
+	private static final class MappingChangeSubscription implements MappingChangeListener, Subscription {
 
-		Map<RequestMappingInfo, HandlerMethod> handlerMethodMap = handlerMapping.getHandlerMethods();
-		Map<Class<?>, List<Map.Entry<RequestMappingInfo, HandlerMethod>>> classesMap = new HashMap<>();
-		List<Map.Entry<RequestMappingInfo, HandlerMethod>> list;
-		Class<?> beanType;
+		private final AbstractRoutesGenerator generator;
 
-		for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMethodMap.entrySet()) {
-			beanType = getHandlerBeanType(entry);
-			if (AbstractRoutesGenerator.class.isAssignableFrom(beanType) || isExcludeType(beanType)) {
-				continue;
-			}
-			list = classesMap.get(beanType);
-			if (list == null) {
-				list = new LinkedList<>();
-				classesMap.put(beanType, list);
-			}
-			list.add(entry);
+		private final DomainMappingHandler handlerMapping;
+
+		private MappingChangeSubscription(AbstractRoutesGenerator generator, DomainMappingHandler handlerMapping) {
+			this.generator = generator;
+			this.handlerMapping = handlerMapping;
 		}
 
-		return classesMap;
-	}
+		/**
+		 * @return handlerMapping 不是 DomainMappingHandler 时返回 null
+		 */
+		@Nullable
+		static MappingChangeSubscription subscribe(AbstractRoutesGenerator generator,
+		                                           RequestMappingHandlerMapping handlerMapping) {
+			if (! (handlerMapping instanceof DomainMappingHandler)) {
+				return null;
+			}
+			MappingChangeSubscription subscription =
+					new MappingChangeSubscription(generator, (DomainMappingHandler) handlerMapping);
+			subscription.handlerMapping.addMappingChangeListener(subscription);
+			return subscription;
+		}
 
-	private static List<Class<?>> getClassesBySort(Set<Class<?>> classes) {
-		List<Class<?>> list = new LinkedList<>(classes);
-		list.sort(new Comparator<Class<?>>() {
+		@Override
+		public void cancel() {
+			handlerMapping.removeMappingChangeListener(this);
+		}
 
-			@Override
-			public int compare (Class<?> o1, Class<?> o2) {
-				return o1.getSimpleName()
-				         .compareTo(o2.getSimpleName());
-			}
-		});
-		return list;
-	}
+		@Override
+		public void mappingRegistered (RequestMappingInfo mapping, HandlerMethod handlerMethod) {
+			generator.mappingRegistered(mapping, handlerMethod);
+		}
 
-	private static Class<?> getHandlerBeanType(Map.Entry<RequestMappingInfo, HandlerMethod> entry) {
-		return entry.getValue().getBeanType();
+		@Override
+		public void mappingUnregistered (RequestMappingInfo mapping) {
+			generator.mappingUnregistered(mapping);
+		}
 	}
 
 }
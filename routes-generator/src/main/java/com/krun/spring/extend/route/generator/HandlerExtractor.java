@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      HandlerExtractor.java
+ * Date:    26-10-18 下午5:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route.generator;
+
+import com.krun.spring.extend.route.Handler;
+import com.krun.spring.extend.route.convert.AbstractRequestConditionConverter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 由映射提取 Handler 信息，可以使用 fork-join 按 beanType 并行提取。
+ * <p>
+ * 提取结果按 beanType 的原有顺序保存，由调用方按顺序登记到路由树，因此生成的路由树与串行提取一致。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class HandlerExtractor {
+
+	/**
+	 * 单个任务最多处理的 beanType 数量，超过则继续拆分
+	 */
+	private static final int THRESHOLD = 8;
+
+	/**
+	 * 转换器不保存状态，可以被多个线程共用
+	 */
+	private final AbstractRequestConditionConverter[] converters = AbstractRequestConditionConverter.converters();
+
+	/**
+	 * 每个 pattern 生成一个 Handler
+	 */
+	List<Handler> extract (RequestMappingInfo info, HandlerMethod method) {
+		List<Handler> handlers = new ArrayList<>(info.getPatternsCondition().getPatterns().size());
+		for (String pattern : info.getPatternsCondition().getPatterns()) {
+			Handler handler = Handler.builder()
+			                         .url(pattern)
+			                         .name(method.getMethod().getName())
+			                         .build();
+
+			for (AbstractRequestConditionConverter converter : converters) {
+				converter.convert(info, handler);
+			}
+
+			handlers.add(handler);
+		}
+		return handlers;
+	}
+
+	/**
+	 * 提取每个 beanType 的 Handler，保存到 {@link TypeMappings#handlers}
+	 * @param parallelism 并行的线程数，为 1 时在当前线程内提取
+	 */
+	void extract (List<TypeMappings> types, int parallelism) {
+		if (parallelism == 1 || types.size() <= THRESHOLD) {
+			extract(types, 0, types.size());
+			return;
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new ExtractTask(types, 0, types.size()));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private void extract (List<TypeMappings> types, int from, int to) {
+		for (int i = from; i < to; i++) {
+			TypeMappings type = types.get(i);
+			type.handlers = new ArrayList<>(type.mappings.size());
+			for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : type.mappings) {
+				type.handlers.add(extract(entry.getKey(), entry.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * 同一个 beanType 的映射，按注册表中的顺序排列
+	 */
+	static class TypeMappings {
+
+		final Class<?> beanType;
+		final String path;
+		final List<Map.Entry<RequestMappingInfo, HandlerMethod>> mappings = new ArrayList<>();
+		/**
+		 * 与 mappings 一一对应
+		 */
+		List<List<Handler>> handlers;
+
+		TypeMappings (Class<?> beanType, String path) {
+			this.beanType = beanType;
+			this.path = path;
+		}
+	}
+
+	private class ExtractTask extends RecursiveAction {
+
+		private final List<TypeMappings> types;
+		private final int from;
+		private final int to;
+
+		private ExtractTask (List<TypeMappings> types, int from, int to) {
+			this.types = types;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute () {
+			if (to - from <= THRESHOLD) {
+				extract(types, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new ExtractTask(types, from, middle), new ExtractTask(types, middle, to));
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      BinaryRoutesTest.java
+ * Date:    26-10-18 下午11:20
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 将 {@link BinaryRoutes} 读取的路由树还原为 Route 后，应与筛选后的 JSON 路由树一致
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class BinaryRoutesTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private RoutesSnapshot snapshot;
+
+	@Before
+	public void setUp () {
+		RouteTree tree = new RouteTree(0);
+		register(tree, "/user", User.class,
+		         new Handler("list", "/user/list", new String[] { "GET" }, null, null, null, new String[] { "application/json" }),
+		         new Handler("detail", "/user/detail", new String[] { "GET", "POST" }, new String[] { "id" }, null, null, null),
+		         new Handler("list", "/user/list/all", new String[] { "GET" }, null, null, null, new String[] { "application/json" }));
+		register(tree, "/user/auth", UserAuth.class,
+		         new Handler("login", "/user/auth/login", new String[] { "POST" }, null,
+		                     new String[] { "X-Token" }, new String[] { "application/json" }, null));
+		register(tree, "/order/item", OrderItem.class,
+		         new Handler("find", "/order/item/{id}", null, new String[] { "q", null }, null, null, null),
+		         new Handler("root", "noSlash", new String[0], null, null, null, null),
+		         new Handler(null, null, null, null, null, null, null));
+		register(tree, "/名称", Unicode.class,
+		         new Handler("查询", "/名称/查询", new String[] { "GET" }, null, null, null, null),
+		         new Handler("emoji😀", "/名称/😀", null, null, null, null, null));
+		snapshot = tree.snapshot();
+	}
+
+	@Test
+	public void roundTrip () throws IOException {
+		Class[][] filters = {
+				{}, { User.class }, { UserAuth.class }, { OrderItem.class, Unicode.class }, { Object.class } };
+		for (Class[] filter : filters) {
+			BinaryRoutes routes = BinaryRoutes.wrap(ByteBuffer.wrap(write(filter)));
+			assertEquals(Arrays.toString(filter), snapshot.getRoutes(filter).getJson(), read(routes).toString());
+		}
+	}
+
+	@Test
+	public void roundTripFromMappedFile () throws IOException {
+		File file = folder.newFile("routes.bin");
+		try (OutputStream out = new FileOutputStream(file)) {
+			snapshot.writeBinaryTo(new Class[0], out);
+		}
+		assertEquals(snapshot.getRoutes(new Class[0]).getJson(), read(BinaryRoutes.map(file)).toString());
+	}
+
+	/**
+	 * 从缓冲区当前位置开始读取
+	 */
+	@Test
+	public void wrapsFromPosition () throws IOException {
+		byte[] bytes = write(new Class[0]);
+		ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 5);
+		buffer.position(5);
+		buffer.put(bytes);
+		buffer.position(5);
+		assertEquals(snapshot.getRoutes(new Class[0]).getJson(), read(BinaryRoutes.wrap(buffer)).toString());
+	}
+
+	@Test
+	public void findsWithoutDecoding () throws IOException {
+		BinaryRoutes routes = BinaryRoutes.wrap(ByteBuffer.wrap(write(new Class[0])));
+		assertEquals(routes.getRoot(), routes.find(""));
+		assertEquals(routes.getRoot(), routes.find("/"));
+		assertEquals("auth", routes.getName(routes.find("/user/auth")));
+		assertEquals("auth", routes.getName(routes.find("user/auth")));
+		assertEquals(routes.find("/user/auth"), routes.findChild(routes.find("/user"), "auth"));
+		assertEquals(-1, routes.find("/user/au"));
+		assertEquals(-1, routes.find("/user/auth/login"));
+		assertEquals(-1, routes.find("/missing"));
+		assertEquals("名称", routes.getName(routes.find("/名称")));
+
+		int user = routes.find("/user");
+		int list = routes.findHandler(user, "list");
+		assertEquals(routes.getHandler(user, 0), list);
+		assertEquals(-1, routes.findHandler(user, "lis"));
+		assertTrue(routes.urlEquals(list, "/user/list"));
+		assertFalse(routes.urlEquals(list, "/user/lis"));
+		assertFalse(routes.urlEquals(list, "/user/list/"));
+		assertFalse(routes.urlEquals(list, "/user"));
+		assertTrue(routes.allowsMethod(list, "GET"));
+		assertFalse(routes.allowsMethod(list, "POST"));
+		assertFalse(routes.allowsMethod(list, "GE"));
+
+		int unicode = routes.find("/名称");
+		int emoji = routes.findHandler(unicode, "emoji😀");
+		assertEquals("emoji😀", routes.getHandlerName(emoji));
+		assertTrue(routes.urlEquals(emoji, "/名称/😀"));
+		assertFalse(routes.urlEquals(emoji, "/名称/\ud83d"));
+		assertTrue(routes.allowsMethod(emoji, "DELETE"));
+
+		int item = routes.find("/order/item");
+		int noSlash = routes.findHandler(item, "root");
+		assertTrue(routes.urlEquals(noSlash, "noSlash"));
+		assertFalse(routes.allowsMethod(noSlash, "GET"));
+		assertFalse(routes.urlEquals(routes.getHandler(item, 2), ""));
+	}
+
+	/**
+	 * 名称、url 的两部分与数组中的字符串共用同一个字符串表，重复的字符串只保存一次
+	 */
+	@Test
+	public void sharesStrings () throws IOException {
+		BinaryRoutes routes = BinaryRoutes.wrap(ByteBuffer.wrap(write(new Class[] { User.class })));
+		/* @, user, list, /user/, GET, application/json, detail, POST, id, /user/list/, all */
+		assertEquals(11, routes.getStringCount());
+	}
+
+	private byte[] write (Class[] includeClasses) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.writeBinaryTo(includeClasses, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * 按 RoutesWriter 的规则还原：没有 Handler 或子路由时为 null
+	 */
+	private static Route read (BinaryRoutes routes) {
+		return read(routes, routes.getRoot());
+	}
+
+	private static Route read (BinaryRoutes routes, int route) {
+		List<Handler> handlers = null;
+		if (routes.getHandlerCount(route) > 0) {
+			handlers = new ArrayList<>();
+			for (int i = 0; i < routes.getHandlerCount(route); i++) {
+				int handler = routes.getHandler(route, i);
+				handlers.add(new Handler(routes.getHandlerName(handler), routes.getUrl(handler),
+				                         routes.getMethods(handler), routes.getParams(handler),
+				                         routes.getHeaders(handler), routes.getConsumes(handler),
+				                         routes.getProduces(handler)));
+			}
+		}
+		List<Route> children = null;
+		if (routes.getChildCount(route) > 0) {
+			children = new ArrayList<>();
+			for (int i = 0; i < routes.getChildCount(route); i++) {
+				children.add(read(routes, routes.getChild(route, i)));
+			}
+		}
+		return Route.builder().name(routes.getName(route)).handlers(handlers).routes(children).build();
+	}
+
+	private static void register (RouteTree tree, String path, Class<?> beanType, Handler... handlers) {
+		tree.register(RequestMappingInfo.paths(path).build(), beanType, path, Arrays.asList(handlers));
+	}
+
+	private static class User {
+	}
+
+	private static class UserAuth {
+	}
+
+	private static class OrderItem {
+	}
+
+	private static class Unicode {
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RouteTreeTest.java
+ * Date:    26-10-18 下午10:40
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * RouteTree 生成的路由树应与按类名排序后逐个 {@link Route#pushAsChild} 生成的路由树一致，
+ * 增量更新后的路由树应与按当前所有映射重新生成的路由树一致
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class RouteTreeTest {
+
+	/**
+	 * 按类名排序后先加入较深的路径，再加入其祖先路径与路径相同的类
+	 */
+	private static final Object[][] TYPES = {
+			{ A.class, "/order/item/detail" },
+			{ B.class, "/order" },
+			{ C.class, "/user/auth" },
+			{ D.class, "/order/item" },
+			{ E.class, "/user" },
+			{ F.class, "/report" },
+			{ G.class, "/order/item/detail" },
+			{ H.class, "/user/profile/avatar" },
+			{ I.class, "/order/history" } };
+
+	@Test
+	public void sameAsPushAsChild () {
+		RouteTree tree = new RouteTree(0);
+		/* 登记顺序与类名无关 */
+		List<Object[]> types = new ArrayList<>(Arrays.asList(TYPES));
+		Collections.reverse(types);
+		for (Object[] type : types) {
+			register(tree, (Class<?>) type[0], (String) type[1]);
+		}
+		assertEquals(pushAsChild(TYPES), tree.snapshot().getRoutes(new Class[0]).getJson());
+	}
+
+	@Test
+	public void sameAsPushAsChildForEachSubset () {
+		/* 每个子集对应一组 beanType，覆盖各种加入顺序 */
+		for (int mask = 1; mask < 1 << TYPES.length; mask += 7) {
+			List<Object[]> subset = new ArrayList<>();
+			RouteTree tree = new RouteTree(0);
+			for (int i = 0; i < TYPES.length; i++) {
+				if ((mask & 1 << i) != 0) {
+					subset.add(TYPES[i]);
+					register(tree, (Class<?>) TYPES[i][0], (String) TYPES[i][1]);
+				}
+			}
+			assertEquals("mask=" + mask, pushAsChild(subset.toArray(new Object[0][])),
+			             tree.snapshot().getRoutes(new Class[0]).getJson());
+		}
+	}
+
+	/**
+	 * 按段匹配路径，与 pushAsChild 按字符串前缀匹配不同
+	 */
+	@Test
+	public void matchesWholeSegments () {
+		RouteTree tree = new RouteTree(0);
+		register(tree, A.class, "/user");
+		register(tree, B.class, "/username");
+		Route root = tree.snapshot().root;
+		assertEquals(2, root.routes.size());
+		assertEquals("user", root.routes.get(0).name);
+		assertEquals("username", root.routes.get(1).name);
+		assertEquals(null, root.routes.get(1).routes);
+	}
+
+	@Test
+	public void updatesSameAsRebuild () {
+		RouteTree tree = new RouteTree(0);
+		for (Object[] type : TYPES) {
+			register(tree, (Class<?>) type[0], (String) type[1]);
+		}
+		RoutesSnapshot first = tree.snapshot();
+		assertSame(first, tree.snapshot());
+
+		/* 移除一个 beanType 的所有映射，并为另一个 beanType 增加映射 */
+		assertEquals(true, tree.unregister(mapping(D.class, 0)));
+		assertEquals(true, tree.unregister(mapping(D.class, 1)));
+		assertEquals(false, tree.unregister(mapping(D.class, 1)));
+		tree.register(mapping(C.class, 2), C.class, "/user/auth", handlers(C.class, 2));
+		RoutesSnapshot second = tree.snapshot();
+
+		RouteTree rebuilt = new RouteTree(0);
+		for (Object[] type : TYPES) {
+			if (type[0] != D.class) {
+				register(rebuilt, (Class<?>) type[0], (String) type[1]);
+			}
+		}
+		rebuilt.register(mapping(C.class, 2), C.class, "/user/auth", handlers(C.class, 2));
+		RoutesSnapshot expected = rebuilt.snapshot();
+
+		assertEquals(expected.getRoutes(new Class[0]).getJson(), second.getRoutes(new Class[0]).getJson());
+		assertEquals(expected.getHash(), second.getHash());
+		assertEquals(expected.getRoutes(new Class[] { C.class, H.class }).getJson(),
+		             second.getRoutes(new Class[] { C.class, H.class }).getJson());
+
+		/* 没有变化的一级子路由与上一个快照共用 */
+		assertNotSame(first.root.routes.get(0), second.root.routes.get(0));
+		assertNotSame(first.root.routes.get(1), second.root.routes.get(1));
+		assertEquals("report", second.root.routes.get(2).name);
+		assertSame(first.root.routes.get(2), second.root.routes.get(2));
+	}
+
+	/**
+	 * 与修改前的 AbstractRoutesGenerator 一致：按类名排序后逐个加入，构造完毕后 clean
+	 */
+	private static String pushAsChild (Object[][] types) {
+		Object[][] sorted = types.clone();
+		Arrays.sort(sorted, new Comparator<Object[]>() {
+
+			@Override
+			public int compare (Object[] o1, Object[] o2) {
+				return ((Class<?>) o1[0]).getSimpleName().compareTo(((Class<?>) o2[0]).getSimpleName());
+			}
+		});
+		Route root = Route.builder().name("@").build();
+		for (Object[] type : sorted) {
+			List<Class<?>> beanTypes = new LinkedList<>();
+			beanTypes.add((Class<?>) type[0]);
+			List<Handler> handlers = new LinkedList<>();
+			for (int i = 0; i < 2; i++) {
+				handlers.addAll(handlers((Class<?>) type[0], i));
+			}
+			root.pushAsChild(Route.builder().path((String) type[1]).beanTypes(beanTypes).handlers(handlers).build());
+		}
+		root.clean();
+
+		Route route = Route.builder().name("@").routes(root.getRoutes(new Class[0])).build();
+		route.clean();
+		return route.toString();
+	}
+
+	/**
+	 * 每个 beanType 登记两个映射
+	 */
+	private static void register (RouteTree tree, Class<?> beanType, String path) {
+		for (int i = 0; i < 2; i++) {
+			tree.register(mapping(beanType, i), beanType, path, handlers(beanType, i));
+		}
+	}
+
+	private static RequestMappingInfo mapping (Class<?> beanType, int index) {
+		return RequestMappingInfo.paths("/" + beanType.getSimpleName() + "/" + index).build();
+	}
+
+	private static List<Handler> handlers (Class<?> beanType, int index) {
+		String name = beanType.getSimpleName().toLowerCase() + index;
+		return Collections.singletonList(Handler.builder().name(name).url("/" + name).methods(new String[] { "GET" }).build());
+	}
+
+	private static class A {
+	}
+
+	private static class B {
+	}
+
+	private static class C {
+	}
+
+	private static class D {
+	}
+
+	private static class E {
+	}
+
+	private static class F {
+	}
+
+	private static class G {
+	}
+
+	private static class H {
+	}
+
+	private static class I {
+	}
+}
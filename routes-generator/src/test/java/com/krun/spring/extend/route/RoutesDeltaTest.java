@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesDeltaTest.java
+ * Date:    26-10-18 下午8:30
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 快照的版本号与哈希值，以及相对于之前版本的增量
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class RoutesDeltaTest {
+
+	private RouteTree tree;
+
+	@Before
+	public void setUp () {
+		tree = new RouteTree(4, 2);
+		register(tree, A.class, "/order");
+		register(tree, B.class, "/order/item");
+		register(tree, C.class, "/user");
+	}
+
+	@Test
+	public void versionAndHash () {
+		RoutesSnapshot first = tree.snapshot();
+		assertTrue(first.getHash().matches("[0-9a-f]{16}"));
+
+		tree.register(mapping(C.class, 2), C.class, "/user", handlers(C.class, 2, "GET"));
+		RoutesSnapshot second = tree.snapshot();
+		assertEquals(first.getVersion() + 1, second.getVersion());
+		assertNotEquals(first.getHash(), second.getHash());
+
+		/* 恢复原有的内容后哈希值相同，版本号继续递增 */
+		tree.unregister(mapping(C.class, 2));
+		RoutesSnapshot third = tree.snapshot();
+		assertEquals(second.getVersion() + 1, third.getVersion());
+		assertEquals(first.getHash(), third.getHash());
+
+		/* 内容相同的路由树哈希值相同，与登记顺序无关 */
+		RouteTree other = new RouteTree(0);
+		register(other, C.class, "/user");
+		register(other, B.class, "/order/item");
+		register(other, A.class, "/order");
+		assertEquals(first.getHash(), other.snapshot().getHash());
+	}
+
+	@Test
+	public void addedRemovedAndChanged () {
+		RoutesSnapshot first = tree.snapshot();
+		tree.unregister(mapping(B.class, 0));
+		tree.unregister(mapping(B.class, 1));
+		register(tree, D.class, "/report/daily");
+		tree.register(mapping(C.class, 2), C.class, "/user", handlers(C.class, 2, "GET"));
+		RoutesSnapshot second = tree.snapshot();
+
+		JSONObject delta = JSON.parseObject(second.getDelta(first.getVersion()).getJson());
+		assertEquals(false, delta.getBooleanValue("full"));
+		assertEquals(first.getVersion(), delta.getLongValue("from"));
+		assertEquals(second.getVersion(), delta.getLongValue("version"));
+		assertEquals(second.getHash(), delta.getString("hash"));
+
+		JSONArray changes = delta.getJSONArray("changes");
+		assertEquals(4, changes.size());
+		assertChange(changes.getJSONObject(0), "removed", "/order/item");
+		assertNull(changes.getJSONObject(0).get("added"));
+
+		assertChange(changes.getJSONObject(1), "changed", "/user");
+		assertEquals(names("c2"), names(changes.getJSONObject(1).getJSONArray("added")));
+		assertNull(changes.getJSONObject(1).get("removed"));
+
+		/* 新增的子树中每个路由单独列出 */
+		assertChange(changes.getJSONObject(2), "added", "/report");
+		assertNull(changes.getJSONObject(2).get("added"));
+		assertChange(changes.getJSONObject(3), "added", "/report/daily");
+		assertEquals(names("d0", "d1"), names(changes.getJSONObject(3).getJSONArray("added")));
+	}
+
+	@Test
+	public void changedHandlerAttributes () {
+		RoutesSnapshot first = tree.snapshot();
+		tree.register(mapping(C.class, 0), C.class, "/user", handlers(C.class, 0, "POST"));
+		RoutesSnapshot second = tree.snapshot();
+
+		JSONArray changes = JSON.parseObject(second.getDelta(first.getVersion()).getJson()).getJSONArray("changes");
+		assertEquals(1, changes.size());
+		JSONObject change = changes.getJSONObject(0);
+		assertChange(change, "changed", "/user");
+		assertEquals("POST", change.getJSONArray("added").getJSONObject(0).getJSONArray("methods").getString(0));
+		assertEquals("GET", change.getJSONArray("removed").getJSONObject(0).getJSONArray("methods").getString(0));
+	}
+
+	@Test
+	public void emptyForCurrentVersion () {
+		RoutesSnapshot snapshot = tree.snapshot();
+		JSONObject delta = JSON.parseObject(snapshot.getDelta(snapshot.getVersion()).getJson());
+		assertFalse(delta.getBooleanValue("full"));
+		assertEquals(snapshot.getVersion(), delta.getLongValue("from"));
+		assertEquals(0, delta.getJSONArray("changes").size());
+	}
+
+	@Test
+	public void fullOutsideHistory () {
+		RoutesSnapshot first = tree.snapshot();
+		for (int i = 2; i < 5; i++) {
+			tree.register(mapping(C.class, i), C.class, "/user", handlers(C.class, i, "GET"));
+			tree.snapshot();
+		}
+		RoutesSnapshot last = tree.snapshot();
+
+		/* 只保留之前的两个版本 */
+		assertEquals(2, last.history.size());
+		assertFull(last, last.getDelta(first.getVersion()));
+		assertFull(last, last.getDelta(first.getVersion() - 1000));
+		assertFalse(JSON.parseObject(last.getDelta(last.getVersion() - 2).getJson()).getBooleanValue("full"));
+		assertEquals(1, JSON.parseObject(last.getDelta(last.getVersion() - 1).getJson())
+		                    .getJSONArray("changes").size());
+	}
+
+	@Test
+	public void fullWithoutHistory () {
+		RouteTree tree = new RouteTree(0, 0);
+		register(tree, A.class, "/order");
+		RoutesSnapshot first = tree.snapshot();
+		register(tree, C.class, "/user");
+		RoutesSnapshot second = tree.snapshot();
+
+		assertTrue(second.history.isEmpty());
+		assertFull(second, second.getDelta(first.getVersion()));
+		assertFalse(JSON.parseObject(second.getDelta(second.getVersion()).getJson()).getBooleanValue("full"));
+	}
+
+	@Test
+	public void cachesDeltas () {
+		RoutesSnapshot first = tree.snapshot();
+		register(tree, D.class, "/report");
+		RoutesSnapshot second = tree.snapshot();
+
+		assertSame(second.getDelta(first.getVersion()), second.getDelta(first.getVersion()));
+		assertSame(second.getDelta(second.getVersion()), second.getDelta(second.getVersion()));
+		/* 不在历史中的版本共用同一个完整的路由树 */
+		assertSame(second.getDelta(0), second.getDelta(1));
+	}
+
+	private static void assertFull (RoutesSnapshot snapshot, SerializedRoutes delta) {
+		assertTrue(delta.getJson().startsWith("{\"full\":true,"));
+		JSONObject json = JSON.parseObject(delta.getJson());
+		assertTrue(json.getBooleanValue("full"));
+		assertEquals(snapshot.getVersion(), json.getLongValue("version"));
+		assertEquals(snapshot.getHash(), json.getString("hash"));
+		assertEquals(JSON.parseObject(snapshot.getRoutes(new Class[0]).getJson()), json.getJSONObject("root"));
+	}
+
+	private static void assertChange (JSONObject change, String type, String path) {
+		assertEquals(type, change.getString("type"));
+		assertEquals(path, change.getString("path"));
+	}
+
+	private static List<String> names (String... names) {
+		return Arrays.asList(names);
+	}
+
+	private static List<String> names (JSONArray handlers) {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < handlers.size(); i++) {
+			names.add(handlers.getJSONObject(i).getString("name"));
+		}
+		return names;
+	}
+
+	/**
+	 * 每个 beanType 登记两个映射
+	 */
+	private static void register (RouteTree tree, Class<?> beanType, String path) {
+		for (int i = 0; i < 2; i++) {
+			tree.register(mapping(beanType, i), beanType, path, handlers(beanType, i, "GET"));
+		}
+	}
+
+	private static RequestMappingInfo mapping (Class<?> beanType, int index) {
+		return RequestMappingInfo.paths("/" + beanType.getSimpleName() + "/" + index).build();
+	}
+
+	private static List<Handler> handlers (Class<?> beanType, int index, String method) {
+		String name = beanType.getSimpleName().toLowerCase() + index;
+		return Collections.singletonList(Handler.builder().name(name).url("/" + name).methods(new String[] { method }).build());
+	}
+
+	private static class A {
+	}
+
+	private static class B {
+	}
+
+	private static class C {
+	}
+
+	private static class D {
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesSnapshotTest.java
+ * Date:    26-10-18 下午7:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 快照的序列化结果按 includeClasses 缓存，ETag 与 If-None-Match 的匹配
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class RoutesSnapshotTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private RouteTree tree;
+
+	@Before
+	public void setUp () {
+		tree = new RouteTree(2);
+		register(tree, A.class, "/order");
+		register(tree, B.class, "/order/item");
+		register(tree, C.class, "/user");
+	}
+
+	@Test
+	public void sameSnapshotWhenUnchanged () {
+		RoutesSnapshot snapshot = tree.snapshot();
+		assertSame(snapshot, tree.snapshot());
+		assertSame(snapshot.getRoutes(new Class[0]), snapshot.getRoutes(new Class[0]));
+
+		tree.register(mapping(C.class, 2), C.class, "/user", handlers(C.class, 2));
+		assertNotSame(snapshot, tree.snapshot());
+	}
+
+	@Test
+	public void cachesIgnoringOrderAndDuplicates () {
+		RoutesSnapshot snapshot = tree.snapshot();
+		SerializedRoutes routes = snapshot.getRoutes(new Class[] { A.class, C.class });
+		assertSame(routes, snapshot.getRoutes(new Class[] { C.class, A.class }));
+		assertSame(routes, snapshot.getRoutes(new Class[] { C.class, A.class, C.class }));
+		/* 路由树中没有的类不影响结果 */
+		assertSame(routes, snapshot.getRoutes(new Class[] { A.class, D.class, C.class }));
+
+		assertNotEquals(routes.getJson(), snapshot.getRoutes(new Class[] { A.class }).getJson());
+		assertEquals(snapshot.getRoutes(new Class[0]).getJson(),
+		             snapshot.getRoutes(new Class[] { A.class, B.class, C.class }).getJson());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed () {
+		RoutesSnapshot snapshot = tree.snapshot();
+		SerializedRoutes a = snapshot.getRoutes(new Class[] { A.class });
+		SerializedRoutes b = snapshot.getRoutes(new Class[] { B.class });
+		assertSame(a, snapshot.getRoutes(new Class[] { A.class }));
+
+		/* 容量为 2，淘汰最久未使用的 B */
+		snapshot.getRoutes(new Class[] { C.class });
+		assertSame(a, snapshot.getRoutes(new Class[] { A.class }));
+		SerializedRoutes reloaded = snapshot.getRoutes(new Class[] { B.class });
+		assertNotSame(b, reloaded);
+		assertEquals(b.getJson(), reloaded.getJson());
+		assertEquals(b.getEtag(), reloaded.getEtag());
+	}
+
+	@Test
+	public void doesNotCacheWhenSizeIsZero () {
+		RouteTree tree = new RouteTree(0);
+		register(tree, A.class, "/order");
+		RoutesSnapshot snapshot = tree.snapshot();
+		assertNotSame(snapshot.getRoutes(new Class[] { A.class }), snapshot.getRoutes(new Class[] { A.class }));
+		/* 未筛选的路由树不受容量限制 */
+		assertSame(snapshot.getRoutes(new Class[0]), snapshot.getRoutes(new Class[0]));
+	}
+
+	@Test
+	public void matchesEtag () {
+		SerializedRoutes routes = tree.snapshot().getRoutes(new Class[0]);
+		String etag = routes.getEtag();
+		assertTrue(etag.matches("\"0[0-9a-f]{32}\""));
+		assertArrayEquals(routes.getJson().getBytes(UTF_8), routes.getBytes());
+
+		assertTrue(routes.matches(etag));
+		assertTrue(routes.matches("W/" + etag));
+		assertTrue(routes.matches("\"other\", " + etag));
+		assertTrue(routes.matches("*"));
+		assertFalse(routes.matches(null));
+		assertFalse(routes.matches(""));
+		assertFalse(routes.matches("\"other\""));
+		assertFalse(routes.matches(etag.substring(1, etag.length() - 1)));
+
+		/* 内容不同时 ETag 不同 */
+		SerializedRoutes filtered = tree.snapshot().getRoutes(new Class[] { A.class });
+		assertNotEquals(etag, filtered.getEtag());
+		assertFalse(filtered.matches(etag));
+	}
+
+	@Test
+	public void writesSameAsGetRoutes () throws Exception {
+		RoutesSnapshot snapshot = tree.snapshot();
+		Class[][] includes = { new Class[0], new Class[] { A.class }, new Class[] { B.class, C.class } };
+		for (Class[] include : includes) {
+			String expected = snapshot.getRoutes(include).getJson();
+
+			StringWriter writer = new StringWriter();
+			snapshot.writeTo(include, writer);
+			assertEquals(expected, writer.toString());
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			snapshot.writeTo(include, out, false);
+			assertEquals(expected, new String(out.toByteArray(), UTF_8));
+
+			out = new ByteArrayOutputStream();
+			snapshot.writeTo(include, out, true);
+			GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()));
+			assertEquals(expected, StreamUtils.copyToString(in, UTF_8));
+		}
+	}
+
+	/**
+	 * 每个 beanType 登记两个映射
+	 */
+	private static void register (RouteTree tree, Class<?> beanType, String path) {
+		for (int i = 0; i < 2; i++) {
+			tree.register(mapping(beanType, i), beanType, path, handlers(beanType, i));
+		}
+	}
+
+	private static RequestMappingInfo mapping (Class<?> beanType, int index) {
+		return RequestMappingInfo.paths("/" + beanType.getSimpleName() + "/" + index).build();
+	}
+
+	private static List<Handler> handlers (Class<?> beanType, int index) {
+		String name = beanType.getSimpleName().toLowerCase() + index;
+		return Collections.singletonList(Handler.builder().name(name).url("/" + name).methods(new String[] { "GET" }).build());
+	}
+
+	private static class A {
+	}
+
+	private static class B {
+	}
+
+	private static class C {
+	}
+
+	private static class D {
+	}
+}
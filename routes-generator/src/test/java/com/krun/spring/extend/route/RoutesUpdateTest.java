@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesUpdateTest.java
+ * Date:    26-10-18 下午7:30
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import com.krun.spring.extend.route.generator.AbstractRoutesGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DomainMappingHandler 注册或移除映射后，路由树以新的快照发布，之前的快照不受影响，没有变化的一级子路由被共用
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class RoutesUpdateTest {
+
+	private static final RequestMappingInfo EXTRA =
+			RequestMappingInfo.paths("/demo-order/extra").methods(RequestMethod.GET).build();
+
+	private StaticApplicationContext context;
+
+	private DomainMappingHandler handlerMapping;
+
+	private RoutesGenerator generator;
+
+	@Before
+	public void setUp () {
+		context = new StaticApplicationContext();
+		AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+		context.registerSingleton("handlerMapping", DemoDomainMappingHandler.class);
+		context.registerSingleton("demoOrderController", DemoOrderController.class);
+		context.registerSingleton("demoUserController", DemoUserController.class);
+		context.registerSingleton("demoAuditController", DemoAuditController.class);
+		context.registerSingleton("routesGenerator", RoutesGenerator.class);
+		context.refresh();
+		handlerMapping = context.getBean(DomainMappingHandler.class);
+		generator = context.getBean(RoutesGenerator.class);
+	}
+
+	@After
+	public void tearDown () {
+		context.close();
+	}
+
+	@Test
+	public void publishesSnapshotOnRegister () throws Exception {
+		RoutesSnapshot first = generator.snapshot();
+		String json = write(first);
+		assertFalse(json.contains("/demo-order/extra"));
+
+		handlerMapping.registerMapping(EXTRA, context.getBean(DemoOrderController.class),
+		                               DemoOrderController.class.getMethod("list"));
+
+		RoutesSnapshot second = generator.snapshot();
+		assertNotSame(first, second);
+		assertEquals(first.getVersion() + 1, second.getVersion());
+		assertTrue(second.getRoutes(new Class[0]).getJson().contains("/demo-order/extra"));
+		/* 之前的快照不受影响 */
+		assertEquals(json, write(first));
+
+		/* 只有变化的 beanType 所在的一级子路由被重新构造 */
+		assertNotSame(child(first, "order"), child(second, "order"));
+		assertSame(child(first, "user"), child(second, "user"));
+	}
+
+	@Test
+	public void publishesSnapshotOnUnregister () throws Exception {
+		handlerMapping.registerMapping(EXTRA, context.getBean(DemoOrderController.class),
+		                               DemoOrderController.class.getMethod("list"));
+		RoutesSnapshot first = generator.snapshot();
+		String json = write(first);
+
+		handlerMapping.unregisterMapping(EXTRA);
+
+		RoutesSnapshot second = generator.snapshot();
+		assertNotSame(first, second);
+		assertFalse(second.getRoutes(new Class[0]).getJson().contains("/demo-order/extra"));
+		assertEquals(json, write(first));
+		assertSame(child(first, "user"), child(second, "user"));
+	}
+
+	@Test
+	public void ignoresExcludedTypes () throws Exception {
+		RoutesSnapshot first = generator.snapshot();
+		assertFalse(first.getRoutes(new Class[0]).getJson().contains("/demo-audit"));
+
+		handlerMapping.registerMapping(RequestMappingInfo.paths("/demo-audit/extra").build(),
+		                               context.getBean(DemoAuditController.class),
+		                               DemoAuditController.class.getMethod("list"));
+		assertSame(first, generator.snapshot());
+	}
+
+	@Test
+	public void stopsListeningAfterDestroy () throws Exception {
+		RoutesSnapshot first = generator.snapshot();
+		generator.destroy();
+
+		handlerMapping.registerMapping(EXTRA, context.getBean(DemoOrderController.class),
+		                               DemoOrderController.class.getMethod("list"));
+		assertSame(first, generator.snapshot());
+	}
+
+	/**
+	 * 重新序列化快照内的路由树，不经过缓存
+	 */
+	private static String write (RoutesSnapshot snapshot) throws Exception {
+		StringWriter writer = new StringWriter();
+		snapshot.writeTo(new Class[0], writer);
+		return writer.toString();
+	}
+
+	private static Route child (RoutesSnapshot snapshot, String name) {
+		for (Route route : snapshot.root.routes) {
+			if (route.name.equals(name)) {
+				return route;
+			}
+		}
+		throw new AssertionError("No route named " + name);
+	}
+
+	public static class RoutesGenerator extends AbstractRoutesGenerator {
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected boolean isExcludeType (Class<?> beanType) {
+			return beanType == DemoAuditController.class;
+		}
+
+		RoutesSnapshot snapshot () {
+			return getSnapshot();
+		}
+	}
+
+	public static class DemoDomainMappingHandler extends DomainMappingHandler {
+
+		public DemoDomainMappingHandler () {
+			super(new NameResolver());
+		}
+	}
+
+	static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+	}
+
+	@RestDomainMapping
+	public static class DemoOrderController {
+
+		public String list () {
+			return "list";
+		}
+	}
+
+	@RestDomainMapping
+	public static class DemoUserController {
+
+		public String profile () {
+			return "profile";
+		}
+	}
+
+	@RestDomainMapping
+	public static class DemoAuditController {
+
+		public String list () {
+			return "list";
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      RoutesWriterTest.java
+ * Date:    26-10-18 下午10:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * RoutesWriter 的输出应与 fastjson 序列化同一棵路由树的结果 ({@link Route#toString()}) 完全一致，
+ * 筛选后的输出应与 {@link Route#getRoutes(Class[])} 筛选后再序列化的结果一致
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class RoutesWriterTest {
+
+	private RoutesSnapshot snapshot;
+
+	@Before
+	public void setUp () {
+		RouteTree tree = new RouteTree(4);
+		register(tree, "/user", User.class,
+		         handler("list", "/user/list", new String[] { "GET" }, null, null, null, new String[] { "application/json" }),
+		         handler("detail", "/user/detail", new String[] { "GET", "POST" }, new String[] { "id" }, null, null, null));
+		register(tree, "/user/auth", UserAuth.class,
+		         handler("login", "/user/auth/login", new String[] { "POST" }, null,
+		                 new String[] { "X-Token=\"a\\b\"" }, new String[] { "application/json" }, null));
+		register(tree, "/order/item", OrderItem.class,
+		         handler("find", "/order/item/{id}", null, new String[] { "q!=\t\n\r\b\f", null }, null, null, null));
+		register(tree, "/名称", Unicode.class,
+		         handler("查询\u2028\u2029\u007f\u0085\u0001", "/名称/查询", null, null, null, null, null),
+		         handler("emoji😀", "/名称/emoji", new String[0], null, null, null, null));
+		register(tree, "/empty", Empty.class, new Handler());
+		snapshot = tree.snapshot();
+	}
+
+	@Test
+	public void writesSameJsonAsToString () throws IOException {
+		String expected = snapshot.root.toString();
+		assertEquals(expected, snapshot.getRoutes(new Class[0]).getJson());
+		assertEquals(expected, write(new Class[0]));
+	}
+
+	@Test
+	public void writesSameJsonAsFilteredRoutes () throws IOException {
+		Class[][] filters = {
+				{ User.class }, { UserAuth.class }, { OrderItem.class, Unicode.class },
+				{ UserAuth.class, Empty.class, User.class }, { Object.class } };
+		for (Class[] filter : filters) {
+			String expected = filtered(filter);
+			assertEquals(Arrays.toString(filter), expected, snapshot.getRoutes(filter).getJson());
+			assertEquals(Arrays.toString(filter), expected, write(filter));
+		}
+	}
+
+	@Test
+	public void writesSameJsonToOutputStream () throws IOException {
+		Class[] filter = { Unicode.class, User.class };
+		String expected = filtered(filter);
+
+		ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		snapshot.writeTo(filter, plain, false);
+		assertEquals(expected, read(new ByteArrayInputStream(plain.toByteArray())));
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		snapshot.writeTo(filter, compressed, true);
+		assertEquals(expected, read(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))));
+	}
+
+	/**
+	 * 超出缓冲区大小的字符串与路由树
+	 */
+	@Test
+	public void writesLargeTrees () throws IOException {
+		RouteTree tree = new RouteTree(0);
+		char[] chars = new char[10000];
+		Arrays.fill(chars, 'x');
+		String large = new String(chars);
+		register(tree, "/user", User.class, handler(large, "/user/" + large, null, null, null, null, null));
+		for (int i = 0; i < 500; i++) {
+			Handler handler = handler("h" + i, "/user/auth/h" + i, new String[] { "GET" }, null, null, null, null);
+			tree.register(RequestMappingInfo.paths("/user/auth/h" + i).build(), UserAuth.class, "/user/auth",
+			              Collections.singletonList(handler));
+		}
+		snapshot = tree.snapshot();
+		assertEquals(snapshot.root.toString(), write(new Class[0]));
+		assertEquals(filtered(new Class[] { UserAuth.class }), write(new Class[] { UserAuth.class }));
+	}
+
+	/**
+	 * 与修改前的 AbstractRoutesGenerator.getRoutes 一致，筛选后再序列化
+	 */
+	private String filtered (Class[] includeClasses) {
+		Route route = Route.builder().name("@").routes(snapshot.root.getRoutes(includeClasses)).build();
+		route.clean();
+		return route.toString();
+	}
+
+	private String write (Class[] includeClasses) throws IOException {
+		StringWriter writer = new StringWriter();
+		snapshot.writeTo(includeClasses, writer);
+		return writer.toString();
+	}
+
+	private static String read (InputStream in) throws IOException {
+		Reader reader = new InputStreamReader(in, "UTF-8");
+		StringBuilder builder = new StringBuilder();
+		char[] buffer = new char[1024];
+		int count;
+		while ((count = reader.read(buffer)) >= 0) {
+			builder.append(buffer, 0, count);
+		}
+		return builder.toString();
+	}
+
+	private static void register (RouteTree tree, String path, Class<?> beanType, Handler... handlers) {
+		tree.register(RequestMappingInfo.paths(path).methods(RequestMethod.GET).build(), beanType, path,
+		              Arrays.asList(handlers));
+	}
+
+	private static Handler handler (String name, String url, String[] methods, String[] params, String[] headers,
+	                                String[] consumes, String[] produces) {
+		return new Handler(name, url, methods, params, headers, consumes, produces);
+	}
+
+	private static class User {
+	}
+
+	private static class UserAuth {
+	}
+
+	private static class OrderItem {
+	}
+
+	private static class Unicode {
+	}
+
+	private static class Empty {
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      TypeIdSetTest.java
+ * Date:    26-10-18 下午7:50
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TypeIdSet 只保存第一个编号所在的字之后的部分，求交与比较时应与 BitSet 的结果一致
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class TypeIdSetTest {
+
+	@Test
+	public void emptySet () {
+		assertSame(TypeIdSet.EMPTY, TypeIdSet.of(new BitSet()));
+		assertFalse(TypeIdSet.EMPTY.intersects(TypeIdSet.EMPTY));
+		assertFalse(TypeIdSet.EMPTY.intersects(of(0, 63, 64)));
+		assertFalse(of(0, 63, 64).intersects(TypeIdSet.EMPTY));
+	}
+
+	@Test
+	public void intersectsAcrossOffsets () {
+		assertTrue(of(1).intersects(of(1)));
+		assertFalse(of(1).intersects(of(2)));
+		/* 编号位于不同的字 */
+		assertTrue(of(3, 200).intersects(of(200)));
+		assertTrue(of(200).intersects(of(3, 200)));
+		assertFalse(of(3, 201).intersects(of(200, 202)));
+		assertFalse(of(3).intersects(of(200)));
+		assertFalse(of(200).intersects(of(3)));
+		/* 字的边界 */
+		assertTrue(of(63, 64).intersects(of(64)));
+		assertFalse(of(63).intersects(of(64)));
+		assertFalse(of(0, 127).intersects(of(64, 126)));
+	}
+
+	@Test
+	public void intersectsSameAsBitSet () {
+		int[][] sets = { {}, { 0 }, { 63 }, { 64 }, { 0, 64 }, { 5, 130 }, { 130 }, { 63, 128, 191 }, { 192 }, { 1, 2, 3 } };
+		for (int[] a : sets) {
+			for (int[] b : sets) {
+				BitSet expected = bits(a);
+				assertEquals(expected.intersects(bits(b)), of(a).intersects(of(b)));
+			}
+		}
+	}
+
+	@Test
+	public void equalsByContent () {
+		assertEquals(of(3, 200), of(200, 3));
+		assertEquals(of(3, 200).hashCode(), of(200, 3).hashCode());
+		assertEquals(of(70), of(70));
+		assertNotEquals(of(3, 200), of(3));
+		assertNotEquals(of(6), of(70));
+		assertNotEquals(of(64), of(128));
+		assertNotEquals(TypeIdSet.EMPTY, of(0));
+
+		/* BitSet 中被清除的高位不影响结果 */
+		BitSet bits = bits(3, 500);
+		bits.clear(500);
+		assertEquals(of(3), TypeIdSet.of(bits));
+		assertEquals(of(3).hashCode(), TypeIdSet.of(bits).hashCode());
+	}
+
+	@Test
+	public void copiesBits () {
+		BitSet bits = bits(3);
+		TypeIdSet set = TypeIdSet.of(bits);
+		bits.set(4);
+		assertFalse(set.intersects(of(4)));
+	}
+
+	private static TypeIdSet of (int... ids) {
+		return TypeIdSet.of(bits(ids));
+	}
+
+	private static BitSet bits (int... ids) {
+		BitSet bits = new BitSet();
+		for (int id : ids) {
+			bits.set(id);
+		}
+		return bits;
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      HandlerExtractorTest.java
+ * Date:    26-10-18 下午8:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route.generator;
+
+import com.krun.spring.extend.route.Handler;
+import com.krun.spring.extend.route.generator.HandlerExtractor.TypeMappings;
+import org.junit.Test;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 每个 pattern 生成一个 Handler，各转换器将对应的条件设置到 Handler；并行提取的结果应与串行提取一致
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class HandlerExtractorTest {
+
+	private final HandlerExtractor extractor = new HandlerExtractor();
+
+	@Test
+	public void convertsConditions () throws Exception {
+		RequestMappingInfo info = RequestMappingInfo.paths("/order/list", "/order/all")
+		                                            .methods(RequestMethod.GET, RequestMethod.POST)
+		                                            .params("id", "!debug")
+		                                            .headers("X-Token=a")
+		                                            .consumes("application/json")
+		                                            .produces("text/plain", "application/xml")
+		                                            .build();
+		List<Handler> handlers = extractor.extract(info, handlerMethod("list"));
+
+		assertEquals(2, handlers.size());
+		assertEquals(set("/order/all", "/order/list"), set(handlers.get(0).getUrl(), handlers.get(1).getUrl()));
+		for (Handler handler : handlers) {
+			assertEquals("list", handler.getName());
+			assertEquals(set("GET", "POST"), set(handler.getMethods()));
+			/* 只保留条件的名称 */
+			assertEquals(set("debug", "id"), set(handler.getParams()));
+			assertEquals(set("X-Token"), set(handler.getHeaders()));
+			assertEquals(set("application/json"), set(handler.getConsumes()));
+			assertEquals(set("application/xml", "text/plain"), set(handler.getProduces()));
+		}
+	}
+
+	@Test
+	public void leavesEmptyConditionsNull () throws Exception {
+		List<Handler> handlers = extractor.extract(RequestMappingInfo.paths("/order/list").build(), handlerMethod("list"));
+
+		assertEquals(1, handlers.size());
+		Handler handler = handlers.get(0);
+		assertEquals("/order/list", handler.getUrl());
+		assertNull(handler.getMethods());
+		assertNull(handler.getParams());
+		assertNull(handler.getHeaders());
+		assertNull(handler.getConsumes());
+		assertNull(handler.getProduces());
+	}
+
+	@Test
+	public void parallelSameAsSequential () throws Exception {
+		List<TypeMappings> sequential = types(40);
+		List<TypeMappings> parallel = types(40);
+		extractor.extract(sequential, 1);
+		extractor.extract(parallel, 4);
+
+		for (int i = 0; i < sequential.size(); i++) {
+			assertEquals(sequential.get(i).mappings.size(), sequential.get(i).handlers.size());
+			assertEquals(sequential.get(i).handlers, parallel.get(i).handlers);
+		}
+	}
+
+	/**
+	 * 每个 beanType 两个映射，超过单个任务的数量后会被拆分
+	 */
+	private static List<TypeMappings> types (int count) throws Exception {
+		List<TypeMappings> types = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			TypeMappings type = new TypeMappings(DemoController.class, "/type" + i);
+			type.mappings.add(new AbstractMap.SimpleEntry<>(
+					RequestMappingInfo.paths("/type" + i + "/list").methods(RequestMethod.GET).build(),
+					handlerMethod("list")));
+			type.mappings.add(new AbstractMap.SimpleEntry<>(
+					RequestMappingInfo.paths("/type" + i + "/detail", "/type" + i + "/{id}")
+					                  .params("id").produces("application/json").build(),
+					handlerMethod("detail")));
+			types.add(type);
+		}
+		return types;
+	}
+
+	private static HandlerMethod handlerMethod (String name) throws Exception {
+		return new HandlerMethod(new DemoController(), DemoController.class.getMethod(name));
+	}
+
+	private static TreeSet<String> set (String... values) {
+		return new TreeSet<>(Arrays.asList(values));
+	}
+
+	public static class DemoController {
+
+		public String list () {
+			return "list";
+		}
+
+		public String detail () {
+			return "detail";
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ConfiguredRoutesGenerator.java
+ * Date:    26-10-18 下午9:30
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route.plugin;
+
+import com.krun.spring.extend.route.generator.AbstractRoutesGenerator;
+
+import java.util.Set;
+
+/**
+ * 未指定项目中的生成器时使用，前缀、后缀与排除的类型由插件配置提供
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+class ConfiguredRoutesGenerator extends AbstractRoutesGenerator {
+
+	private String prefix = "";
+
+	private String suffix = "";
+
+	/**
+	 * 排除的类型的全限定名
+	 */
+	private Set<String> excludeTypes;
+
+	void configure (String prefix, String suffix, Set<String> excludeTypes) {
+		this.prefix = prefix == null ? "" : prefix;
+		this.suffix = suffix == null ? "" : suffix;
+		this.excludeTypes = excludeTypes;
+	}
+
+	@Override
+	protected String getPrefix () {
+		return prefix;
+	}
+
+	@Override
+	protected String getSuffix () {
+		return suffix;
+	}
+
+	@Override
+	protected boolean isExcludeType (Class<?> beanType) {
+		return excludeTypes.contains(beanType.getName());
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ExportRoutesMojo.java
+ * Date:    26-10-18 下午9:10
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route.plugin;
+
+import com.krun.spring.extend.mapping.handler.DomainMappingHandler;
+import com.krun.spring.extend.mapping.resolver.MappingNameResolver;
+import com.krun.spring.extend.route.generator.AbstractRoutesGenerator;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 在构建时生成路由树，写出 JSON 文件及其 gzip 压缩后的文件，默认写入 <code>target/classes</code>，随构件一同打包。
+ * <p>
+ * 只启动一个最小的上下文：basePackages 下的 Controller 只登记为延迟初始化的 bean 定义，不会被实例化，
+ * 上下文中只有 handler mapping 与路由生成器两个实例，不需要数据源等运行时依赖。
+ * 项目的类由以运行时类路径构造的类加载器加载，Spring、domain-mapping 与 routes-generator 使用插件自身的版本。
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+@Mojo (name = "export", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+       requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class ExportRoutesMojo extends AbstractMojo {
+
+	@Parameter (defaultValue = "${project}", readonly = true, required = true)
+	private MavenProject project;
+
+	/**
+	 * 扫描 Controller 的包，包括以 {@link Controller} 标记的注解，如 RestController 与 DomainMapping
+	 */
+	@Parameter (required = true)
+	private String[] basePackages;
+
+	/**
+	 * 项目中 AbstractRoutesGenerator 子类的全限定名，需要有无参构造方法且只依赖 handler mapping；
+	 * 未设置时使用 prefix、suffix 与 excludeTypes 配置的生成器
+	 */
+	@Parameter
+	private String generator;
+
+	@Parameter
+	private String prefix;
+
+	@Parameter
+	private String suffix;
+
+	/**
+	 * 不生成路由的类型的全限定名
+	 */
+	@Parameter
+	private String[] excludeTypes;
+
+	/**
+	 * 项目中 MappingNameResolver 实现的全限定名，需要有无参构造方法；
+	 * 设置时使用 DomainMappingHandler，否则使用 RequestMappingHandlerMapping
+	 */
+	@Parameter
+	private String nameResolver;
+
+	/**
+	 * 路由树内只允许含有这些类，未设置时写出所有路由
+	 */
+	@Parameter
+	private String[] includeClasses;
+
+	@Parameter (defaultValue = "${project.build.outputDirectory}", required = true)
+	private File outputDirectory;
+
+	/**
+	 * JSON 文件名，压缩后的文件名为其后加上 <code>.gz</code>
+	 */
+	@Parameter (defaultValue = "routes.json", required = true)
+	private String fileName;
+
+	@Parameter (property = "routes.skip", defaultValue = "false")
+	private boolean skip;
+
+	@Override
+	public void execute () throws MojoExecutionException {
+		if (skip) {
+			getLog().info("跳过路由树的生成");
+			return;
+		}
+		ClassLoader previous = Thread.currentThread().getContextClassLoader();
+		try (URLClassLoader classLoader = createClassLoader()) {
+			/* DomainMappingHandler 通过上下文类加载器读取编译期索引 */
+			Thread.currentThread().setContextClassLoader(classLoader);
+			export(classLoader);
+		} catch (IOException e) {
+			throw new MojoExecutionException("无法写出路由树", e);
+		} finally {
+			Thread.currentThread().setContextClassLoader(previous);
+		}
+	}
+
+	private void export (ClassLoader classLoader) throws MojoExecutionException, IOException {
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.setClassLoader(classLoader);
+		/* 只用于注入生成器的 handler mapping，不登记其他注解处理器，避免处理 Controller 上的 @Bean 等 */
+		context.registerBeanDefinition(AnnotationConfigUtils.AUTOWIRED_ANNOTATION_PROCESSOR_BEAN_NAME,
+		                               new RootBeanDefinition(AutowiredAnnotationBeanPostProcessor.class));
+		int controllers = registerControllers(context, classLoader);
+		context.refresh();
+		try {
+			RequestMappingHandlerMapping handlerMapping = createHandlerMapping(classLoader);
+			handlerMapping.setApplicationContext(context);
+			handlerMapping.afterPropertiesSet();
+			context.getBeanFactory().registerSingleton("requestMappingHandlerMapping", handlerMapping);
+
+			AbstractRoutesGenerator routesGenerator = createGenerator(context, classLoader);
+			try {
+				Class[] classes = resolveIncludeClasses(classLoader);
+				if (! outputDirectory.isDirectory() && ! outputDirectory.mkdirs()) {
+					throw new IOException("无法创建目录 " + outputDirectory);
+				}
+				File json = new File(outputDirectory, fileName);
+				File gzip = new File(outputDirectory, fileName + ".gz");
+				try (OutputStream out = new FileOutputStream(json)) {
+					routesGenerator.writeRoutes(classes, out, false);
+				}
+				try (OutputStream out = new FileOutputStream(gzip)) {
+					routesGenerator.writeRoutes(classes, out, true);
+				}
+				getLog().info("已生成 " + controllers + " 个 Controller 的路由树: " + json + " (" + json.length() + " 字节), "
+				              + gzip.getName() + " (" + gzip.length() + " 字节)");
+			} finally {
+				routesGenerator.destroy();
+			}
+		} finally {
+			context.close();
+		}
+	}
+
+	private URLClassLoader createClassLoader () throws MojoExecutionException {
+		List<String> elements;
+		try {
+			elements = project.getRuntimeClasspathElements();
+		} catch (DependencyResolutionRequiredException e) {
+			throw new MojoExecutionException("无法解析项目的运行时类路径", e);
+		}
+		URL[] urls = new URL[elements.size()];
+		for (int i = 0; i < urls.length; i++) {
+			try {
+				urls[i] = new File(elements.get(i)).toURI().toURL();
+			} catch (MalformedURLException e) {
+				throw new MojoExecutionException("无效的类路径 " + elements.get(i), e);
+			}
+		}
+		/* 父加载器优先，项目的类与插件共用 Spring 等类 */
+		return new URLClassLoader(urls, getClass().getClassLoader());
+	}
+
+	/**
+	 * 将 Controller 登记为延迟初始化的 bean 定义，handler mapping 只读取其类型
+	 * @return 登记的 Controller 数量
+	 */
+	private int registerControllers (GenericApplicationContext context, ClassLoader classLoader) {
+		ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+		scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+		scanner.addIncludeFilter(new AnnotationTypeFilter(Controller.class));
+		int count = 0;
+		for (String basePackage : basePackages) {
+			for (BeanDefinition definition : scanner.findCandidateComponents(basePackage)) {
+				definition.setLazyInit(true);
+				String name = definition.getBeanClassName();
+				if (! context.containsBeanDefinition(name)) {
+					context.registerBeanDefinition(name, definition);
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private RequestMappingHandlerMapping createHandlerMapping (ClassLoader classLoader) throws MojoExecutionException {
+		if (nameResolver == null) {
+			return new RequestMappingHandlerMapping();
+		}
+		return new DomainMappingHandler(instantiate(nameResolver, MappingNameResolver.class, classLoader));
+	}
+
+	/**
+	 * 由上下文创建生成器，以注入 handler mapping
+	 */
+	private AbstractRoutesGenerator createGenerator (GenericApplicationContext context, ClassLoader classLoader)
+		throws MojoExecutionException {
+		if (generator != null) {
+			Class<? extends AbstractRoutesGenerator> type = load(generator, AbstractRoutesGenerator.class, classLoader);
+			try {
+				return context.getAutowireCapableBeanFactory().createBean(type);
+			} catch (RuntimeException e) {
+				throw new MojoExecutionException("无法创建路由生成器 " + generator + "，生成器只能依赖 handler mapping", e);
+			}
+		}
+		ConfiguredRoutesGenerator configured = context.getAutowireCapableBeanFactory()
+		                                              .createBean(ConfiguredRoutesGenerator.class);
+		configured.configure(prefix, suffix, excludeTypes == null ? new HashSet<String>()
+		                                                          : new HashSet<>(Arrays.asList(excludeTypes)));
+		return configured;
+	}
+
+	private Class[] resolveIncludeClasses (ClassLoader classLoader) throws MojoExecutionException {
+		if (includeClasses == null) {
+			return new Class[0];
+		}
+		Class[] classes = new Class[includeClasses.length];
+		for (int i = 0; i < classes.length; i++) {
+			classes[i] = load(includeClasses[i], Object.class, classLoader);
+		}
+		return classes;
+	}
+
+	private static <T> T instantiate (String className, Class<T> type, ClassLoader classLoader)
+		throws MojoExecutionException {
+		try {
+			return load(className, type, classLoader).newInstance();
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new MojoExecutionException("无法实例化 " + className + "，需要有公开的无参构造方法", e);
+		}
+	}
+
+	@SuppressWarnings ("unchecked")
+	private static <T> Class<? extends T> load (String className, Class<T> type, ClassLoader classLoader)
+		throws MojoExecutionException {
+		Class<?> loaded;
+		try {
+			loaded = ClassUtils.forName(className, classLoader);
+		} catch (ClassNotFoundException | LinkageError e) {
+			throw new MojoExecutionException("找不到类 " + className, e);
+		}
+		if (! type.isAssignableFrom(loaded)) {
+			throw new MojoExecutionException(className + " 不是 " + type.getName());
+		}
+		return (Class<? extends T>) loaded;
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright © 2018 krun, All Rights Reserved.
+ * Project: SpringExtends
+ * File:      ExportRoutesMojoTest.java
+ * Date:    26-10-18 下午8:50
+ * Author: krun
+ */
+
+package com.krun.spring.extend.route.plugin;
+
+import com.krun.spring.extend.mapping.RestDomainMapping;
+import com.krun.spring.extend.mapping.resolver.impl.AbstractMappingNameResolver;
+import com.krun.spring.extend.route.generator.AbstractRoutesGenerator;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 在最小的上下文中生成路由树并写出 JSON 与 gzip 文件，Controller 不会被实例化
+ *
+ * @author krun
+ * @date 2026/10/18
+ */
+public class ExportRoutesMojoTest {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File outputDirectory;
+
+	private ExportRoutesMojo mojo;
+
+	@Before
+	public void setUp () throws Exception {
+		outputDirectory = new File(folder.getRoot(), "classes/static");
+		mojo = new ExportRoutesMojo();
+		set("project", new TestProject(folder.newFolder("runtime")));
+		set("basePackages", new String[] { ExportRoutesMojoTest.class.getPackage().getName() });
+		set("outputDirectory", outputDirectory);
+		set("fileName", "routes.json");
+	}
+
+	@Test
+	public void exportsDomainMappings () throws Exception {
+		set("nameResolver", NameResolver.class.getName());
+		set("prefix", "Demo");
+		set("suffix", "Controller");
+		mojo.execute();
+
+		String json = read("routes.json");
+		assertTrue(json.contains("/demo-order/list"));
+		assertTrue(json.contains("/demo-user/profile"));
+		assertTrue(json.contains("/items/all"));
+		/* 压缩后的文件与 JSON 文件内容一致 */
+		assertEquals(json, readGzip("routes.json.gz"));
+	}
+
+	@Test
+	public void exportsRequestMappingsWithoutNameResolver () throws Exception {
+		mojo.execute();
+
+		String json = read("routes.json");
+		assertTrue(json.contains("/items/all"));
+		assertFalse(json.contains("/demo-order/list"));
+	}
+
+	@Test
+	public void filtersTypes () throws Exception {
+		set("nameResolver", NameResolver.class.getName());
+		set("excludeTypes", new String[] { DemoUserController.class.getName() });
+		set("includeClasses", new String[] { DemoOrderController.class.getName(), DemoUserController.class.getName() });
+		set("fileName", "order.json");
+		mojo.execute();
+
+		String json = read("order.json");
+		assertTrue(json.contains("/demo-order/list"));
+		assertFalse(json.contains("/demo-user/profile"));
+		assertFalse(json.contains("/items/all"));
+	}
+
+	@Test
+	public void usesProjectGenerator () throws Exception {
+		set("nameResolver", NameResolver.class.getName());
+		set("generator", OrderRoutesGenerator.class.getName());
+		mojo.execute();
+
+		String json = read("routes.json");
+		assertTrue(json.contains("/demo-order/list"));
+		assertFalse(json.contains("/demo-user/profile"));
+		/* 生成器的前缀与后缀生效 */
+		assertTrue(json.contains("\"name\":\"order\""));
+	}
+
+	@Test
+	public void restoresContextClassLoader () throws Exception {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		set("nameResolver", NameResolver.class.getName());
+		mojo.execute();
+		assertSame(classLoader, Thread.currentThread().getContextClassLoader());
+	}
+
+	@Test
+	public void skips () throws Exception {
+		set("skip", true);
+		mojo.execute();
+		assertFalse(outputDirectory.exists());
+	}
+
+	@Test
+	public void failsOnInvalidClasses () throws Exception {
+		set("nameResolver", "com.demo.MissingNameResolver");
+		assertFails();
+
+		set("nameResolver", NameResolver.class.getName());
+		set("generator", NameResolver.class.getName());
+		assertFails();
+
+		set("generator", null);
+		set("includeClasses", new String[] { "com.demo.Missing" });
+		assertFails();
+	}
+
+	private void assertFails () {
+		try {
+			mojo.execute();
+			fail("Expected MojoExecutionException");
+		} catch (MojoExecutionException e) {
+			/* expected */
+		}
+	}
+
+	private void set (String name, Object value) throws Exception {
+		Field field = ExportRoutesMojo.class.getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(mojo, value);
+	}
+
+	private String read (String fileName) throws Exception {
+		try (InputStream in = new FileInputStream(new File(outputDirectory, fileName))) {
+			return StreamUtils.copyToString(in, UTF_8);
+		}
+	}
+
+	private String readGzip (String fileName) throws Exception {
+		try (InputStream in = new GZIPInputStream(new FileInputStream(new File(outputDirectory, fileName)))) {
+			return StreamUtils.copyToString(in, UTF_8);
+		}
+	}
+
+	/**
+	 * 测试类已在插件的类加载器中，运行时类路径只需要一个目录
+	 */
+	private static class TestProject extends MavenProject {
+
+		private final File directory;
+
+		TestProject (File directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		public List<String> getRuntimeClasspathElements () {
+			return Collections.singletonList(directory.getPath());
+		}
+	}
+
+	public static class NameResolver extends AbstractMappingNameResolver {
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+	}
+
+	public static class OrderRoutesGenerator extends AbstractRoutesGenerator {
+
+		@Override
+		protected String getPrefix () {
+			return "Demo";
+		}
+
+		@Override
+		protected String getSuffix () {
+			return "Controller";
+		}
+
+		@Override
+		protected boolean isExcludeType (Class<?> beanType) {
+			return beanType != DemoOrderController.class;
+		}
+	}
+
+	/**
+	 * 实例化时抛出异常，导出时只读取其类型
+	 */
+	@RestDomainMapping
+	public static class DemoOrderController {
+
+		public DemoOrderController () {
+			throw new IllegalStateException("Controller must not be instantiated");
+		}
+
+		public String list () {
+			return "list";
+		}
+	}
+
+	@RestDomainMapping
+	public static class DemoUserController {
+
+		public String profile () {
+			return "profile";
+		}
+	}
+
+	@Controller
+	@RequestMapping ("/items")
+	public static class ItemController {
+
+		@GetMapping ("/all")
+		public String list () {
+			return "list";
+		}
+	}
+}